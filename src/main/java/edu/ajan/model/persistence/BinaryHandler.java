@@ -0,0 +1,817 @@
+package edu.ajan.model.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.exception.WorkshopException;
+import edu.ajan.model.workshop.Workshop;
+import edu.ajan.model.workshop.common.Registry;
+import edu.ajan.model.workshop.financial.Financial;
+import edu.ajan.model.workshop.service.Scheduler;
+import edu.ajan.model.workshop.staff.MemberBase;
+import edu.ajan.model.workshop.stock.Stock;
+
+/**
+ * Classe de utilidade que serializa e salva, e carrega e deserializa arquivos
+ * no formato binário da oficina.
+ *
+ * <p> O formato é a mesma árvore de símbolos do Json, codificada por
+ * {@link BinaryJsonWriter} e lida por {@link BinaryJsonReader}, de modo que os
+ * mesmos adaptadores do Gson servem aos dois formatos. O arquivo começa com a
+ * assinatura {@code WKSB} e a versão do formato.
+ *
+ * <p> Snapshots são salvos em seções, uma para o estado da contagem de
+ * instâncias e uma para cada sistema da oficina, cada qual com sua própria
+ * tabela de textos, e o cabeçalho traz o índice das seções. Assim, o snapshot pode ser carregado mapeando o arquivo em memória e
+ * decodificando cada sistema apenas no primeiro acesso a ele. Snapshots delta,
+ * escritos por {@link DeltaHandler}, usam o mesmo formato de seções.
+ *
+ * <p> Os arquivos são escritos num arquivo temporário, forçados para o disco e
+ * só então renomeados atomicamente para o destino. Cada entrada do índice
+ * traz o CRC-32C da seção, e o arquivo termina com um
+ * rodapé com o tamanho do conteúdo, o CRC-32C do cabeçalho e a assinatura
+ * {@code WKSE}. Ao abrir o arquivo, o rodapé, o cabeçalho e as somas de todas
+ * as seções são verificados numa única passada sequencial, sem decodificar
+ * nenhuma seção, de modo que um arquivo truncado ou corrompido é rejeitado já
+ * na abertura, e o curador pode recorrer a um snapshot anterior.
+ *
+ * <p> As seções podem ser comprimidas, cada uma em separado, por um
+ * {@link SnapshotCodec}, cujo código vem logo após a versão no cabeçalho. As
+ * somas de verificação são calculadas sobre os bytes comprimidos.
+ *
+ * <p> Como as seções são independentes, elas são codificadas em paralelo ao
+ * salvar, e, quando o snapshot não é carregado preguiçosamente, os sistemas
+ * são decodificados em paralelo ao carregar, no pool comum de fork-join.
+ *
+ * @author Alan Lima
+ */
+public final class BinaryHandler {
+
+    /**
+     * Assinatura do formato, os bytes {@code WKSB}.
+     */
+    static final int MAGIC = 0x574B5342;
+
+    /**
+     * Versão do formato de snapshot dividido em seções.
+     */
+    static final short SECTIONED_VERSION = 2;
+
+    /**
+     * Versão do formato de snapshot delta, dividido em seções como o completo,
+     * mas cujo cabeçalho traz também o identificador do snapshot base.
+     */
+    static final short DELTA_VERSION = 3;
+
+    /**
+     * Assinatura do rodapé, os bytes {@code WKSE}.
+     */
+    static final int FOOTER_MAGIC = 0x574B5345;
+
+    /**
+     * Tamanho do rodapé, em bytes: tamanho do conteúdo, CRC-32C do cabeçalho e
+     * assinatura.
+     */
+    static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    /**
+     * Nome da seção do estado da contagem de instâncias.
+     */
+    static final String STATE_SECTION = "instanceCountState";
+
+    /**
+     * Nomes das seções dos sistemas da oficina, na ordem em que são escritas.
+     */
+    static final String[] WORKSHOP_SECTIONS = { "registry", "memberbase", "financial", "scheduler", "stock" };
+
+    /**
+     * Símbolo de abertura de objeto.
+     */
+    static final byte BEGIN_OBJECT = 1;
+
+    /**
+     * Símbolo de fechamento de objeto.
+     */
+    static final byte END_OBJECT = 2;
+
+    /**
+     * Símbolo de abertura de vetor.
+     */
+    static final byte BEGIN_ARRAY = 3;
+
+    /**
+     * Símbolo de fechamento de vetor.
+     */
+    static final byte END_ARRAY = 4;
+
+    /**
+     * Símbolo de nome novo, seguido do texto, que entra na tabela de textos.
+     */
+    static final byte NAME_NEW = 5;
+
+    /**
+     * Símbolo de nome já visto, seguido do índice na tabela de textos.
+     */
+    static final byte NAME_REF = 6;
+
+    /**
+     * Símbolo de texto novo, seguido do texto, que entra na tabela de textos.
+     */
+    static final byte STRING_NEW = 7;
+
+    /**
+     * Símbolo de texto já visto, seguido do índice na tabela de textos.
+     */
+    static final byte STRING_REF = 8;
+
+    /**
+     * Símbolo de inteiro, seguido do valor em zigue-zague e tamanho variável.
+     */
+    static final byte INTEGER = 9;
+
+    /**
+     * Símbolo de número de ponto flutuante, seguido de seus oito bytes.
+     */
+    static final byte DOUBLE = 10;
+
+    /**
+     * Símbolo de número literal, seguido de seu texto.
+     */
+    static final byte NUMBER = 11;
+
+    /**
+     * Símbolo do booleano verdadeiro.
+     */
+    static final byte TRUE = 12;
+
+    /**
+     * Símbolo do booleano falso.
+     */
+    static final byte FALSE = 13;
+
+    /**
+     * Símbolo do valor nulo.
+     */
+    static final byte NULL = 14;
+
+    /**
+     * Tamanho, em bytes, do buffer de escrita.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Construtor privado.
+     */
+    private BinaryHandler() {
+
+    }
+
+    /**
+     * Salva um snapshot no formato binário dividido em seções.
+     *
+     * @param snapshot snapshot a ser salvo.
+     * @param filename caminho do arquivo onde o snapshot será salvo.
+     * @return {@code true} se o snapshot foi salvo com sucesso, {@code false}
+     *         caso contrário.
+     */
+    public static boolean saveSnapshot(Snapshot snapshot, Path filename) {
+        return saveSnapshot(snapshot, filename, SnapshotCodec.NONE);
+    }
+
+    /**
+     * Salva um snapshot no formato binário dividido em seções, comprimindo
+     * cada seção por um codec.
+     *
+     * @param snapshot snapshot a ser salvo.
+     * @param filename caminho do arquivo onde o snapshot será salvo.
+     * @param codec    codec de compressão das seções.
+     * @return {@code true} se o snapshot foi salvo com sucesso, {@code false}
+     *         caso contrário.
+     */
+    public static boolean saveSnapshot(Snapshot snapshot, Path filename, SnapshotCodec codec) {
+        Gson gson = JsonHandler.gson();
+        Workshop workshop = snapshot.workshop();
+
+        try {
+            materialize(workshop);
+        } catch (WorkshopException err) {
+            return false;
+        }
+
+        SectionWriter[] writers = {
+                out -> SnapshotAdapter.writeInstanceCountState(out, snapshot.instanceCountState()),
+                out -> gson.getAdapter(Registry.class).write(out, workshop.registry()),
+                out -> gson.getAdapter(MemberBase.class).write(out, workshop.memberbase()),
+                out -> gson.getAdapter(Financial.class).write(out, workshop.financial()),
+                out -> gson.getAdapter(Scheduler.class).write(out, workshop.scheduler()),
+                out -> gson.getAdapter(Stock.class).write(out, workshop.stock()),
+        };
+
+        return writeSections(filename, SECTIONED_VERSION, codec, snapshot.timestamp(), Journal.NO_SNAPSHOT, writers);
+    }
+
+    /**
+     * Escreve um arquivo dividido em seções, uma para o estado da contagem de
+     * instâncias e uma para cada sistema da oficina, nessa ordem, seguidas do
+     * rodapé.
+     *
+     * <p> As seções são codificadas e comprimidas em paralelo, cada uma num
+     * buffer em memória, e só então escritas em ordem no arquivo. Os
+     * escritores devem ler apenas sistemas já materializados, ou cada um o seu.
+     *
+     * @param filename caminho do arquivo.
+     * @param version   versão do formato.
+     * @param codec     codec de compressão das seções.
+     * @param timestamp momento da captura do snapshot.
+     * @param baseId    identificador do snapshot base, escrito apenas na versão
+     *                  delta.
+     * @param writers   escritores das seções.
+     * @return {@code true} se o arquivo foi salvo com sucesso, {@code false}
+     *         caso contrário.
+     */
+    static boolean writeSections(Path filename, short version, SnapshotCodec codec, long timestamp, long baseId,
+            SectionWriter[] writers) {
+
+        String[] names = new String[WORKSHOP_SECTIONS.length + 1];
+        names[0] = STATE_SECTION;
+        System.arraycopy(WORKSHOP_SECTIONS, 0, names, 1, WORKSHOP_SECTIONS.length);
+
+        Path temporary = JsonHandler.getTemporaryFilepath(filename);
+
+        try {
+
+            Files.createDirectories(filename.toAbsolutePath().getParent());
+
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+                int headerSize = sectionedHeaderSize(version, names);
+                long[] offsets = new long[names.length];
+                long[] lengths = new long[names.length];
+                int[] checksums = new int[names.length];
+
+                ArrayList<Callable<ByteArrayOutputStream>> tasks = new ArrayList<>();
+                for (int i = 0; i < names.length; i++) {
+                    int index = i;
+                    tasks.add(() -> encode(writers[index], codec, checksums, index));
+                }
+
+                List<ByteArrayOutputStream> encoded = parallel(tasks);
+
+                // O índice só é conhecido ao fim, e é escrito por último
+                channel.position(headerSize);
+                OutputStream out = Channels.newOutputStream(channel);
+
+                for (int i = 0; i < names.length; i++) {
+                    offsets[i] = channel.position();
+                    encoded.get(i).writeTo(out);
+                    lengths[i] = channel.position() - offsets[i];
+
+                    // Libera a seção assim que escrita
+                    encoded.set(i, null);
+                }
+
+                ByteBuffer header = ByteBuffer.allocate(headerSize)
+                        .putInt(MAGIC)
+                        .putShort(version)
+                        .put(codec.id())
+                        .putLong(timestamp);
+
+                if (version == DELTA_VERSION) {
+                    header.putLong(baseId);
+                }
+
+                header.putShort((short) names.length);
+
+                for (int i = 0; i < names.length; i++) {
+                    byte[] name = names[i].getBytes(StandardCharsets.US_ASCII);
+                    header.put((byte) name.length).put(name).putLong(offsets[i]).putLong(lengths[i])
+                            .putInt(checksums[i]);
+                }
+
+                CRC32C crc = new CRC32C();
+                crc.update(header.flip().duplicate());
+
+                long content = channel.size();
+                ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE)
+                        .putLong(content)
+                        .putInt((int) crc.getValue())
+                        .putInt(FOOTER_MAGIC)
+                        .flip();
+
+                channel.write(header, 0);
+                channel.write(footer, content);
+                channel.force(true);
+            }
+
+            JsonHandler.replace(temporary, filename);
+
+        } catch (IOException | JsonParseException err) {
+            JsonHandler.discard(temporary);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Carrega um snapshot completo do formato binário.
+     *
+     * <p> O arquivo é mapeado em memória e tem o rodapé, o cabeçalho e as
+     * somas das seções verificados. No modo preguiçoso, apenas o estado da
+     * contagem de instâncias é decodificado, e cada sistema da oficina é
+     * decodificado no primeiro acesso a ele. No modo imediato, todos os
+     * sistemas são decodificados antes do retorno.
+     *
+     * @param filename caminho do arquivo de onde o snapshot será carregado.
+     * @param lazy     se os sistemas devem ser carregados preguiçosamente.
+     * @return snapshot carregado, ou {@code null} se não foi possível carregar.
+     */
+    public static Snapshot loadSnapshot(Path filename, boolean lazy) {
+        try {
+            Sections sections = readSections(filename);
+            if (sections == null) {
+                return null;
+            }
+
+            if (sections.isDelta()) {
+                return null;
+            }
+
+            Workshop workshop = Workshop.lazy(
+                    loader(sections, WORKSHOP_SECTIONS[0], Registry.class),
+                    loader(sections, WORKSHOP_SECTIONS[1], MemberBase.class),
+                    loader(sections, WORKSHOP_SECTIONS[2], Financial.class),
+                    loader(sections, WORKSHOP_SECTIONS[3], Scheduler.class),
+                    loader(sections, WORKSHOP_SECTIONS[4], Stock.class));
+
+            if (!lazy) {
+                materialize(workshop);
+            }
+
+            return new Snapshot(workshop, sections.state(), sections.timestamp);
+
+        } catch (IOException | JsonParseException | IllegalStateException | BufferUnderflowException
+                | WorkshopException err) {
+            return null;
+        }
+    }
+
+    /**
+     * Verifica, sem decodificar nenhuma seção, se um arquivo do formato binário
+     * está íntegro: o rodapé, o cabeçalho e a soma de cada seção.
+     *
+     * @param filename caminho do arquivo.
+     * @return {@code true} se o arquivo estiver íntegro.
+     */
+    public static boolean validate(Path filename) {
+        try {
+            return readSections(filename) != null;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException err) {
+            return false;
+        }
+    }
+
+    /**
+     * Mapeia um arquivo do formato binário em memória e lê o seu cabeçalho. O
+     * índice de seções só é lido depois de verificado o rodapé, e o cabeçalho
+     * e cada seção têm a sua soma verificada antes do retorno.
+     *
+     * @param filename caminho do arquivo.
+     * @return seções do arquivo, ou {@code null} se o arquivo não puder ser
+     *         lido, não estiver no formato binário, for de uma versão
+     *         desconhecida ou estiver corrompido.
+     * @throws BufferUnderflowException se o cabeçalho estiver truncado.
+     */
+    static Sections readSections(Path filename) {
+        MappedByteBuffer map;
+
+        try (FileChannel channel = FileChannel.open(filename, StandardOpenOption.READ)) {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException err) {
+            return null;
+        }
+
+        if (map.getInt() != MAGIC) {
+            return null;
+        }
+
+        Sections sections = new Sections(map.getShort());
+        if (!sections.isSectioned()) {
+            return null;
+        }
+
+        int content = map.capacity() - FOOTER_SIZE;
+        if (content < map.position()) {
+            return null;
+        }
+
+        ByteBuffer footer = map.slice(content, FOOTER_SIZE);
+        if (footer.getLong() != content) {
+            return null;
+        }
+
+        int headerChecksum = footer.getInt();
+        if (footer.getInt() != FOOTER_MAGIC) {
+            return null;
+        }
+
+        sections.codec = SnapshotCodec.valueOf(map.get());
+        if (sections.codec == null) {
+            return null;
+        }
+
+        sections.timestamp = map.getLong();
+        if (sections.isDelta()) {
+            sections.baseId = map.getLong();
+        }
+
+        int count = map.getShort();
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[map.get() & 0xFF];
+            map.get(name);
+
+            long offset = map.getLong();
+            long length = map.getLong();
+            int checksum = map.getInt();
+            if (offset < 0 || length < 0 || offset + length > content) {
+                return null;
+            }
+
+            String key = new String(name, StandardCharsets.US_ASCII);
+            sections.buffers.put(key, map.slice((int) offset, (int) length));
+            sections.checksums.put(key, checksum);
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(map.slice(0, map.position()));
+        if ((int) crc.getValue() != headerChecksum) {
+            return null;
+        }
+
+        for (String name : sections.buffers.keySet()) {
+            crc.reset();
+            crc.update(sections.buffers.get(name).duplicate());
+            if ((int) crc.getValue() != sections.checksums.get(name)) {
+                return null;
+            }
+        }
+
+        return sections;
+    }
+
+    /**
+     * Cria o carregador de um sistema a partir de sua seção.
+     *
+     * @param <T>      tipo do sistema.
+     * @param sections seções do arquivo.
+     * @param name     nome da seção do sistema.
+     * @param type     classe do sistema.
+     * @return carregador do sistema.
+     */
+    private static <T> Supplier<T> loader(Sections sections, String name, Class<T> type) {
+        if (sections.get(name) == null) {
+            return () -> null;
+        }
+
+        return () -> decode(sections, name, type.getSimpleName(),
+                in -> JsonHandler.gson().getAdapter(type).read(in));
+    }
+
+    /**
+     * Decodifica uma seção, descomprimindo-a se preciso e preservando a
+     * contagem de instâncias.
+     *
+     * @param <T>      tipo do resultado.
+     * @param sections seções do arquivo.
+     * @param name     nome da seção.
+     * @param label    nome do conteúdo da seção, usado na mensagem de erro.
+     * @param reader   leitor da seção.
+     * @return resultado da leitura.
+     * @throws WorkshopException se a seção estiver corrompida.
+     */
+    static <T> T decode(Sections sections, String name, String label, SectionReader<T> reader) {
+        // Os construtores usados na leitura avançam a contagem de instâncias, que
+        // a esta altura já foi restaurada e não deve ser alterada
+        InstanceCountState state = InstanceCountState.capture();
+
+        try {
+            return reader.read(new BinaryJsonReader(sections.open(name)));
+        } catch (IOException | JsonParseException | IllegalStateException | BufferUnderflowException err) {
+            throw new WorkshopException("seção corrompida no snapshot: %s", label);
+        } finally {
+            InstanceCountState.restore(state);
+        }
+    }
+
+    /**
+     * Codifica uma seção num buffer em memória, comprimindo-a por um codec.
+     *
+     * @param writer    escritor da seção.
+     * @param codec     codec de compressão.
+     * @param checksums CRC-32C das seções, onde o da seção é guardado.
+     * @param index     índice da seção.
+     * @return bytes da seção, já comprimidos.
+     * @throws IOException se houver falha de escrita.
+     */
+    private static ByteArrayOutputStream encode(SectionWriter writer, SnapshotCodec codec, int[] checksums,
+            int index) throws IOException {
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+        CRC32C crc = new CRC32C();
+
+        BinaryJsonWriter out = new BinaryJsonWriter(new BufferedOutputStream(
+                codec.encode(new CheckedOutputStream(buffer, crc)), BUFFER_SIZE));
+        out.setSerializeNulls(false);
+        writer.write(out);
+
+        // Termina a compressão da seção
+        out.close();
+
+        checksums[index] = (int) crc.getValue();
+        return buffer;
+    }
+
+    /**
+     * Materializa todos os sistemas de uma oficina em paralelo, cada um numa
+     * tarefa do pool comum de fork-join. Como cada carregador só acessa o seu
+     * sistema, eles podem ser executados ao mesmo tempo; a contagem de
+     * instâncias, que os carregadores preservam cada um por si, é preservada
+     * também em conjunto.
+     *
+     * @param workshop oficina.
+     * @throws WorkshopException se algum sistema não puder ser carregado.
+     */
+    static void materialize(Workshop workshop) {
+        if (workshop.isMaterialized()) {
+            return;
+        }
+
+        InstanceCountState state = InstanceCountState.capture();
+
+        try {
+            parallel(List.<Callable<Object>>of(
+                    workshop::registry,
+                    workshop::memberbase,
+                    workshop::financial,
+                    workshop::scheduler,
+                    workshop::stock));
+        } catch (IOException err) {
+            throw new WorkshopException("falha ao carregar o snapshot");
+        } finally {
+            InstanceCountState.restore(state);
+        }
+    }
+
+    /**
+     * Executa tarefas em paralelo no pool comum de fork-join, esperando todas
+     * terminarem.
+     *
+     * @param <T>   tipo do resultado das tarefas.
+     * @param tasks tarefas.
+     * @return resultados das tarefas, na ordem das tarefas.
+     * @throws IOException se alguma tarefa lançar {@link IOException}, ou se a
+     *                     espera for interrompida.
+     */
+    static <T> List<T> parallel(List<? extends Callable<T>> tasks) throws IOException {
+        List<Future<T>> futures = ForkJoinPool.commonPool().invokeAll(tasks);
+        ArrayList<T> results = new ArrayList<>(futures.size());
+
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException err) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException err) {
+                Throwable cause = err.getCause();
+                if (cause instanceof IOException io) {
+                    throw io;
+                }
+                if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+
+                throw new IOException(cause);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Calcula o tamanho do cabeçalho do formato dividido em seções.
+     *
+     * @param version versão do formato.
+     * @param names   nomes das seções.
+     * @return tamanho do cabeçalho, em bytes.
+     */
+    private static int sectionedHeaderSize(short version, String[] names) {
+        int size = Integer.BYTES + Short.BYTES + Byte.BYTES + Long.BYTES + Short.BYTES;
+        if (version == DELTA_VERSION) {
+            size += Long.BYTES;
+        }
+
+        for (String name : names) {
+            size += Byte.BYTES + name.length() + Long.BYTES + Long.BYTES + Integer.BYTES;
+        }
+
+        return size;
+    }
+
+    /**
+     * Retorna uma representação textual do manipulador binário.
+     *
+     * @return representação textual do manipulador binário.
+     */
+    @Override
+    public String toString() {
+        return "()";
+    }
+
+    /**
+     * Interface funcional de escrita de uma seção.
+     */
+    @FunctionalInterface
+    interface SectionWriter {
+
+        /**
+         * Escreve o conteúdo da seção.
+         *
+         * @param out escritor binário.
+         * @throws IOException se houver falha de escrita.
+         */
+        void write(JsonWriter out) throws IOException;
+    }
+
+    /**
+     * Interface funcional de leitura de uma seção.
+     *
+     * @param <T> tipo do resultado.
+     */
+    @FunctionalInterface
+    interface SectionReader<T> {
+
+        /**
+         * Lê o conteúdo da seção.
+         *
+         * @param in leitor binário.
+         * @return resultado da leitura.
+         * @throws IOException se houver falha de leitura.
+         */
+        T read(JsonReader in) throws IOException;
+    }
+
+    /**
+     * Classe que representa o cabeçalho e as seções de um arquivo binário
+     * mapeado em memória.
+     */
+    static final class Sections {
+
+        /**
+         * Versão do formato.
+         */
+        final short version;
+
+        /**
+         * Momento da captura do snapshot.
+         */
+        long timestamp;
+
+        /**
+         * Identificador do snapshot base, na versão delta.
+         */
+        long baseId;
+
+        /**
+         * Codec de compressão das seções.
+         */
+        SnapshotCodec codec;
+
+        /**
+         * Bytes de cada seção, indexados pelo nome.
+         */
+        final HashMap<String, ByteBuffer> buffers;
+
+        /**
+         * CRC-32C de cada seção, indexado pelo nome.
+         */
+        final HashMap<String, Integer> checksums;
+
+        /**
+         * Construtor parametrizado.
+         *
+         * @param version versão do formato.
+         */
+        private Sections(short version) {
+            this.version = version;
+            this.baseId = Journal.NO_SNAPSHOT;
+            this.codec = SnapshotCodec.NONE;
+            this.buffers = new HashMap<>();
+            this.checksums = new HashMap<>();
+        }
+
+        /**
+         * Verifica se a versão do arquivo é conhecida, de um snapshot completo
+         * ou delta dividido em seções.
+         *
+         * @return {@code true} se o arquivo for um snapshot completo ou delta
+         *         dividido em seções.
+         */
+        boolean isSectioned() {
+            return version == SECTIONED_VERSION || version == DELTA_VERSION;
+        }
+
+        /**
+         * Verifica se o arquivo é um snapshot delta.
+         *
+         * @return {@code true} se o arquivo for um snapshot delta.
+         */
+        boolean isDelta() {
+            return version == DELTA_VERSION;
+        }
+
+        /**
+         * Retorna os bytes de uma seção, descomprimidos. A soma da seção já foi
+         * verificada por {@link BinaryHandler#readSections(Path)}, e cada seção
+         * é descomprimida apenas quando o seu conteúdo é decodificado.
+         *
+         * @param name nome da seção.
+         * @return bytes da seção, ou {@code null} se ela não existir.
+         * @throws IOException se a seção não puder ser descomprimida.
+         */
+        ByteBuffer open(String name) throws IOException {
+            ByteBuffer section = buffers.get(name);
+            if (section == null) {
+                return null;
+            }
+
+            if (codec == SnapshotCodec.NONE) {
+                return section.duplicate();
+            }
+
+            byte[] stored = new byte[section.remaining()];
+            section.duplicate().get(stored);
+
+            try (InputStream in = codec.decode(new ByteArrayInputStream(stored))) {
+                return ByteBuffer.wrap(in.readAllBytes());
+            }
+        }
+
+        /**
+         * Retorna os bytes de uma seção.
+         *
+         * @param name nome da seção.
+         * @return bytes da seção, ou {@code null} se ela não existir.
+         */
+        ByteBuffer get(String name) {
+            return buffers.get(name);
+        }
+
+        /**
+         * Lê o estado da contagem de instâncias.
+         *
+         * @return estado da contagem de instâncias, ou {@code null} se a seção
+         *         não existir.
+         * @throws IOException se a seção estiver corrompida.
+         */
+        InstanceCountState state() throws IOException {
+            ByteBuffer section = open(STATE_SECTION);
+            return section != null
+                    ? SnapshotAdapter.readInstanceCountState(new BinaryJsonReader(section))
+                    : null;
+        }
+    }
+}
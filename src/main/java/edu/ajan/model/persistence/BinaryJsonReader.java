@@ -0,0 +1,485 @@
+package edu.ajan.model.persistence;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Leitor do formato binário da oficina, que entrega a mesma sequência de
+ * símbolos que um {@link JsonReader} entregaria a partir do texto equivalente.
+ *
+ * <p> Por estender {@link JsonReader}, todos os adaptadores do Gson que usam
+ * apenas a interface pública do leitor funcionam sem alteração. Os números são
+ * convertidos entre si como o leitor de texto faria, de modo que um campo
+ * {@code double} pode ser lido de um inteiro e vice-versa.
+ *
+ * @see BinaryJsonWriter
+ *
+ * @author Alan Lima
+ */
+final class BinaryJsonReader extends JsonReader {
+
+    /**
+     * Marca de que nenhum símbolo foi espiado.
+     */
+    private static final int PEEKED_NONE = -1;
+
+    /**
+     * Marca de fim do documento.
+     */
+    private static final int PEEKED_END = -2;
+
+    /**
+     * Bytes do documento, do corpo até o fim.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Tabela de textos já lidos, na ordem de ocorrência.
+     */
+    private final ArrayList<String> strings;
+
+    /**
+     * Símbolo espiado, ainda não consumido.
+     */
+    private int peeked;
+
+    /**
+     * Texto do símbolo espiado, se for um nome, texto ou número literal.
+     */
+    private String peekedString;
+
+    /**
+     * Valor do símbolo espiado, se for um inteiro.
+     */
+    private long peekedLong;
+
+    /**
+     * Valor do símbolo espiado, se for um número de ponto flutuante.
+     */
+    private double peekedDouble;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param buffer bytes do documento, posicionados no início do corpo e
+     *               limitados ao seu fim.
+     */
+    BinaryJsonReader(ByteBuffer buffer) {
+        super(Reader.nullReader());
+        this.buffer = buffer;
+        this.strings = new ArrayList<>();
+        this.peeked = PEEKED_NONE;
+    }
+
+    /**
+     * Consome a abertura de um vetor.
+     *
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public void beginArray() throws IOException {
+        expect(BinaryHandler.BEGIN_ARRAY, JsonToken.BEGIN_ARRAY);
+    }
+
+    /**
+     * Consome o fechamento de um vetor.
+     *
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public void endArray() throws IOException {
+        expect(BinaryHandler.END_ARRAY, JsonToken.END_ARRAY);
+    }
+
+    /**
+     * Consome a abertura de um objeto.
+     *
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public void beginObject() throws IOException {
+        expect(BinaryHandler.BEGIN_OBJECT, JsonToken.BEGIN_OBJECT);
+    }
+
+    /**
+     * Consome o fechamento de um objeto.
+     *
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public void endObject() throws IOException {
+        expect(BinaryHandler.END_OBJECT, JsonToken.END_OBJECT);
+    }
+
+    /**
+     * Verifica se o contêiner atual tem mais elementos.
+     *
+     * @return {@code true} se, e somente se houver mais elementos.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public boolean hasNext() throws IOException {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+
+    /**
+     * Retorna o tipo do próximo símbolo, sem consumi-lo.
+     *
+     * @return tipo do próximo símbolo.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public JsonToken peek() throws IOException {
+        if (peeked == PEEKED_NONE) {
+            fill();
+        }
+
+        return switch (peeked) {
+            case PEEKED_END -> JsonToken.END_DOCUMENT;
+            case BinaryHandler.BEGIN_OBJECT -> JsonToken.BEGIN_OBJECT;
+            case BinaryHandler.END_OBJECT -> JsonToken.END_OBJECT;
+            case BinaryHandler.BEGIN_ARRAY -> JsonToken.BEGIN_ARRAY;
+            case BinaryHandler.END_ARRAY -> JsonToken.END_ARRAY;
+            case BinaryHandler.NAME_NEW, BinaryHandler.NAME_REF -> JsonToken.NAME;
+            case BinaryHandler.STRING_NEW, BinaryHandler.STRING_REF -> JsonToken.STRING;
+            case BinaryHandler.INTEGER, BinaryHandler.DOUBLE, BinaryHandler.NUMBER -> JsonToken.NUMBER;
+            case BinaryHandler.TRUE, BinaryHandler.FALSE -> JsonToken.BOOLEAN;
+            case BinaryHandler.NULL -> JsonToken.NULL;
+            default -> throw new MalformedJsonException("símbolo desconhecido: " + peeked);
+        };
+    }
+
+    /**
+     * Consome e retorna o nome do próximo valor de um objeto.
+     *
+     * @return nome do valor.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public String nextName() throws IOException {
+        if (peek() != JsonToken.NAME) {
+            throw unexpected("um nome");
+        }
+
+        peeked = PEEKED_NONE;
+        return peekedString;
+    }
+
+    /**
+     * Consome e retorna um texto. Números são convertidos para texto.
+     *
+     * @return texto.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public String nextString() throws IOException {
+        peek();
+
+        String value = switch (peeked) {
+            case BinaryHandler.STRING_NEW, BinaryHandler.STRING_REF, BinaryHandler.NUMBER -> peekedString;
+            case BinaryHandler.INTEGER -> Long.toString(peekedLong);
+            case BinaryHandler.DOUBLE -> Double.toString(peekedDouble);
+            default -> throw unexpected("um texto");
+        };
+
+        peeked = PEEKED_NONE;
+        return value;
+    }
+
+    /**
+     * Consome e retorna um booleano.
+     *
+     * @return booleano.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public boolean nextBoolean() throws IOException {
+        if (peek() != JsonToken.BOOLEAN) {
+            throw unexpected("um booleano");
+        }
+
+        boolean value = peeked == BinaryHandler.TRUE;
+        peeked = PEEKED_NONE;
+        return value;
+    }
+
+    /**
+     * Consome o valor nulo.
+     *
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public void nextNull() throws IOException {
+        expect(BinaryHandler.NULL, JsonToken.NULL);
+    }
+
+    /**
+     * Consome e retorna um número de ponto flutuante.
+     *
+     * @return número.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public double nextDouble() throws IOException {
+        peek();
+
+        double value = switch (peeked) {
+            case BinaryHandler.INTEGER -> (double) peekedLong;
+            case BinaryHandler.DOUBLE -> peekedDouble;
+            case BinaryHandler.STRING_NEW, BinaryHandler.STRING_REF, BinaryHandler.NUMBER ->
+                Double.parseDouble(peekedString);
+            default -> throw unexpected("um número");
+        };
+
+        peeked = PEEKED_NONE;
+        return value;
+    }
+
+    /**
+     * Consome e retorna um inteiro longo.
+     *
+     * @return inteiro.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public long nextLong() throws IOException {
+        peek();
+
+        long value = switch (peeked) {
+            case BinaryHandler.INTEGER -> peekedLong;
+            case BinaryHandler.DOUBLE -> exactLong(peekedDouble);
+            case BinaryHandler.STRING_NEW, BinaryHandler.STRING_REF, BinaryHandler.NUMBER -> parseLong(peekedString);
+            default -> throw unexpected("um número");
+        };
+
+        peeked = PEEKED_NONE;
+        return value;
+    }
+
+    /**
+     * Consome e retorna um inteiro.
+     *
+     * @return inteiro.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if ((int) value != value) {
+            throw new NumberFormatException("inteiro fora do intervalo: " + value);
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Pula o próximo valor, inteiro, inclusive contêineres aninhados.
+     *
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public void skipValue() throws IOException {
+        int depth = 0;
+
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT, BEGIN_ARRAY -> depth++;
+                case END_OBJECT, END_ARRAY -> depth--;
+                case END_DOCUMENT -> {
+                    return;
+                }
+                default -> {
+                    // Valores simples e nomes não alteram a profundidade
+                }
+            }
+
+            peeked = PEEKED_NONE;
+        } while (depth > 0);
+    }
+
+    /**
+     * Fecha o leitor. Os bytes pertencem a quem os forneceu, nada a liberar.
+     */
+    @Override
+    public void close() {
+        peeked = PEEKED_END;
+    }
+
+    /**
+     * Retorna o caminho até o valor atual. O leitor binário não o rastreia, e
+     * retorna a posição em bytes.
+     *
+     * @return posição do leitor.
+     */
+    @Override
+    public String getPath() {
+        return "$@" + buffer.position();
+    }
+
+    /**
+     * Retorna uma representação textual do leitor.
+     *
+     * @return representação textual do leitor.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%s %d)", getClass().getSimpleName(), buffer.position());
+    }
+
+    /**
+     * Lê o próximo símbolo do buffer e o guarda como espiado.
+     *
+     * @throws IOException se houver falha de leitura.
+     */
+    private void fill() throws IOException {
+        if (!buffer.hasRemaining()) {
+            peeked = PEEKED_END;
+            return;
+        }
+
+        try {
+            peeked = buffer.get();
+
+            switch (peeked) {
+                case BinaryHandler.NAME_NEW, BinaryHandler.STRING_NEW -> {
+                    peekedString = readBytes();
+                    strings.add(peekedString);
+                }
+                case BinaryHandler.NAME_REF, BinaryHandler.STRING_REF -> {
+                    long index = readVarint();
+                    if (index < 0 || index >= strings.size()) {
+                        throw new MalformedJsonException("referência de texto inválida: " + index);
+                    }
+                    peekedString = strings.get((int) index);
+                }
+                case BinaryHandler.NUMBER -> peekedString = readBytes();
+                case BinaryHandler.INTEGER -> {
+                    long zigzag = readVarint();
+                    peekedLong = (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+                case BinaryHandler.DOUBLE -> peekedDouble = buffer.getDouble();
+                default -> {
+                    // Símbolos sem conteúdo
+                }
+            }
+
+        } catch (BufferUnderflowException err) {
+            throw new EOFException("fim inesperado do documento binário");
+        }
+    }
+
+    /**
+     * Consome o símbolo esperado.
+     *
+     * @param tag   símbolo esperado.
+     * @param token tipo do símbolo esperado, para a mensagem de erro.
+     * @throws IOException se houver falha de leitura.
+     */
+    private void expect(byte tag, JsonToken token) throws IOException {
+        peek();
+        if (peeked != tag) {
+            throw unexpected(token.name());
+        }
+
+        peeked = PEEKED_NONE;
+    }
+
+    /**
+     * Cria a exceção de símbolo inesperado.
+     *
+     * @param expected descrição do símbolo esperado.
+     * @return exceção criada.
+     * @throws IOException se houver falha de leitura.
+     */
+    private IllegalStateException unexpected(String expected) throws IOException {
+        return new IllegalStateException(String.format("esperado %s, mas há %s em %s", expected, peek(), getPath()));
+    }
+
+    /**
+     * Lê um texto prefixado pelo seu tamanho, em bytes UTF-8.
+     *
+     * @return texto lido.
+     * @throws IOException se houver falha de leitura.
+     */
+    private String readBytes() throws IOException {
+        long length = readVarint();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new EOFException("texto além do fim do documento binário");
+        }
+
+        int size = (int) length;
+        if (buffer.hasArray()) {
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), size,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + size);
+            return value;
+        }
+
+        byte[] bytes = new byte[size];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lê um inteiro sem sinal de tamanho variável, sete bits por byte.
+     *
+     * @return inteiro lido.
+     * @throws IOException se o inteiro estiver malformado.
+     */
+    private long readVarint() throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new MalformedJsonException("inteiro de tamanho variável malformado");
+    }
+
+    /**
+     * Converte um número de ponto flutuante em inteiro, sem perda.
+     *
+     * @param value número.
+     * @return inteiro equivalente.
+     * @throws NumberFormatException se o número não for inteiro.
+     */
+    private static long exactLong(double value) {
+        long result = (long) value;
+        if (result != value) {
+            throw new NumberFormatException("número não inteiro: " + value);
+        }
+
+        return result;
+    }
+
+    /**
+     * Converte um texto em inteiro, aceitando também a notação de ponto
+     * flutuante de um número inteiro.
+     *
+     * @param text texto do número.
+     * @return inteiro equivalente.
+     * @throws NumberFormatException se o texto não for um inteiro.
+     */
+    private static long parseLong(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException err) {
+            return exactLong(Double.parseDouble(text));
+        }
+    }
+}
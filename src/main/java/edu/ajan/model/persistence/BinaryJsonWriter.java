@@ -0,0 +1,395 @@
+package edu.ajan.model.persistence;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Escritor que emite, no formato binário da oficina, a mesma sequência de
+ * símbolos que um {@link JsonWriter} emitiria em texto.
+ *
+ * <p> Por estender {@link JsonWriter}, todos os adaptadores do Gson, inclusive
+ * os escritos à mão, escrevem neste formato sem alteração. Inteiros são
+ * escritos como inteiros de tamanho variável, números de ponto flutuante em
+ * oito bytes, e cada nome ou texto é escrito por inteiro apenas na primeira
+ * ocorrência, sendo as demais referências à tabela de textos.
+ *
+ * @author Alan Lima
+ */
+final class BinaryJsonWriter extends JsonWriter {
+
+    /**
+     * Maior inteiro que um {@code double} representa sem perda.
+     */
+    private static final double MAX_EXACT_INTEGER = 1L << 53;
+
+    /**
+     * Fluxo de saída dos bytes.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Tabela de textos já escritos, indexados pela ordem de ocorrência.
+     */
+    private final HashMap<String, Integer> strings;
+
+    /**
+     * Nome ainda não escrito, adiado até que se saiba se o valor é nulo.
+     */
+    private String deferredName;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param out fluxo de saída dos bytes.
+     */
+    BinaryJsonWriter(OutputStream out) {
+        super(Writer.nullWriter());
+        this.out = new DataOutputStream(out);
+        this.strings = new HashMap<>();
+        this.deferredName = null;
+    }
+
+    /**
+     * Abre um vetor.
+     *
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        writeDeferredName();
+        out.writeByte(BinaryHandler.BEGIN_ARRAY);
+        return this;
+    }
+
+    /**
+     * Fecha um vetor.
+     *
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter endArray() throws IOException {
+        out.writeByte(BinaryHandler.END_ARRAY);
+        return this;
+    }
+
+    /**
+     * Abre um objeto.
+     *
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        writeDeferredName();
+        out.writeByte(BinaryHandler.BEGIN_OBJECT);
+        return this;
+    }
+
+    /**
+     * Fecha um objeto.
+     *
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter endObject() throws IOException {
+        deferredName = null;
+        out.writeByte(BinaryHandler.END_OBJECT);
+        return this;
+    }
+
+    /**
+     * Define o nome do próximo valor de um objeto.
+     *
+     * @param name nome do valor.
+     * @return este escritor.
+     */
+    @Override
+    public JsonWriter name(String name) {
+        if (name == null) {
+            throw new NullPointerException("name");
+        }
+
+        if (deferredName != null) {
+            throw new IllegalStateException("nome já definido: " + deferredName);
+        }
+
+        deferredName = name;
+        return this;
+    }
+
+    /**
+     * Escreve um texto.
+     *
+     * @param value texto, possivelmente nulo.
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+
+        writeDeferredName();
+        writeString(BinaryHandler.STRING_NEW, BinaryHandler.STRING_REF, value);
+        return this;
+    }
+
+    /**
+     * Escreve um valor Json já codificado como texto. O texto é preservado
+     * como um número literal.
+     *
+     * @param value valor codificado, possivelmente nulo.
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+
+        writeDeferredName();
+        writeNumberText(value);
+        return this;
+    }
+
+    /**
+     * Escreve o valor nulo. Se o valor pertencer a um objeto e o escritor não
+     * serializar nulos, o nome e o valor são omitidos.
+     *
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        if (deferredName != null && !getSerializeNulls()) {
+            deferredName = null;
+            return this;
+        }
+
+        writeDeferredName();
+        out.writeByte(BinaryHandler.NULL);
+        return this;
+    }
+
+    /**
+     * Escreve um booleano.
+     *
+     * @param value booleano.
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        writeDeferredName();
+        out.writeByte(value ? BinaryHandler.TRUE : BinaryHandler.FALSE);
+        return this;
+    }
+
+    /**
+     * Escreve um booleano.
+     *
+     * @param value booleano, possivelmente nulo.
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+
+        return value((boolean) value);
+    }
+
+    /**
+     * Escreve um número de ponto flutuante.
+     *
+     * @param value número.
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter value(float value) throws IOException {
+        return value((double) value);
+    }
+
+    /**
+     * Escreve um número de ponto flutuante. Números inteiros que o
+     * {@code double} representa sem perda são escritos como inteiros.
+     *
+     * @param value número.
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        writeDeferredName();
+
+        boolean negativeZero = value == 0 && Double.doubleToRawLongBits(value) != 0;
+        if (value == Math.rint(value) && Math.abs(value) < MAX_EXACT_INTEGER && !negativeZero) {
+            writeInteger((long) value);
+        } else {
+            out.writeByte(BinaryHandler.DOUBLE);
+            out.writeDouble(value);
+        }
+
+        return this;
+    }
+
+    /**
+     * Escreve um inteiro.
+     *
+     * @param value inteiro.
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        writeDeferredName();
+        writeInteger(value);
+        return this;
+    }
+
+    /**
+     * Escreve um número qualquer.
+     *
+     * @param value número, possivelmente nulo.
+     * @return este escritor.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return value(value.longValue());
+        }
+
+        if (value instanceof Double || value instanceof Float) {
+            return value(value.doubleValue());
+        }
+
+        writeDeferredName();
+        writeNumberText(value.toString());
+        return this;
+    }
+
+    /**
+     * Descarrega o fluxo de saída.
+     *
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Descarrega e fecha o fluxo de saída.
+     *
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Escreve o nome adiado, se houver.
+     *
+     * @throws IOException se houver falha de escrita.
+     */
+    private void writeDeferredName() throws IOException {
+        if (deferredName == null) {
+            return;
+        }
+
+        writeString(BinaryHandler.NAME_NEW, BinaryHandler.NAME_REF, deferredName);
+        deferredName = null;
+    }
+
+    /**
+     * Escreve um texto, por inteiro se for a primeira ocorrência, ou como
+     * referência à tabela de textos caso contrário.
+     *
+     * @param newTag símbolo de texto novo.
+     * @param refTag símbolo de referência a texto.
+     * @param value  texto.
+     * @throws IOException se houver falha de escrita.
+     */
+    private void writeString(byte newTag, byte refTag, String value) throws IOException {
+        Integer index = strings.get(value);
+        if (index != null) {
+            out.writeByte(refTag);
+            writeVarint(index);
+            return;
+        }
+
+        strings.put(value, strings.size());
+
+        out.writeByte(newTag);
+        writeBytes(value);
+    }
+
+    /**
+     * Escreve um número literal, guardado como texto.
+     *
+     * @param text texto do número.
+     * @throws IOException se houver falha de escrita.
+     */
+    private void writeNumberText(String text) throws IOException {
+        out.writeByte(BinaryHandler.NUMBER);
+        writeBytes(text);
+    }
+
+    /**
+     * Escreve um texto prefixado pelo seu tamanho, em bytes UTF-8.
+     *
+     * @param value texto.
+     * @throws IOException se houver falha de escrita.
+     */
+    private void writeBytes(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Escreve um inteiro com sinal, em zigue-zague e tamanho variável.
+     *
+     * @param value inteiro.
+     * @throws IOException se houver falha de escrita.
+     */
+    private void writeInteger(long value) throws IOException {
+        out.writeByte(BinaryHandler.INTEGER);
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Escreve um inteiro sem sinal em tamanho variável, sete bits por byte.
+     *
+     * @param value inteiro, interpretado sem sinal.
+     * @throws IOException se houver falha de escrita.
+     */
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.writeByte((int) value);
+    }
+}
@@ -1,9 +1,20 @@
 package edu.ajan.model.persistence;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Stack;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.gson.reflect.TypeToken;
 
+import edu.ajan.model.exception.WorkshopException;
+
 /**
  * Classe que representa o curador de snapshots.
  * 
@@ -17,14 +28,51 @@ public class Caretaker {
     private static final TypeToken<Caretaker> CARETAKER_TYPE = new TypeToken<>() {};
 
     /**
-     * Tipo de dado para serialização de snapshots.
+     * Pilha que armazena os identificadores dos snapshots salvos.
      */
-    private static final TypeToken<Snapshot> SNAPSHOT_TYPE = new TypeToken<>() {};
+    private Stack<Long> history;
 
     /**
-     * Pilha que armazena os identificadores dos snapshots salvos.
+     * Formato em que os novos snapshots são salvos. O formato Json, legado, é
+     * ignorado, e os novos snapshots são salvos no formato binário.
      */
-    private Stack<Long> history;
+    private SnapshotFormat format;
+
+    /**
+     * Nome do codec de compressão com que os novos snapshots são salvos.
+     */
+    private String codec;
+
+    /**
+     * Indica se os snapshots são carregados preguiçosamente, com cada sistema
+     * da oficina materializado apenas no primeiro acesso.
+     */
+    private boolean lazy;
+
+    /**
+     * Política de retenção aplicada na poda dos snapshots. Sem uma política
+     * configurada, todos os snapshots são retidos.
+     */
+    private RetentionPolicy retention;
+
+    /**
+     * Snapshot base de cada snapshot delta, indexado pelo identificador do
+     * delta.
+     */
+    private HashMap<Long, Long> bases;
+
+    /**
+     * Resumo das entidades do último snapshot salvo nesta execução, base do
+     * próximo snapshot delta. É descartado ao reiniciar, de modo que o primeiro
+     * snapshot de cada execução é completo.
+     */
+    private transient EntityDigest digest;
+
+    /**
+     * Último identificador gerado nesta execução, para que os identificadores
+     * sejam estritamente crescentes mesmo dentro de um mesmo milissegundo.
+     */
+    private transient long lastId;
 
     /**
      * Curador de snapshots, responsável por gerenciar o estado da oficina.
@@ -36,6 +84,11 @@ public class Caretaker {
      */
     private Caretaker() {
         this.history = new Stack<>();
+        this.format = SnapshotFormat.BINARY;
+        this.codec = SnapshotCodec.NONE.name();
+        this.lazy = true;
+        this.retention = RetentionPolicy.KEEP_ALL;
+        this.bases = new HashMap<>();
     }
 
     /**
@@ -48,15 +101,113 @@ public class Caretaker {
     }
 
     /**
-     * Salva um snapshot do estado atual da oficina.
+     * Salva um snapshot do estado atual da oficina, no formato do curador.
      * 
      * @param snapshot o snapshot a ser salvo.
+     * @return {@code true} se o snapshot foi salvo com sucesso, {@code false}
+     *         caso contrário.
      */
-    public void saveSnapshot(Snapshot snapshot) {
+    public boolean saveSnapshot(Snapshot snapshot) {
+        return saveSnapshot(snapshot, getFormat());
+    }
+
+    /**
+     * Salva um snapshot do estado atual da oficina num certo formato. Um
+     * snapshot salvo no formato Json, como numa exportação, não tem a sua
+     * integridade verificada ao ser lido.
+     * 
+     * @param snapshot o snapshot a ser salvo.
+     * @param format   o formato em que o snapshot será salvo.
+     * @return {@code true} se o snapshot foi salvo com sucesso, {@code false}
+     *         caso contrário.
+     */
+    public synchronized boolean saveSnapshot(Snapshot snapshot, SnapshotFormat format) {
         long id = generateNextId();
-        if (JsonHandler.save(snapshot, JsonHandler.getSnapshotFilepath(id), SNAPSHOT_TYPE)) {
-            history.push(id);
+        if (!writeSnapshot(id, snapshot, format, getCodec())) {
+            return false;
+        }
+
+        history.push(id);
+        return true;
+    }
+
+    /**
+     * Salva um snapshot em segundo plano, pelo {@link SnapshotService}, no
+     * formato do curador. Concluída a escrita, o snapshot é registrado no
+     * histórico, o curador é salvo e os snapshots são podados, ainda em segundo
+     * plano.
+     * 
+     * @param id       identificador do snapshot, obtido de
+     *                 {@link #nextSnapshotId()}.
+     * @param snapshot o snapshot a ser salvo, que não deve mais ser alterado.
+     * @return futuro completado com {@code true} se o snapshot foi salvo e
+     *         registrado, {@code false} caso contrário.
+     */
+    public CompletableFuture<Boolean> saveSnapshotAsync(long id, Snapshot snapshot) {
+        SnapshotFormat format = getFormat();
+        SnapshotCodec codec = getCodec();
+
+        return SnapshotService.service().submit(() -> {
+            if (!writeSnapshot(id, snapshot, format, codec)) {
+                return false;
+            }
+
+            synchronized (this) {
+                history.push(id);
+                if (!save()) {
+                    history.remove(id);
+                    bases.remove(id);
+                    return false;
+                }
+            }
+
+            prune();
+            return true;
+        });
+    }
+
+    /**
+     * Escreve o arquivo de um snapshot. No formato binário, o snapshot é salvo
+     * como delta do último snapshot salvo nesta execução quando isso vale a
+     * pena, e como snapshot completo caso contrário.
+     * 
+     * @param id       identificador do snapshot.
+     * @param snapshot o snapshot a ser salvo.
+     * @param format   o formato em que o snapshot será salvo.
+     * @param codec    o codec de compressão do snapshot.
+     * @return {@code true} se o snapshot foi salvo com sucesso, {@code false}
+     *         caso contrário.
+     */
+    private boolean writeSnapshot(long id, Snapshot snapshot, SnapshotFormat format, SnapshotCodec codec) {
+        Path filepath = JsonHandler.getSnapshotFilepath(id, format, codec);
+
+        if (format != SnapshotFormat.BINARY) {
+            digest = null;
+            return format.save(snapshot, filepath, codec);
+        }
+
+        EntityDigest base = digest;
+        EntityDigest current = EntityDigest.of(snapshot.workshop());
+
+        boolean delta = base != null && current != null && base.id() == head()
+                && DeltaHandler.worthwhile(base, current);
+
+        boolean saved = delta
+                ? DeltaHandler.saveDelta(snapshot, filepath, codec, base, current)
+                : format.save(snapshot, filepath, codec);
+
+        if (!saved) {
+            return false;
+        }
+
+        if (delta) {
+            synchronized (this) {
+                bases.put(id, base.id());
+            }
         }
+
+        digest = current != null ? current.at(id, delta ? base.depth() + 1 : 0) : null;
+        return true;
     }
 
     /**
@@ -65,13 +216,13 @@ public class Caretaker {
      * @return o último snapshot salvo, ou {@code null} se não houver nenhum
      *         snapshot salvo.
      */
-    public Snapshot loadSnapshot() {
+    public synchronized Snapshot loadSnapshot() {
 
         // Retorna até achar uma snapshot válida, só desistindo se não achar nada
         while (hasSnapshots()) {
             long id = history.peek();
 
-            Snapshot snapshot = JsonHandler.load(JsonHandler.getSnapshotFilepath(id), SNAPSHOT_TYPE);
+            Snapshot snapshot = readSnapshot(id);
             if (snapshot != null) {
                 return snapshot;
             }
@@ -82,13 +233,288 @@ public class Caretaker {
         return null;
     }
 
+    /**
+     * Lê um snapshot salvo, em qualquer um dos formatos e codecs. Um snapshot
+     * delta é lido sobre o seu base, lido antes da mesma forma. Os arquivos
+     * são validados antes de decodificados, de modo que um arquivo truncado ou
+     * corrompido é descartado sem ser decodificado.
+     * 
+     * @param id identificador do snapshot.
+     * @return o snapshot lido, ou {@code null} se não houver arquivo válido.
+     */
+    private Snapshot readSnapshot(long id) {
+        Long baseId = bases.get(id);
+        if (baseId != null) {
+            Path filepath = JsonHandler.getSnapshotFilepath(id, SnapshotFormat.BINARY);
+            if (!SnapshotFormat.BINARY.validate(filepath)) {
+                return null;
+            }
+
+            Snapshot base = readSnapshot(baseId);
+            if (base == null) {
+                return null;
+            }
+
+            return DeltaHandler.loadDelta(filepath, baseId, base, lazy);
+        }
+
+        for (SnapshotFormat candidate : SnapshotFormat.values()) {
+            for (SnapshotCodec codec : SnapshotCodec.values()) {
+                Path filepath = JsonHandler.getSnapshotFilepath(id, candidate, codec);
+                if (Files.exists(filepath)) {
+                    return candidate.validate(filepath) ? candidate.load(filepath, codec, lazy) : null;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Poda os snapshots que a política de retenção não retém, removendo-os do
+     * histórico e salvando o curador antes de apagar os seus arquivos de
+     * snapshot e de diário. Apaga também os arquivos temporários de escritas
+     * interrompidas. Nenhum outro arquivo é apagado, como os de snapshots
+     * descartados do histórico por não poderem ser lidos.
+     * 
+     * @return quantidade de snapshots removidos do histórico.
+     */
+    public synchronized int prune() {
+        ArrayList<Long> ids = new ArrayList<>(history);
+        Collections.reverse(ids);
+
+        LinkedHashSet<Long> retained = getRetention().retain(ids, this::sizeOf);
+
+        // Um delta retido depende de toda a sua cadeia de bases
+        for (long id : new ArrayList<>(retained)) {
+            for (Long base = bases.get(id); base != null && retained.add(base); base = bases.get(base)) {
+                // Retém a cadeia até o snapshot completo
+            }
+        }
+
+        ArrayList<Long> dropped = new ArrayList<>(ids);
+        dropped.removeAll(retained);
+
+        if (!dropped.isEmpty()) {
+            Stack<Long> previous = new Stack<>();
+            previous.addAll(history);
+
+            HashMap<Long, Long> previousBases = new HashMap<>(bases);
+
+            history.retainAll(retained);
+            bases.keySet().retainAll(retained);
+            if (!save()) {
+                history = previous;
+                bases = previousBases;
+                return 0;
+            }
+
+            for (long id : dropped) {
+                for (Path filepath : filepaths(id)) {
+                    delete(filepath);
+                }
+
+                // O diário em uso pode ainda não ter sido trocado pelo do novo snapshot
+                if (id != Journal.journal().baseId()) {
+                    delete(JsonHandler.getJournalFilepath(id));
+                }
+            }
+        }
+
+        deleteTemporary(JsonHandler.getSnapshotDirectory());
+        deleteTemporary(JsonHandler.getJournalDirectory());
+
+        return dropped.size();
+    }
+
+    /**
+     * Apaga um arquivo, se existir.
+     * 
+     * @param filepath caminho do arquivo.
+     */
+    private static void delete(Path filepath) {
+        try {
+            Files.deleteIfExists(filepath);
+        } catch (IOException err) {
+            // O arquivo fica órfão, mas não é lido por nenhum snapshot do histórico
+        }
+    }
+
+    /**
+     * Apaga os arquivos temporários de um diretório, deixados por escritas
+     * interrompidas. Deve ser chamado apenas quando nenhuma escrita estiver em
+     * andamento, como ao fim da escrita de um snapshot.
+     * 
+     * @param directory diretório.
+     */
+    private static void deleteTemporary(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.tmp")) {
+            for (Path file : files) {
+                delete(file);
+            }
+        } catch (IOException err) {
+            // A limpeza é adiada para a próxima poda
+        }
+    }
+
+    /**
+     * Retorna o tamanho, em bytes, dos arquivos de um snapshot.
+     * 
+     * @param id identificador do snapshot.
+     * @return tamanho do snapshot, ou {@code 0} se não houver arquivo.
+     */
+    private long sizeOf(long id) {
+        long size = 0;
+
+        for (Path filepath : filepaths(id)) {
+            try {
+                size += Files.size(filepath);
+            } catch (IOException err) {
+                // Não há arquivo neste formato e codec
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Retorna os caminhos possíveis dos arquivos de um snapshot, um para cada
+     * formato e codec distintos.
+     * 
+     * @param id identificador do snapshot.
+     * @return caminhos possíveis do snapshot.
+     */
+    private static LinkedHashSet<Path> filepaths(long id) {
+        LinkedHashSet<Path> filepaths = new LinkedHashSet<>();
+
+        for (SnapshotFormat candidate : SnapshotFormat.values()) {
+            for (SnapshotCodec codec : SnapshotCodec.values()) {
+                filepaths.add(JsonHandler.getSnapshotFilepath(id, candidate, codec));
+            }
+        }
+
+        return filepaths;
+    }
+
+    /**
+     * Retorna a política de retenção aplicada na poda dos snapshots.
+     * 
+     * @return política de retenção.
+     */
+    public RetentionPolicy getRetention() {
+        return retention != null ? retention : RetentionPolicy.KEEP_ALL;
+    }
+
+    /**
+     * Define a política de retenção aplicada na poda dos snapshots.
+     * 
+     * @param retention política de retenção.
+     */
+    public void setRetention(RetentionPolicy retention) {
+        if (retention == null) {
+            throw new NullPointerException("retention");
+        }
+
+        this.retention = retention;
+    }
+
+    /**
+     * Retorna o formato em que os novos snapshots são salvos.
+     * 
+     * @return formato dos novos snapshots, ou {@link SnapshotFormat#BINARY} se
+     *         o formato salvo for o Json, que é apenas lido.
+     */
+    public SnapshotFormat getFormat() {
+        return format != null && format != SnapshotFormat.JSON ? format : SnapshotFormat.BINARY;
+    }
+
+    /**
+     * Define o formato em que os novos snapshots são salvos.
+     * 
+     * @param format formato dos novos snapshots.
+     * 
+     * @throws WorkshopException se o formato for o Json, que é apenas lido.
+     */
+    public void setFormat(SnapshotFormat format) {
+        if (format == null) {
+            throw new NullPointerException("format");
+        }
+
+        if (format == SnapshotFormat.JSON) {
+            throw new WorkshopException("novos snapshots não podem ser salvos em json");
+        }
+
+        this.format = format;
+    }
+
+    /**
+     * Retorna o codec de compressão com que os novos snapshots são salvos.
+     * 
+     * @return codec dos novos snapshots, ou {@link SnapshotCodec#NONE} se o
+     *         codec salvo não estiver registrado.
+     */
+    public SnapshotCodec getCodec() {
+        SnapshotCodec value = codec != null ? SnapshotCodec.valueOf(codec) : null;
+        return value != null ? value : SnapshotCodec.NONE;
+    }
+
+    /**
+     * Define o codec de compressão com que os novos snapshots são salvos.
+     * 
+     * @param codec codec dos novos snapshots.
+     */
+    public void setCodec(SnapshotCodec codec) {
+        if (codec == null) {
+            throw new NullPointerException("codec");
+        }
+
+        this.codec = codec.name();
+    }
+
+    /**
+     * Verifica se os snapshots são carregados preguiçosamente.
+     * 
+     * @return {@code true} se os sistemas da oficina são materializados apenas
+     *         no primeiro acesso.
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Define se os snapshots são carregados preguiçosamente.
+     * 
+     * @param lazy se os sistemas da oficina devem ser materializados apenas no
+     *             primeiro acesso.
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
     /**
      * Gera um novo identificador para o snapshot.
      * 
-     * @return um novo identificador único baseado no tempo atual em milissegundos.
+     * @return um novo identificador único baseado no tempo atual em
+     *         milissegundos, estritamente maior que os anteriores.
      */
-    private long generateNextId() {
-        return System.currentTimeMillis();
+    private synchronized long generateNextId() {
+        long id = Math.max(System.currentTimeMillis(), Math.max(lastId, head()) + 1);
+        lastId = id;
+        return id;
+    }
+
+    /**
+     * Reserva o identificador de um novo snapshot.
+     * 
+     * @return um novo identificador único, estritamente maior que os
+     *         anteriores.
+     */
+    public long nextSnapshotId() {
+        return generateNextId();
     }
 
     /**
@@ -100,21 +526,32 @@ public class Caretaker {
         return history;
     }
 
+    /**
+     * Retorna o identificador do último snapshot salvo.
+     * 
+     * @return identificador do último snapshot, ou {@link Journal#NO_SNAPSHOT}
+     *         se não houver nenhum snapshot salvo.
+     */
+    public synchronized long head() {
+        return hasSnapshots() ? history.peek() : Journal.NO_SNAPSHOT;
+    }
+
     /**
      * Verifica se o curador possui algum snapshot salvo.
      * 
      * @return {@code true} se houver pelo menos um snapshot salvo, {@code false}
      *         caso contrário.
      */
-    public boolean hasSnapshots() {
+    public synchronized boolean hasSnapshots() {
         return !history.isEmpty();
     }
 
     /**
      * Limpa o histórico de snapshots.
      */
-    public void clearHistory() {
+    public synchronized void clearHistory() {
         history.clear();
+        bases.clear();
     }
 
     /**
@@ -124,7 +561,9 @@ public class Caretaker {
      *         caso contrário.
      */
     public static boolean save() {
-        return JsonHandler.save(caretaker, JsonHandler.getCaretakerFilepath(), CARETAKER_TYPE);
+        synchronized (caretaker) {
+            return JsonHandler.save(caretaker, JsonHandler.getCaretakerFilepath(), CARETAKER_TYPE);
+        }
     }
 
     /**
@@ -0,0 +1,295 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.exception.WorkshopException;
+import edu.ajan.model.workshop.Workshop;
+
+/**
+ * Classe de utilidade que salva e carrega snapshots delta, que guardam apenas
+ * as entidades adicionadas, alteradas ou removidas desde um snapshot base.
+ *
+ * <p> O arquivo usa o formato binário dividido em seções de
+ * {@link BinaryHandler}, com o identificador do snapshot base no cabeçalho.
+ * Cada seção de sistema traz, para cada tipo de entidade do sistema, os
+ * identificadores removidos e as entidades adicionadas ou alteradas. Um delta
+ * é carregado sobre o seu base, que pode ser também um delta, aplicando cada
+ * seção apenas no primeiro acesso ao sistema correspondente. Em cada tipo,
+ * todas as remoções são aplicadas antes, e as entidades novas ou alteradas são
+ * então restauradas, substituindo as de mesmo identificador, sem as
+ * validações de uma adição nova, de modo que ordens de serviço que trocaram de
+ * horário entre si não conflitam.
+ *
+ * @author Alan Lima
+ */
+final class DeltaHandler {
+
+    /**
+     * Quantidade máxima de snapshots delta seguidos antes de um novo snapshot
+     * completo.
+     */
+    static final int FULL_INTERVAL = 16;
+
+    /**
+     * Tipos de entidade de cada seção de sistema, na ordem de
+     * {@link BinaryHandler#WORKSHOP_SECTIONS} e na ordem em que são aplicados.
+     */
+    private static final EntityKind<?>[][] SECTION_KINDS = {
+            { EntityKind.CUSTOMER, EntityKind.VEHICLE },
+            { EntityKind.MEMBER },
+            { EntityKind.EXPENSE, EntityKind.INVOICE },
+            { EntityKind.ELEVATOR, EntityKind.SERVICE, EntityKind.ORDER },
+            { EntityKind.PRODUCT, EntityKind.SHIPMENT, EntityKind.SUPPLIER },
+    };
+
+    /**
+     * Construtor privado.
+     */
+    private DeltaHandler() {
+
+    }
+
+    /**
+     * Verifica se vale a pena salvar um snapshot como delta de um base, isto é,
+     * se a cadeia de deltas ainda não é longa demais e se no máximo metade das
+     * entidades mudou.
+     *
+     * @param base    resumo do snapshot base.
+     * @param current resumo do snapshot a ser salvo.
+     * @return {@code true} se o snapshot deve ser salvo como delta.
+     */
+    static boolean worthwhile(EntityDigest base, EntityDigest current) {
+        return base.depth() < FULL_INTERVAL && 2L * current.changes(base) <= Math.max(current.size(), 1);
+    }
+
+    /**
+     * Salva um snapshot como delta de um snapshot base.
+     *
+     * @param snapshot snapshot a ser salvo.
+     * @param filename caminho do arquivo onde o snapshot será salvo.
+     * @param codec    codec de compressão das seções.
+     * @param base     resumo do snapshot base.
+     * @param current  resumo do snapshot a ser salvo.
+     * @return {@code true} se o snapshot foi salvo com sucesso, {@code false}
+     *         caso contrário.
+     */
+    static boolean saveDelta(Snapshot snapshot, Path filename, SnapshotCodec codec, EntityDigest base,
+            EntityDigest current) {
+
+        Workshop workshop = snapshot.workshop();
+
+        try {
+            BinaryHandler.materialize(workshop);
+        } catch (WorkshopException err) {
+            return false;
+        }
+
+        BinaryHandler.SectionWriter[] writers = new BinaryHandler.SectionWriter[SECTION_KINDS.length + 1];
+        writers[0] = out -> SnapshotAdapter.writeInstanceCountState(out, snapshot.instanceCountState());
+
+        for (int i = 0; i < SECTION_KINDS.length; i++) {
+            EntityKind<?>[] kinds = SECTION_KINDS[i];
+            writers[i + 1] = out -> {
+                out.beginObject();
+                for (EntityKind<?> kind : kinds) {
+                    out.name(kind.name());
+                    writeKind(out, workshop, kind, base, current);
+                }
+                out.endObject();
+            };
+        }
+
+        return BinaryHandler.writeSections(filename, BinaryHandler.DELTA_VERSION, codec, snapshot.timestamp(),
+                base.id(), writers);
+    }
+
+    /**
+     * Escreve as mudanças de um tipo de entidade.
+     *
+     * @param <E>      tipo da entidade.
+     * @param out      escritor binário.
+     * @param workshop oficina do snapshot.
+     * @param kind     tipo de entidade.
+     * @param base     resumo do snapshot base.
+     * @param current  resumo do snapshot a ser salvo.
+     * @throws IOException se houver falha de escrita.
+     */
+    private static <E> void writeKind(JsonWriter out, Workshop workshop, EntityKind<E> kind, EntityDigest base,
+            EntityDigest current) throws IOException {
+
+        out.beginObject();
+
+        out.name("removed").beginArray();
+        for (int id : base.ids(kind)) {
+            if (current.removed(kind, id)) {
+                out.value(id);
+            }
+        }
+        out.endArray();
+
+        Gson gson = JsonHandler.gson();
+
+        out.name("put").beginArray();
+        for (E entity : kind.all(workshop)) {
+            if (current.changed(base, kind, kind.id(entity))) {
+                gson.getAdapter(kind.type()).write(out, entity);
+            }
+        }
+        out.endArray();
+
+        out.endObject();
+    }
+
+    /**
+     * Carrega um snapshot delta sobre o seu snapshot base. A oficina do base é
+     * alterada pelo delta e não deve mais ser usada.
+     *
+     * @param filename caminho do arquivo do delta.
+     * @param baseId   identificador esperado do snapshot base.
+     * @param base     snapshot base já carregado.
+     * @param lazy     se os sistemas devem ser carregados preguiçosamente.
+     * @return snapshot carregado, ou {@code null} se não foi possível carregar.
+     */
+    static Snapshot loadDelta(Path filename, long baseId, Snapshot base, boolean lazy) {
+        try {
+            BinaryHandler.Sections sections = BinaryHandler.readSections(filename);
+            if (sections == null || !sections.isDelta() || sections.baseId != baseId) {
+                return null;
+            }
+
+            String[] names = BinaryHandler.WORKSHOP_SECTIONS;
+            Workshop workshop = base.workshop();
+
+            Workshop delta = Workshop.lazy(
+                    patcher(sections, names[0], workshop, Workshop::registry),
+                    patcher(sections, names[1], workshop, Workshop::memberbase),
+                    patcher(sections, names[2], workshop, Workshop::financial),
+                    patcher(sections, names[3], workshop, Workshop::scheduler),
+                    patcher(sections, names[4], workshop, Workshop::stock));
+
+            if (!lazy) {
+                BinaryHandler.materialize(delta);
+            }
+
+            return new Snapshot(delta, sections.state(), sections.timestamp);
+
+        } catch (IOException | JsonParseException | IllegalStateException | BufferUnderflowException
+                | WorkshopException err) {
+            return null;
+        }
+    }
+
+    /**
+     * Cria o carregador de um sistema que aplica a seção do delta sobre o
+     * sistema do snapshot base.
+     *
+     * @param <T>      tipo do sistema.
+     * @param sections seções do delta.
+     * @param name     nome da seção do sistema.
+     * @param workshop oficina do snapshot base.
+     * @param system   acesso ao sistema na oficina.
+     * @return carregador do sistema.
+     */
+    private static <T> Supplier<T> patcher(BinaryHandler.Sections sections, String name, Workshop workshop,
+            Function<Workshop, T> system) {
+
+        if (sections.get(name) == null) {
+            return () -> system.apply(workshop);
+        }
+
+        return () -> {
+            BinaryHandler.decode(sections, name, name, in -> {
+                apply(in, workshop);
+                return null;
+            });
+
+            return system.apply(workshop);
+        };
+    }
+
+    /**
+     * Aplica uma seção do delta sobre a oficina do snapshot base.
+     *
+     * @param in       leitor da seção.
+     * @param workshop oficina do snapshot base.
+     * @throws IOException se a seção estiver corrompida.
+     */
+    private static void apply(JsonReader in, Workshop workshop) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            EntityKind<?> kind = EntityKind.valueOf(in.nextName());
+            if (kind == null) {
+                in.skipValue();
+                continue;
+            }
+
+            applyKind(in, workshop, kind);
+        }
+        in.endObject();
+    }
+
+    /**
+     * Aplica as mudanças de um tipo de entidade.
+     *
+     * @param <E>      tipo da entidade.
+     * @param in       leitor da seção.
+     * @param workshop oficina do snapshot base.
+     * @param kind     tipo de entidade.
+     * @throws IOException se a seção estiver corrompida.
+     */
+    private static <E> void applyKind(JsonReader in, Workshop workshop, EntityKind<E> kind) throws IOException {
+        ArrayList<Integer> removed = new ArrayList<>();
+        ArrayList<E> put = new ArrayList<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "removed" -> {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        removed.add(in.nextInt());
+                    }
+                    in.endArray();
+                }
+                case "put" -> {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        E entity = JsonHandler.gson().getAdapter(kind.type()).read(in);
+                        if (entity != null) {
+                            put.add(entity);
+                        }
+                    }
+                    in.endArray();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        for (int id : removed) {
+            kind.remove(workshop, id);
+        }
+
+        kind.restore(workshop, put);
+    }
+
+    /**
+     * Retorna uma representação textual do manipulador de deltas.
+     *
+     * @return representação textual do manipulador de deltas.
+     */
+    @Override
+    public String toString() {
+        return "()";
+    }
+}
@@ -0,0 +1,86 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Adaptador de uma entidade da oficina, que escreve à mão por meio de
+ * {@link EntityWriter} e delega a leitura ao adaptador reflexivo do Gson.
+ *
+ * @param <E> tipo da entidade.
+ *
+ * @author Alan Lima
+ */
+final class EntityAdapter<E> extends TypeAdapter<E> {
+
+    /**
+     * Função que escreve a entidade.
+     */
+    private final Writer<E> writer;
+
+    /**
+     * Adaptador reflexivo usado na leitura.
+     */
+    private final TypeAdapter<E> delegate;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param writer   função que escreve a entidade.
+     * @param delegate adaptador reflexivo usado na leitura.
+     */
+    EntityAdapter(Writer<E> writer, TypeAdapter<E> delegate) {
+        this.writer = writer;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Escreve a entidade.
+     *
+     * @param out    escritor de Json.
+     * @param entity entidade a ser escrita.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void write(JsonWriter out, E entity) throws IOException {
+        if (entity == null) {
+            out.nullValue();
+            return;
+        }
+
+        writer.write(out, entity);
+    }
+
+    /**
+     * Lê a entidade.
+     *
+     * @param in leitor de Json.
+     * @return entidade lida.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public E read(JsonReader in) throws IOException {
+        return delegate.read(in);
+    }
+
+    /**
+     * Interface funcional de escrita de uma entidade.
+     *
+     * @param <E> tipo da entidade.
+     */
+    @FunctionalInterface
+    interface Writer<E> {
+
+        /**
+         * Escreve uma entidade não nula.
+         *
+         * @param out    escritor de Json.
+         * @param entity entidade a ser escrita.
+         * @throws IOException se houver falha de escrita.
+         */
+        void write(JsonWriter out, E entity) throws IOException;
+    }
+}
@@ -0,0 +1,265 @@
+package edu.ajan.model.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import edu.ajan.model.exception.WorkshopException;
+import edu.ajan.model.workshop.Workshop;
+
+/**
+ * Classe que representa o resumo das entidades de um snapshot, um código de
+ * 64 bits do conteúdo de cada entidade, indexado pelo tipo e identificador da
+ * entidade.
+ *
+ * <p> Comparando o resumo de uma oficina com o do snapshot anterior, sabe-se
+ * quais entidades foram adicionadas, alteradas ou removidas sem manter o
+ * snapshot anterior em memória. Cada entidade é codificada isoladamente no
+ * formato binário, com sua própria tabela de textos, de modo que o código
+ * depende apenas do conteúdo da entidade.
+ *
+ * @author Alan Lima
+ */
+final class EntityDigest {
+
+    /**
+     * Identificador do snapshot resumido.
+     */
+    private final long id;
+
+    /**
+     * Quantidade de snapshots delta entre o snapshot resumido e o último
+     * snapshot completo.
+     */
+    private final int depth;
+
+    /**
+     * Códigos das entidades, indexados pelo tipo e identificador.
+     */
+    private final HashMap<EntityKind<?>, HashMap<Integer, Long>> hashes;
+
+    /**
+     * Quantidade total de entidades resumidas.
+     */
+    private final int size;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param id     identificador do snapshot resumido.
+     * @param depth  quantidade de snapshots delta desde o último completo.
+     * @param hashes códigos das entidades.
+     * @param size   quantidade total de entidades.
+     */
+    private EntityDigest(long id, int depth, HashMap<EntityKind<?>, HashMap<Integer, Long>> hashes, int size) {
+        this.id = id;
+        this.depth = depth;
+        this.hashes = hashes;
+        this.size = size;
+    }
+
+    /**
+     * Resume as entidades de uma oficina, materializando-a. Cada tipo de
+     * entidade é resumido numa tarefa do pool comum de fork-join.
+     *
+     * @param workshop oficina.
+     * @return resumo ainda sem identificador de snapshot, ou {@code null} se
+     *         alguma entidade não puder ser codificada.
+     */
+    static EntityDigest of(Workshop workshop) {
+        Gson gson = JsonHandler.gson();
+        EntityKind<?>[] kinds = EntityKind.values();
+
+        HashMap<EntityKind<?>, HashMap<Integer, Long>> hashes = new HashMap<>();
+        int size = 0;
+
+        try {
+            // Com a oficina materializada, os tipos são apenas lidos, e podem
+            // ser resumidos em paralelo
+            BinaryHandler.materialize(workshop);
+
+            ArrayList<Callable<HashMap<Integer, Long>>> tasks = new ArrayList<>();
+            for (EntityKind<?> kind : kinds) {
+                tasks.add(() -> {
+                    HashMap<Integer, Long> kindHashes = new HashMap<>();
+                    hashAll(gson, new ByteArrayOutputStream(), workshop, kind, kindHashes);
+                    return kindHashes;
+                });
+            }
+
+            List<HashMap<Integer, Long>> results = BinaryHandler.parallel(tasks);
+            for (int i = 0; i < kinds.length; i++) {
+                hashes.put(kinds[i], results.get(i));
+                size += results.get(i).size();
+            }
+        } catch (IOException | JsonParseException | WorkshopException err) {
+            return null;
+        }
+
+        return new EntityDigest(Journal.NO_SNAPSHOT, 0, hashes, size);
+    }
+
+    /**
+     * Calcula o código de todas as entidades de um tipo.
+     *
+     * @param <E>      tipo da entidade.
+     * @param gson     serializador.
+     * @param buffer   buffer reutilizado na codificação.
+     * @param workshop oficina.
+     * @param kind     tipo de entidade.
+     * @param sink     mapa que recebe os códigos.
+     * @throws IOException se alguma entidade não puder ser codificada.
+     */
+    private static <E> void hashAll(Gson gson, ByteArrayOutputStream buffer, Workshop workshop, EntityKind<E> kind,
+            HashMap<Integer, Long> sink) throws IOException {
+
+        for (E entity : kind.all(workshop)) {
+            buffer.reset();
+
+            BinaryJsonWriter writer = new BinaryJsonWriter(buffer);
+            writer.setSerializeNulls(false);
+            gson.getAdapter(kind.type()).write(writer, entity);
+            writer.flush();
+
+            sink.put(kind.id(entity), hash(buffer.toByteArray()));
+        }
+    }
+
+    /**
+     * Calcula um código de 64 bits, pelo FNV-1a seguido da mistura final do
+     * MurmurHash3.
+     *
+     * @param bytes bytes.
+     * @return código dos bytes.
+     */
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= bytes.length;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Retorna este resumo associado a um snapshot.
+     *
+     * @param id    identificador do snapshot.
+     * @param depth quantidade de snapshots delta desde o último completo.
+     * @return resumo associado ao snapshot.
+     */
+    EntityDigest at(long id, int depth) {
+        return new EntityDigest(id, depth, hashes, size);
+    }
+
+    /**
+     * Retorna o identificador do snapshot resumido.
+     *
+     * @return identificador do snapshot.
+     */
+    long id() {
+        return id;
+    }
+
+    /**
+     * Retorna a quantidade de snapshots delta desde o último completo.
+     *
+     * @return quantidade de snapshots delta.
+     */
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * Retorna a quantidade total de entidades resumidas.
+     *
+     * @return quantidade de entidades.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Verifica se uma entidade mudou em relação a um resumo anterior.
+     *
+     * @param base resumo anterior.
+     * @param kind tipo da entidade.
+     * @param id   identificador da entidade.
+     * @return {@code true} se a entidade foi adicionada ou alterada.
+     */
+    boolean changed(EntityDigest base, EntityKind<?> kind, int id) {
+        Long previous = base.hashes.get(kind).get(id);
+        return previous == null || !previous.equals(hashes.get(kind).get(id));
+    }
+
+    /**
+     * Verifica se uma entidade do resumo anterior foi removida.
+     *
+     * @param kind tipo da entidade.
+     * @param id   identificador da entidade no resumo anterior.
+     * @return {@code true} se a entidade não existe mais.
+     */
+    boolean removed(EntityKind<?> kind, int id) {
+        return !hashes.get(kind).containsKey(id);
+    }
+
+    /**
+     * Retorna os identificadores das entidades de um tipo.
+     *
+     * @param kind tipo de entidade.
+     * @return identificadores das entidades.
+     */
+    Iterable<Integer> ids(EntityKind<?> kind) {
+        return hashes.get(kind).keySet();
+    }
+
+    /**
+     * Conta as entidades adicionadas, alteradas ou removidas em relação a um
+     * resumo anterior.
+     *
+     * @param base resumo anterior.
+     * @return quantidade de mudanças.
+     */
+    int changes(EntityDigest base) {
+        int changes = 0;
+
+        for (EntityKind<?> kind : EntityKind.values()) {
+            for (int entityId : ids(kind)) {
+                if (changed(base, kind, entityId)) {
+                    changes++;
+                }
+            }
+
+            for (int entityId : base.ids(kind)) {
+                if (removed(kind, entityId)) {
+                    changes++;
+                }
+            }
+        }
+
+        return changes;
+    }
+
+    /**
+     * Retorna uma representação textual do resumo.
+     *
+     * @return representação textual do resumo.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d %d %d)", id, depth, size);
+    }
+}
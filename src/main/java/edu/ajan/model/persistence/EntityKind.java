@@ -0,0 +1,343 @@
+package edu.ajan.model.persistence;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+import edu.ajan.model.workshop.Workshop;
+import edu.ajan.model.workshop.common.Customer;
+import edu.ajan.model.workshop.common.Vehicle;
+import edu.ajan.model.workshop.financial.Expense;
+import edu.ajan.model.workshop.financial.Invoice;
+import edu.ajan.model.workshop.service.Elevator;
+import edu.ajan.model.workshop.service.Service;
+import edu.ajan.model.workshop.service.ServiceOrder;
+import edu.ajan.model.workshop.staff.StaffMember;
+import edu.ajan.model.workshop.stock.Product;
+import edu.ajan.model.workshop.stock.Shipment;
+import edu.ajan.model.workshop.stock.Supplier;
+
+/**
+ * Classe que cumpre uma função de enumeradora dos tipos de entidade guardados
+ * pelos sistemas da oficina.
+ *
+ * <p> Cada tipo sabe extrair o identificador de suas entidades, e adicioná-las,
+ * restaurá-las, removê-las e percorrê-las numa oficina. Restaurar é adicionar
+ * entidades já salvas, substituindo as de mesmo identificador, sem as
+ * validações de uma adição nova; na maioria dos tipos, é o mesmo que
+ * adicionar. É um enumerador genérico, coisa que
+ * o {@code enum} da linguagem não permite, por isso as constantes são
+ * declaradas à mão.
+ *
+ * @param <E> tipo da entidade.
+ *
+ * @author Alan Lima
+ */
+public final class EntityKind<E> {
+
+    /**
+     * Vetor para imitar o comportamento da função embutida {@code values()} de
+     * tipos enumeradores. <i>Não deve ser inicializado</i>.
+     */
+    private static EntityKind<?>[] values;
+
+    /**
+     * Denota os clientes do registro.
+     */
+    public static final EntityKind<Customer> CUSTOMER = new EntityKind<>("customer", Customer.class,
+            Customer::id,
+            (workshop, customer) -> workshop.registry().addCustomer(customer),
+            (workshop, id) -> workshop.registry().removeCustomer(id),
+            workshop -> workshop.registry().getCustomers());
+
+    /**
+     * Denota os veículos do registro.
+     */
+    public static final EntityKind<Vehicle> VEHICLE = new EntityKind<>("vehicle", Vehicle.class,
+            Vehicle::id,
+            (workshop, vehicle) -> workshop.registry().addVehicle(vehicle),
+            (workshop, id) -> workshop.registry().removeVehicle(id),
+            workshop -> workshop.registry().getVehicles());
+
+    /**
+     * Denota os membros da base de membros.
+     */
+    public static final EntityKind<StaffMember> MEMBER = new EntityKind<>("member", StaffMember.class,
+            StaffMember::id,
+            (workshop, member) -> workshop.memberbase().addMember(member),
+            (workshop, id) -> workshop.memberbase().removeMember(id),
+            workshop -> workshop.memberbase().getMembers());
+
+    /**
+     * Denota as despesas do sistema financeiro.
+     */
+    public static final EntityKind<Expense> EXPENSE = new EntityKind<>("expense", Expense.class,
+            Expense::id,
+            (workshop, expense) -> workshop.financial().addExpense(expense),
+            (workshop, id) -> workshop.financial().removeExpense(id),
+            workshop -> workshop.financial().getExpenses());
+
+    /**
+     * Denota as notas fiscais do sistema financeiro.
+     */
+    public static final EntityKind<Invoice> INVOICE = new EntityKind<>("invoice", Invoice.class,
+            Invoice::id,
+            (workshop, invoice) -> workshop.financial().addInvoice(invoice),
+            (workshop, id) -> workshop.financial().removeInvoice(id),
+            workshop -> workshop.financial().getInvoices());
+
+    /**
+     * Denota as ordens de serviço do agendador.
+     */
+    public static final EntityKind<ServiceOrder> ORDER = new EntityKind<>("order", ServiceOrder.class,
+            ServiceOrder::id,
+            (workshop, order) -> workshop.scheduler().addOrder(order),
+            (workshop, orders) -> workshop.scheduler().restoreOrders(orders),
+            (workshop, id) -> workshop.scheduler().removeOrder(id),
+            workshop -> workshop.scheduler().getOrders());
+
+    /**
+     * Denota os serviços do agendador.
+     */
+    public static final EntityKind<Service> SERVICE = new EntityKind<>("service", Service.class,
+            Service::id,
+            (workshop, service) -> workshop.scheduler().addService(service),
+            (workshop, id) -> workshop.scheduler().removeService(id),
+            workshop -> workshop.scheduler().getServices());
+
+    /**
+     * Denota os elevadores do agendador.
+     */
+    public static final EntityKind<Elevator> ELEVATOR = new EntityKind<>("elevator", Elevator.class,
+            Elevator::id,
+            (workshop, elevator) -> workshop.scheduler().addElevator(elevator),
+            (workshop, id) -> workshop.scheduler().removeElevator(id),
+            workshop -> workshop.scheduler().getElevators());
+
+    /**
+     * Denota os produtos do estoque.
+     */
+    public static final EntityKind<Product> PRODUCT = new EntityKind<>("product", Product.class,
+            Product::id,
+            (workshop, product) -> workshop.stock().addProduct(product),
+            (workshop, id) -> workshop.stock().removeProduct(id),
+            workshop -> workshop.stock().getProducts());
+
+    /**
+     * Denota as remessas do estoque.
+     */
+    public static final EntityKind<Shipment> SHIPMENT = new EntityKind<>("shipment", Shipment.class,
+            Shipment::id,
+            (workshop, shipment) -> workshop.stock().addShipment(shipment),
+            (workshop, id) -> workshop.stock().removeShipment(id),
+            workshop -> workshop.stock().getShipments());
+
+    /**
+     * Denota os fornecedores do estoque.
+     */
+    public static final EntityKind<Supplier> SUPPLIER = new EntityKind<>("supplier", Supplier.class,
+            Supplier::id,
+            (workshop, supplier) -> workshop.stock().addSupplier(supplier),
+            (workshop, id) -> workshop.stock().removeSupplier(id),
+            workshop -> workshop.stock().getSuppliers());
+
+    /**
+     * Nome do tipo, usado na persistência.
+     */
+    private final String name;
+
+    /**
+     * Classe das entidades do tipo.
+     */
+    private final Class<E> type;
+
+    /**
+     * Função que extrai o identificador de uma entidade.
+     */
+    private final ToIntFunction<E> identifier;
+
+    /**
+     * Função que adiciona uma entidade à oficina.
+     */
+    private final BiConsumer<Workshop, E> adder;
+
+    /**
+     * Função que restaura entidades salvas na oficina.
+     */
+    private final BiConsumer<Workshop, List<E>> restorer;
+
+    /**
+     * Função que remove uma entidade da oficina pelo seu identificador.
+     */
+    private final ObjIntConsumer<Workshop> remover;
+
+    /**
+     * Função que retorna as entidades do tipo guardadas na oficina.
+     */
+    private final Function<Workshop, Iterable<E>> lister;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param name       nome do tipo.
+     * @param type       classe das entidades do tipo.
+     * @param identifier função que extrai o identificador de uma entidade.
+     * @param adder      função que adiciona uma entidade à oficina.
+     * @param remover    função que remove uma entidade da oficina.
+     * @param lister     função que retorna as entidades guardadas na oficina.
+     */
+    private EntityKind(String name, Class<E> type, ToIntFunction<E> identifier, BiConsumer<Workshop, E> adder,
+            ObjIntConsumer<Workshop> remover, Function<Workshop, Iterable<E>> lister) {
+
+        this(name, type, identifier, adder, (workshop, entities) -> entities.forEach(entity -> adder.accept(workshop, entity)),
+                remover, lister);
+    }
+
+    /**
+     * Construtor parametrizado, para tipos cuja restauração difere da adição.
+     *
+     * @param name       nome do tipo.
+     * @param type       classe das entidades do tipo.
+     * @param identifier função que extrai o identificador de uma entidade.
+     * @param adder      função que adiciona uma entidade à oficina.
+     * @param restorer   função que restaura entidades salvas na oficina.
+     * @param remover    função que remove uma entidade da oficina.
+     * @param lister     função que retorna as entidades guardadas na oficina.
+     */
+    private EntityKind(String name, Class<E> type, ToIntFunction<E> identifier, BiConsumer<Workshop, E> adder,
+            BiConsumer<Workshop, List<E>> restorer, ObjIntConsumer<Workshop> remover,
+            Function<Workshop, Iterable<E>> lister) {
+
+        this.name = name;
+        this.type = type;
+        this.identifier = identifier;
+        this.adder = adder;
+        this.restorer = restorer;
+        this.remover = remover;
+        this.lister = lister;
+
+        append(this);
+    }
+
+    /**
+     * Retorna o nome do tipo.
+     *
+     * @return nome do tipo.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Retorna a classe das entidades do tipo.
+     *
+     * @return classe das entidades do tipo.
+     */
+    public Class<E> type() {
+        return type;
+    }
+
+    /**
+     * Retorna o identificador de uma entidade.
+     *
+     * @param entity entidade.
+     * @return identificador da entidade.
+     */
+    public int id(E entity) {
+        return identifier.applyAsInt(entity);
+    }
+
+    /**
+     * Adiciona uma entidade à oficina.
+     *
+     * @param workshop oficina.
+     * @param entity   entidade a ser adicionada.
+     */
+    public void add(Workshop workshop, E entity) {
+        adder.accept(workshop, entity);
+    }
+
+    /**
+     * Restaura entidades salvas na oficina, substituindo as de mesmo
+     * identificador, sem as validações de uma adição nova.
+     *
+     * @param workshop oficina.
+     * @param entities entidades a serem restauradas.
+     */
+    public void restore(Workshop workshop, List<E> entities) {
+        restorer.accept(workshop, entities);
+    }
+
+    /**
+     * Remove uma entidade da oficina.
+     *
+     * @param workshop oficina.
+     * @param id       identificador da entidade a ser removida.
+     */
+    public void remove(Workshop workshop, int id) {
+        remover.accept(workshop, id);
+    }
+
+    /**
+     * Retorna as entidades do tipo guardadas na oficina.
+     *
+     * @param workshop oficina.
+     * @return estrutura iterável das entidades.
+     */
+    public Iterable<E> all(Workshop workshop) {
+        return lister.apply(workshop);
+    }
+
+    /**
+     * Retorna um vetor com todos os tipos de entidade, na ordem de declaração.
+     *
+     * @return vetor com todos os tipos de entidade.
+     */
+    public static EntityKind<?>[] values() {
+        return Arrays.copyOf(values, values.length);
+    }
+
+    /**
+     * Retorna o tipo de entidade de nome passado.
+     *
+     * @param name nome do tipo.
+     * @return tipo de entidade de nome passado, ou {@code null} se não houver.
+     */
+    public static EntityKind<?> valueOf(String name) {
+        for (EntityKind<?> kind : values) {
+            if (kind.name.equals(name)) {
+                return kind;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Adiciona um tipo ao vetor de tipos.
+     *
+     * @param kind tipo a ser adicionado.
+     */
+    private static void append(EntityKind<?> kind) {
+        if (values == null) {
+            values = new EntityKind<?>[] { kind };
+            return;
+        }
+
+        values = Arrays.copyOf(values, values.length + 1);
+        values[values.length - 1] = kind;
+    }
+
+    /**
+     * Retorna uma representação textual do tipo de entidade.
+     *
+     * @return representação textual do tipo de entidade.
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,369 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.workshop.common.Customer;
+import edu.ajan.model.workshop.common.Person;
+import edu.ajan.model.workshop.common.Vehicle;
+import edu.ajan.model.workshop.date.DateSpan;
+import edu.ajan.model.workshop.financial.Expense;
+import edu.ajan.model.workshop.financial.Invoice;
+import edu.ajan.model.workshop.financial.InvoiceDraft;
+import edu.ajan.model.workshop.money.Money;
+import edu.ajan.model.workshop.service.Elevator;
+import edu.ajan.model.workshop.service.Service;
+import edu.ajan.model.workshop.service.ServiceOrder;
+import edu.ajan.model.workshop.service.Status;
+import edu.ajan.model.workshop.staff.Employee;
+import edu.ajan.model.workshop.staff.StaffMember;
+import edu.ajan.model.workshop.stock.Item;
+import edu.ajan.model.workshop.stock.PricedQuantity;
+import edu.ajan.model.workshop.stock.Product;
+import edu.ajan.model.workshop.stock.Shipment;
+import edu.ajan.model.workshop.stock.Supplier;
+
+/**
+ * Classe de utilidade que escreve as entidades da oficina diretamente num
+ * {@link JsonWriter}, sem o uso de reflexão.
+ *
+ * <p> Os nomes dos campos emitidos são os mesmos dos atributos das classes,
+ * assim o formato produzido é idêntico ao do serializador reflexivo do Gson e
+ * pode ser lido por ele.
+ *
+ * @author Alan Lima
+ */
+final class EntityWriter {
+
+    /**
+     * Construtor privado.
+     */
+    private EntityWriter() {
+
+    }
+
+    /**
+     * Escreve um cliente.
+     *
+     * @param out      escritor de Json.
+     * @param customer cliente a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, Customer customer) throws IOException {
+        out.beginObject();
+        out.name("id").value(customer.id());
+        out.name("address").value(customer.getAddress());
+        out.name("email").value(customer.getEmail());
+        writePersonFields(out, customer);
+        out.endObject();
+    }
+
+    /**
+     * Escreve um veículo.
+     *
+     * @param out     escritor de Json.
+     * @param vehicle veículo a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, Vehicle vehicle) throws IOException {
+        out.beginObject();
+        out.name("id").value(vehicle.id());
+        out.name("model").value(vehicle.getModel());
+        out.name("plate").value(vehicle.getPlate());
+        out.name("year").value(vehicle.getYear());
+        out.endObject();
+    }
+
+    /**
+     * Escreve um membro da oficina, sem informação de tipo concreto.
+     *
+     * @param out    escritor de Json.
+     * @param member membro a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, StaffMember member) throws IOException {
+        out.beginObject();
+
+        if (member instanceof Employee employee) {
+            out.name("shifts").beginArray();
+            for (DateSpan shift : employee.getShifts()) {
+                write(out, shift);
+            }
+            out.endArray();
+
+            out.name("openShift").value(employee.getOpenShift());
+        }
+
+        out.name("id").value(member.id());
+        out.name("salary").value(Money.toDouble(member.getSalary()));
+        out.name("password").value(member.getPassword());
+        out.name("accessLevel").value(member.getAccessLevel() != null ? member.getAccessLevel().name() : null);
+        writePersonFields(out, member);
+        out.endObject();
+    }
+
+    /**
+     * Escreve uma despesa.
+     *
+     * @param out     escritor de Json.
+     * @param expense despesa a ser escrita.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, Expense expense) throws IOException {
+        out.beginObject();
+        out.name("id").value(expense.id());
+        out.name("name").value(expense.getName());
+        out.name("description").value(expense.getDescription());
+        out.name("value").value(Money.toDouble(expense.getValue()));
+        out.name("date").value(expense.getDate());
+        out.endObject();
+    }
+
+    /**
+     * Escreve uma nota fiscal.
+     *
+     * @param out     escritor de Json.
+     * @param invoice nota fiscal a ser escrita.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, Invoice invoice) throws IOException {
+        out.beginObject();
+        out.name("id").value(invoice.id());
+        out.name("customer").value(invoice.customer());
+
+        out.name("products").beginArray();
+        for (Item product : invoice.products()) {
+            write(out, product);
+        }
+        out.endArray();
+
+        out.name("services").beginArray();
+        for (Item service : invoice.services()) {
+            write(out, service);
+        }
+        out.endArray();
+
+        out.name("additional").value(Money.toDouble(invoice.additional()));
+        out.name("subtotal").value(Money.toDouble(invoice.subtotal()));
+        out.name("date").value(invoice.date());
+        out.endObject();
+    }
+
+    /**
+     * Escreve um rascunho de nota fiscal.
+     *
+     * @param out   escritor de Json.
+     * @param draft rascunho de nota fiscal a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, InvoiceDraft draft) throws IOException {
+        out.beginObject();
+
+        out.name("products").beginObject();
+        for (Item product : draft.getProducts()) {
+            out.name(Integer.toString(product.getInfo()));
+            write(out, product);
+        }
+        out.endObject();
+
+        out.name("services").beginObject();
+        for (Item service : draft.getServices()) {
+            out.name(Integer.toString(service.getInfo()));
+            write(out, service);
+        }
+        out.endObject();
+
+        out.endObject();
+    }
+
+    /**
+     * Escreve um serviço.
+     *
+     * @param out     escritor de Json.
+     * @param service serviço a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, Service service) throws IOException {
+        out.beginObject();
+        out.name("id").value(service.id());
+        out.name("name").value(service.getName());
+        out.name("description").value(service.getDescription());
+        out.name("value").value(Money.toDouble(service.getValue()));
+        out.endObject();
+    }
+
+    /**
+     * Escreve uma ordem de serviço.
+     *
+     * @param out   escritor de Json.
+     * @param order ordem de serviço a ser escrita.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, ServiceOrder order) throws IOException {
+        out.beginObject();
+        out.name("id").value(order.id());
+        out.name("customer").value(order.getCustomer());
+        out.name("vehicle").value(order.getVehicle());
+        out.name("mechanic").value(order.getMechanic());
+        out.name("elevator").value(order.getElevator());
+        out.name("function").value(order.getFunction());
+
+        if (order.getInvoice() != null) {
+            out.name("invoice");
+            write(out, order.getInvoice());
+        }
+
+        out.name("status").value(order.getStatus() != null ? order.getStatus().name() : null);
+
+        out.name("transitions").beginObject();
+        for (Status status : order.getTransitions()) {
+            out.name(status.name()).value(order.getStatusTime(status));
+        }
+        out.endObject();
+
+        out.name("datetime");
+        write(out, order.getDatetime());
+        out.endObject();
+    }
+
+    /**
+     * Escreve um elevador.
+     *
+     * @param out      escritor de Json.
+     * @param elevator elevador a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, Elevator elevator) throws IOException {
+        out.beginObject();
+        out.name("id").value(elevator.id());
+        out.name("weightLimit").value(elevator.getWeightLimit());
+        out.name("function").value(elevator.getFunction());
+        out.endObject();
+    }
+
+    /**
+     * Escreve um produto.
+     *
+     * @param out     escritor de Json.
+     * @param product produto a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, Product product) throws IOException {
+        out.beginObject();
+        out.name("id").value(product.id());
+        out.name("name").value(product.getName());
+
+        out.name("batch");
+        write(out, product.getBatch());
+
+        out.name("unit").value(product.getUnit());
+        out.endObject();
+    }
+
+    /**
+     * Escreve uma remessa.
+     *
+     * @param out      escritor de Json.
+     * @param shipment remessa a ser escrita.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, Shipment shipment) throws IOException {
+        out.beginObject();
+        out.name("id").value(shipment.id());
+        out.name("supplier").value(shipment.getSupplier());
+
+        out.name("items").beginArray();
+        for (Item item : shipment.getItems()) {
+            write(out, item);
+        }
+        out.endArray();
+
+        out.name("additional").value(Money.toDouble(shipment.getAdditional()));
+        out.name("paymentDate").value(shipment.getPaymentDate());
+        out.name("accounted").value(shipment.isAccounted());
+        out.endObject();
+    }
+
+    /**
+     * Escreve um fornecedor.
+     *
+     * @param out      escritor de Json.
+     * @param supplier fornecedor a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, Supplier supplier) throws IOException {
+        out.beginObject();
+        out.name("id").value(supplier.id());
+        out.name("tradeName").value(supplier.getTradeName());
+        out.name("cnpj").value(supplier.getCnpj());
+        out.endObject();
+    }
+
+    /**
+     * Escreve um item.
+     *
+     * @param out  escritor de Json.
+     * @param item item a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, Item item) throws IOException {
+        out.beginObject();
+        out.name("info").value(item.getInfo());
+
+        out.name("batch");
+        write(out, item.getBatch());
+        out.endObject();
+    }
+
+    /**
+     * Escreve uma quantidade precificada.
+     *
+     * @param out   escritor de Json.
+     * @param batch quantidade precificada a ser escrita.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, PricedQuantity batch) throws IOException {
+        if (batch == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("quantity").value(batch.quantity());
+        out.name("value").value(Money.toDouble(batch.value()));
+        out.endObject();
+    }
+
+    /**
+     * Escreve um espaço de tempo.
+     *
+     * @param out  escritor de Json.
+     * @param span espaço de tempo a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void write(JsonWriter out, DateSpan span) throws IOException {
+        if (span == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("start").value(span.start());
+        out.name("end").value(span.end());
+        out.endObject();
+    }
+
+    /**
+     * Escreve os atributos comuns a toda pessoa, sem abrir nem fechar o objeto.
+     *
+     * @param out    escritor de Json.
+     * @param person pessoa cujos atributos serão escritos.
+     * @throws IOException se houver falha de escrita.
+     */
+    private static void writePersonFields(JsonWriter out, Person person) throws IOException {
+        out.name("name").value(person.getName());
+        out.name("phone").value(person.getPhone());
+        out.name("cpf").value(person.getFullCpf());
+    }
+}
@@ -0,0 +1,100 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.workshop.financial.Expense;
+import edu.ajan.model.workshop.financial.Financial;
+import edu.ajan.model.workshop.financial.Invoice;
+
+/**
+ * Adaptador escrito à mão para a unidade financeira.
+ *
+ * @author Alan Lima
+ */
+final class FinancialAdapter extends SubsystemAdapter<Financial> {
+
+    /**
+     * Adaptador de despesas.
+     */
+    private final TypeAdapter<Expense> expenseAdapter;
+
+    /**
+     * Adaptador de notas fiscais.
+     */
+    private final TypeAdapter<Invoice> invoiceAdapter;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param gson instância do Gson que criou o adaptador.
+     */
+    FinancialAdapter(Gson gson) {
+        super(gson);
+        this.expenseAdapter = gson.getAdapter(Expense.class);
+        this.invoiceAdapter = gson.getAdapter(Invoice.class);
+    }
+
+    /**
+     * Escreve a unidade financeira.
+     *
+     * @param out       escritor de Json.
+     * @param financial unidade financeira a ser escrita.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void write(JsonWriter out, Financial financial) throws IOException {
+        if (financial == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+
+        out.name("expenses").beginArray();
+        for (Expense expense : financial.getExpenses()) {
+            EntityWriter.write(out, expense);
+        }
+        out.endArray();
+
+        out.name("invoices").beginArray();
+        for (Invoice invoice : financial.getInvoices()) {
+            EntityWriter.write(out, invoice);
+        }
+        out.endArray();
+
+        out.endObject();
+    }
+
+    /**
+     * Lê a unidade financeira.
+     *
+     * @param in leitor de Json.
+     * @return unidade financeira lida.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public Financial read(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+
+        Financial financial = new Financial();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "expenses" -> readEach(in, expenseAdapter, financial::addExpense);
+                case "invoices" -> readEach(in, invoiceAdapter, financial::addInvoice);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return financial;
+    }
+}
@@ -1,6 +1,8 @@
 package edu.ajan.model.persistence;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 import edu.ajan.model.workshop.common.Customer;
 import edu.ajan.model.workshop.common.Vehicle;
@@ -23,7 +25,10 @@ public class InstanceCountState {
 
     private final HashMap<String, Integer> instanceCounts;
 
-    private InstanceCountState() {
+    /**
+     * Construtor padrão.
+     */
+    InstanceCountState() {
         this.instanceCounts = new HashMap<>();
     }
 
@@ -80,6 +85,26 @@ public class InstanceCountState {
         return this;
     }
 
+    /**
+     * Define a contagem de instâncias associada a um nome de classe.
+     * 
+     * @param className     nome completo da classe.
+     * @param instanceCount a contagem de instâncias da classe.
+     */
+    void put(String className, int instanceCount) {
+        instanceCounts.put(className, instanceCount);
+    }
+
+    /**
+     * Retorna uma visão imutável das contagens de instâncias, indexadas pelo nome
+     * completo das classes.
+     * 
+     * @return visão imutável das contagens de instâncias.
+     */
+    Map<String, Integer> counts() {
+        return Collections.unmodifiableMap(instanceCounts);
+    }
+
     /**
      * Obtém a contagem de instâncias de uma classe específica.
      * 
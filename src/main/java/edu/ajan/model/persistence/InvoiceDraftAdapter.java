@@ -0,0 +1,83 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.workshop.financial.InvoiceDraft;
+import edu.ajan.model.workshop.stock.Item;
+
+/**
+ * Adaptador escrito à mão para rascunhos de nota fiscal.
+ *
+ * <p> Os mapas do rascunho são lidos à mão, item a item, em vez de pelo
+ * adaptador de mapas do Gson, que depende de detalhes internos de
+ * {@link JsonReader} e não funciona com leitores alternativos, como o de
+ * {@link BinaryJsonReader}.
+ *
+ * @author Alan Lima
+ */
+final class InvoiceDraftAdapter extends TypeAdapter<InvoiceDraft> {
+
+    /**
+     * Adaptador de itens.
+     */
+    private final TypeAdapter<Item> itemAdapter;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param gson instância do Gson que criou o adaptador.
+     */
+    InvoiceDraftAdapter(Gson gson) {
+        this.itemAdapter = gson.getAdapter(Item.class);
+    }
+
+    /**
+     * Escreve o rascunho de nota fiscal.
+     *
+     * @param out   escritor de Json.
+     * @param draft rascunho a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void write(JsonWriter out, InvoiceDraft draft) throws IOException {
+        if (draft == null) {
+            out.nullValue();
+            return;
+        }
+
+        EntityWriter.write(out, draft);
+    }
+
+    /**
+     * Lê o rascunho de nota fiscal.
+     *
+     * @param in leitor de Json.
+     * @return rascunho lido.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public InvoiceDraft read(JsonReader in) throws IOException {
+        if (SubsystemAdapter.consumeNull(in)) {
+            return null;
+        }
+
+        InvoiceDraft draft = new InvoiceDraft();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "products" -> SubsystemAdapter.readEach(in, itemAdapter, draft::addProduct);
+                case "services" -> SubsystemAdapter.readEach(in, itemAdapter, draft::addService);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return draft;
+    }
+}
@@ -0,0 +1,677 @@
+package edu.ajan.model.persistence;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.exception.WorkshopException;
+import edu.ajan.model.workshop.Workshop;
+
+/**
+ * Classe que representa o diário de operações da oficina, um registro
+ * somente-anexável das alterações feitas desde o último snapshot.
+ *
+ * <p> Cada linha do arquivo é um documento Json que descreve uma operação
+ * ({@code ADD}, {@code UPDATE} ou {@code REMOVE}) sobre uma entidade, e as
+ * operações são agrupadas em transações encerradas por uma linha
+ * {@code COMMIT}, que leva consigo o estado da contagem de instâncias. Só é
+ * forçado para o disco o que foi confirmado, e, na reprodução, as operações
+ * após a última confirmação são descartadas.
+ *
+ * <p> Cada diário pertence a um snapshot base, e é reproduzido sobre ele ao
+ * carregar a oficina. Quando o diário cresce além de
+ * {@link #CHECKPOINT_INTERVAL} operações, a oficina captura um novo snapshot
+ * completo e começa um novo diário.
+ *
+ * <p> Só entram no diário as alterações feitas pelos sistemas da oficina. Uma
+ * entidade já guardada num sistema deve ser alterada pelo método
+ * {@code update} do sistema, e não direto pelos seus métodos de acesso, ou a
+ * alteração se perde ao recarregar a oficina.
+ *
+ * @author Alan Lima
+ */
+public final class Journal {
+
+    /**
+     * Identificador de snapshot base usado quando ainda não há nenhum snapshot.
+     */
+    public static final long NO_SNAPSHOT = 0;
+
+    /**
+     * Quantidade de operações no diário a partir da qual um novo snapshot
+     * completo deve ser capturado.
+     */
+    public static final int CHECKPOINT_INTERVAL = 4096;
+
+    /**
+     * Tamanho, em caracteres, do buffer de escrita.
+     */
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    /**
+     * Diário desanexado, que descarta toda operação. É o diário dos sistemas
+     * que não pertencem à oficina em uso, como os recém-carregados de um
+     * snapshot.
+     */
+    public static final Journal DETACHED = new Journal(NO_SNAPSHOT, null, null, null, 0, null);
+
+    /**
+     * Diário em uso pela oficina.
+     */
+    private static Journal journal = DETACHED;
+
+    /**
+     * Identificador do snapshot base do diário.
+     */
+    private final long baseId;
+
+    /**
+     * Caminho do arquivo do diário, ou {@code null} se o diário estiver
+     * desanexado.
+     */
+    private final Path filepath;
+
+    /**
+     * Canal do arquivo do diário, ou {@code null} se o diário estiver
+     * desanexado.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Escritor com buffer sobre o canal.
+     */
+    private final Writer writer;
+
+    /**
+     * Quantidade de operações no diário, incluindo as ainda não confirmadas.
+     */
+    private int entries;
+
+    /**
+     * Estado da contagem de instâncias da última confirmação.
+     */
+    private InstanceCountState state;
+
+    /**
+     * Indica se alguma escrita do diário falhou, caso em que ele não é mais
+     * confiável e um snapshot completo é necessário.
+     */
+    private boolean failed;
+
+    /**
+     * Diário sucessor, sobre um snapshot ainda em escrita, que recebe uma cópia
+     * de cada operação até que o snapshot seja concluído.
+     */
+    private Journal successor;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param baseId   identificador do snapshot base.
+     * @param filepath caminho do arquivo do diário.
+     * @param channel  canal do arquivo do diário.
+     * @param writer   escritor com buffer sobre o canal.
+     * @param entries  quantidade de operações já presentes no arquivo.
+     * @param state    estado da contagem de instâncias da última confirmação.
+     */
+    private Journal(long baseId, Path filepath, FileChannel channel, Writer writer, int entries,
+            InstanceCountState state) {
+
+        this.baseId = baseId;
+        this.filepath = filepath;
+        this.channel = channel;
+        this.writer = writer;
+        this.entries = entries;
+        this.state = state;
+        this.failed = false;
+        this.successor = null;
+    }
+
+    /**
+     * Retorna o diário em uso pela oficina.
+     *
+     * @return diário em uso, ou {@link #DETACHED} se nenhum foi aberto.
+     */
+    public static Journal journal() {
+        return journal;
+    }
+
+    /**
+     * Abre o diário de um snapshot base, reproduzindo suas transações
+     * confirmadas sobre a oficina passada, e o torna o diário em uso.
+     *
+     * <p> Uma transação incompleta ao final do arquivo, deixada por uma queda,
+     * é descartada e cortada do arquivo.
+     *
+     * @param baseId   identificador do snapshot base, ou {@link #NO_SNAPSHOT}.
+     * @param workshop oficina sobre a qual as operações são reproduzidas.
+     * @return diário aberto.
+     */
+    public static Journal open(long baseId, Workshop workshop) {
+        journal.close();
+
+        Path filepath = JsonHandler.getJournalFilepath(baseId);
+
+        int entries = 0;
+        long length = 0;
+        InstanceCountState state = null;
+
+        try (BufferedReader reader = Files.newBufferedReader(filepath, StandardCharsets.UTF_8)) {
+
+            ArrayList<Entry> pending = new ArrayList<>();
+            long position = 0;
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                position += line.getBytes(StandardCharsets.UTF_8).length + 1;
+
+                Entry entry = Entry.parse(line);
+                if (entry == null) {
+                    break; // Linha corrompida, o restante do arquivo é descartado
+                }
+
+                if (entry.operation != Operation.COMMIT) {
+                    pending.add(entry);
+                    continue;
+                }
+
+                for (Entry committed : pending) {
+                    committed.apply(workshop);
+                }
+
+                entries += pending.size();
+                pending.clear();
+
+                length = position;
+                state = entry.state;
+            }
+
+        } catch (NoSuchFileException err) {
+            // Diário ainda não existe, nada a reproduzir
+        } catch (IOException err) {
+            // Reproduz o que foi possível ler
+        }
+
+        journal = create(baseId, filepath, length, entries, state);
+        return journal;
+    }
+
+    /**
+     * Fecha o diário em uso e começa um novo, vazio, sobre outro snapshot base.
+     *
+     * @param baseId identificador do novo snapshot base.
+     * @return novo diário.
+     */
+    public static Journal rotate(long baseId) {
+        journal.close();
+        journal = create(baseId, JsonHandler.getJournalFilepath(baseId), 0, 0, null);
+        return journal;
+    }
+
+    /**
+     * Começa um diário sucessor do diário em uso, sobre um snapshot que ainda
+     * está sendo escrito. Até que o snapshot seja concluído, toda operação e
+     * confirmação vai para os dois diários, de modo que o diário em uso
+     * continua completo caso o snapshot não chegue a ser registrado.
+     *
+     * @param baseId identificador do snapshot em escrita.
+     * @return diário sucessor, ou {@link #DETACHED} se o diário em uso estiver
+     *         desanexado ou já tiver um sucessor.
+     */
+    public static Journal fork(long baseId) {
+        if (!journal.isAttached() || journal.successor != null) {
+            return DETACHED;
+        }
+
+        journal.successor = create(baseId, JsonHandler.getJournalFilepath(baseId), 0, 0, null);
+        return journal.successor;
+    }
+
+    /**
+     * Torna o diário sucessor o diário em uso, fechando o atual. Deve ser
+     * chamado quando o snapshot do sucessor for registrado no curador.
+     *
+     * @return novo diário em uso.
+     */
+    public static Journal promote() {
+        Journal next = journal.successor;
+        if (next == null) {
+            return journal;
+        }
+
+        journal.successor = null;
+        journal.close();
+        journal = next;
+        return journal;
+    }
+
+    /**
+     * Descarta o diário sucessor, apagando seu arquivo. Deve ser chamado quando
+     * o snapshot do sucessor não puder ser escrito.
+     */
+    public static void abandon() {
+        Journal next = journal.successor;
+        if (next == null) {
+            return;
+        }
+
+        journal.successor = null;
+        next.close();
+
+        if (next.filepath != null) {
+            try {
+                Files.deleteIfExists(next.filepath);
+            } catch (IOException err) {
+                // O arquivo órfão é inofensivo, pois nenhum snapshot o referencia
+            }
+        }
+    }
+
+    /**
+     * Cria um diário aberto para anexação, cortando o arquivo no tamanho
+     * passado.
+     *
+     * @param baseId   identificador do snapshot base.
+     * @param filepath caminho do arquivo do diário.
+     * @param length   tamanho, em bytes, do conteúdo confirmado do arquivo.
+     * @param entries  quantidade de operações confirmadas no arquivo.
+     * @param state    estado da contagem de instâncias da última confirmação.
+     * @return diário criado, ou {@link #DETACHED} se o arquivo não pôde ser
+     *         aberto.
+     */
+    private static Journal create(long baseId, Path filepath, long length, int entries, InstanceCountState state) {
+        try {
+            Files.createDirectories(filepath.toAbsolutePath().getParent());
+
+            FileChannel channel = FileChannel.open(filepath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (length > channel.size()) {
+                // A última confirmação ficou sem a quebra de linha final
+                channel.position(channel.size());
+                channel.write(ByteBuffer.wrap(new byte[] { '\n' }));
+            } else {
+                channel.truncate(length);
+                channel.position(length);
+            }
+
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+            return new Journal(baseId, filepath, channel, writer, entries, state);
+
+        } catch (IOException err) {
+            return DETACHED;
+        }
+    }
+
+    /**
+     * Retorna o identificador do snapshot base do diário.
+     *
+     * @return identificador do snapshot base.
+     */
+    public long baseId() {
+        return baseId;
+    }
+
+    /**
+     * Retorna o estado da contagem de instâncias da última confirmação.
+     *
+     * @return estado da contagem de instâncias, ou {@code null} se o diário
+     *         nunca foi confirmado.
+     */
+    public InstanceCountState state() {
+        return state;
+    }
+
+    /**
+     * Verifica se o diário está anexado a um arquivo.
+     *
+     * @return {@code true} se, e somente se o diário estiver anexado.
+     */
+    public boolean isAttached() {
+        return channel != null;
+    }
+
+    /**
+     * Verifica se um novo snapshot completo deve ser capturado, seja porque o
+     * diário cresceu demais, seja porque ele não é mais confiável.
+     *
+     * @return {@code true} se um snapshot completo for necessário.
+     */
+    public boolean needsCheckpoint() {
+        return !isAttached() || failed || entries >= CHECKPOINT_INTERVAL;
+    }
+
+    /**
+     * Registra a adição de uma entidade.
+     *
+     * @param <E>    tipo da entidade.
+     * @param kind   tipo de entidade.
+     * @param entity entidade adicionada.
+     */
+    public <E> void added(EntityKind<E> kind, E entity) {
+        append(Operation.ADD, kind, kind.id(entity), entity);
+    }
+
+    /**
+     * Registra a alteração de uma entidade já existente.
+     *
+     * @param <E>    tipo da entidade.
+     * @param kind   tipo de entidade.
+     * @param entity entidade alterada.
+     */
+    public <E> void updated(EntityKind<E> kind, E entity) {
+        append(Operation.UPDATE, kind, kind.id(entity), entity);
+    }
+
+    /**
+     * Registra a remoção de uma entidade.
+     *
+     * @param <E>  tipo da entidade.
+     * @param kind tipo de entidade.
+     * @param id   identificador da entidade removida.
+     */
+    public <E> void removed(EntityKind<E> kind, int id) {
+        append(Operation.REMOVE, kind, id, null);
+    }
+
+    /**
+     * Confirma as operações registradas desde a última confirmação, forçando-as
+     * para o disco.
+     *
+     * @param state estado atual da contagem de instâncias.
+     * @return {@code true} se as operações foram confirmadas, {@code false}
+     *         caso contrário.
+     */
+    public synchronized boolean commit(InstanceCountState state) {
+        if (successor != null) {
+            successor.commit(state);
+        }
+
+        if (!isAttached() || failed) {
+            return false;
+        }
+
+        try {
+            JsonWriter out = new JsonWriter(writer);
+            out.beginObject();
+            out.name("op").value(Operation.COMMIT.name());
+            out.name("state");
+            SnapshotAdapter.writeInstanceCountState(out, state);
+            out.endObject();
+
+            writer.write('\n');
+            writer.flush();
+            channel.force(false);
+
+        } catch (IOException err) {
+            failed = true;
+            return false;
+        }
+
+        this.state = state;
+        return true;
+    }
+
+    /**
+     * Fecha o arquivo do diário, descartando as operações não confirmadas.
+     */
+    public synchronized void close() {
+        if (!isAttached()) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException err) {
+            // Nada a fazer, o diário é abandonado
+        }
+    }
+
+    /**
+     * Anexa uma operação ao buffer do diário. A escrita é sincronizada, já que
+     * os sistemas podem ser alterados em várias threads ao mesmo tempo, mas o
+     * diário desanexado, compartilhado por todos os sistemas fora de uso, nunca
+     * é travado.
+     *
+     * @param <E>       tipo da entidade.
+     * @param operation operação.
+     * @param kind      tipo de entidade.
+     * @param id        identificador da entidade.
+     * @param entity    entidade, ou {@code null} numa remoção.
+     */
+    private <E> void append(Operation operation, EntityKind<E> kind, int id, E entity) {
+        if (successor != null) {
+            successor.append(operation, kind, id, entity);
+        }
+
+        if (!isAttached()) {
+            return;
+        }
+
+        write(operation, kind, id, entity);
+    }
+
+    /**
+     * Escreve uma operação no buffer do diário.
+     *
+     * @param <E>       tipo da entidade.
+     * @param operation operação.
+     * @param kind      tipo de entidade.
+     * @param id        identificador da entidade.
+     * @param entity    entidade, ou {@code null} numa remoção.
+     */
+    private synchronized <E> void write(Operation operation, EntityKind<E> kind, int id, E entity) {
+        if (failed) {
+            return;
+        }
+
+        try {
+            JsonWriter out = new JsonWriter(writer);
+            out.beginObject();
+            out.name("op").value(operation.name());
+            out.name("kind").value(kind.name());
+            out.name("id").value(id);
+
+            if (entity != null) {
+                out.name("value");
+                JsonHandler.gson().getAdapter(kind.type()).write(out, entity);
+            }
+
+            out.endObject();
+            writer.write('\n');
+
+        } catch (IOException | JsonParseException err) {
+            failed = true;
+            return;
+        }
+
+        entries++;
+    }
+
+    /**
+     * Retorna uma representação textual do diário.
+     *
+     * @return representação textual do diário.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d %d)", baseId, entries);
+    }
+
+    /**
+     * Enumerador das operações do diário.
+     */
+    private enum Operation {
+
+        /**
+         * Adição de uma entidade.
+         */
+        ADD,
+
+        /**
+         * Alteração de uma entidade.
+         */
+        UPDATE,
+
+        /**
+         * Remoção de uma entidade.
+         */
+        REMOVE,
+
+        /**
+         * Confirmação das operações anteriores.
+         */
+        COMMIT,
+    }
+
+    /**
+     * Classe que representa uma linha lida do diário.
+     */
+    private static final class Entry {
+
+        /**
+         * Operação da linha.
+         */
+        private final Operation operation;
+
+        /**
+         * Tipo de entidade, ou {@code null} numa confirmação.
+         */
+        private final EntityKind<?> kind;
+
+        /**
+         * Identificador da entidade.
+         */
+        private final int id;
+
+        /**
+         * Entidade, ou {@code null} numa remoção ou confirmação.
+         */
+        private final Object value;
+
+        /**
+         * Estado da contagem de instâncias, ou {@code null} fora de uma
+         * confirmação.
+         */
+        private final InstanceCountState state;
+
+        /**
+         * Construtor parametrizado.
+         *
+         * @param operation operação da linha.
+         * @param kind      tipo de entidade.
+         * @param id        identificador da entidade.
+         * @param value     entidade.
+         * @param state     estado da contagem de instâncias.
+         */
+        private Entry(Operation operation, EntityKind<?> kind, int id, Object value, InstanceCountState state) {
+            this.operation = operation;
+            this.kind = kind;
+            this.id = id;
+            this.value = value;
+            this.state = state;
+        }
+
+        /**
+         * Interpreta uma linha do diário.
+         *
+         * @param line linha do diário.
+         * @return linha interpretada, ou {@code null} se a linha estiver
+         *         corrompida.
+         */
+        private static Entry parse(String line) {
+            try (JsonReader in = new JsonReader(new StringReader(line))) {
+
+                Operation operation = null;
+                EntityKind<?> kind = null;
+                int id = 0;
+                Object value = null;
+                InstanceCountState state = null;
+
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "op" -> operation = Operation.valueOf(in.nextString());
+                        case "kind" -> kind = EntityKind.valueOf(in.nextString());
+                        case "id" -> id = in.nextInt();
+                        case "value" -> {
+                            if (kind == null) {
+                                return null;
+                            }
+                            value = JsonHandler.gson().getAdapter(kind.type()).read(in);
+                        }
+                        case "state" -> state = SnapshotAdapter.readInstanceCountState(in);
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+
+                if (in.peek() != JsonToken.END_DOCUMENT || operation == null) {
+                    return null;
+                }
+
+                if (operation != Operation.COMMIT && kind == null) {
+                    return null;
+                }
+
+                if ((operation == Operation.ADD || operation == Operation.UPDATE) && value == null) {
+                    return null;
+                }
+
+                return new Entry(operation, kind, id, value, state);
+
+            } catch (IOException | JsonParseException | IllegalStateException | IllegalArgumentException err) {
+                return null;
+            }
+        }
+
+        /**
+         * Reproduz a operação sobre uma oficina. Adições e alterações restauram
+         * a entidade, substituindo a de mesmo identificador sem retirá-la antes
+         * e sem as validações de uma adição nova, assim reproduzir a mesma
+         * operação duas vezes não tem efeito adicional, e uma operação que
+         * falhe deixa a entidade anterior intacta.
+         *
+         * @param workshop oficina.
+         */
+        private void apply(Workshop workshop) {
+            apply(workshop, kind);
+        }
+
+        /**
+         * Reproduz a operação sobre uma oficina, com o tipo da entidade
+         * capturado.
+         *
+         * @param <E>      tipo da entidade.
+         * @param workshop oficina.
+         * @param kind     tipo de entidade.
+         */
+        private <E> void apply(Workshop workshop, EntityKind<E> kind) {
+            try {
+                if (operation == Operation.REMOVE) {
+                    kind.remove(workshop, id);
+                } else {
+                    kind.restore(workshop, List.of(kind.type().cast(value)));
+                }
+
+            } catch (WorkshopException err) {
+                // Operação inválida sobre o estado atual, é ignorada
+            }
+        }
+    }
+}
@@ -1,15 +1,27 @@
 package edu.ajan.model.persistence;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Classe de utilidade que serializa e salva, e carrega e deserializa arquivos
@@ -19,6 +31,12 @@ import com.google.gson.reflect.TypeToken;
  * <a href="https://javadoc.io/doc/com.google.code.gson/gson/latest/index.html">Gson</a>
  * para manipulação de Json.
  * 
+ * <p> A escrita e a leitura são feitas em fluxo, por {@link JsonWriter} e
+ * {@link JsonReader} sobre canais de arquivo com buffer, de modo que o
+ * documento nunca é montado por inteiro em memória. Os sistemas da oficina são
+ * tratados por adaptadores escritos à mão, registrados em
+ * {@link WorkshopTypeAdapterFactory}.
+ * 
  * @author Alan Lima
  */
 public final class JsonHandler {
@@ -43,10 +61,22 @@ public final class JsonHandler {
      */
     private static final Path SNAPSHOT_FILEPATH = ROOT_FILEPATH.resolve("snapshot");
 
+    /**
+     * Caminho para o diretório que contém os diários de operações.
+     */
+    private static final Path JOURNAL_FILEPATH = ROOT_FILEPATH.resolve("journal");
+
+    /**
+     * Tamanho, em caracteres, dos buffers de leitura e escrita.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
     /**
      * Serializador e deserializador de Json.
      */
-    private static final Gson GSON = new Gson();
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new WorkshopTypeAdapterFactory())
+            .create();
 
     /**
      * Construtor privado.
@@ -64,6 +94,24 @@ public final class JsonHandler {
         return CARETAKER_FILEPATH;
     }
 
+    /**
+     * Retorna o caminho para o diretório que contém as snapshots.
+     * 
+     * @return caminho para o diretório que contém as snapshots.
+     */
+    public static Path getSnapshotDirectory() {
+        return SNAPSHOT_FILEPATH;
+    }
+
+    /**
+     * Retorna o caminho para o diretório que contém os diários de operações.
+     * 
+     * @return caminho para o diretório que contém os diários de operações.
+     */
+    public static Path getJournalDirectory() {
+        return JOURNAL_FILEPATH;
+    }
+
     /**
      * Retorna o caminho para o arquivo que contém uma certa snapshot.
      * 
@@ -71,12 +119,75 @@ public final class JsonHandler {
      * @return caminho para o diretório que contém as snapshots.
      */
     public static Path getSnapshotFilepath(long id) {
-        return SNAPSHOT_FILEPATH.resolve(String.format("workshop-%s.json", STANDARD_DATE_FORMAT.format(new Date(id))));
+        return getSnapshotFilepath(id, SnapshotFormat.JSON);
+    }
+
+    /**
+     * Retorna o caminho para o arquivo que contém uma certa snapshot, num certo
+     * formato.
+     * 
+     * @param id     identificador da snapshot.
+     * @param format formato da snapshot.
+     * @return caminho para o arquivo da snapshot.
+     */
+    public static Path getSnapshotFilepath(long id, SnapshotFormat format) {
+        return getSnapshotFilepath(id, format, SnapshotCodec.NONE);
+    }
+
+    /**
+     * Retorna o caminho para o arquivo que contém uma certa snapshot, num certo
+     * formato e comprimida por um certo codec. No formato binário o codec fica
+     * no cabeçalho, e não altera o caminho; no formato Json, a extensão do
+     * codec é acrescentada à do formato.
+     * 
+     * @param id     identificador da snapshot.
+     * @param format formato da snapshot.
+     * @param codec  codec de compressão da snapshot.
+     * @return caminho para o arquivo da snapshot.
+     */
+    public static Path getSnapshotFilepath(long id, SnapshotFormat format, SnapshotCodec codec) {
+        String extension = format.extension();
+        if (format == SnapshotFormat.JSON && codec != SnapshotCodec.NONE) {
+            extension += "." + codec.extension();
+        }
+
+        return SNAPSHOT_FILEPATH.resolve(String.format("workshop-%s.%s",
+                STANDARD_DATE_FORMAT.format(new Date(id)), extension));
+    }
+
+    /**
+     * Retorna o caminho para o arquivo do diário de operações de um snapshot
+     * base.
+     * 
+     * @param baseId identificador do snapshot base, ou
+     *               {@link Journal#NO_SNAPSHOT}.
+     * @return caminho para o arquivo do diário.
+     */
+    public static Path getJournalFilepath(long baseId) {
+        if (baseId == Journal.NO_SNAPSHOT) {
+            return JOURNAL_FILEPATH.resolve("journal-initial.log");
+        }
+
+        return JOURNAL_FILEPATH.resolve(String.format("journal-%s.log", STANDARD_DATE_FORMAT.format(new Date(baseId))));
+    }
+
+    /**
+     * Retorna o serializador e deserializador de Json, com os adaptadores da
+     * oficina registrados.
+     * 
+     * @return serializador e deserializador de Json.
+     */
+    static Gson gson() {
+        return GSON;
     }
 
     /**
      * Salva um objeto no formato Json em um arquivo.
      * 
+     * <p> O objeto é escrito num arquivo temporário ao lado do destino, forçado
+     * para o disco e só então renomeado atomicamente para o destino, de modo
+     * que uma falha no meio da escrita nunca deixa o destino pela metade.
+     * 
      * @param <T>      tipo do objeto a ser salvo.
      * @param object   objeto a ser salvo.
      * @param filename caminho do arquivo onde o objeto será salvo.
@@ -85,25 +196,99 @@ public final class JsonHandler {
      *         contrário.
      */
     public static <T> boolean save(T object, Path filename, TypeToken<T> type) {
+        return save(object, filename, type, SnapshotCodec.NONE);
+    }
+
+    /**
+     * Salva um objeto no formato Json em um arquivo, comprimido em fluxo por um
+     * codec.
+     * 
+     * @param <T>      tipo do objeto a ser salvo.
+     * @param object   objeto a ser salvo.
+     * @param filename caminho do arquivo onde o objeto será salvo.
+     * @param type     tipo do objeto a ser salvo, utilizado para serialização.
+     * @param codec    codec de compressão.
+     * @return {@code true} se o objeto foi salvo com sucesso, {@code false} caso
+     *         contrário.
+     * @see #save(Object, Path, TypeToken)
+     */
+    public static <T> boolean save(T object, Path filename, TypeToken<T> type, SnapshotCodec codec) {
+        Path temporary = getTemporaryFilepath(filename);
+
         try {
 
-            File file = filename.toFile();
-            file.getParentFile().mkdirs();
-            file.createNewFile();
+            Files.createDirectories(filename.toAbsolutePath().getParent());
 
-            FileWriter writer = new FileWriter(file);
-            GSON.toJson(object, type.getType(), writer);
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
 
-            writer.flush();
-            writer.close();
+                JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(
+                        codec.encode(Channels.newOutputStream(channel)), StandardCharsets.UTF_8), BUFFER_SIZE));
+                GSON.toJson(object, type.getType(), writer);
 
-        } catch (IOException err) {
+                // Fechar o escritor termina a compressão, mas não fecha o canal,
+                // que é forçado em seguida e fechado pelo bloco
+                writer.close();
+                channel.force(true);
+            }
+
+            replace(temporary, filename);
+
+        } catch (IOException | JsonParseException err) {
+            discard(temporary);
             return false;
         }
 
         return true;
     }
 
+    /**
+     * Retorna o caminho do arquivo temporário usado na escrita de um arquivo.
+     * 
+     * @param filename caminho do arquivo.
+     * @return caminho do arquivo temporário, no mesmo diretório.
+     */
+    static Path getTemporaryFilepath(Path filename) {
+        return filename.resolveSibling(filename.getFileName() + ".tmp");
+    }
+
+    /**
+     * Substitui um arquivo por outro, atomicamente se o sistema de arquivos
+     * permitir, e força a alteração do diretório para o disco.
+     * 
+     * @param source caminho do arquivo substituto.
+     * @param target caminho do arquivo substituído.
+     * @throws IOException se a substituição falhar.
+     */
+    static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException err) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // Força a entrada do diretório, para que a renomeação sobreviva a uma
+        // queda de energia; nem todo sistema permite abrir diretórios
+        try (FileChannel directory = FileChannel.open(target.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException err) {
+            // A renomeação já foi feita, apenas não é garantida no disco
+        }
+    }
+
+    /**
+     * Apaga um arquivo temporário de uma escrita que falhou.
+     * 
+     * @param temporary caminho do arquivo temporário.
+     */
+    static void discard(Path temporary) {
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (IOException err) {
+            // O arquivo temporário órfão é descartado na próxima poda
+        }
+    }
+
     /**
      * Carrega um objeto do formato Json de um arquivo.
      * 
@@ -114,15 +299,27 @@ public final class JsonHandler {
      * @return objeto carregado, ou {@code null} se não foi possível carregar.
      */
     public static <T> T load(Path filename, TypeToken<T> type) {
-        try {
+        return load(filename, type, SnapshotCodec.NONE);
+    }
 
-            FileReader reader = new FileReader(filename.toFile());
-            T object = GSON.fromJson(reader, type.getType());
-            
-            reader.close();
-            return object;
+    /**
+     * Carrega um objeto do formato Json de um arquivo comprimido por um codec.
+     * 
+     * @param <T>      tipo do objeto a ser carregado.
+     * @param filename caminho do arquivo de onde o objeto será carregado.
+     * @param type     tipo do objeto a ser carregado, utilizado para
+     *                 deserialização.
+     * @param codec    codec de compressão do arquivo.
+     * @return objeto carregado, ou {@code null} se não foi possível carregar.
+     */
+    public static <T> T load(Path filename, TypeToken<T> type, SnapshotCodec codec) {
+        try (FileChannel channel = FileChannel.open(filename, StandardOpenOption.READ);
+                JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(
+                        codec.decode(Channels.newInputStream(channel)), StandardCharsets.UTF_8), BUFFER_SIZE))) {
 
-        } catch (IOException err) {
+            return GSON.fromJson(reader, type);
+
+        } catch (IOException | JsonParseException err) {
             return null;
         }
     }
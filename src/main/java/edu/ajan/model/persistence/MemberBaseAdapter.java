@@ -0,0 +1,87 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.workshop.staff.MemberBase;
+import edu.ajan.model.workshop.staff.StaffMember;
+
+/**
+ * Adaptador escrito à mão para a base de membros.
+ *
+ * @author Alan Lima
+ */
+final class MemberBaseAdapter extends SubsystemAdapter<MemberBase> {
+
+    /**
+     * Adaptador de membros.
+     */
+    private final TypeAdapter<StaffMember> memberAdapter;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param gson instância do Gson que criou o adaptador.
+     */
+    MemberBaseAdapter(Gson gson) {
+        super(gson);
+        this.memberAdapter = gson.getAdapter(StaffMember.class);
+    }
+
+    /**
+     * Escreve a base de membros.
+     *
+     * @param out        escritor de Json.
+     * @param memberbase base de membros a ser escrita.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void write(JsonWriter out, MemberBase memberbase) throws IOException {
+        if (memberbase == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+
+        out.name("members").beginObject();
+        for (StaffMember member : memberbase.getMembers()) {
+            out.name(Integer.toString(member.id()));
+            memberAdapter.write(out, member);
+        }
+        out.endObject();
+
+        out.endObject();
+    }
+
+    /**
+     * Lê a base de membros.
+     *
+     * @param in leitor de Json.
+     * @return base de membros lida.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public MemberBase read(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+
+        MemberBase memberbase = new MemberBase();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "members" -> readEach(in, memberAdapter, memberbase::addMember);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return memberbase;
+    }
+}
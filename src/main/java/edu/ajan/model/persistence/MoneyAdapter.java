@@ -0,0 +1,55 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.workshop.money.Money;
+
+/**
+ * Adaptador dos valores monetários, guardados em centavos e escritos em
+ * unidades monetárias, como nos arquivos anteriores a eles, de modo que
+ * snapshots e diários antigos continuam legíveis. Deve ser usado nos campos
+ * monetários das entidades, por {@code @JsonAdapter}.
+ *
+ * @author Alan Lima
+ */
+public final class MoneyAdapter extends TypeAdapter<Long> {
+
+    /**
+     * Escreve um valor monetário.
+     *
+     * @param out    escritor de Json.
+     * @param amount valor em centavos.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void write(JsonWriter out, Long amount) throws IOException {
+        if (amount == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.value(Money.toDouble(amount));
+    }
+
+    /**
+     * Lê um valor monetário.
+     *
+     * @param in leitor de Json.
+     * @return valor em centavos.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public Long read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return Money.ZERO;
+        }
+
+        return Money.of(in.nextDouble());
+    }
+}
@@ -0,0 +1,102 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.workshop.common.Customer;
+import edu.ajan.model.workshop.common.Registry;
+import edu.ajan.model.workshop.common.Vehicle;
+
+/**
+ * Adaptador escrito à mão para o registro de clientes e veículos.
+ *
+ * @author Alan Lima
+ */
+final class RegistryAdapter extends SubsystemAdapter<Registry> {
+
+    /**
+     * Adaptador de clientes.
+     */
+    private final TypeAdapter<Customer> customerAdapter;
+
+    /**
+     * Adaptador de veículos.
+     */
+    private final TypeAdapter<Vehicle> vehicleAdapter;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param gson instância do Gson que criou o adaptador.
+     */
+    RegistryAdapter(Gson gson) {
+        super(gson);
+        this.customerAdapter = gson.getAdapter(Customer.class);
+        this.vehicleAdapter = gson.getAdapter(Vehicle.class);
+    }
+
+    /**
+     * Escreve o registro.
+     *
+     * @param out      escritor de Json.
+     * @param registry registro a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void write(JsonWriter out, Registry registry) throws IOException {
+        if (registry == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+
+        out.name("customers").beginObject();
+        for (Customer customer : registry.getCustomers()) {
+            out.name(Integer.toString(customer.id()));
+            EntityWriter.write(out, customer);
+        }
+        out.endObject();
+
+        out.name("vehicles").beginObject();
+        for (Vehicle vehicle : registry.getVehicles()) {
+            out.name(Integer.toString(vehicle.id()));
+            EntityWriter.write(out, vehicle);
+        }
+        out.endObject();
+
+        out.endObject();
+    }
+
+    /**
+     * Lê o registro.
+     *
+     * @param in leitor de Json.
+     * @return registro lido.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public Registry read(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+
+        Registry registry = new Registry();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "customers" -> readEach(in, customerAdapter, registry::addCustomer);
+                case "vehicles" -> readEach(in, vehicleAdapter, registry::addVehicle);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return registry;
+    }
+}
@@ -0,0 +1,227 @@
+package edu.ajan.model.persistence;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.LongFunction;
+import java.util.function.LongUnaryOperator;
+
+import edu.ajan.model.exception.WorkshopException;
+
+/**
+ * Classe que representa a política de retenção dos snapshots do curador.
+ *
+ * <p> Um snapshot é retido se estiver entre os {@link #getKeepLast()} mais
+ * recentes, ou se for o mais recente de uma das {@link #getHourly()} últimas
+ * horas, dos {@link #getDaily()} últimos dias ou das {@link #getWeekly()}
+ * últimas semanas que tenham algum snapshot. Se houver um limite de bytes, os
+ * snapshots retidos mais antigos são descartados até que o total caiba nele.
+ * O snapshot mais recente é sempre retido.
+ *
+ * @author Alan Lima
+ */
+public final class RetentionPolicy {
+
+    /**
+     * Política que retém todos os snapshots.
+     */
+    public static final RetentionPolicy KEEP_ALL = new RetentionPolicy(Integer.MAX_VALUE, 0, 0, 0, 0);
+
+    /**
+     * Quantidade de snapshots mais recentes retidos incondicionalmente.
+     */
+    private final int keepLast;
+
+    /**
+     * Quantidade de horas em que o snapshot mais recente é retido.
+     */
+    private final int hourly;
+
+    /**
+     * Quantidade de dias em que o snapshot mais recente é retido.
+     */
+    private final int daily;
+
+    /**
+     * Quantidade de semanas em que o snapshot mais recente é retido.
+     */
+    private final int weekly;
+
+    /**
+     * Tamanho máximo, em bytes, do total dos snapshots retidos, ou {@code 0}
+     * se não houver limite.
+     */
+    private final long maxBytes;
+
+    /**
+     * Construtor padrão, que retém os 8 snapshots mais recentes, e um por hora
+     * no último dia, um por dia na última semana e um por semana no último mês,
+     * sem limite de bytes.
+     */
+    public RetentionPolicy() {
+        this(8, 24, 7, 4, 0);
+    }
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param keepLast quantidade de snapshots mais recentes retidos.
+     * @param hourly   quantidade de horas com um snapshot retido.
+     * @param daily    quantidade de dias com um snapshot retido.
+     * @param weekly   quantidade de semanas com um snapshot retido.
+     * @param maxBytes tamanho máximo do total dos snapshots retidos, ou
+     *                 {@code 0} se não houver limite.
+     */
+    public RetentionPolicy(int keepLast, int hourly, int daily, int weekly, long maxBytes) {
+        if (keepLast < 0 || hourly < 0 || daily < 0 || weekly < 0) {
+            throw new WorkshopException("quantidades de retenção não podem ser negativas");
+        }
+
+        if (maxBytes < 0) {
+            throw new WorkshopException("limite de bytes não pode ser negativo");
+        }
+
+        this.keepLast = keepLast;
+        this.hourly = hourly;
+        this.daily = daily;
+        this.weekly = weekly;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Retorna a quantidade de snapshots mais recentes retidos.
+     *
+     * @return quantidade de snapshots mais recentes retidos.
+     */
+    public int getKeepLast() {
+        return keepLast;
+    }
+
+    /**
+     * Retorna a quantidade de horas com um snapshot retido.
+     *
+     * @return quantidade de horas com um snapshot retido.
+     */
+    public int getHourly() {
+        return hourly;
+    }
+
+    /**
+     * Retorna a quantidade de dias com um snapshot retido.
+     *
+     * @return quantidade de dias com um snapshot retido.
+     */
+    public int getDaily() {
+        return daily;
+    }
+
+    /**
+     * Retorna a quantidade de semanas com um snapshot retido.
+     *
+     * @return quantidade de semanas com um snapshot retido.
+     */
+    public int getWeekly() {
+        return weekly;
+    }
+
+    /**
+     * Retorna o tamanho máximo do total dos snapshots retidos.
+     *
+     * @return tamanho máximo, em bytes, ou {@code 0} se não houver limite.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Seleciona os snapshots retidos.
+     *
+     * @param ids  identificadores dos snapshots, do mais recente ao mais
+     *             antigo.
+     * @param size tamanho, em bytes, do snapshot de cada identificador.
+     * @return identificadores retidos, do mais recente ao mais antigo.
+     */
+    public LinkedHashSet<Long> retain(List<Long> ids, LongUnaryOperator size) {
+        HashSet<Long> selected = new HashSet<>();
+
+        for (int i = 0; i < ids.size() && i < keepLast; i++) {
+            selected.add(ids.get(i));
+        }
+
+        ZoneId zone = ZoneId.systemDefault();
+        selectTier(ids, selected, hourly, id -> time(id, zone).truncatedTo(ChronoUnit.HOURS));
+        selectTier(ids, selected, daily, id -> time(id, zone).toLocalDate());
+        selectTier(ids, selected, weekly,
+                id -> time(id, zone).toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+
+        LinkedHashSet<Long> retained = new LinkedHashSet<>();
+        long total = 0;
+
+        for (long id : ids) {
+            if (!selected.contains(id) && !retained.isEmpty()) {
+                continue;
+            }
+
+            total += size.applyAsLong(id);
+            if (maxBytes != 0 && total > maxBytes && !retained.isEmpty()) {
+                break;
+            }
+
+            retained.add(id);
+        }
+
+        return retained;
+    }
+
+    /**
+     * Seleciona o snapshot mais recente de cada um dos períodos mais recentes
+     * que tenham algum snapshot.
+     *
+     * @param ids      identificadores dos snapshots, do mais recente ao mais
+     *                 antigo.
+     * @param selected identificadores já selecionados.
+     * @param count    quantidade de períodos.
+     * @param period   período de cada identificador.
+     */
+    private static void selectTier(List<Long> ids, HashSet<Long> selected, int count, LongFunction<Object> period) {
+        HashSet<Object> periods = new HashSet<>();
+
+        for (long id : ids) {
+            if (periods.size() >= count) {
+                return;
+            }
+
+            if (periods.add(period.apply(id))) {
+                selected.add(id);
+            }
+        }
+    }
+
+    /**
+     * Converte um identificador de snapshot na data e hora locais em que ele
+     * foi gerado.
+     *
+     * @param id   identificador do snapshot.
+     * @param zone fuso horário local.
+     * @return data e hora locais.
+     */
+    private static LocalDateTime time(long id, ZoneId zone) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(id), zone);
+    }
+
+    /**
+     * Retorna uma representação textual da política.
+     *
+     * @return representação textual da política.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d %d %d %d %d)", keepLast, hourly, daily, weekly, maxBytes);
+    }
+}
@@ -0,0 +1,129 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.workshop.service.Elevator;
+import edu.ajan.model.workshop.service.Scheduler;
+import edu.ajan.model.workshop.service.Service;
+import edu.ajan.model.workshop.service.ServiceOrder;
+
+/**
+ * Adaptador escrito à mão para o agendador.
+ *
+ * @author Alan Lima
+ */
+final class SchedulerAdapter extends SubsystemAdapter<Scheduler> {
+
+    /**
+     * Adaptador de ordens de serviço.
+     */
+    private final TypeAdapter<ServiceOrder> orderAdapter;
+
+    /**
+     * Adaptador de serviços.
+     */
+    private final TypeAdapter<Service> serviceAdapter;
+
+    /**
+     * Adaptador de elevadores.
+     */
+    private final TypeAdapter<Elevator> elevatorAdapter;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param gson instância do Gson que criou o adaptador.
+     */
+    SchedulerAdapter(Gson gson) {
+        super(gson);
+        this.orderAdapter = gson.getAdapter(ServiceOrder.class);
+        this.serviceAdapter = gson.getAdapter(Service.class);
+        this.elevatorAdapter = gson.getAdapter(Elevator.class);
+    }
+
+    /**
+     * Escreve o agendador.
+     *
+     * @param out       escritor de Json.
+     * @param scheduler agendador a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void write(JsonWriter out, Scheduler scheduler) throws IOException {
+        if (scheduler == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+
+        out.name("orders").beginObject();
+        for (ServiceOrder order : scheduler.getOrders()) {
+            out.name(Integer.toString(order.id()));
+            EntityWriter.write(out, order);
+        }
+        out.endObject();
+
+        out.name("services").beginObject();
+        for (Service service : scheduler.getServices()) {
+            out.name(Integer.toString(service.id()));
+            EntityWriter.write(out, service);
+        }
+        out.endObject();
+
+        out.name("elevators").beginArray();
+        for (Elevator elevator : scheduler.getElevators()) {
+            EntityWriter.write(out, elevator);
+        }
+        out.endArray();
+
+        out.endObject();
+    }
+
+    /**
+     * Lê o agendador.
+     *
+     * <p> Os elevadores são lidos antes de se construir o agendador, e as ordens de
+     * serviço só são restauradas depois disso, independente da ordem dos campos.
+     * As ordens são restauradas sem conferir conflitos, de modo que um snapshot
+     * com ordens conflitantes ainda é carregado, e as conflitantes são relatadas
+     * por {@link Scheduler#getConflictingOrders}.
+     *
+     * @param in leitor de Json.
+     * @return agendador lido.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public Scheduler read(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+
+        ArrayList<ServiceOrder> orders = new ArrayList<>();
+        ArrayList<Service> services = new ArrayList<>();
+        ArrayList<Elevator> elevators = new ArrayList<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "orders" -> readEach(in, orderAdapter, orders::add);
+                case "services" -> readEach(in, serviceAdapter, services::add);
+                case "elevators" -> readEach(in, elevatorAdapter, elevators::add);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Scheduler scheduler = new Scheduler(elevators.toArray(new Elevator[0]));
+        services.forEach(scheduler::addService);
+        scheduler.restoreOrders(orders);
+
+        return scheduler;
+    }
+}
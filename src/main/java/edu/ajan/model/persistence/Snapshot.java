@@ -26,13 +26,25 @@ public class Snapshot {
 
     /**
      * Construtor padrão.
+     * 
      * @param workshop o workshop associado ao snapshot.
      * @param state    o estado da contagem de instâncias no momento do snapshot.
      */
     public Snapshot(Workshop workshop, InstanceCountState state) {
+        this(workshop, state, System.currentTimeMillis());
+    }
+
+    /**
+     * Construtor parametrizado, usado na reconstrução de snapshots já salvos.
+     * 
+     * @param workshop  o workshop associado ao snapshot.
+     * @param state     o estado da contagem de instâncias no momento do snapshot.
+     * @param timestamp o momento em que o snapshot foi capturado.
+     */
+    Snapshot(Workshop workshop, InstanceCountState state, long timestamp) {
         this.workshop = workshop;
         this.instanceCountState = state;
-        this.timestamp = System.currentTimeMillis();
+        this.timestamp = timestamp;
     }
 
     /**
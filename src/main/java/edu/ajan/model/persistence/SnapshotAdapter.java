@@ -0,0 +1,221 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.workshop.Workshop;
+import edu.ajan.model.workshop.common.Registry;
+import edu.ajan.model.workshop.financial.Financial;
+import edu.ajan.model.workshop.service.Scheduler;
+import edu.ajan.model.workshop.staff.MemberBase;
+import edu.ajan.model.workshop.stock.Stock;
+
+/**
+ * Adaptador escrito à mão para snapshots, que emite cada sistema da oficina em
+ * sequência pelo seu próprio adaptador.
+ *
+ * @author Alan Lima
+ */
+final class SnapshotAdapter extends SubsystemAdapter<Snapshot> {
+
+    /**
+     * Adaptador do registro.
+     */
+    private final TypeAdapter<Registry> registryAdapter;
+
+    /**
+     * Adaptador da base de membros.
+     */
+    private final TypeAdapter<MemberBase> memberbaseAdapter;
+
+    /**
+     * Adaptador da unidade financeira.
+     */
+    private final TypeAdapter<Financial> financialAdapter;
+
+    /**
+     * Adaptador do agendador.
+     */
+    private final TypeAdapter<Scheduler> schedulerAdapter;
+
+    /**
+     * Adaptador do estoque.
+     */
+    private final TypeAdapter<Stock> stockAdapter;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param gson instância do Gson que criou o adaptador.
+     */
+    SnapshotAdapter(Gson gson) {
+        super(gson);
+        this.registryAdapter = gson.getAdapter(Registry.class);
+        this.memberbaseAdapter = gson.getAdapter(MemberBase.class);
+        this.financialAdapter = gson.getAdapter(Financial.class);
+        this.schedulerAdapter = gson.getAdapter(Scheduler.class);
+        this.stockAdapter = gson.getAdapter(Stock.class);
+    }
+
+    /**
+     * Escreve o snapshot.
+     *
+     * @param out      escritor de Json.
+     * @param snapshot snapshot a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void write(JsonWriter out, Snapshot snapshot) throws IOException {
+        if (snapshot == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+
+        out.name("instanceCountState");
+        writeInstanceCountState(out, snapshot.instanceCountState());
+
+        Workshop workshop = snapshot.workshop();
+        out.name("workshop").beginObject();
+        out.name("registry");
+        registryAdapter.write(out, workshop.registry());
+        out.name("memberbase");
+        memberbaseAdapter.write(out, workshop.memberbase());
+        out.name("financial");
+        financialAdapter.write(out, workshop.financial());
+        out.name("scheduler");
+        schedulerAdapter.write(out, workshop.scheduler());
+        out.name("stock");
+        stockAdapter.write(out, workshop.stock());
+        out.endObject();
+
+        out.name("timestamp").value(snapshot.timestamp());
+
+        out.endObject();
+    }
+
+    /**
+     * Lê o snapshot.
+     *
+     * @param in leitor de Json.
+     * @return snapshot lido.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public Snapshot read(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+
+        InstanceCountState state = null;
+        Workshop workshop = null;
+        long timestamp = 0L;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "instanceCountState" -> state = readInstanceCountState(in);
+                case "workshop" -> workshop = readWorkshop(in);
+                case "timestamp" -> timestamp = in.nextLong();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new Snapshot(workshop, state, timestamp);
+    }
+
+    /**
+     * Lê a oficina, sistema a sistema.
+     *
+     * @param in leitor de Json.
+     * @return oficina lida.
+     * @throws IOException se houver falha de leitura.
+     */
+    private Workshop readWorkshop(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+
+        Registry registry = null;
+        MemberBase memberbase = null;
+        Financial financial = null;
+        Scheduler scheduler = null;
+        Stock stock = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "registry" -> registry = registryAdapter.read(in);
+                case "memberbase" -> memberbase = memberbaseAdapter.read(in);
+                case "financial" -> financial = financialAdapter.read(in);
+                case "scheduler" -> scheduler = schedulerAdapter.read(in);
+                case "stock" -> stock = stockAdapter.read(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new Workshop(registry, memberbase, financial, scheduler, stock);
+    }
+
+    /**
+     * Escreve o estado da contagem de instâncias.
+     *
+     * @param out   escritor de Json.
+     * @param state estado da contagem de instâncias.
+     * @throws IOException se houver falha de escrita.
+     */
+    static void writeInstanceCountState(JsonWriter out, InstanceCountState state) throws IOException {
+        if (state == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("instanceCounts").beginObject();
+        for (Map.Entry<String, Integer> entry : state.counts().entrySet()) {
+            out.name(entry.getKey()).value(entry.getValue());
+        }
+        out.endObject();
+        out.endObject();
+    }
+
+    /**
+     * Lê o estado da contagem de instâncias.
+     *
+     * @param in leitor de Json.
+     * @return estado da contagem de instâncias.
+     * @throws IOException se houver falha de leitura.
+     */
+    static InstanceCountState readInstanceCountState(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+
+        InstanceCountState state = new InstanceCountState();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals("instanceCounts")) {
+                in.skipValue();
+                continue;
+            }
+
+            in.beginObject();
+            while (in.hasNext()) {
+                state.put(in.nextName(), in.nextInt());
+            }
+            in.endObject();
+        }
+        in.endObject();
+
+        return state;
+    }
+}
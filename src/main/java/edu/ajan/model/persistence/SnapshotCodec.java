@@ -0,0 +1,321 @@
+package edu.ajan.model.persistence;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import edu.ajan.model.exception.WorkshopException;
+
+/**
+ * Classe que cumpre uma função de enumeradora dos codecs de compressão dos
+ * snapshots.
+ *
+ * <p> Um codec envolve os fluxos de escrita e de leitura, comprimindo e
+ * descomprimindo em fluxo. No formato Json, o codec é registrado na extensão
+ * do arquivo; no formato binário, cada seção é comprimida em separado e o
+ * codec é registrado no cabeçalho, de modo que as seções continuam podendo ser
+ * lidas de forma independente. Além dos codecs da biblioteca padrão, outros
+ * podem ser registrados por {@link #register}, cada qual com um código de um
+ * byte para o cabeçalho e uma extensão para o nome do arquivo.
+ *
+ * @author Alan Lima
+ */
+public final class SnapshotCodec {
+
+    /**
+     * Vetor para imitar o comportamento da função embutida {@code values()} de
+     * tipos enumeradores. <i>Não deve ser inicializado</i>.
+     */
+    private static SnapshotCodec[] values;
+
+    /**
+     * Tamanho, em bytes, dos buffers internos dos codecs da biblioteca padrão.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Denota a ausência de compressão.
+     */
+    public static final SnapshotCodec NONE = register(0, "none", "", out -> out, in -> in);
+
+    /**
+     * Denota a compressão GZIP.
+     */
+    public static final SnapshotCodec GZIP = register(1, "gzip", "gz",
+            out -> new GZIPOutputStream(out, BUFFER_SIZE),
+            in -> new GZIPInputStream(in, BUFFER_SIZE));
+
+    /**
+     * Denota a compressão Deflate no nível mais rápido, que troca um pouco de
+     * taxa de compressão por velocidade.
+     */
+    public static final SnapshotCodec DEFLATE = register(2, "deflate", "zz",
+            out -> new FinishingDeflaterOutputStream(out),
+            in -> new InflaterInputStream(in));
+
+    /**
+     * Código do codec no cabeçalho do formato binário.
+     */
+    private final byte id;
+
+    /**
+     * Nome do codec.
+     */
+    private final String name;
+
+    /**
+     * Extensão do codec no nome dos arquivos, vazia se não houver compressão.
+     */
+    private final String extension;
+
+    /**
+     * Envolvedor dos fluxos de escrita.
+     */
+    private final Encoder encoder;
+
+    /**
+     * Envolvedor dos fluxos de leitura.
+     */
+    private final Decoder decoder;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param id        código do codec.
+     * @param name      nome do codec.
+     * @param extension extensão do codec.
+     * @param encoder   envolvedor dos fluxos de escrita.
+     * @param decoder   envolvedor dos fluxos de leitura.
+     */
+    private SnapshotCodec(byte id, String name, String extension, Encoder encoder, Decoder decoder) {
+        this.id = id;
+        this.name = name;
+        this.extension = extension;
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Registra um novo codec.
+     *
+     * @param id        código do codec no cabeçalho, de 0 a 255.
+     * @param name      nome do codec.
+     * @param extension extensão do codec no nome dos arquivos.
+     * @param encoder   envolvedor dos fluxos de escrita; o fluxo retornado deve
+     *                  terminar a compressão ao ser fechado.
+     * @param decoder   envolvedor dos fluxos de leitura.
+     * @return codec registrado.
+     * @throws WorkshopException se o código, o nome ou a extensão já estiverem
+     *                           em uso.
+     */
+    public static synchronized SnapshotCodec register(int id, String name, String extension, Encoder encoder,
+            Decoder decoder) {
+
+        if (id < 0 || id > 0xFF) {
+            throw new WorkshopException("código de codec deve estar entre 0 e 255");
+        }
+
+        if (values != null) {
+            for (SnapshotCodec codec : values) {
+                if (codec.id == (byte) id || codec.name.equals(name) || codec.extension.equals(extension)) {
+                    throw new WorkshopException("codec já registrado: %s", codec.name);
+                }
+            }
+        }
+
+        SnapshotCodec codec = new SnapshotCodec((byte) id, name, extension, encoder, decoder);
+
+        if (values == null) {
+            values = new SnapshotCodec[] { codec };
+        } else {
+            values = Arrays.copyOf(values, values.length + 1);
+            values[values.length - 1] = codec;
+        }
+
+        return codec;
+    }
+
+    /**
+     * Retorna o código do codec no cabeçalho do formato binário.
+     *
+     * @return código do codec.
+     */
+    public byte id() {
+        return id;
+    }
+
+    /**
+     * Retorna o nome do codec.
+     *
+     * @return nome do codec.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Retorna a extensão do codec no nome dos arquivos.
+     *
+     * @return extensão do codec, vazia se não houver compressão.
+     */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Envolve um fluxo de escrita, comprimindo o que for escrito nele. Fechar o
+     * fluxo retornado termina a compressão sem fechar o fluxo envolvido.
+     *
+     * @param out fluxo de escrita.
+     * @return fluxo de escrita comprimido.
+     * @throws IOException se houver falha de escrita.
+     */
+    public OutputStream encode(OutputStream out) throws IOException {
+        OutputStream shielded = new FilterOutputStream(out) {
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        };
+
+        return encoder.encode(shielded);
+    }
+
+    /**
+     * Envolve um fluxo de leitura, descomprimindo o que for lido dele.
+     *
+     * @param in fluxo de leitura.
+     * @return fluxo de leitura descomprimido.
+     * @throws IOException se houver falha de leitura.
+     */
+    public InputStream decode(InputStream in) throws IOException {
+        return decoder.decode(in);
+    }
+
+    /**
+     * Imita o comportamento da função embutida {@code values()} de tipos
+     * enumeradores.
+     *
+     * @return vetor com todos os codecs registrados.
+     */
+    public static SnapshotCodec[] values() {
+        return Arrays.copyOf(values, values.length);
+    }
+
+    /**
+     * Retorna o codec de um nome.
+     *
+     * @param name nome do codec.
+     * @return codec do nome, ou {@code null} se não houver.
+     */
+    public static SnapshotCodec valueOf(String name) {
+        for (SnapshotCodec codec : values) {
+            if (codec.name.equals(name)) {
+                return codec;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Retorna o codec de um código do cabeçalho.
+     *
+     * @param id código do codec.
+     * @return codec do código, ou {@code null} se não houver.
+     */
+    static SnapshotCodec valueOf(byte id) {
+        for (SnapshotCodec codec : values) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Retorna uma representação textual do codec.
+     *
+     * @return representação textual do codec.
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Interface funcional que envolve um fluxo de escrita.
+     */
+    @FunctionalInterface
+    public interface Encoder {
+
+        /**
+         * Envolve um fluxo de escrita.
+         *
+         * @param out fluxo de escrita.
+         * @return fluxo de escrita comprimido.
+         * @throws IOException se houver falha de escrita.
+         */
+        OutputStream encode(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Interface funcional que envolve um fluxo de leitura.
+     */
+    @FunctionalInterface
+    public interface Decoder {
+
+        /**
+         * Envolve um fluxo de leitura.
+         *
+         * @param in fluxo de leitura.
+         * @return fluxo de leitura descomprimido.
+         * @throws IOException se houver falha de leitura.
+         */
+        InputStream decode(InputStream in) throws IOException;
+    }
+
+    /**
+     * Fluxo Deflate no nível mais rápido, que libera o seu compressor ao ser
+     * fechado.
+     */
+    private static final class FinishingDeflaterOutputStream extends DeflaterOutputStream {
+
+        /**
+         * Construtor parametrizado.
+         *
+         * @param out fluxo de escrita.
+         */
+        FinishingDeflaterOutputStream(OutputStream out) {
+            super(out, new Deflater(Deflater.BEST_SPEED), BUFFER_SIZE);
+        }
+
+        /**
+         * Termina a compressão, fecha o fluxo e libera o compressor.
+         *
+         * @throws IOException se houver falha de escrita.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
+        }
+    }
+}
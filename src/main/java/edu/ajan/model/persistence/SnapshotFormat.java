@@ -0,0 +1,130 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Enumerador dos formatos em que um snapshot pode ser salvo.
+ *
+ * @author Alan Lima
+ */
+public enum SnapshotFormat {
+
+    /**
+     * Formato Json, legível, salvo por {@link JsonHandler}. Como não traz somas
+     * de verificação, é mantido apenas para ler os snapshots de versões
+     * anteriores e para exportação: o curador não salva nele os novos
+     * snapshots.
+     */
+    JSON("json"),
+
+    /**
+     * Formato binário compacto, salvo por {@link BinaryHandler}.
+     */
+    BINARY("wksb");
+
+    /**
+     * Extensão dos arquivos no formato.
+     */
+    private final String extension;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param extension extensão dos arquivos no formato.
+     */
+    private SnapshotFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Retorna a extensão dos arquivos no formato.
+     *
+     * @return extensão dos arquivos no formato.
+     */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Salva um snapshot no formato em um arquivo.
+     *
+     * @param snapshot snapshot a ser salvo.
+     * @param filename caminho do arquivo onde o snapshot será salvo.
+     * @return {@code true} se o snapshot foi salvo com sucesso, {@code false}
+     *         caso contrário.
+     */
+    public boolean save(Snapshot snapshot, Path filename) {
+        return save(snapshot, filename, SnapshotCodec.NONE);
+    }
+
+    /**
+     * Salva um snapshot no formato em um arquivo, comprimido por um codec.
+     *
+     * @param snapshot snapshot a ser salvo.
+     * @param filename caminho do arquivo onde o snapshot será salvo.
+     * @param codec    codec de compressão.
+     * @return {@code true} se o snapshot foi salvo com sucesso, {@code false}
+     *         caso contrário.
+     */
+    public boolean save(Snapshot snapshot, Path filename, SnapshotCodec codec) {
+        return switch (this) {
+            case JSON -> JsonHandler.save(snapshot, filename, new TypeToken<Snapshot>() {}, codec);
+            case BINARY -> BinaryHandler.saveSnapshot(snapshot, filename, codec);
+        };
+    }
+
+    /**
+     * Verifica se um arquivo no formato está íntegro, sem decodificá-lo. No
+     * formato binário, verifica o rodapé, o cabeçalho e as somas das seções;
+     * no formato Json, legado e sem somas de verificação, apenas verifica se o
+     * arquivo não está vazio.
+     *
+     * @param filename caminho do arquivo.
+     * @return {@code true} se o arquivo estiver íntegro.
+     */
+    public boolean validate(Path filename) {
+        return switch (this) {
+            case JSON -> {
+                try {
+                    yield Files.size(filename) > 0;
+                } catch (IOException err) {
+                    yield false;
+                }
+            }
+            case BINARY -> BinaryHandler.validate(filename);
+        };
+    }
+
+    /**
+     * Carrega um snapshot no formato de um arquivo.
+     *
+     * @param filename caminho do arquivo de onde o snapshot será carregado.
+     * @param lazy     se os sistemas da oficina devem ser carregados apenas no
+     *                 primeiro acesso, quando o formato permitir.
+     * @return snapshot carregado, ou {@code null} se não foi possível carregar.
+     */
+    public Snapshot load(Path filename, boolean lazy) {
+        return load(filename, SnapshotCodec.NONE, lazy);
+    }
+
+    /**
+     * Carrega um snapshot no formato de um arquivo comprimido por um codec. No
+     * formato binário, o codec é lido do cabeçalho e o passado é ignorado.
+     *
+     * @param filename caminho do arquivo de onde o snapshot será carregado.
+     * @param codec    codec de compressão do arquivo.
+     * @param lazy     se os sistemas da oficina devem ser carregados apenas no
+     *                 primeiro acesso, quando o formato permitir.
+     * @return snapshot carregado, ou {@code null} se não foi possível carregar.
+     */
+    public Snapshot load(Path filename, SnapshotCodec codec, boolean lazy) {
+        return switch (this) {
+            case JSON -> JsonHandler.load(filename, new TypeToken<Snapshot>() {}, codec);
+            case BINARY -> BinaryHandler.loadSnapshot(filename, lazy);
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package edu.ajan.model.persistence;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Classe que representa o serviço de escrita de snapshots em segundo plano.
+ *
+ * <p> As escritas são executadas em ordem, uma por vez, numa única thread de
+ * segundo plano. Há no máximo {@link #MAX_PENDING} escritas pendentes; quem
+ * submeter uma escrita além disso espera até que alguma termine, de modo que
+ * as escritas não se acumulem sem limite em memória.
+ *
+ * @author Alan Lima
+ */
+public final class SnapshotService {
+
+    /**
+     * Quantidade máxima de escritas pendentes, em execução ou na fila.
+     */
+    public static final int MAX_PENDING = 2;
+
+    /**
+     * Serviço único de escrita de snapshots.
+     */
+    private static final SnapshotService service = new SnapshotService();
+
+    /**
+     * Executor de uma única thread, em que as escritas são feitas.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Permissões de escrita pendente, uma por escrita.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Construtor padrão.
+     */
+    private SnapshotService() {
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "workshop-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.permits = new Semaphore(MAX_PENDING);
+    }
+
+    /**
+     * Retorna o serviço único de escrita de snapshots.
+     *
+     * @return serviço único de escrita de snapshots.
+     */
+    public static SnapshotService service() {
+        return service;
+    }
+
+    /**
+     * Submete uma escrita para execução em segundo plano, esperando caso já
+     * haja {@link #MAX_PENDING} escritas pendentes.
+     *
+     * @param <T>  tipo do resultado da escrita.
+     * @param task escrita a ser executada.
+     * @return futuro completado com o resultado da escrita, ou
+     *         excepcionalmente se ela falhar ou se a espera for interrompida.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException err) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(err);
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(task, executor)
+                    .whenComplete((result, err) -> permits.release());
+        } catch (RuntimeException err) {
+            permits.release();
+            return CompletableFuture.failedFuture(err);
+        }
+    }
+
+    /**
+     * Retorna a quantidade de escritas pendentes.
+     *
+     * @return quantidade de escritas pendentes.
+     */
+    public int pending() {
+        return MAX_PENDING - permits.availablePermits();
+    }
+
+    /**
+     * Retorna uma representação textual do serviço.
+     *
+     * @return representação textual do serviço.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d)", pending());
+    }
+}
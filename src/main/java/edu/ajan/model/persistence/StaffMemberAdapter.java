@@ -0,0 +1,116 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.workshop.staff.Administrator;
+import edu.ajan.model.workshop.staff.Employee;
+import edu.ajan.model.workshop.staff.StaffMember;
+
+/**
+ * Adaptador escrito à mão para membros da oficina.
+ *
+ * <p> Como {@link StaffMember} é abstrata, cada membro é escrito junto do nome
+ * de sua classe concreta, no formato {@code {"type": ..., "value": ...}}, para
+ * que possa ser reconstruído na leitura.
+ *
+ * @author Alan Lima
+ */
+final class StaffMemberAdapter extends TypeAdapter<StaffMember> {
+
+    /**
+     * Adaptador de funcionários.
+     */
+    private final TypeAdapter<Employee> employeeAdapter;
+
+    /**
+     * Adaptador de administradores.
+     */
+    private final TypeAdapter<Administrator> administratorAdapter;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param gson instância do Gson que criou o adaptador.
+     */
+    StaffMemberAdapter(Gson gson) {
+        this.employeeAdapter = gson.getAdapter(Employee.class);
+        this.administratorAdapter = gson.getAdapter(Administrator.class);
+    }
+
+    /**
+     * Escreve um membro junto do nome de sua classe concreta.
+     *
+     * @param out    escritor de Json.
+     * @param member membro a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void write(JsonWriter out, StaffMember member) throws IOException {
+        if (member == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("type").value(member.getClass().getSimpleName());
+        out.name("value");
+        EntityWriter.write(out, member);
+        out.endObject();
+    }
+
+    /**
+     * Lê um membro, instanciando a classe concreta informada.
+     *
+     * @param in leitor de Json.
+     * @return membro lido.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public StaffMember read(JsonReader in) throws IOException {
+        if (SubsystemAdapter.consumeNull(in)) {
+            return null;
+        }
+
+        String type = null;
+        StaffMember member = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "type" -> type = in.nextString();
+                case "value" -> member = readValue(in, type);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return member;
+    }
+
+    /**
+     * Lê o valor de um membro a partir do nome de sua classe concreta.
+     *
+     * @param in   leitor de Json.
+     * @param type nome simples da classe concreta.
+     * @return membro lido.
+     * @throws IOException se houver falha de leitura.
+     */
+    private StaffMember readValue(JsonReader in, String type) throws IOException {
+
+        if (type == null) {
+            throw new JsonParseException("tipo do membro deve preceder seu valor em " + in.getPath());
+        }
+
+        return switch (type) {
+            case "Employee" -> employeeAdapter.read(in);
+            case "Administrator" -> administratorAdapter.read(in);
+            default -> throw new JsonParseException("tipo de membro " + type + " é desconhecido");
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.workshop.stock.Product;
+import edu.ajan.model.workshop.stock.Shipment;
+import edu.ajan.model.workshop.stock.Stock;
+import edu.ajan.model.workshop.stock.Supplier;
+
+/**
+ * Adaptador escrito à mão para o estoque.
+ *
+ * @author Alan Lima
+ */
+final class StockAdapter extends SubsystemAdapter<Stock> {
+
+    /**
+     * Adaptador de produtos.
+     */
+    private final TypeAdapter<Product> productAdapter;
+
+    /**
+     * Adaptador de remessas.
+     */
+    private final TypeAdapter<Shipment> shipmentAdapter;
+
+    /**
+     * Adaptador de fornecedores.
+     */
+    private final TypeAdapter<Supplier> supplierAdapter;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param gson instância do Gson que criou o adaptador.
+     */
+    StockAdapter(Gson gson) {
+        super(gson);
+        this.productAdapter = gson.getAdapter(Product.class);
+        this.shipmentAdapter = gson.getAdapter(Shipment.class);
+        this.supplierAdapter = gson.getAdapter(Supplier.class);
+    }
+
+    /**
+     * Escreve o estoque.
+     *
+     * @param out   escritor de Json.
+     * @param stock estoque a ser escrito.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void write(JsonWriter out, Stock stock) throws IOException {
+        if (stock == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+
+        out.name("products").beginObject();
+        for (Product product : stock.getProducts()) {
+            out.name(Integer.toString(product.id()));
+            EntityWriter.write(out, product);
+        }
+        out.endObject();
+
+        out.name("shipments").beginArray();
+        for (Shipment shipment : stock.getShipments()) {
+            EntityWriter.write(out, shipment);
+        }
+        out.endArray();
+
+        out.name("suppliers").beginObject();
+        for (Supplier supplier : stock.getSuppliers()) {
+            out.name(Integer.toString(supplier.id()));
+            EntityWriter.write(out, supplier);
+        }
+        out.endObject();
+
+        out.endObject();
+    }
+
+    /**
+     * Lê o estoque.
+     *
+     * @param in leitor de Json.
+     * @return estoque lido.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public Stock read(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+
+        Stock stock = new Stock();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "products" -> readEach(in, productAdapter, stock::addProduct);
+                case "shipments" -> readEach(in, shipmentAdapter, stock::addShipment);
+                case "suppliers" -> readEach(in, supplierAdapter, stock::addSupplier);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return stock;
+    }
+}
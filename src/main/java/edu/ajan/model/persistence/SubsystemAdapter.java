@@ -0,0 +1,112 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Classe abstrata base dos adaptadores escritos à mão para os sistemas da
+ * oficina.
+ *
+ * <p> A escrita é feita campo a campo por {@link EntityWriter}, sem reflexão.
+ * A leitura percorre os contêineres à mão e delega a leitura de cada entidade ao
+ * adaptador que o Gson tiver para a classe da entidade, repovoando o sistema
+ * pelos seus métodos públicos, de modo que quaisquer estruturas derivadas sejam
+ * mantidas.
+ *
+ * @param <T> tipo do sistema adaptado.
+ *
+ * @author Alan Lima
+ */
+abstract class SubsystemAdapter<T> extends TypeAdapter<T> {
+
+    /**
+     * Instância do Gson que criou o adaptador.
+     */
+    protected final Gson gson;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param gson instância do Gson que criou o adaptador.
+     */
+    protected SubsystemAdapter(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Lê cada entidade de um contêiner, seja ele um objeto indexado por
+     * identificador ou um vetor, e a entrega ao consumidor. Valores nulos são
+     * ignorados.
+     *
+     * @param <E>     tipo da entidade.
+     * @param in      leitor de Json.
+     * @param adapter adaptador da entidade.
+     * @param sink    consumidor das entidades lidas.
+     * @throws IOException se houver falha de leitura.
+     */
+    protected static <E> void readEach(JsonReader in, TypeAdapter<E> adapter, Consumer<E> sink) throws IOException {
+
+        switch (in.peek()) {
+
+            case NULL:
+                in.nextNull();
+                return;
+
+            case BEGIN_OBJECT:
+                in.beginObject();
+                while (in.hasNext()) {
+                    in.nextName();
+                    accept(adapter.read(in), sink);
+                }
+                in.endObject();
+                return;
+
+            case BEGIN_ARRAY:
+                in.beginArray();
+                while (in.hasNext()) {
+                    accept(adapter.read(in), sink);
+                }
+                in.endArray();
+                return;
+
+            default:
+                throw new JsonParseException("contêiner esperado em " + in.getPath());
+        }
+    }
+
+    /**
+     * Verifica se o próximo valor é nulo, consumindo-o caso seja.
+     *
+     * @param in leitor de Json.
+     * @return {@code true} se o valor nulo foi consumido, {@code false} caso
+     *         contrário.
+     * @throws IOException se houver falha de leitura.
+     */
+    protected static boolean consumeNull(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NULL) {
+            return false;
+        }
+
+        in.nextNull();
+        return true;
+    }
+
+    /**
+     * Entrega uma entidade não nula ao consumidor.
+     *
+     * @param <E>    tipo da entidade.
+     * @param entity entidade lida.
+     * @param sink   consumidor da entidade.
+     */
+    private static <E> void accept(E entity, Consumer<E> sink) {
+        if (entity != null) {
+            sink.accept(entity);
+        }
+    }
+}
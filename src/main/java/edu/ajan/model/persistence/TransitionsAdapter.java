@@ -0,0 +1,91 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import edu.ajan.model.workshop.service.Status;
+
+/**
+ * Adaptador dos momentos em que uma ordem de serviço passou a cada status,
+ * escritos como um objeto indexado pelo nome do status.
+ *
+ * <p> O adaptador de mapas do Gson lê as chaves promovendo o nome a valor, o
+ * que só funciona no leitor de texto; este adaptador lê as chaves como nomes,
+ * de modo que funciona também com o {@link BinaryJsonReader}.
+ *
+ * @author Alan Lima
+ */
+public final class TransitionsAdapter extends TypeAdapter<EnumMap<Status, Long>> {
+
+    /**
+     * Escreve os momentos de cada status.
+     *
+     * @param out         escritor de Json.
+     * @param transitions momentos de cada status.
+     * @throws IOException se houver falha de escrita.
+     */
+    @Override
+    public void write(JsonWriter out, EnumMap<Status, Long> transitions) throws IOException {
+        if (transitions == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        for (Map.Entry<Status, Long> entry : transitions.entrySet()) {
+            out.name(entry.getKey().name()).value(entry.getValue());
+        }
+        out.endObject();
+    }
+
+    /**
+     * Lê os momentos de cada status. Status desconhecidos são ignorados.
+     *
+     * @param in leitor de Json.
+     * @return momentos de cada status.
+     * @throws IOException se houver falha de leitura.
+     */
+    @Override
+    public EnumMap<Status, Long> read(JsonReader in) throws IOException {
+        EnumMap<Status, Long> transitions = new EnumMap<>(Status.class);
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return transitions;
+        }
+
+        in.beginObject();
+        while (in.hasNext()) {
+            Status status = status(in.nextName());
+            if (status != null) {
+                transitions.put(status, in.nextLong());
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return transitions;
+    }
+
+    /**
+     * Retorna o status de um nome.
+     *
+     * @param name nome do status.
+     * @return status, ou {@code null} se o nome for desconhecido.
+     */
+    private static Status status(String name) {
+        for (Status status : Status.values()) {
+            if (status.name().equals(name)) {
+                return status;
+            }
+        }
+
+        return null;
+    }
+}
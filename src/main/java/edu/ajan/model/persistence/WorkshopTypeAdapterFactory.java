@@ -0,0 +1,104 @@
+package edu.ajan.model.persistence;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+import edu.ajan.model.workshop.common.Customer;
+import edu.ajan.model.workshop.common.Registry;
+import edu.ajan.model.workshop.common.Vehicle;
+import edu.ajan.model.workshop.financial.Expense;
+import edu.ajan.model.workshop.financial.Financial;
+import edu.ajan.model.workshop.financial.Invoice;
+import edu.ajan.model.workshop.financial.InvoiceDraft;
+import edu.ajan.model.workshop.service.Elevator;
+import edu.ajan.model.workshop.service.Scheduler;
+import edu.ajan.model.workshop.service.Service;
+import edu.ajan.model.workshop.service.ServiceOrder;
+import edu.ajan.model.workshop.staff.MemberBase;
+import edu.ajan.model.workshop.staff.StaffMember;
+import edu.ajan.model.workshop.stock.Product;
+import edu.ajan.model.workshop.stock.Shipment;
+import edu.ajan.model.workshop.stock.Stock;
+import edu.ajan.model.workshop.stock.Supplier;
+
+/**
+ * Fábrica que registra, no Gson, os adaptadores escritos à mão do snapshot, dos
+ * sistemas da oficina e de suas entidades.
+ *
+ * @author Alan Lima
+ */
+final class WorkshopTypeAdapterFactory implements TypeAdapterFactory {
+
+    /**
+     * Cria o adaptador escrito à mão para o tipo pedido, se houver.
+     *
+     * @param <T>  tipo pedido.
+     * @param gson instância do Gson que pede o adaptador.
+     * @param type tipo pedido.
+     * @return adaptador para o tipo, ou {@code null} se o tipo não for tratado
+     *         por esta fábrica.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+
+        Class<? super T> raw = type.getRawType();
+        TypeAdapter<?> adapter = null;
+
+        if (raw == Snapshot.class) {
+            adapter = new SnapshotAdapter(gson);
+        } else if (raw == Registry.class) {
+            adapter = new RegistryAdapter(gson);
+        } else if (raw == MemberBase.class) {
+            adapter = new MemberBaseAdapter(gson);
+        } else if (raw == StaffMember.class) {
+            adapter = new StaffMemberAdapter(gson);
+        } else if (raw == Financial.class) {
+            adapter = new FinancialAdapter(gson);
+        } else if (raw == Scheduler.class) {
+            adapter = new SchedulerAdapter(gson);
+        } else if (raw == Stock.class) {
+            adapter = new StockAdapter(gson);
+        } else if (raw == InvoiceDraft.class) {
+            adapter = new InvoiceDraftAdapter(gson);
+        } else if (raw == Customer.class) {
+            adapter = entity(gson, type, (out, e) -> EntityWriter.write(out, (Customer) e));
+        } else if (raw == Vehicle.class) {
+            adapter = entity(gson, type, (out, e) -> EntityWriter.write(out, (Vehicle) e));
+        } else if (raw == Expense.class) {
+            adapter = entity(gson, type, (out, e) -> EntityWriter.write(out, (Expense) e));
+        } else if (raw == Invoice.class) {
+            adapter = entity(gson, type, (out, e) -> EntityWriter.write(out, (Invoice) e));
+        } else if (raw == ServiceOrder.class) {
+            adapter = entity(gson, type, (out, e) -> EntityWriter.write(out, (ServiceOrder) e));
+        } else if (raw == Service.class) {
+            adapter = entity(gson, type, (out, e) -> EntityWriter.write(out, (Service) e));
+        } else if (raw == Elevator.class) {
+            adapter = entity(gson, type, (out, e) -> EntityWriter.write(out, (Elevator) e));
+        } else if (raw == Product.class) {
+            adapter = entity(gson, type, (out, e) -> EntityWriter.write(out, (Product) e));
+        } else if (raw == Shipment.class) {
+            adapter = entity(gson, type, (out, e) -> EntityWriter.write(out, (Shipment) e));
+        } else if (raw == Supplier.class) {
+            adapter = entity(gson, type, (out, e) -> EntityWriter.write(out, (Supplier) e));
+        }
+
+        return (TypeAdapter<T>) adapter;
+    }
+
+    /**
+     * Cria o adaptador de uma entidade, que escreve à mão e lê pelo adaptador
+     * reflexivo que o Gson teria usado sem esta fábrica.
+     *
+     * @param <T>    tipo da entidade.
+     * @param gson   instância do Gson que pede o adaptador.
+     * @param type   tipo da entidade.
+     * @param writer função que escreve a entidade.
+     * @return adaptador da entidade.
+     */
+    private <T> TypeAdapter<T> entity(Gson gson, TypeToken<T> type, EntityAdapter.Writer<T> writer) {
+        return new EntityAdapter<>(writer, gson.getDelegateAdapter(this, type));
+    }
+}
@@ -1,7 +1,12 @@
 package edu.ajan.model.workshop;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import edu.ajan.model.exception.WorkshopException;
 import edu.ajan.model.persistence.Caretaker;
 import edu.ajan.model.persistence.InstanceCountState;
+import edu.ajan.model.persistence.Journal;
 import edu.ajan.model.persistence.Snapshot;
 import edu.ajan.model.workshop.common.Registry;
 import edu.ajan.model.workshop.financial.Financial;
@@ -42,8 +47,27 @@ public class Workshop {
      */
     private Stock stock;
 
+    /**
+     * Carregadores dos sistemas ainda não materializados, na ordem registro,
+     * base de membros, sistema financeiro, agendador e estoque. Um carregador é
+     * descartado assim que seu sistema é materializado, e mantido, lançando a
+     * mesma falha, se o carregamento falhar.
+     */
+    private Supplier<?>[] loaders;
+
+    /**
+     * Diário de operações anexado aos sistemas da oficina.
+     */
+    private Journal journal;
+
     private static Workshop instance;
 
+    /**
+     * Escrita em segundo plano do último snapshot capturado, ou {@code null} se
+     * não houver nenhuma pendente.
+     */
+    private static CompletableFuture<Boolean> pending;
+
     /**
      * Construtor padrão da oficina.
      */
@@ -53,6 +77,56 @@ public class Workshop {
         this.financial = new Financial();
         this.scheduler = new Scheduler();
         this.stock = new Stock();
+        this.loaders = new Supplier<?>[5];
+        this.journal = Journal.DETACHED;
+    }
+
+    /**
+     * Construtor parametrizado, usado na reconstrução da oficina a partir de seus
+     * sistemas já existentes.
+     * 
+     * @param registry   registro da oficina.
+     * @param memberbase base de membros da oficina.
+     * @param financial  sistema financeiro da oficina.
+     * @param scheduler  sistema de agendamento da oficina.
+     * @param stock      estoque da oficina.
+     */
+    public Workshop(Registry registry, MemberBase memberbase, Financial financial, Scheduler scheduler, Stock stock) {
+        this.registry = registry != null ? registry : new Registry();
+        this.memberbase = memberbase != null ? memberbase : new MemberBase();
+        this.financial = financial != null ? financial : new Financial();
+        this.scheduler = scheduler != null ? scheduler : new Scheduler();
+        this.stock = stock != null ? stock : new Stock();
+        this.loaders = new Supplier<?>[5];
+        this.journal = Journal.DETACHED;
+    }
+
+    /**
+     * Construtor parametrizado, usado na reconstrução preguiçosa da oficina.
+     * 
+     * @param loaders carregadores dos sistemas.
+     */
+    private Workshop(Supplier<?>[] loaders) {
+        this.loaders = loaders;
+        this.journal = Journal.DETACHED;
+    }
+
+    /**
+     * Cria uma oficina cujos sistemas só são carregados no primeiro acesso a
+     * cada um deles. Um carregador que retorne {@code null} resulta num sistema
+     * vazio.
+     * 
+     * @param registry   carregador do registro da oficina.
+     * @param memberbase carregador da base de membros da oficina.
+     * @param financial  carregador do sistema financeiro da oficina.
+     * @param scheduler  carregador do sistema de agendamento da oficina.
+     * @param stock      carregador do estoque da oficina.
+     * @return oficina preguiçosa.
+     */
+    public static Workshop lazy(Supplier<Registry> registry, Supplier<MemberBase> memberbase,
+            Supplier<Financial> financial, Supplier<Scheduler> scheduler, Supplier<Stock> stock) {
+
+        return new Workshop(new Supplier<?>[] { registry, memberbase, financial, scheduler, stock });
     }
 
     /**
@@ -65,24 +139,38 @@ public class Workshop {
     }
 
     /**
-     * Carrega o estado da oficina a partir do curador de snapshots.
-     * Se não houver nenhum snapshot salvo, cria uma nova instância da oficina.
+     * Carrega o estado da oficina a partir do curador de snapshots, e reproduz
+     * sobre ele o diário de operações do snapshot carregado.
+     * Se não houver nenhum snapshot salvo, cria uma nova instância da oficina e
+     * reproduz sobre ela o diário inicial.
      */
     public static void load() {
 
-        Snapshot snapshot = Caretaker.caretaker().loadSnapshot();
+        Caretaker caretaker = Caretaker.caretaker();
+
+        Snapshot snapshot = caretaker.loadSnapshot();
         if (snapshot == null) {
             instance = new Workshop();
             InstanceCountState.restore(null);
-            return;
+        } else {
+            instance = snapshot.workshop();
+            InstanceCountState.restore(snapshot.instanceCountState());
         }
 
-        instance = snapshot.workshop();
-        InstanceCountState.restore(snapshot.instanceCountState());
+        Journal journal = Journal.open(caretaker.head(), instance);
+        if (journal.state() != null) {
+            InstanceCountState.restore(journal.state());
+        }
+
+        instance.attach(journal);
     }
 
     /**
-     * Salva o estado atual da oficina e captura um snapshot.
+     * Salva o estado atual da oficina.
+     * 
+     * <p> Normalmente, apenas confirma as operações registradas no diário desde
+     * o último salvamento. Quando o diário cresce demais ou deixa de ser
+     * confiável, captura um snapshot completo e começa um novo diário sobre ele.
      */
     public static void save() {
 
@@ -90,9 +178,236 @@ public class Workshop {
             return;
         }
 
-        Snapshot snapshot = new Snapshot(Workshop.workshop(), InstanceCountState.capture());
-        Caretaker.caretaker().saveSnapshot(snapshot);
-        Caretaker.save();
+        settle();
+
+        // Confirma o diário mesmo antes de um snapshot, para que ele continue
+        // completo caso o novo snapshot não chegue a ser registrado no curador
+        Journal journal = Journal.journal();
+        if (journal.commit(InstanceCountState.capture()) && !journal.needsCheckpoint()) {
+            return;
+        }
+
+        checkpoint();
+    }
+
+    /**
+     * Captura um snapshot completo do estado atual da oficina e começa um novo
+     * diário de operações sobre ele.
+     * 
+     * <p> Com um diário anexado, a captura é feita em tempo constante e o
+     * snapshot é escrito em segundo plano, enquanto as operações seguintes vão
+     * tanto para o diário atual quanto para o novo. O novo diário só passa a
+     * ser usado quando o snapshot for registrado no curador; se a escrita
+     * falhar, ele é descartado e o diário atual continua completo. Como as
+     * entidades são substituídas por cópias, e não alteradas no lugar, e cada
+     * sistema copia as coleções compartilhadas antes da primeira alteração
+     * seguinte, o snapshot traz exatamente o estado do momento da captura.
+     * Terminada a escrita, os sistemas deixam de compartilhar as coleções com
+     * a captura, e as alterações seguintes voltam a não copiá-las.
+     * 
+     * <p> Sem um diário anexado, o snapshot é escrito imediatamente.
+     * 
+     * <p> Se algum sistema não puder ser carregado, nenhum snapshot é salvo,
+     * para que o último snapshot válido não seja substituído por um sem o
+     * sistema.
+     * 
+     * @return futuro completado com {@code true} se o snapshot foi salvo e
+     *         registrado, {@code false} caso contrário.
+     */
+    public static CompletableFuture<Boolean> checkpoint() {
+
+        if (instance == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        settle();
+        if (pending != null) {
+            return pending;
+        }
+
+        try {
+            instance.materialize();
+        } catch (WorkshopException err) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        Caretaker caretaker = Caretaker.caretaker();
+
+        Journal journal = Journal.journal();
+        if (!journal.isAttached()) {
+            Snapshot snapshot = new Snapshot(instance, InstanceCountState.capture());
+            if (!caretaker.saveSnapshot(snapshot)) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            Caretaker.save();
+            instance.attach(Journal.rotate(caretaker.head()));
+            caretaker.prune();
+            return CompletableFuture.completedFuture(true);
+        }
+
+        InstanceCountState state = InstanceCountState.capture();
+        journal.commit(state);
+
+        long id = caretaker.nextSnapshotId();
+        Workshop workshop = instance;
+        Snapshot snapshot = new Snapshot(workshop.capture(), state);
+
+        // A escrita só é dada como concluída depois de liberada a captura, para
+        // que a liberação não alcance a captura do próximo snapshot
+        Journal.fork(id);
+        pending = caretaker.saveSnapshotAsync(id, snapshot).whenComplete((saved, err) -> workshop.release());
+        return pending;
+    }
+
+    /**
+     * Espera a escrita de snapshot pendente, se houver, e fecha o diário de
+     * operações. Deve ser chamado ao encerrar a aplicação.
+     */
+    public static void close() {
+
+        if (pending != null) {
+            try {
+                pending.join();
+            } catch (RuntimeException err) {
+                // A falha é tratada como escrita malsucedida em settle()
+            }
+        }
+
+        settle();
+        Journal.journal().close();
+    }
+
+    /**
+     * Conclui a escrita de snapshot pendente, se ela já tiver terminado,
+     * passando para o novo diário se o snapshot foi registrado, ou descartando-o
+     * caso contrário.
+     */
+    private static void settle() {
+
+        if (pending == null || !pending.isDone()) {
+            return;
+        }
+
+        boolean saved = !pending.isCompletedExceptionally() && pending.join();
+        pending = null;
+
+        if (saved) {
+            instance.attach(Journal.promote());
+        } else {
+            Journal.abandon();
+        }
+    }
+
+    /**
+     * Captura a oficina no seu estado atual, materializando-a antes. A captura
+     * compartilha as coleções com a oficina até que alguma delas seja alterada,
+     * e pode ser lida em outra thread.
+     * 
+     * @return captura da oficina.
+     */
+    private Workshop capture() {
+        materialize();
+        return new Workshop(registry.capture(), memberbase.capture(), financial.capture(), scheduler.capture(),
+                stock.capture());
+    }
+
+    /**
+     * Faz os sistemas da oficina deixarem de compartilhar as coleções com a
+     * última captura, depois que ela foi escrita.
+     */
+    private void release() {
+        registry.release();
+        memberbase.release();
+        financial.release();
+        scheduler.release();
+        stock.release();
+    }
+
+    /**
+     * Anexa um diário de operações a todos os sistemas da oficina.
+     * 
+     * @param journal diário de operações.
+     */
+    private void attach(Journal journal) {
+        this.journal = journal;
+
+        // Os sistemas não materializados recebem o diário ao serem carregados
+        if (registry != null) {
+            registry.setJournal(journal);
+        }
+        if (memberbase != null) {
+            memberbase.setJournal(journal);
+        }
+        if (financial != null) {
+            financial.setJournal(journal);
+        }
+        if (scheduler != null) {
+            scheduler.setJournal(journal);
+        }
+        if (stock != null) {
+            stock.setJournal(journal);
+        }
+    }
+
+    /**
+     * Materializa todos os sistemas ainda não carregados.
+     */
+    public void materialize() {
+        registry();
+        memberbase();
+        financial();
+        scheduler();
+        stock();
+    }
+
+    /**
+     * Verifica se todos os sistemas da oficina já foram carregados.
+     * 
+     * @return {@code true} se, e somente se todos os sistemas estiverem
+     *         carregados.
+     */
+    public boolean isMaterialized() {
+        for (Supplier<?> loader : loaders) {
+            if (loader != null) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Carrega um sistema pelo seu carregador, descartando-o em seguida. Se o
+     * carregamento falhar, o carregador é trocado por um que lança a mesma
+     * falha, de modo que todo acesso seguinte ao sistema falhe também, em vez
+     * de retornar um sistema vazio que seria salvo no próximo snapshot.
+     * 
+     * @param <T>      tipo do sistema.
+     * @param index    índice do carregador.
+     * @param type     classe do sistema.
+     * @param fallback construtor do sistema vazio.
+     * @return sistema carregado.
+     * @throws WorkshopException se o sistema não puder ser carregado.
+     */
+    private <T> T load(int index, Class<T> type, Supplier<T> fallback) {
+        Supplier<?> loader = loaders[index];
+        if (loader == null) {
+            return fallback.get();
+        }
+
+        T system;
+        try {
+            system = type.cast(loader.get());
+        } catch (WorkshopException err) {
+            loaders[index] = () -> {
+                throw err;
+            };
+            throw err;
+        }
+
+        loaders[index] = null;
+        return system != null ? system : fallback.get();
     }
 
     /**
@@ -101,6 +416,11 @@ public class Workshop {
      * @return o registro da oficina.
      */
     public Registry registry() {
+        if (registry == null) {
+            registry = load(0, Registry.class, Registry::new);
+            registry.setJournal(journal);
+        }
+
         return registry;
     }
 
@@ -110,6 +430,11 @@ public class Workshop {
      * @return a base de membros da oficina.
      */
     public MemberBase memberbase() {
+        if (memberbase == null) {
+            memberbase = load(1, MemberBase.class, MemberBase::new);
+            memberbase.setJournal(journal);
+        }
+
         return memberbase;
     }
 
@@ -119,6 +444,11 @@ public class Workshop {
      * @return o sistema financeiro da oficina.
      */
     public Financial financial() {
+        if (financial == null) {
+            financial = load(2, Financial.class, Financial::new);
+            financial.setJournal(journal);
+        }
+
         return financial;
     }
 
@@ -128,6 +458,11 @@ public class Workshop {
      * @return o sistema de agendamento da oficina.
      */
     public Scheduler scheduler() {
+        if (scheduler == null) {
+            scheduler = load(3, Scheduler.class, Scheduler::new);
+            scheduler.setJournal(journal);
+        }
+
         return scheduler;
     }
 
@@ -137,6 +472,11 @@ public class Workshop {
      * @return o estoque da oficina.
      */
     public Stock stock() {
+        if (stock == null) {
+            stock = load(4, Stock.class, Stock::new);
+            stock.setJournal(journal);
+        }
+
         return stock;
     }
 
@@ -147,6 +487,6 @@ public class Workshop {
      */
     @Override
     public String toString() {
-        return String.format("(%s %s %s %s %s)", registry, memberbase, financial, scheduler, stock);
+        return String.format("(%s %s %s %s %s)", registry(), memberbase(), financial(), scheduler(), stock());
     }
 }
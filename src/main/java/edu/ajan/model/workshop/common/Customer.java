@@ -59,6 +59,20 @@ public class Customer extends Person {
         this.setEmail(email);
     }
 
+    /**
+     * Construtor de cópia. A cópia tem o mesmo identificador do cliente
+     * copiado, e é usada pelo registro para substituir o cliente em vez de
+     * alterá-lo no lugar.
+     * 
+     * @param other cliente a ser copiado.
+     */
+    Customer(Customer other) {
+        super(other);
+        this.id = other.id;
+        this.address = other.address;
+        this.email = other.email;
+    }
+
     /**
      * Retorna o identificador único do cliente.
      * 
@@ -98,6 +98,18 @@ public abstract class Person {
         this.setCpf(cpf);
     }
 
+    /**
+     * Construtor de cópia, sem validar novamente os dados já validados da
+     * pessoa copiada.
+     * 
+     * @param other pessoa a ser copiada.
+     */
+    protected Person(Person other) {
+        this.name = other.name;
+        this.phone = other.phone;
+        this.cpf = other.cpf;
+    }
+
     /**
      * Retorna o nome da pessoa.
      * 
@@ -1,10 +1,21 @@
 package edu.ajan.model.workshop.common;
 
 import java.util.HashMap;
+import java.util.function.Consumer;
+
+import edu.ajan.model.exception.WorkshopException;
+import edu.ajan.model.persistence.EntityKind;
+import edu.ajan.model.persistence.Journal;
 
 /**
  * Classe que representa um registro de clientes e veículos.
  * 
+ * <p> Clientes e veículos já registrados devem ser alterados por
+ * {@link #updateCustomer} e {@link #updateVehicle}, que substituem a entidade
+ * por uma cópia alterada e registram a cópia no diário; uma alteração feita
+ * direto na entidade se perde ao recarregar a oficina, e pode chegar pela
+ * metade a uma captura sendo escrita.
+ * 
  * @author Alan Lima
  */
 public class Registry {
@@ -19,12 +30,85 @@ public class Registry {
      */
     private HashMap<Integer, Vehicle> vehicles;
 
+    /**
+     * Diário de operações em que as alterações do registro são registradas.
+     */
+    private Journal journal;
+
+    /**
+     * Indica se as coleções são compartilhadas com uma captura, caso em que
+     * devem ser copiadas antes da próxima alteração.
+     */
+    private volatile boolean shared;
+
     /**
      * Construtor padrão.
      */
     public Registry() {
         this.customers = new HashMap<>();
         this.vehicles = new HashMap<>();
+        this.journal = Journal.DETACHED;
+    }
+
+    /**
+     * Construtor parametrizado, usado nas capturas, que compartilha as coleções
+     * passadas.
+     * 
+     * @param customers mapa de clientes.
+     * @param vehicles  mapa de veículos.
+     */
+    private Registry(HashMap<Integer, Customer> customers, HashMap<Integer, Vehicle> vehicles) {
+        this.customers = customers;
+        this.vehicles = vehicles;
+        this.journal = Journal.DETACHED;
+        this.shared = true;
+    }
+
+    /**
+     * Define o diário de operações em que as alterações do registro são
+     * registradas.
+     * 
+     * @param journal diário de operações, ou {@code null} para não registrar.
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal != null ? journal : Journal.DETACHED;
+    }
+
+    /**
+     * Captura o registro no seu estado atual, em tempo constante. A captura
+     * compartilha as coleções com o original, e quem for alterado primeiro as
+     * copia antes, de modo que a captura permanece intacta e pode ser lida em
+     * outra thread enquanto o original continua em uso. As entidades em si não
+     * são copiadas, pois nunca são alteradas no lugar.
+     * 
+     * @return captura desanexada de qualquer diário.
+     */
+    public Registry capture() {
+        this.shared = true;
+        return new Registry(customers, vehicles);
+    }
+
+    /**
+     * Deixa de compartilhar as coleções com a última captura, quando ela não
+     * for mais lida, de modo que as próximas alterações não as copiem. Deve
+     * ser chamado apenas depois que a captura deixar de ser usada.
+     */
+    public void release() {
+        this.shared = false;
+    }
+
+    /**
+     * Copia as coleções compartilhadas com uma captura, se houver, antes de uma
+     * alteração.
+     */
+    private void copyOnWrite() {
+        if (!shared) {
+            return;
+        }
+
+        this.customers = new HashMap<>(customers);
+        this.vehicles = new HashMap<>(vehicles);
+        this.shared = false;
     }
 
     /**
@@ -63,7 +147,35 @@ public class Registry {
      * @param customer cliente a ser adicionado.
      */
     public void addCustomer(Customer customer) {
+        copyOnWrite();
         customers.put(customer.id(), customer);
+        journal.added(EntityKind.CUSTOMER, customer);
+    }
+
+    /**
+     * Altera um cliente registrado. A alteração é feita numa cópia, que
+     * substitui o cliente no registro, de modo que uma captura, que
+     * compartilha os clientes com o original, continua vendo o cliente como
+     * era.
+     * 
+     * @param customerId identificador do cliente.
+     * @param change     alteração a ser aplicada à cópia.
+     * 
+     * @throws WorkshopException se o cliente não existir ou se a alteração
+     *                           for inválida, caso em que nada é alterado.
+     */
+    public void updateCustomer(int customerId, Consumer<Customer> change) {
+        Customer customer = customers.get(customerId);
+        if (customer == null) {
+            throw new WorkshopException("cliente não existe");
+        }
+
+        Customer updated = new Customer(customer);
+        change.accept(updated);
+
+        copyOnWrite();
+        customers.put(customerId, updated);
+        journal.updated(EntityKind.CUSTOMER, updated);
     }
 
     /**
@@ -72,7 +184,9 @@ public class Registry {
      * @param customerId identificador do cliente a ser removido.
      */
     public void removeCustomer(int customerId) {
+        copyOnWrite();
         customers.remove(customerId);
+        journal.removed(EntityKind.CUSTOMER, customerId);
     }
 
     /**
@@ -111,7 +225,33 @@ public class Registry {
      * @param vehicle veículo a ser adicionado.
      */
     public void addVehicle(Vehicle vehicle) {
+        copyOnWrite();
         vehicles.put(vehicle.id(), vehicle);
+        journal.added(EntityKind.VEHICLE, vehicle);
+    }
+
+    /**
+     * Altera um veículo registrado, substituindo-o por uma cópia alterada,
+     * como em {@link #updateCustomer}.
+     * 
+     * @param vehicleId identificador do veículo.
+     * @param change    alteração a ser aplicada à cópia.
+     * 
+     * @throws WorkshopException se o veículo não existir ou se a alteração
+     *                           for inválida, caso em que nada é alterado.
+     */
+    public void updateVehicle(int vehicleId, Consumer<Vehicle> change) {
+        Vehicle vehicle = vehicles.get(vehicleId);
+        if (vehicle == null) {
+            throw new WorkshopException("veículo não existe");
+        }
+
+        Vehicle updated = new Vehicle(vehicle);
+        change.accept(updated);
+
+        copyOnWrite();
+        vehicles.put(vehicleId, updated);
+        journal.updated(EntityKind.VEHICLE, updated);
     }
 
     /**
@@ -120,7 +260,9 @@ public class Registry {
      * @param vehicleId identificador do veículo a ser removido.
      */
     public void removeVehicle(int vehicleId) {
+        copyOnWrite();
         vehicles.remove(vehicleId);
+        journal.removed(EntityKind.VEHICLE, vehicleId);
     }
 
     /**
@@ -89,6 +89,18 @@ public class Vehicle {
         this.setYear(year);
     }
 
+    /**
+     * Construtor de cópia, que mantém o identificador do veículo copiado.
+     * 
+     * @param other veículo a ser copiado.
+     */
+    Vehicle(Vehicle other) {
+        this.id = other.id;
+        this.model = other.model;
+        this.plate = other.plate;
+        this.year = other.year;
+    }
+
     /**
      * Retorna o identificador do veículo.
      * 
@@ -0,0 +1,393 @@
+package edu.ajan.model.workshop.financial;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.ajan.model.workshop.money.Money;
+
+/**
+ * Classe que representa os totais diários da unidade financeira, mantidos a
+ * cada nota fiscal ou despesa adicionada ou removida.
+ *
+ * <p> Cada dia com algum registro tem um balde com a receita, o total das
+ * despesas e as quantidades de cada um. Sobre os baldes, em ordem de data, é
+ * mantida uma árvore de Fenwick de cada total, de modo que os totais de
+ * quaisquer dias, meses ou anos são somados em tempo logarítmico, sem
+ * percorrer os registros. Alterar um dia que já tem balde atualiza as árvores
+ * em tempo logarítmico; um dia novo faz com que sejam reconstruídas, em tempo
+ * linear no número de dias, na próxima consulta. Os dias são os do fuso
+ * horário do sistema, o mesmo das datas formatadas.
+ *
+ * <p> O valor e a data de cada registro devem ser os mesmos de quando ele foi
+ * somado.
+ *
+ * @author Alan Lima
+ */
+final class DailyRollup {
+
+    /**
+     * Fuso horário dos dias.
+     */
+    private final ZoneId zone;
+
+    /**
+     * Baldes indexados pelo dia, contado desde 1° de janeiro de 1970.
+     */
+    private final TreeMap<Long, Day> days;
+
+    /**
+     * Dias dos baldes, em ordem, na ordem das árvores.
+     */
+    private long[] keys;
+
+    /**
+     * Árvore de Fenwick da receita.
+     */
+    private long[] revenue;
+
+    /**
+     * Árvore de Fenwick da quantidade de notas fiscais.
+     */
+    private int[] invoices;
+
+    /**
+     * Árvore de Fenwick do total das despesas.
+     */
+    private long[] expenses;
+
+    /**
+     * Árvore de Fenwick da quantidade de despesas.
+     */
+    private int[] expenseCount;
+
+    /**
+     * Indica se algum dia novo foi adicionado desde a última reconstrução das
+     * árvores.
+     */
+    private boolean dirty;
+
+    /**
+     * Construtor padrão.
+     */
+    DailyRollup() {
+        this.zone = ZoneId.systemDefault();
+        this.days = new TreeMap<>();
+        this.dirty = true;
+    }
+
+    /**
+     * Construtor de cópia, que copia também os baldes.
+     *
+     * @param other totais a serem copiados.
+     */
+    DailyRollup(DailyRollup other) {
+        synchronized (other) {
+            this.zone = other.zone;
+            this.days = new TreeMap<>();
+            this.dirty = true;
+
+            for (Map.Entry<Long, Day> entry : other.days.entrySet()) {
+                this.days.put(entry.getKey(), new Day(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Soma uma nota fiscal ao dia da sua data.
+     *
+     * @param invoice nota fiscal.
+     */
+    void addInvoice(Invoice invoice) {
+        update(dayOf(invoice.date()), invoice.subtotal(), 1, Money.ZERO, 0);
+    }
+
+    /**
+     * Subtrai uma nota fiscal do dia da sua data.
+     *
+     * @param invoice nota fiscal.
+     */
+    void removeInvoice(Invoice invoice) {
+        update(dayOf(invoice.date()), -invoice.subtotal(), -1, Money.ZERO, 0);
+    }
+
+    /**
+     * Soma uma despesa ao dia da sua data.
+     *
+     * @param expense despesa.
+     */
+    void addExpense(Expense expense) {
+        update(dayOf(expense.getDate()), Money.ZERO, 0, expense.getValue(), 1);
+    }
+
+    /**
+     * Subtrai uma despesa do dia da sua data.
+     *
+     * @param expense despesa.
+     */
+    void removeExpense(Expense expense) {
+        update(dayOf(expense.getDate()), Money.ZERO, 0, -expense.getValue(), -1);
+    }
+
+    /**
+     * Retorna o resumo de um intervalo de dias.
+     *
+     * @param fromDay primeiro dia do intervalo.
+     * @param toDay   dia seguinte ao último do intervalo.
+     * @return resumo dos dias.
+     */
+    synchronized FinancialSummary days(long fromDay, long toDay) {
+        if (fromDay >= toDay) {
+            return FinancialSummary.EMPTY;
+        }
+
+        if (dirty) {
+            rebuild();
+        }
+
+        int from = position(fromDay);
+        int to = position(toDay);
+
+        return new FinancialSummary(
+                sum(revenue, to) - sum(revenue, from),
+                sum(invoices, to) - sum(invoices, from),
+                sum(expenses, to) - sum(expenses, from),
+                sum(expenseCount, to) - sum(expenseCount, from));
+    }
+
+    /**
+     * Retorna o resumo do dia de um instante.
+     *
+     * @param timestamp instante qualquer do dia.
+     * @return resumo do dia.
+     */
+    FinancialSummary day(long timestamp) {
+        long day = dayOf(timestamp);
+        return days(day, day + 1);
+    }
+
+    /**
+     * Retorna o resumo do mês de um instante.
+     *
+     * @param timestamp instante qualquer do mês.
+     * @return resumo do mês.
+     */
+    FinancialSummary month(long timestamp) {
+        LocalDate first = date(timestamp).withDayOfMonth(1);
+        return days(first.toEpochDay(), first.plusMonths(1).toEpochDay());
+    }
+
+    /**
+     * Retorna o resumo do ano de um instante.
+     *
+     * @param timestamp instante qualquer do ano.
+     * @return resumo do ano.
+     */
+    FinancialSummary year(long timestamp) {
+        LocalDate first = date(timestamp).withDayOfYear(1);
+        return days(first.toEpochDay(), first.plusYears(1).toEpochDay());
+    }
+
+    /**
+     * Retorna o dia de um instante.
+     *
+     * @param timestamp instante, em milissegundos.
+     * @return dia, contado desde 1° de janeiro de 1970.
+     */
+    long dayOf(long timestamp) {
+        return date(timestamp).toEpochDay();
+    }
+
+    /**
+     * Retorna o instante em que um dia começa.
+     *
+     * @param day dia, contado desde 1° de janeiro de 1970.
+     * @return começo do dia, em milissegundos.
+     */
+    long startOf(long day) {
+        return LocalDate.ofEpochDay(day).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Soma valores ao balde de um dia, atualizando as árvores se o dia já
+     * existia.
+     *
+     * @param day          dia, contado desde 1° de janeiro de 1970.
+     * @param revenue      receita, em centavos.
+     * @param invoices     quantidade de notas fiscais.
+     * @param expenses     total das despesas, em centavos.
+     * @param expenseCount quantidade de despesas.
+     */
+    private synchronized void update(long day, long revenue, int invoices, long expenses, int expenseCount) {
+        Day bucket = days.get(day);
+        if (bucket == null) {
+            bucket = new Day();
+            days.put(day, bucket);
+            this.dirty = true;
+        }
+
+        bucket.revenue += revenue;
+        bucket.invoices += invoices;
+        bucket.expenses += expenses;
+        bucket.expenseCount += expenseCount;
+
+        if (dirty) {
+            return; // As árvores serão reconstruídas na próxima consulta
+        }
+
+        for (int i = Arrays.binarySearch(keys, day) + 1; i < this.revenue.length; i += i & -i) {
+            this.revenue[i] += revenue;
+            this.invoices[i] += invoices;
+            this.expenses[i] += expenses;
+            this.expenseCount[i] += expenseCount;
+        }
+    }
+
+    /**
+     * Reconstrói as árvores a partir dos baldes, em tempo linear.
+     */
+    private void rebuild() {
+        int size = days.size();
+
+        this.keys = new long[size];
+        this.revenue = new long[size + 1];
+        this.invoices = new int[size + 1];
+        this.expenses = new long[size + 1];
+        this.expenseCount = new int[size + 1];
+
+        int i = 1;
+        for (Map.Entry<Long, Day> entry : days.entrySet()) {
+            Day bucket = entry.getValue();
+
+            keys[i - 1] = entry.getKey();
+            revenue[i] = bucket.revenue;
+            invoices[i] = bucket.invoices;
+            expenses[i] = bucket.expenses;
+            expenseCount[i] = bucket.expenseCount;
+            i++;
+        }
+
+        // Cada nó soma o seu valor ao do seu pai, que ainda não foi visitado
+        for (i = 1; i <= size; i++) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                revenue[parent] += revenue[i];
+                invoices[parent] += invoices[i];
+                expenses[parent] += expenses[i];
+                expenseCount[parent] += expenseCount[i];
+            }
+        }
+
+        this.dirty = false;
+    }
+
+    /**
+     * Retorna a quantidade de baldes de dias anteriores a um dia.
+     *
+     * @param day dia, contado desde 1° de janeiro de 1970.
+     * @return posição do primeiro balde do dia ou posterior.
+     */
+    private int position(long day) {
+        int position = Arrays.binarySearch(keys, day);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * Soma os primeiros valores de uma árvore de Fenwick.
+     *
+     * @param tree  árvore de Fenwick.
+     * @param count quantidade de valores somados.
+     * @return soma.
+     */
+    private static long sum(long[] tree, int count) {
+        long sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+
+        return sum;
+    }
+
+    /**
+     * Soma os primeiros valores de uma árvore de Fenwick.
+     *
+     * @param tree  árvore de Fenwick.
+     * @param count quantidade de valores somados.
+     * @return soma.
+     */
+    private static int sum(int[] tree, int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+
+        return sum;
+    }
+
+    /**
+     * Retorna a data de um instante, no fuso horário dos totais.
+     *
+     * @param timestamp instante, em milissegundos.
+     * @return data do instante.
+     */
+    private LocalDate date(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+    }
+
+    /**
+     * Retorna uma representação textual dos totais.
+     *
+     * @return representação textual dos totais.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d)", days.size());
+    }
+
+    /**
+     * Classe que representa o balde de um dia.
+     */
+    private static final class Day {
+
+        /**
+         * Receita do dia.
+         */
+        long revenue;
+
+        /**
+         * Quantidade de notas fiscais do dia.
+         */
+        int invoices;
+
+        /**
+         * Total das despesas do dia.
+         */
+        long expenses;
+
+        /**
+         * Quantidade de despesas do dia.
+         */
+        int expenseCount;
+
+        /**
+         * Construtor padrão.
+         */
+        Day() {
+        }
+
+        /**
+         * Construtor de cópia.
+         *
+         * @param other balde a ser copiado.
+         */
+        Day(Day other) {
+            this.revenue = other.revenue;
+            this.invoices = other.invoices;
+            this.expenses = other.expenses;
+            this.expenseCount = other.expenseCount;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package edu.ajan.model.workshop.financial;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Classe que representa o índice por data dos registros da unidade financeira.
+ *
+ * <p> Os registros ficam em baldes indexados pela data, num mapa ordenado, e
+ * cada balde guarda os registros da mesma data na ordem em que foram
+ * adicionados. Assim os registros de um espaço de tempo são encontrados em
+ * tempo logarítmico e percorridos sem passar pelos de fora dele. A data de
+ * cada registro deve ser a mesma de quando ele foi indexado.
+ *
+ * @param <T> tipo dos registros.
+ *
+ * @author Alan Lima
+ */
+final class DateIndex<T> {
+
+    /**
+     * Função que extrai a data de um registro.
+     */
+    private final ToLongFunction<T> date;
+
+    /**
+     * Registros indexados pela data.
+     */
+    private final TreeMap<Long, ArrayList<T>> buckets;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param date função que extrai a data de um registro.
+     */
+    DateIndex(ToLongFunction<T> date) {
+        this.date = date;
+        this.buckets = new TreeMap<>();
+    }
+
+    /**
+     * Construtor de cópia, que copia também os baldes.
+     *
+     * @param other índice a ser copiado.
+     */
+    DateIndex(DateIndex<T> other) {
+        this.date = other.date;
+        this.buckets = new TreeMap<>();
+
+        for (Map.Entry<Long, ArrayList<T>> entry : other.buckets.entrySet()) {
+            this.buckets.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+    }
+
+    /**
+     * Indexa um registro.
+     *
+     * @param record registro.
+     */
+    void add(T record) {
+        buckets.computeIfAbsent(date.applyAsLong(record), key -> new ArrayList<>()).add(record);
+    }
+
+    /**
+     * Retira um registro do índice.
+     *
+     * @param record registro.
+     */
+    void remove(T record) {
+        long key = date.applyAsLong(record);
+
+        ArrayList<T> bucket = buckets.get(key);
+        if (bucket != null && bucket.remove(record) && bucket.isEmpty()) {
+            buckets.remove(key);
+        }
+    }
+
+    /**
+     * Retorna os registros de um espaço de tempo, com o começo e sem o fim.
+     *
+     * @param start início do espaço de tempo.
+     * @param end   fim do espaço de tempo.
+     * @return registros do espaço de tempo, ordenados por data.
+     */
+    List<T> range(long start, long end) {
+        ArrayList<T> records = new ArrayList<>();
+        if (start >= end) {
+            return records;
+        }
+
+        for (ArrayList<T> bucket : buckets.subMap(start, end).values()) {
+            records.addAll(bucket);
+        }
+
+        return records;
+    }
+
+    /**
+     * Retorna uma representação textual do índice.
+     *
+     * @return representação textual do índice.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d)", buckets.size());
+    }
+}
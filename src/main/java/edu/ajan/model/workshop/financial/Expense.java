@@ -1,8 +1,12 @@
 package edu.ajan.model.workshop.financial;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import edu.ajan.model.exception.WorkshopException;
 import edu.ajan.model.persistence.InstanceCountState;
+import edu.ajan.model.persistence.MoneyAdapter;
 import edu.ajan.model.workshop.date.Dates;
+import edu.ajan.model.workshop.money.Money;
 
 /**
  * Classe que representa uma despesa.
@@ -32,9 +36,10 @@ public class Expense {
     private String description;
 
     /**
-     * Valor da despesa.
+     * Valor da despesa, em centavos.
      */
-    private double value;
+    @JsonAdapter(MoneyAdapter.class)
+    private long value;
 
     /**
      * Timestamp que representa a data da despesa.
@@ -48,7 +53,7 @@ public class Expense {
         this.id = generateNextId();
         this.name = "";
         this.description = "";
-        this.value = 0.0;
+        this.value = Money.ZERO;
         this.date = 0L;
     }
 
@@ -57,12 +62,12 @@ public class Expense {
      * 
      * @param name        nome da despesa.
      * @param description descrição da despesa.
-     * @param value       valor da despesa.
+     * @param value       valor da despesa, em centavos.
      * @param date        data da despesa.
      * 
      * @throws WorkshopException se algum dos argumentos for inválido.
      */
-    public Expense(String name, String description, double value, long date) {
+    public Expense(String name, String description, long value, long date) {
         this.id = generateNextId();
         this.setName(name);
         this.setDescription(description);
@@ -70,6 +75,21 @@ public class Expense {
         this.setDate(date);
     }
 
+    /**
+     * Construtor de cópia. A cópia tem o mesmo identificador da despesa
+     * copiada e é usada pela unidade financeira para substituir uma despesa
+     * registrada, em vez de alterá-la no lugar.
+     * 
+     * @param other despesa a ser copiada.
+     */
+    Expense(Expense other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.description = other.description;
+        this.value = other.value;
+        this.date = other.date;
+    }
+
     /**
      * Retorna o identificador da despesa.
      * 
@@ -126,18 +146,20 @@ public class Expense {
     /**
      * Retorna o valor da despesa.
      * 
-     * @return valor da despesa.
+     * @return valor da despesa, em centavos.
      */
-    public double getValue() {
+    public long getValue() {
         return value;
     }
 
     /**
-     * Define o valor da despesa.
+     * Define o valor da despesa. Numa despesa já registrada na unidade
+     * financeira, que a soma aos totais do dia, deve ser chamado apenas por
+     * {@link Financial#updateExpense}.
      * 
-     * @param value valor da despesa.
+     * @param value valor da despesa, em centavos.
      */
-    public void setValue(double value) {
+    public void setValue(long value) {
         if (value < 0) {
             throw new WorkshopException("valor não pode ser negativo");
         }
@@ -155,7 +177,9 @@ public class Expense {
     }
 
     /**
-     * Define a data da despesa.
+     * Define a data da despesa. Numa despesa já registrada na unidade
+     * financeira, que a indexa pela data, deve ser chamado apenas por
+     * {@link Financial#updateExpense}.
      * 
      * @param date timestamp que representa a data da despesa.
      */
@@ -209,6 +233,6 @@ public class Expense {
      */
     @Override
     public String toString() {
-        return String.format("(\"%s\" \"%s\" %.2f %s)", name, description, value, Dates.formatAsDate(date));
+        return String.format("(\"%s\" \"%s\" %s %s)", name, description, Money.format(value), Dates.formatAsDate(date));
     }
 }
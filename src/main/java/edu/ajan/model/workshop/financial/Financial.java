@@ -1,34 +1,167 @@
 package edu.ajan.model.workshop.financial;
 
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Consumer;
 
 import edu.ajan.model.exception.WorkshopException;
-import edu.ajan.model.workshop.date.DateSpan;
+import edu.ajan.model.persistence.EntityKind;
+import edu.ajan.model.persistence.Journal;
+import edu.ajan.model.workshop.money.Money;
 
 /**
  * Classe que representa a unidade financeira da oficina mecânica.
  * 
+ * <p> Uma despesa já registrada é alterada por {@link #updateExpense}, que a
+ * substitui por uma cópia alterada, mantém os índices por data e os totais
+ * do dia e registra a cópia no diário. As notas fiscais não mudam depois de
+ * emitidas.
+ * 
  * @author Alan Lima
  * @author Juan Pablo
  */
 public class Financial {
 
     /**
-     * Lista de despesas.
+     * Mapa de despesas indexadas pelo identificador da despesa, na ordem em que
+     * foram adicionadas.
+     */
+    private LinkedHashMap<Integer, Expense> expenses;
+
+    /**
+     * Mapa de notas fiscais indexadas pelo identificador da nota fiscal, na
+     * ordem em que foram adicionadas.
+     */
+    private LinkedHashMap<Integer, Invoice> invoices;
+
+    /**
+     * Índice das despesas pela data.
+     */
+    private DateIndex<Expense> expenseDates;
+
+    /**
+     * Índice das notas fiscais pela data.
      */
-    private ArrayList<Expense> expenses;
+    private DateIndex<Invoice> invoiceDates;
 
     /**
-     * Lista de nota fiscal.
+     * Totais diários das notas fiscais e das despesas.
      */
-    private ArrayList<Invoice> invoices;
+    private DailyRollup rollup;
+
+    /**
+     * Linhas de produtos das notas fiscais em colunas, construídas na primeira
+     * consulta analítica e descartadas a cada nota fiscal adicionada ou
+     * removida.
+     */
+    private InvoiceLines productLines;
+
+    /**
+     * Linhas de serviços das notas fiscais em colunas, construídas na primeira
+     * consulta analítica e descartadas a cada nota fiscal adicionada ou
+     * removida.
+     */
+    private InvoiceLines serviceLines;
+
+    /**
+     * Diário de operações em que as alterações da unidade financeira são
+     * registradas.
+     */
+    private Journal journal;
+
+    /**
+     * Indica se as coleções são compartilhadas com uma captura, caso em que
+     * devem ser copiadas antes da próxima alteração.
+     */
+    private volatile boolean shared;
 
     /**
      * Construtor privado.
      */
     public Financial() {
-        expenses = new ArrayList<>();
-        invoices = new ArrayList<>();
+        expenses = new LinkedHashMap<>();
+        invoices = new LinkedHashMap<>();
+        expenseDates = new DateIndex<>(Expense::getDate);
+        invoiceDates = new DateIndex<>(Invoice::date);
+        rollup = new DailyRollup();
+        journal = Journal.DETACHED;
+    }
+
+    /**
+     * Construtor parametrizado, usado nas capturas, que compartilha as coleções
+     * passadas.
+     * 
+     * @param expenses     mapa de despesas.
+     * @param invoices     mapa de notas fiscais.
+     * @param expenseDates índice das despesas pela data.
+     * @param invoiceDates índice das notas fiscais pela data.
+     * @param rollup       totais diários.
+     * @param productLines linhas de produtos em colunas, ou {@code null}.
+     * @param serviceLines linhas de serviços em colunas, ou {@code null}.
+     */
+    private Financial(LinkedHashMap<Integer, Expense> expenses, LinkedHashMap<Integer, Invoice> invoices,
+            DateIndex<Expense> expenseDates, DateIndex<Invoice> invoiceDates, DailyRollup rollup,
+            InvoiceLines productLines, InvoiceLines serviceLines) {
+
+        this.expenses = expenses;
+        this.invoices = invoices;
+        this.expenseDates = expenseDates;
+        this.invoiceDates = invoiceDates;
+        this.rollup = rollup;
+        this.productLines = productLines;
+        this.serviceLines = serviceLines;
+        this.journal = Journal.DETACHED;
+        this.shared = true;
+    }
+
+    /**
+     * Define o diário de operações em que as alterações da unidade financeira
+     * são registradas.
+     * 
+     * @param journal diário de operações, ou {@code null} para não registrar.
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal != null ? journal : Journal.DETACHED;
+    }
+
+    /**
+     * Captura a unidade financeira no seu estado atual, em tempo constante. A captura
+     * compartilha as coleções com o original, e quem for alterado primeiro as
+     * copia antes, de modo que a captura permanece intacta e pode ser lida em
+     * outra thread enquanto o original continua em uso. As entidades em si não
+     * são copiadas.
+     * 
+     * @return captura desanexada de qualquer diário.
+     */
+    public Financial capture() {
+        this.shared = true;
+        return new Financial(expenses, invoices, expenseDates, invoiceDates, rollup, productLines, serviceLines);
+    }
+
+    /**
+     * Deixa de compartilhar as coleções com a última captura, quando ela não
+     * for mais lida, de modo que as próximas alterações não as copiem. Deve
+     * ser chamado apenas depois que a captura deixar de ser usada.
+     */
+    public void release() {
+        this.shared = false;
+    }
+
+    /**
+     * Copia as coleções compartilhadas com uma captura, se houver, antes de uma
+     * alteração.
+     */
+    private void copyOnWrite() {
+        if (!shared) {
+            return;
+        }
+
+        this.expenses = new LinkedHashMap<>(expenses);
+        this.invoices = new LinkedHashMap<>(invoices);
+        this.expenseDates = new DateIndex<>(expenseDates);
+        this.invoiceDates = new DateIndex<>(invoiceDates);
+        this.rollup = new DailyRollup(rollup);
+        this.shared = false;
     }
 
     /**
@@ -37,22 +170,20 @@ public class Financial {
      * @return estrutura iterável de despesas.
      */
     public Iterable<Expense> getExpenses() {
-        return expenses;
+        return expenses.values();
     }
 
     /**
-     * Retorna estrutura iterável de despesas dentro de um espaço de tempo.
+     * Retorna estrutura iterável de despesas dentro de um espaço de tempo, pelo
+     * índice de datas, sem percorrer as despesas de fora dele.
      * 
      * @param start início do espaço de tempo.
      * @param end   fim do espaço de tempo.
-     * @return estrutura iterável de despesas dentro do espaço de tempo.
+     * @return estrutura iterável de despesas dentro do espaço de tempo,
+     *         ordenadas por data.
      */
     public Iterable<Expense> getExpenses(long start, long end) {
-        DateSpan span = new DateSpan(start, end);
-
-        return expenses.stream()
-                .filter(expense -> span.contains(expense.getDate()))
-                .toList();
+        return expenseDates.range(start, end);
     }
 
     /**
@@ -63,13 +194,7 @@ public class Financial {
      *         existir.
      */
     public Expense getExpense(int expenseId) {
-        for (Expense expense : expenses) {
-            if (expense.id() == expenseId) {
-                return expense;
-            }
-        }
-
-        return null;
+        return expenses.get(expenseId);
     }
 
     /**
@@ -79,13 +204,7 @@ public class Financial {
      * @return {@code true} se, e somente se a despesa existir.
      */
     public boolean hasExpense(int expenseId) {
-        for (Expense expense : expenses) {
-            if (expense.id() == expenseId) {
-                return true;
-            }
-        }
-        
-        return false;
+        return expenses.containsKey(expenseId);
     }
 
     /**
@@ -98,7 +217,46 @@ public class Financial {
             throw new WorkshopException("despesa não pode ser nula");
         }
         
-        expenses.add(expense);
+        copyOnWrite();
+        Expense replaced = expenses.put(expense.id(), expense);
+        if (replaced != null) {
+            expenseDates.remove(replaced);
+            rollup.removeExpense(replaced);
+        }
+
+        expenseDates.add(expense);
+        rollup.addExpense(expense);
+        journal.added(EntityKind.EXPENSE, expense);
+    }
+
+    /**
+     * Altera uma despesa registrada. A alteração é feita numa cópia, que
+     * substitui a despesa no registro, nos índices e nos totais, de modo que
+     * uma captura, que compartilha as despesas com o original, continua vendo
+     * a despesa como era.
+     * 
+     * @param expenseId identificador da despesa.
+     * @param change    alteração, feita pelos modificadores da despesa.
+     * 
+     * @throws WorkshopException se a despesa não existir ou se a alteração for
+     *                           inválida, caso em que nada é alterado.
+     */
+    public void updateExpense(int expenseId, Consumer<Expense> change) {
+        Expense expense = expenses.get(expenseId);
+        if (expense == null) {
+            throw new WorkshopException("despesa não existe");
+        }
+
+        Expense updated = new Expense(expense);
+        change.accept(updated);
+
+        copyOnWrite();
+        expenses.put(expenseId, updated);
+        expenseDates.remove(expense);
+        rollup.removeExpense(expense);
+        expenseDates.add(updated);
+        rollup.addExpense(updated);
+        journal.updated(EntityKind.EXPENSE, updated);
     }
 
     /**
@@ -107,7 +265,14 @@ public class Financial {
      * @param expenseId identificador do despesa a ser removido.
      */
     public void removeExpense(int expenseId) {
-        expenses.removeIf(expense -> expense.id() == expenseId);
+        copyOnWrite();
+        Expense expense = expenses.remove(expenseId);
+        if (expense != null) {
+            expenseDates.remove(expense);
+            rollup.removeExpense(expense);
+        }
+
+        journal.removed(EntityKind.EXPENSE, expenseId);
     }
 
     /**
@@ -116,22 +281,20 @@ public class Financial {
      * @return estrutura iterável de nota do fiscal.
      */
     public Iterable<Invoice> getInvoices() {
-        return invoices;
+        return invoices.values();
     }
 
     /**
-     * Retorna estrutura iterável de nota fiscais dentro de um espaço de tempo.
+     * Retorna estrutura iterável de nota fiscais dentro de um espaço de tempo,
+     * pelo índice de datas, sem percorrer as notas fiscais de fora dele.
      * 
      * @param start início do espaço de tempo.
      * @param end   fim do espaço de tempo.
-     * @return estrutura iterável de nota fiscais dentro do espaço de tempo.
+     * @return estrutura iterável de nota fiscais dentro do espaço de tempo,
+     *         ordenadas por data.
      */
     public Iterable<Invoice> getInvoices(long start, long end) {
-        DateSpan span = new DateSpan(start, end);
-
-        return invoices.stream()
-                .filter(invoice -> span.contains(invoice.date()))
-                .toList();
+        return invoiceDates.range(start, end);
     }
 
     /**
@@ -142,13 +305,7 @@ public class Financial {
      *         fiscal não existir.
      */
     public Invoice getInvoice(int invoiceId) {
-        for (Invoice invoice : invoices) {
-            if (invoice.id() == invoiceId) {
-                return invoice;
-            }
-        }
-
-        return null;
+        return invoices.get(invoiceId);
     }
 
     /**
@@ -158,13 +315,7 @@ public class Financial {
      * @return {@code true} se, e somente se a nota fiscal existir.
      */
     public boolean hasInvoice(int invoiceId) {
-        for (Invoice invoice : invoices) {
-            if (invoice.id() == invoiceId) {
-                return true;
-            }
-        }
-        
-        return false;
+        return invoices.containsKey(invoiceId);
     }
 
     /**
@@ -177,7 +328,18 @@ public class Financial {
             throw new WorkshopException("nota fiscal não pode ser nula");
         }
 
-        invoices.add(invoice);
+        copyOnWrite();
+        Invoice replaced = invoices.put(invoice.id(), invoice);
+        if (replaced != null) {
+            invoiceDates.remove(replaced);
+            rollup.removeInvoice(replaced);
+        }
+
+        invoiceDates.add(invoice);
+        rollup.addInvoice(invoice);
+        productLines = null;
+        serviceLines = null;
+        journal.added(EntityKind.INVOICE, invoice);
     }
 
     /**
@@ -186,7 +348,152 @@ public class Financial {
      * @param invoiceId identificador do nota fiscal a ser removido.
      */
     public void removeInvoice(int invoiceId) {
-        invoices.removeIf(invoice -> invoice.id() == invoiceId);
+        copyOnWrite();
+        Invoice invoice = invoices.remove(invoiceId);
+        if (invoice != null) {
+            invoiceDates.remove(invoice);
+            rollup.removeInvoice(invoice);
+            productLines = null;
+            serviceLines = null;
+        }
+
+        journal.removed(EntityKind.INVOICE, invoiceId);
+    }
+
+    /**
+     * Resume as notas fiscais e as despesas de um espaço de tempo. Os dias
+     * inteiros do espaço são somados pelos totais diários, em tempo
+     * logarítmico, e apenas os registros das pontas que não ocupam um dia
+     * inteiro são percorridos.
+     * 
+     * @param start início do espaço de tempo.
+     * @param end   fim do espaço de tempo.
+     * @return resumo do espaço de tempo.
+     */
+    public FinancialSummary getSummary(long start, long end) {
+        if (start >= end) {
+            return FinancialSummary.EMPTY;
+        }
+
+        long firstDay = rollup.dayOf(start);
+        if (rollup.startOf(firstDay) != start) {
+            firstDay++; // O primeiro dia não é inteiro
+        }
+
+        long lastDay = rollup.dayOf(end);
+        if (firstDay >= lastDay) {
+            return scan(start, end);
+        }
+
+        return scan(start, rollup.startOf(firstDay))
+                .plus(rollup.days(firstDay, lastDay))
+                .plus(scan(rollup.startOf(lastDay), end));
+    }
+
+    /**
+     * Resume as notas fiscais e as despesas do dia de um instante.
+     * 
+     * @param timestamp instante qualquer do dia.
+     * @return resumo do dia.
+     */
+    public FinancialSummary getDaySummary(long timestamp) {
+        return rollup.day(timestamp);
+    }
+
+    /**
+     * Resume as notas fiscais e as despesas do mês de um instante.
+     * 
+     * @param timestamp instante qualquer do mês.
+     * @return resumo do mês.
+     */
+    public FinancialSummary getMonthSummary(long timestamp) {
+        return rollup.month(timestamp);
+    }
+
+    /**
+     * Resume as notas fiscais e as despesas do ano de um instante.
+     * 
+     * @param timestamp instante qualquer do ano.
+     * @return resumo do ano.
+     */
+    public FinancialSummary getYearSummary(long timestamp) {
+        return rollup.year(timestamp);
+    }
+
+    /**
+     * Retorna os produtos mais vendidos num espaço de tempo, pela quantidade
+     * vendida. As linhas de produtos das notas fiscais são percorridas em
+     * colunas, construídas na primeira consulta depois de cada alteração das
+     * notas fiscais.
+     * 
+     * @param start início do espaço de tempo.
+     * @param end   fim do espaço de tempo.
+     * @param limit quantidade máxima de produtos.
+     * @return vendas dos produtos, da maior para a menor.
+     */
+    public List<ItemSales> getTopProducts(long start, long end, int limit) {
+        if (limit <= 0) {
+            throw new WorkshopException("limite deve ser positivo");
+        }
+
+        InvoiceLines lines = productLines;
+        if (lines == null) {
+            lines = new InvoiceLines(invoiceDates.range(Long.MIN_VALUE, Long.MAX_VALUE), Invoice::products);
+            productLines = lines;
+        }
+
+        return lines.top(start, end, limit);
+    }
+
+    /**
+     * Retorna os serviços mais vendidos num espaço de tempo, pela quantidade
+     * vendida. As linhas de serviços das notas fiscais são percorridas em
+     * colunas, construídas na primeira consulta depois de cada alteração das
+     * notas fiscais.
+     * 
+     * @param start início do espaço de tempo.
+     * @param end   fim do espaço de tempo.
+     * @param limit quantidade máxima de serviços.
+     * @return vendas dos serviços, da maior para a menor.
+     */
+    public List<ItemSales> getTopServices(long start, long end, int limit) {
+        if (limit <= 0) {
+            throw new WorkshopException("limite deve ser positivo");
+        }
+
+        InvoiceLines lines = serviceLines;
+        if (lines == null) {
+            lines = new InvoiceLines(invoiceDates.range(Long.MIN_VALUE, Long.MAX_VALUE), Invoice::services);
+            serviceLines = lines;
+        }
+
+        return lines.top(start, end, limit);
+    }
+
+    /**
+     * Resume as notas fiscais e as despesas de um espaço de tempo percorrendo
+     * os registros, pelos índices de datas.
+     * 
+     * @param start início do espaço de tempo.
+     * @param end   fim do espaço de tempo.
+     * @return resumo do espaço de tempo.
+     */
+    private FinancialSummary scan(long start, long end) {
+        long revenue = Money.ZERO;
+        int invoices = 0;
+        for (Invoice invoice : invoiceDates.range(start, end)) {
+            revenue = Math.addExact(revenue, invoice.subtotal());
+            invoices++;
+        }
+
+        long expenses = Money.ZERO;
+        int expenseCount = 0;
+        for (Expense expense : expenseDates.range(start, end)) {
+            expenses = Math.addExact(expenses, expense.getValue());
+            expenseCount++;
+        }
+
+        return new FinancialSummary(revenue, invoices, expenses, expenseCount);
     }
 
     /**
@@ -196,6 +503,6 @@ public class Financial {
      */
     @Override
     public String toString() {
-        return String.format("(%s %s)", expenses, invoices);
+        return String.format("(%s %s)", expenses.values(), invoices.values());
     }
 }
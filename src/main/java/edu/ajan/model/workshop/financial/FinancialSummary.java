@@ -0,0 +1,119 @@
+package edu.ajan.model.workshop.financial;
+
+import edu.ajan.model.workshop.money.Money;
+
+/**
+ * Classe que representa o resumo da unidade financeira num espaço de tempo:
+ * a receita e a quantidade das notas fiscais e o total e a quantidade das
+ * despesas.
+ *
+ * @author Alan Lima
+ */
+public final class FinancialSummary {
+
+    /**
+     * Resumo vazio.
+     */
+    static final FinancialSummary EMPTY = new FinancialSummary(Money.ZERO, 0, Money.ZERO, 0);
+
+    /**
+     * Soma dos subtotais das notas fiscais, em centavos.
+     */
+    private final long revenue;
+
+    /**
+     * Quantidade de notas fiscais.
+     */
+    private final int invoices;
+
+    /**
+     * Soma dos valores das despesas, em centavos.
+     */
+    private final long expenses;
+
+    /**
+     * Quantidade de despesas.
+     */
+    private final int expenseCount;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param revenue      soma dos subtotais das notas fiscais, em centavos.
+     * @param invoices     quantidade de notas fiscais.
+     * @param expenses     soma dos valores das despesas, em centavos.
+     * @param expenseCount quantidade de despesas.
+     */
+    FinancialSummary(long revenue, int invoices, long expenses, int expenseCount) {
+        this.revenue = revenue;
+        this.invoices = invoices;
+        this.expenses = expenses;
+        this.expenseCount = expenseCount;
+    }
+
+    /**
+     * Soma dois resumos.
+     *
+     * @param other outro resumo.
+     * @return resumo somado.
+     */
+    FinancialSummary plus(FinancialSummary other) {
+        return new FinancialSummary(Money.sum(revenue, other.revenue), invoices + other.invoices,
+                Money.sum(expenses, other.expenses), expenseCount + other.expenseCount);
+    }
+
+    /**
+     * Retorna a soma dos subtotais das notas fiscais.
+     *
+     * @return receita, em centavos.
+     */
+    public long getRevenue() {
+        return revenue;
+    }
+
+    /**
+     * Retorna a quantidade de notas fiscais.
+     *
+     * @return quantidade de notas fiscais.
+     */
+    public int getInvoices() {
+        return invoices;
+    }
+
+    /**
+     * Retorna a soma dos valores das despesas.
+     *
+     * @return total das despesas, em centavos.
+     */
+    public long getExpenses() {
+        return expenses;
+    }
+
+    /**
+     * Retorna a quantidade de despesas.
+     *
+     * @return quantidade de despesas.
+     */
+    public int getExpenseCount() {
+        return expenseCount;
+    }
+
+    /**
+     * Retorna o saldo, a receita menos as despesas.
+     *
+     * @return saldo, em centavos.
+     */
+    public long balance() {
+        return Math.subtractExact(revenue, expenses);
+    }
+
+    /**
+     * Retorna uma representação textual do resumo.
+     *
+     * @return representação textual do resumo.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%s %d %s %d)", Money.format(revenue), invoices, Money.format(expenses), expenseCount);
+    }
+}
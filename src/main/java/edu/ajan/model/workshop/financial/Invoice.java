@@ -2,8 +2,12 @@ package edu.ajan.model.workshop.financial;
 
 import java.util.Arrays;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import edu.ajan.model.persistence.InstanceCountState;
+import edu.ajan.model.persistence.MoneyAdapter;
 import edu.ajan.model.workshop.date.Dates;
+import edu.ajan.model.workshop.money.Money;
 import edu.ajan.model.workshop.stock.Item;
 
 /**
@@ -39,16 +43,19 @@ public class Invoice {
     private final Item[] services;
 
     /**
-     * Adicional a ser cobrado na nota fiscal.
+     * Adicional a ser cobrado na nota fiscal, em centavos.
      * 
      * Pode ser negativo, indicando desconto.
      */
-    private final double additional;
+    @JsonAdapter(MoneyAdapter.class)
+    private final long additional;
 
     /**
-     * Valor total cobrado na nota fiscal.
+     * Valor total cobrado na nota fiscal, em centavos: o adicional mais o valor
+     * total de cada item, a quantidade vezes o valor unitário.
      */
-    private final double subtotal;
+    @JsonAdapter(MoneyAdapter.class)
+    private final long subtotal;
 
     /**
      * Timestamp que representa a data da despesa.
@@ -63,8 +70,8 @@ public class Invoice {
         this.customer = 0;
         this.products = new Item[0];
         this.services = new Item[0];
-        this.additional = 0.0;
-        this.subtotal = 0.0;
+        this.additional = Money.ZERO;
+        this.subtotal = Money.ZERO;
         this.date = 0L;
     }
 
@@ -74,18 +81,18 @@ public class Invoice {
      * @param customer   identificador do cliente que solicitou a nota fiscal.
      * @param products   produtos incluídos na nota fiscal.
      * @param services   serviços incluídos na nota fiscal.
-     * @param additional adicional a ser cobrado na nota fiscal.
+     * @param additional adicional a ser cobrado na nota fiscal, em centavos.
      * @param date       timestamp que representa a data da nota fiscal.
      */
-    public Invoice(int customer, Item[] products, Item[] services, double additional, long date) {
+    public Invoice(int customer, Item[] products, Item[] services, long additional, long date) {
         this.id = generateNextId();
         this.customer = customer;
-        this.products = products != null ? products : new Item[0];
-        this.services = services != null ? services : new Item[0];
+        this.products = products != null ? copy(products) : new Item[0];
+        this.services = services != null ? copy(services) : new Item[0];
         this.additional = additional;
-        this.subtotal = additional
-                + Arrays.stream(this.products).mapToDouble(product -> product.getBatch().value()).sum()
-                + Arrays.stream(this.services).mapToDouble(service -> service.getBatch().value()).sum();
+        this.subtotal = Money.sum(additional,
+                Arrays.stream(this.products).mapToLong(product -> product.getBatch().totalValue()).reduce(0, Math::addExact),
+                Arrays.stream(this.services).mapToLong(service -> service.getBatch().totalValue()).reduce(0, Math::addExact));
         this.date = date;
     }
 
@@ -108,38 +115,40 @@ public class Invoice {
     }
 
     /**
-     * Retorna os produtos incluídos na nota fiscal.
+     * Retorna uma cópia dos produtos incluídos na nota fiscal. A nota fiscal é
+     * imutável, já que a unidade financeira a indexa pela data e soma os seus
+     * itens.
      * 
      * @return produtos incluídos na nota fiscal.
      */
     public Item[] products() {
-        return products;
+        return copy(products);
     }
 
     /**
-     * Retorna os serviços incluídos na nota fiscal.
+     * Retorna uma cópia dos serviços incluídos na nota fiscal.
      * 
      * @return serviços incluídos na nota fiscal.
      */
     public Item[] services() {
-        return services;
+        return copy(services);
     }
 
     /**
      * Retorna o adicional a ser cobrado na nota fiscal.
      * 
-     * @return adicional a ser cobrado na nota fiscal.
+     * @return adicional a ser cobrado na nota fiscal, em centavos.
      */
-    public double additional() {
+    public long additional() {
         return additional;
     }
 
     /**
      * Retorna o subtotal da nota fiscal.
      * 
-     * @return subtotal da nota fiscal.
+     * @return subtotal da nota fiscal, em centavos.
      */
-    public double subtotal() {
+    public long subtotal() {
         return subtotal;
     }
 
@@ -152,6 +161,21 @@ public class Invoice {
         return date;
     }
 
+    /**
+     * Copia um vetor de itens, inclusive os itens.
+     * 
+     * @param items itens.
+     * @return cópia dos itens.
+     */
+    private static Item[] copy(Item[] items) {
+        Item[] copy = new Item[items.length];
+        for (int i = 0; i < items.length; i++) {
+            copy[i] = items[i] != null ? new Item(items[i]) : null;
+        }
+
+        return copy;
+    }
+
     /**
      * Retorna o número total de instâncias criadas.
      * 
@@ -198,8 +222,8 @@ public class Invoice {
      */
     @Override
     public String toString() {
-        return String.format("(%d %s %s %.2f %.2f %s)",
+        return String.format("(%d %s %s %s %s %s)",
                 customer, Arrays.toString(products), Arrays.toString(services),
-                additional, subtotal, Dates.formatAsDateTime(date));
+                Money.format(additional), Money.format(subtotal), Dates.formatAsDateTime(date));
     }
 }
\ No newline at end of file
@@ -29,6 +29,23 @@ public class InvoiceDraft {
         this.services = new HashMap<>();
     }
 
+    /**
+     * Construtor de cópia. Os itens são copiados, de modo que alterar o
+     * rascunho copiado não altera a cópia, nem o contrário.
+     * 
+     * @param other rascunho de nota fiscal a ser copiado.
+     */
+    public InvoiceDraft(InvoiceDraft other) {
+        this();
+
+        for (Item product : other.products.values()) {
+            products.put(product.getInfo(), new Item(product));
+        }
+        for (Item service : other.services.values()) {
+            services.put(service.getInfo(), new Item(service));
+        }
+    }
+
     /**
      * Retorna uma estrutura iterável de produtos.
      * 
@@ -0,0 +1,196 @@
+package edu.ajan.model.workshop.financial;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import edu.ajan.model.workshop.stock.Item;
+
+/**
+ * Classe que representa as linhas de produtos ou de serviços das notas fiscais
+ * em colunas, para consultas analíticas.
+ *
+ * <p> Cada linha é um item de uma nota fiscal, e cada coluna é um vetor de
+ * primitivos: a nota fiscal, o produto ou serviço, a quantidade, o valor total
+ * e a data. As linhas ficam em ordem de data, de modo que as de um espaço de tempo
+ * são contíguas e encontradas por busca binária, e as consultas percorrem os
+ * vetores em sequência, sem visitar as notas fiscais e os itens. Os produtos e
+ * serviços são codificados em códigos densos, de modo que os totais de cada um
+ * são somados em vetores e não em mapas.
+ *
+ * <p> As linhas são imutáveis depois de construídas, e podem ser compartilhadas
+ * entre a unidade financeira e as suas capturas.
+ *
+ * @author Alan Lima
+ */
+final class InvoiceLines {
+
+    /**
+     * Ordem do ranking de vendas: maior quantidade, depois maior valor e, por
+     * fim, menor identificador.
+     */
+    private static final Comparator<ItemSales> RANKING = Comparator
+            .comparingLong(ItemSales::getQuantity)
+            .thenComparingLong(ItemSales::getRevenue)
+            .thenComparing(Comparator.comparingInt(ItemSales::getInfo).reversed())
+            .reversed();
+
+    /**
+     * Identificador da nota fiscal de cada linha.
+     */
+    private final int[] invoice;
+
+    /**
+     * Código do produto ou serviço de cada linha.
+     */
+    private final int[] code;
+
+    /**
+     * Quantidade de cada linha.
+     */
+    private final int[] quantity;
+
+    /**
+     * Valor total de cada linha, a quantidade vezes o valor unitário, em
+     * centavos.
+     */
+    private final long[] value;
+
+    /**
+     * Data de cada linha, a da sua nota fiscal, em ordem crescente.
+     */
+    private final long[] date;
+
+    /**
+     * Identificador do produto ou serviço de cada código.
+     */
+    private final int[] infos;
+
+    /**
+     * Quantidade de linhas preenchidas.
+     */
+    private final int size;
+
+    /**
+     * Constrói as linhas de notas fiscais.
+     *
+     * @param invoices notas fiscais, em ordem de data.
+     * @param items    função que retorna os itens de uma nota fiscal.
+     */
+    InvoiceLines(List<Invoice> invoices, Function<Invoice, Item[]> items) {
+        Item[][] rows = new Item[invoices.size()][];
+        int size = 0;
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = items.apply(invoices.get(i));
+            size += rows[i].length;
+        }
+
+        this.invoice = new int[size];
+        this.code = new int[size];
+        this.quantity = new int[size];
+        this.value = new long[size];
+        this.date = new long[size];
+
+        HashMap<Integer, Integer> codes = new HashMap<>();
+        int line = 0;
+        for (int i = 0; i < rows.length; i++) {
+            Invoice current = invoices.get(i);
+            for (Item item : rows[i]) {
+                if (item.getBatch() == null) {
+                    continue;
+                }
+
+                invoice[line] = current.id();
+                code[line] = codes.computeIfAbsent(item.getInfo(), key -> codes.size());
+                quantity[line] = item.getBatch().quantity();
+                value[line] = item.getBatch().totalValue();
+                date[line] = current.date();
+                line++;
+            }
+        }
+
+        this.infos = new int[codes.size()];
+        codes.forEach((info, c) -> infos[c] = info);
+
+        this.size = line;
+    }
+
+    /**
+     * Retorna os produtos ou serviços mais vendidos num espaço de tempo.
+     *
+     * @param start início do espaço de tempo.
+     * @param end   fim do espaço de tempo.
+     * @param limit quantidade máxima de produtos ou serviços.
+     * @return vendas dos produtos ou serviços, da maior para a menor.
+     */
+    List<ItemSales> top(long start, long end, int limit) {
+        int from = position(start);
+        int to = position(end);
+
+        long[] sold = new long[infos.length];
+        long[] revenue = new long[infos.length];
+        int[] invoices = new int[infos.length];
+        int[] last = new int[infos.length];
+
+        // As linhas de uma mesma nota fiscal são contíguas
+        for (int i = from; i < to; i++) {
+            int c = code[i];
+            sold[c] += quantity[i];
+            revenue[c] = Math.addExact(revenue[c], value[i]);
+            if (invoices[c] == 0 || last[c] != invoice[i]) {
+                invoices[c]++;
+                last[c] = invoice[i];
+            }
+        }
+
+        PriorityQueue<ItemSales> best = new PriorityQueue<>(RANKING.reversed());
+        for (int c = 0; c < infos.length; c++) {
+            if (invoices[c] == 0) {
+                continue;
+            }
+
+            best.add(new ItemSales(infos[c], sold[c], revenue[c], invoices[c]));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        ArrayList<ItemSales> ranking = new ArrayList<>(best);
+        ranking.sort(RANKING);
+        return ranking;
+    }
+
+    /**
+     * Retorna a posição da primeira linha de um instante ou posterior.
+     *
+     * @param timestamp instante.
+     * @return posição da linha.
+     */
+    private int position(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (date[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Retorna uma representação textual das linhas.
+     *
+     * @return representação textual das linhas.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d %d)", size, infos.length);
+    }
+}
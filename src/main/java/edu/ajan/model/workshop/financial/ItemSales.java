@@ -0,0 +1,96 @@
+package edu.ajan.model.workshop.financial;
+
+import edu.ajan.model.workshop.money.Money;
+
+/**
+ * Classe que representa as vendas de um produto ou serviço num espaço de
+ * tempo: a quantidade vendida, o valor faturado e a quantidade de notas
+ * fiscais em que aparece.
+ *
+ * @author Alan Lima
+ */
+public final class ItemSales {
+
+    /**
+     * Identificador do produto ou serviço.
+     */
+    private final int info;
+
+    /**
+     * Quantidade vendida.
+     */
+    private final long quantity;
+
+    /**
+     * Soma dos valores das linhas, em centavos.
+     */
+    private final long revenue;
+
+    /**
+     * Quantidade de notas fiscais em que o produto ou serviço aparece.
+     */
+    private final int invoices;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param info     identificador do produto ou serviço.
+     * @param quantity quantidade vendida.
+     * @param revenue  soma dos valores das linhas, em centavos.
+     * @param invoices quantidade de notas fiscais em que aparece.
+     */
+    ItemSales(int info, long quantity, long revenue, int invoices) {
+        this.info = info;
+        this.quantity = quantity;
+        this.revenue = revenue;
+        this.invoices = invoices;
+    }
+
+    /**
+     * Retorna o identificador do produto ou serviço.
+     *
+     * @return identificador do produto ou serviço.
+     */
+    public int getInfo() {
+        return info;
+    }
+
+    /**
+     * Retorna a quantidade vendida.
+     *
+     * @return quantidade vendida.
+     */
+    public long getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Retorna a soma dos valores totais das linhas, cada um a quantidade vezes
+     * o valor unitário.
+     *
+     * @return valor faturado, em centavos.
+     */
+    public long getRevenue() {
+        return revenue;
+    }
+
+    /**
+     * Retorna a quantidade de notas fiscais em que o produto ou serviço
+     * aparece.
+     *
+     * @return quantidade de notas fiscais.
+     */
+    public int getInvoices() {
+        return invoices;
+    }
+
+    /**
+     * Retorna uma representação textual das vendas.
+     *
+     * @return representação textual das vendas.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d %d %s %d)", info, quantity, Money.format(revenue), invoices);
+    }
+}
@@ -0,0 +1,200 @@
+package edu.ajan.model.workshop.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import edu.ajan.model.exception.WorkshopException;
+
+/**
+ * Classe de utilidades para valores monetários.
+ *
+ * <p> Um valor monetário é um {@code long} com a quantidade de centavos, de
+ * modo que somas e médias são exatas e não alocam objetos. As operações
+ * aritméticas lançam {@link ArithmeticException} se o resultado transbordar.
+ * Apenas a conversão de e para texto e de {@code double}, nas bordas do
+ * sistema, passa por {@link BigDecimal}.
+ *
+ * @author Alan Lima
+ */
+public final class Money {
+
+    /**
+     * Quantidade de casas decimais de um valor.
+     */
+    public static final int SCALE = 2;
+
+    /**
+     * Centavos por unidade monetária.
+     */
+    public static final long CENTS_PER_UNIT = 100;
+
+    /**
+     * Valor nulo.
+     */
+    public static final long ZERO = 0L;
+
+    /**
+     * Construtor privado.
+     */
+    private Money() {
+
+    }
+
+    /**
+     * Converte um valor em unidades monetárias para centavos, arredondando ao
+     * centavo mais próximo e, em empate, ao par.
+     *
+     * @param amount valor em unidades monetárias.
+     * @return valor em centavos.
+     *
+     * @throws WorkshopException se o valor não for um número finito ou estiver
+     *                           fora do intervalo representável em centavos.
+     */
+    public static long of(double amount) {
+        if (!Double.isFinite(amount)) {
+            throw new WorkshopException("valor deve ser um número válido");
+        }
+
+        return toCents(BigDecimal.valueOf(amount));
+    }
+
+    /**
+     * Converte um valor em centavos para unidades monetárias. Valores de até
+     * 2<sup>53</sup> centavos voltam exatos por {@link #of(double)}.
+     *
+     * @param amount valor em centavos.
+     * @return valor em unidades monetárias.
+     */
+    public static double toDouble(long amount) {
+        return (double) amount / CENTS_PER_UNIT;
+    }
+
+    /**
+     * Converte um valor em centavos para um número decimal exato.
+     *
+     * @param amount valor em centavos.
+     * @return valor em unidades monetárias.
+     */
+    public static BigDecimal toDecimal(long amount) {
+        return BigDecimal.valueOf(amount, SCALE);
+    }
+
+    /**
+     * Converte um texto como "12.50" ou "12,50" para centavos.
+     *
+     * @param text valor em unidades monetárias.
+     * @return valor em centavos.
+     *
+     * @throws WorkshopException se o texto não for um número ou se o valor
+     *                           estiver fora do intervalo representável em
+     *                           centavos.
+     */
+    public static long parse(String text) {
+        if (text == null) {
+            throw new WorkshopException("valor não pode ser nulo");
+        }
+
+        try {
+            return toCents(new BigDecimal(text.trim().replace(',', '.')));
+        } catch (NumberFormatException err) {
+            throw new WorkshopException("valor inválido: %s", text);
+        }
+    }
+
+    /**
+     * Formata um valor com duas casas decimais, como "12.50".
+     *
+     * @param amount valor em centavos.
+     * @return valor formatado.
+     */
+    public static String format(long amount) {
+        return toDecimal(amount).toPlainString();
+    }
+
+    /**
+     * Soma valores.
+     *
+     * @param amounts valores em centavos.
+     * @return soma em centavos.
+     */
+    public static long sum(long... amounts) {
+        long sum = ZERO;
+        for (long amount : amounts) {
+            sum = Math.addExact(sum, amount);
+        }
+
+        return sum;
+    }
+
+    /**
+     * Multiplica um valor por uma quantidade.
+     *
+     * @param amount   valor em centavos.
+     * @param quantity quantidade.
+     * @return produto em centavos.
+     */
+    public static long times(long amount, long quantity) {
+        return Math.multiplyExact(amount, quantity);
+    }
+
+    /**
+     * Divide um valor, arredondando ao centavo mais próximo e, em empate, ao
+     * par.
+     *
+     * @param amount  valor em centavos.
+     * @param divisor divisor, diferente de zero.
+     * @return quociente em centavos.
+     */
+    public static long divide(long amount, long divisor) {
+        long quotient = amount / divisor;
+        long remainder = Math.abs(amount % divisor);
+        if (remainder == 0) {
+            return quotient;
+        }
+
+        // Compara o resto com a metade do divisor sem dobrar o resto
+        int half = Long.compare(remainder, Math.abs(divisor) - remainder);
+        if (half > 0 || (half == 0 && (quotient & 1) != 0)) {
+            quotient += (amount < 0) != (divisor < 0) ? -1 : 1;
+        }
+
+        return quotient;
+    }
+
+    /**
+     * Calcula a média de dois valores ponderada pelos pesos. A soma ponderada é
+     * exata, e apenas a divisão final é arredondada.
+     *
+     * @param value0  primeiro valor em centavos.
+     * @param weight0 peso do primeiro valor.
+     * @param value1  segundo valor em centavos.
+     * @param weight1 peso do segundo valor.
+     * @return média ponderada em centavos, ou {@link #ZERO} se os pesos somarem
+     *         zero.
+     */
+    public static long weightedAverage(long value0, long weight0, long value1, long weight1) {
+        long weight = Math.addExact(weight0, weight1);
+        if (weight == 0) {
+            return ZERO;
+        }
+
+        return divide(sum(times(value0, weight0), times(value1, weight1)), weight);
+    }
+
+    /**
+     * Converte um número decimal em unidades monetárias para centavos.
+     *
+     * @param amount valor em unidades monetárias.
+     * @return valor em centavos.
+     *
+     * @throws WorkshopException se o valor em centavos não couber num
+     *                           {@code long}.
+     */
+    private static long toCents(BigDecimal amount) {
+        try {
+            return amount.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+        } catch (ArithmeticException err) {
+            throw new WorkshopException("valor fora do intervalo permitido");
+        }
+    }
+}
@@ -0,0 +1,564 @@
+package edu.ajan.model.workshop.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.ajan.model.exception.WorkshopException;
+import edu.ajan.model.workshop.date.DateSpan;
+
+/**
+ * Classe que representa o escalonador em lote, que distribui as ordens de
+ * serviço pendentes entre os elevadores do agendador.
+ *
+ * <p> São escalonadas as ordens pendentes e sem elevador. O começo do período
+ * de cada uma é tomado como o momento a partir do qual ela pode ser atendida,
+ * e a duração do período como a duração do atendimento; as funções exigidas
+ * do elevador são as da ordem. O escalonamento é guloso: as ordens são
+ * tomadas pelo momento de liberação, das mais restritivas às menos, e cada
+ * uma vai para o horário livre mais cedo entre os elevadores que desempenham
+ * as suas funções, preferindo, em empate, o elevador com menos funções, de
+ * modo a poupar os mais versáteis. O mecânico da ordem, se houver, também deve
+ * estar livre no horário, já que não pode estar em duas ordens ao mesmo tempo.
+ *
+ * <p> Em seguida, cada passada de melhoria retira cada ordem escalonada e a
+ * recoloca, se possível, num horário mais cedo, e tenta outra vez as ordens
+ * que ficaram de fora, até que uma passada não mude nada. O escalonamento é
+ * feito sobre uma cópia dos horários ocupados, e apenas o resultado final é
+ * aplicado ao agendador, por {@link Scheduler#rescheduleOrder}.
+ *
+ * @author Alan Lima
+ */
+public final class AutoScheduler {
+
+    /**
+     * Quantidade padrão de passadas de melhoria.
+     */
+    public static final int DEFAULT_PASSES = 4;
+
+    /**
+     * Valor que indica que não há horário livre.
+     */
+    static final long NO_FIT = Long.MIN_VALUE;
+
+    /**
+     * Agendador cujas ordens são escalonadas.
+     */
+    private final Scheduler scheduler;
+
+    /**
+     * Quantidade máxima de passadas de melhoria.
+     */
+    private int passes;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param scheduler agendador cujas ordens são escalonadas.
+     */
+    public AutoScheduler(Scheduler scheduler) {
+        if (scheduler == null) {
+            throw new WorkshopException("agendador não pode ser nulo");
+        }
+
+        this.scheduler = scheduler;
+        this.passes = DEFAULT_PASSES;
+    }
+
+    /**
+     * Retorna a quantidade máxima de passadas de melhoria.
+     *
+     * @return quantidade máxima de passadas de melhoria.
+     */
+    public int getPasses() {
+        return passes;
+    }
+
+    /**
+     * Define a quantidade máxima de passadas de melhoria, {@code 0} para
+     * apenas o escalonamento guloso.
+     *
+     * @param passes quantidade máxima de passadas de melhoria.
+     */
+    public void setPasses(int passes) {
+        if (passes < 0) {
+            throw new WorkshopException("quantidade de passadas não pode ser negativa");
+        }
+
+        this.passes = passes;
+    }
+
+    /**
+     * Escalona as ordens de serviço pendentes e sem elevador num horizonte,
+     * aplicando o resultado ao agendador.
+     *
+     * @param horizon período em que as ordens devem ser atendidas.
+     * @return relatório do escalonamento.
+     */
+    public Report schedule(DateSpan horizon) {
+        if (horizon == null) {
+            throw new WorkshopException("horizonte não pode ser nulo");
+        }
+
+        HashMap<Integer, TreeMap<Long, Long>> busy = new HashMap<>();
+        for (Elevator elevator : scheduler.getElevators()) {
+            busy.put(elevator.id(), new TreeMap<>());
+        }
+
+        // Elevadores capazes de cada campo de bits de funções, do menos ao mais versátil
+        HashMap<Integer, List<Elevator>> capable = new HashMap<>();
+
+        HashMap<Integer, TreeMap<Long, Long>> agendas = new HashMap<>();
+
+        ArrayList<Job> jobs = new ArrayList<>();
+        for (ServiceOrder order : scheduler.getOrders()) {
+            DateSpan datetime = order.getDatetime();
+            if (datetime.isEmpty()) {
+                continue;
+            }
+
+            TreeMap<Long, Long> timeline = busy.get(order.getElevator());
+            if (timeline != null) {
+                timeline.put(datetime.start(), datetime.end());
+                if (order.getMechanic() != ServiceOrder.UNSET_MECHANIC) {
+                    agendas.computeIfAbsent(order.getMechanic(), mechanic -> new TreeMap<>())
+                            .put(datetime.start(), datetime.end());
+                }
+            } else if (order.getElevator() == ServiceOrder.UNSET_ELEVATOR && order.getStatus() == Status.PENDING
+                    && datetime.start() < horizon.end()) {
+                List<Elevator> candidates = capable.computeIfAbsent(order.getFunction(), this::candidates);
+                jobs.add(new Job(order, Math.max(datetime.start(), horizon.start()), datetime.duration(), candidates));
+            }
+        }
+
+        jobs.sort(Comparator.comparingLong((Job job) -> job.release)
+                .thenComparingInt(job -> -Integer.bitCount(job.order.getFunction()))
+                .thenComparingLong(job -> -job.duration)
+                .thenComparingInt(job -> job.order.id()));
+
+        for (Job job : jobs) {
+            place(job, busy, agendas, horizon);
+        }
+
+        for (int pass = 0; pass < passes && improve(jobs, busy, agendas, horizon); pass++) {
+            // Repete enquanto alguma ordem for adiantada ou escalonada
+        }
+
+        int assigned = 0;
+        long wait = 0;
+
+        for (Job job : jobs) {
+            if (job.elevator == ServiceOrder.UNSET_ELEVATOR) {
+                continue;
+            }
+
+            try {
+                scheduler.rescheduleOrder(job.order.id(), job.elevator,
+                        new DateSpan(job.start, job.start + job.duration));
+            } catch (WorkshopException err) {
+                vacate(job, job.elevator, job.start, busy, agendas);
+                continue;
+            }
+
+            assigned++;
+            wait += job.start - job.release;
+        }
+
+        long occupied = 0;
+        for (TreeMap<Long, Long> timeline : busy.values()) {
+            for (Map.Entry<Long, Long> entry : timeline.entrySet()) {
+                long start = Math.max(entry.getKey(), horizon.start());
+                long end = Math.min(entry.getValue(), horizon.end());
+                occupied += Math.max(end - start, 0);
+            }
+        }
+
+        return new Report(assigned, jobs.size() - assigned, occupied,
+                (long) busy.size() * horizon.duration(), wait);
+    }
+
+    /**
+     * Retorna os elevadores que desempenham todas as funções de um campo de
+     * bits, pelo índice de funções do agendador, do menos ao mais versátil.
+     *
+     * @param function campo de bits das funções exigidas.
+     * @return elevadores capazes.
+     */
+    private List<Elevator> candidates(int function) {
+        List<Elevator> candidates = scheduler.getElevators(function);
+        candidates.sort(Comparator.comparingInt((Elevator elevator) -> Integer.bitCount(elevator.getFunction()))
+                .thenComparingInt(Elevator::id));
+
+        return candidates;
+    }
+
+    /**
+     * Põe uma ordem no horário livre mais cedo, para ela e para o seu mecânico,
+     * entre os elevadores que desempenham as suas funções.
+     *
+     * @param job     ordem a ser posta.
+     * @param busy    horários ocupados de cada elevador.
+     * @param agendas horários ocupados de cada mecânico.
+     * @param horizon período em que as ordens devem ser atendidas.
+     * @return {@code true} se houve horário livre.
+     */
+    private static boolean place(Job job, HashMap<Integer, TreeMap<Long, Long>> busy,
+            HashMap<Integer, TreeMap<Long, Long>> agendas, DateSpan horizon) {
+
+        long bestStart = NO_FIT;
+        int bestElevator = ServiceOrder.UNSET_ELEVATOR;
+        TreeMap<Long, Long> agenda = agendas.get(job.order.getMechanic());
+
+        for (Elevator elevator : job.candidates) {
+            long start = earliestFit(busy.get(elevator.id()), agenda, job.release, job.duration, horizon.end());
+            if (start != NO_FIT && (bestStart == NO_FIT || start < bestStart)) {
+                bestStart = start;
+                bestElevator = elevator.id();
+            }
+        }
+
+        if (bestStart == NO_FIT) {
+            return false;
+        }
+
+        job.elevator = bestElevator;
+        job.start = bestStart;
+        occupy(job, bestElevator, bestStart, busy, agendas);
+        return true;
+    }
+
+    /**
+     * Desocupa o horário de uma ordem, no elevador e na agenda do mecânico.
+     *
+     * @param job      ordem.
+     * @param elevator elevador do horário.
+     * @param start    começo do horário.
+     * @param busy     horários ocupados de cada elevador.
+     * @param agendas  horários ocupados de cada mecânico.
+     */
+    private static void vacate(Job job, int elevator, long start, HashMap<Integer, TreeMap<Long, Long>> busy,
+            HashMap<Integer, TreeMap<Long, Long>> agendas) {
+
+        busy.get(elevator).remove(start);
+        if (job.order.getMechanic() != ServiceOrder.UNSET_MECHANIC) {
+            agendas.get(job.order.getMechanic()).remove(start);
+        }
+    }
+
+    /**
+     * Ocupa o horário de uma ordem, no elevador e na agenda do mecânico.
+     *
+     * @param job      ordem.
+     * @param elevator elevador do horário.
+     * @param start    começo do horário.
+     * @param busy     horários ocupados de cada elevador.
+     * @param agendas  horários ocupados de cada mecânico.
+     */
+    private static void occupy(Job job, int elevator, long start, HashMap<Integer, TreeMap<Long, Long>> busy,
+            HashMap<Integer, TreeMap<Long, Long>> agendas) {
+
+        busy.get(elevator).put(start, start + job.duration);
+        if (job.order.getMechanic() != ServiceOrder.UNSET_MECHANIC) {
+            agendas.computeIfAbsent(job.order.getMechanic(), mechanic -> new TreeMap<>())
+                    .put(start, start + job.duration);
+        }
+    }
+
+    /**
+     * Faz uma passada de melhoria: adianta cada ordem escalonada, se possível,
+     * e tenta outra vez as que ficaram de fora.
+     *
+     * @param jobs    ordens, na ordem do escalonamento guloso.
+     * @param busy    horários ocupados de cada elevador.
+     * @param agendas horários ocupados de cada mecânico.
+     * @param horizon período em que as ordens devem ser atendidas.
+     * @return {@code true} se alguma ordem foi adiantada ou escalonada.
+     */
+    private static boolean improve(ArrayList<Job> jobs, HashMap<Integer, TreeMap<Long, Long>> busy,
+            HashMap<Integer, TreeMap<Long, Long>> agendas, DateSpan horizon) {
+
+        boolean changed = false;
+
+        ArrayList<Job> placed = new ArrayList<>();
+        for (Job job : jobs) {
+            if (job.elevator != ServiceOrder.UNSET_ELEVATOR) {
+                placed.add(job);
+            }
+        }
+
+        placed.sort(Comparator.comparingLong((Job job) -> job.start));
+
+        for (Job job : placed) {
+            int elevator = job.elevator;
+            long start = job.start;
+
+            vacate(job, elevator, start, busy, agendas);
+            if (!place(job, busy, agendas, horizon)) {
+                occupy(job, elevator, start, busy, agendas);
+                continue;
+            }
+
+            if (job.start < start) {
+                changed = true;
+            } else if (job.elevator != elevator || job.start != start) {
+                // Não adiantou, volta para onde estava
+                vacate(job, job.elevator, job.start, busy, agendas);
+                occupy(job, elevator, start, busy, agendas);
+                job.elevator = elevator;
+                job.start = start;
+            }
+        }
+
+        for (Job job : jobs) {
+            if (job.elevator == ServiceOrder.UNSET_ELEVATOR && place(job, busy, agendas, horizon)) {
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Procura o começo do horário livre mais cedo ao mesmo tempo num elevador e
+     * na agenda de um mecânico, alternando entre os dois até que concordem.
+     *
+     * @param busy     horários ocupados do elevador, indexados pelo começo.
+     * @param agenda   horários ocupados do mecânico, ou {@code null} se não
+     *                 houver nenhum.
+     * @param release  momento a partir do qual o horário pode começar.
+     * @param duration duração do horário.
+     * @param limit    momento até o qual o horário deve terminar.
+     * @return começo do horário, ou {@link #NO_FIT} se não houver.
+     */
+    static long earliestFit(TreeMap<Long, Long> busy, TreeMap<Long, Long> agenda, long release,
+            long duration, long limit) {
+
+        long cursor = release;
+
+        while (true) {
+            long start = earliestFit(busy, cursor, duration, limit);
+            if (start == NO_FIT || agenda == null) {
+                return start;
+            }
+
+            cursor = earliestFit(agenda, start, duration, limit);
+            if (cursor == NO_FIT || cursor == start) {
+                return cursor;
+            }
+        }
+    }
+
+    /**
+     * Procura o começo do horário livre mais cedo de um elevador ou de um
+     * mecânico.
+     *
+     * @param busy     horários ocupados, indexados pelo começo.
+     * @param release  momento a partir do qual o horário pode começar.
+     * @param duration duração do horário.
+     * @param limit    momento até o qual o horário deve terminar.
+     * @return começo do horário, ou {@link #NO_FIT} se não houver.
+     */
+    private static long earliestFit(TreeMap<Long, Long> busy, long release, long duration, long limit) {
+        long cursor = release;
+
+        Map.Entry<Long, Long> previous = busy.floorEntry(cursor);
+        if (previous != null) {
+            cursor = Math.max(cursor, previous.getValue());
+        }
+
+        for (Map.Entry<Long, Long> entry : busy.tailMap(cursor, true).entrySet()) {
+            if (limit - cursor < duration) {
+                return NO_FIT;
+            }
+
+            if (entry.getKey() - cursor >= duration) {
+                return cursor;
+            }
+
+            cursor = Math.max(cursor, entry.getValue());
+        }
+
+        return limit - cursor >= duration ? cursor : NO_FIT;
+    }
+
+    /**
+     * Retorna uma representação textual do escalonador.
+     *
+     * @return representação textual do escalonador.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d)", passes);
+    }
+
+    /**
+     * Classe que representa uma ordem durante o escalonamento.
+     */
+    private static final class Job {
+
+        /**
+         * Ordem de serviço.
+         */
+        final ServiceOrder order;
+
+        /**
+         * Momento a partir do qual a ordem pode ser atendida.
+         */
+        final long release;
+
+        /**
+         * Duração do atendimento.
+         */
+        final long duration;
+
+        /**
+         * Elevadores que desempenham as funções da ordem, do menos ao mais
+         * versátil.
+         */
+        final List<Elevator> candidates;
+
+        /**
+         * Elevador escolhido, ou {@link ServiceOrder#UNSET_ELEVATOR}.
+         */
+        int elevator;
+
+        /**
+         * Começo do horário escolhido.
+         */
+        long start;
+
+        /**
+         * Construtor parametrizado.
+         *
+         * @param order      ordem de serviço.
+         * @param release    momento a partir do qual a ordem pode ser atendida.
+         * @param duration   duração do atendimento.
+         * @param candidates elevadores que desempenham as funções da ordem.
+         */
+        Job(ServiceOrder order, long release, long duration, List<Elevator> candidates) {
+            this.order = order;
+            this.release = release;
+            this.duration = duration;
+            this.candidates = candidates;
+            this.elevator = ServiceOrder.UNSET_ELEVATOR;
+        }
+    }
+
+    /**
+     * Classe que representa o relatório de um escalonamento.
+     */
+    public static final class Report {
+
+        /**
+         * Quantidade de ordens escalonadas.
+         */
+        private final int assigned;
+
+        /**
+         * Quantidade de ordens que não couberam no horizonte.
+         */
+        private final int unassigned;
+
+        /**
+         * Tempo ocupado de todos os elevadores dentro do horizonte, em
+         * milissegundos.
+         */
+        private final long occupied;
+
+        /**
+         * Tempo total de todos os elevadores dentro do horizonte, em
+         * milissegundos.
+         */
+        private final long capacity;
+
+        /**
+         * Soma das esperas das ordens escalonadas, entre a liberação e o
+         * começo, em milissegundos.
+         */
+        private final long wait;
+
+        /**
+         * Construtor parametrizado.
+         *
+         * @param assigned   quantidade de ordens escalonadas.
+         * @param unassigned quantidade de ordens que não couberam.
+         * @param occupied   tempo ocupado dos elevadores.
+         * @param capacity   tempo total dos elevadores.
+         * @param wait       soma das esperas das ordens escalonadas.
+         */
+        private Report(int assigned, int unassigned, long occupied, long capacity, long wait) {
+            this.assigned = assigned;
+            this.unassigned = unassigned;
+            this.occupied = occupied;
+            this.capacity = capacity;
+            this.wait = wait;
+        }
+
+        /**
+         * Retorna a quantidade de ordens escalonadas.
+         *
+         * @return quantidade de ordens escalonadas.
+         */
+        public int getAssigned() {
+            return assigned;
+        }
+
+        /**
+         * Retorna a quantidade de ordens que não couberam no horizonte.
+         *
+         * @return quantidade de ordens não escalonadas.
+         */
+        public int getUnassigned() {
+            return unassigned;
+        }
+
+        /**
+         * Retorna o tempo ocupado de todos os elevadores dentro do horizonte.
+         *
+         * @return tempo ocupado, em milissegundos.
+         */
+        public long getOccupied() {
+            return occupied;
+        }
+
+        /**
+         * Retorna o tempo ocioso de todos os elevadores dentro do horizonte.
+         *
+         * @return tempo ocioso, em milissegundos.
+         */
+        public long getIdle() {
+            return capacity - occupied;
+        }
+
+        /**
+         * Retorna a soma das esperas das ordens escalonadas.
+         *
+         * @return soma das esperas, em milissegundos.
+         */
+        public long getWait() {
+            return wait;
+        }
+
+        /**
+         * Retorna a fração do tempo dos elevadores ocupada dentro do horizonte.
+         *
+         * @return utilização, entre {@code 0} e {@code 1}.
+         */
+        public double utilization() {
+            return capacity > 0 ? (double) occupied / capacity : 0;
+        }
+
+        /**
+         * Retorna uma representação textual do relatório.
+         *
+         * @return representação textual do relatório.
+         */
+        @Override
+        public String toString() {
+            return String.format("(%d %d %.1f%%)", assigned, unassigned, utilization() * 100);
+        }
+    }
+}
@@ -5,6 +5,9 @@ import edu.ajan.model.persistence.InstanceCountState;
 /**
  * Classe que representa um elevador.
  * 
+ * <p> As funções do elevador são definidas na construção e não mudam depois,
+ * pois o {@link Scheduler} indexa os elevadores por elas.
+ * 
  * @author Alan Lima
  */
 public class Elevator {
@@ -29,13 +32,14 @@ public class Elevator {
      * 
      * @see ElevatorFunction
      */
-    private int function;
+    private final int function;
 
     /**
      * Constructor padrão.
      */
     private Elevator() {
         this.id = generateNextId();
+        this.function = 0;
     }
 
     /**
@@ -45,9 +49,9 @@ public class Elevator {
      * @param function    campo de bits que informa as funções do elevador.
      */
     public Elevator(double weightLimit, int function) {
-        this();
+        this.id = generateNextId();
         this.setWeightLimit(weightLimit);
-        this.setFunction(function);
+        this.function = function;
     }
 
     /**
@@ -57,9 +61,19 @@ public class Elevator {
      * @param functions   funções que o elevador pode desempenhar.
      */
     public Elevator(double weightLimit, ElevatorFunction... functions) {
-        this();
-        this.setWeightLimit(weightLimit);
-        this.setFunction(functions);
+        this(weightLimit, ElevatorFunction.codeOf(functions));
+    }
+
+    /**
+     * Construtor de cópia, que mantém o identificador e as funções do elevador
+     * copiado.
+     * 
+     * @param other elevador a ser copiado.
+     */
+    Elevator(Elevator other) {
+        this.id = other.id;
+        this.weightLimit = other.weightLimit;
+        this.function = other.function;
     }
 
     /**
@@ -107,23 +121,13 @@ public class Elevator {
     }
 
     /**
-     * Define as funções do elevador.
-     * 
-     * @param function funções do elevador.
-     */
-    public void setFunction(int function) {
-        this.function = function;
-    }
-
-    /**
-     * Define as funções do elevador.
+     * Verifica se o elevador desempenha todas as funções de um campo de bits.
      * 
-     * @param functions funções do elevador.
+     * @param function campo de bits das funções exigidas.
+     * @return {@code true} se, e somente se o elevador desempenhar todas elas.
      */
-    public void setFunction(ElevatorFunction... functions) {
-        for (ElevatorFunction function : functions) {
-            this.function |= function.code();
-        }
+    public boolean supports(int function) {
+        return ElevatorFunction.supports(this.function, function);
     }
 
     /**
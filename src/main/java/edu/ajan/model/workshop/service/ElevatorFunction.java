@@ -93,6 +93,33 @@ public final class ElevatorFunction {
         return (function & this.code) != 0;
     }
 
+    /**
+     * Combina funções num campo de bits.
+     * 
+     * @param functions funções a serem combinadas.
+     * @return campo de bits com as funções passadas.
+     */
+    public static int codeOf(ElevatorFunction... functions) {
+        int code = 0;
+        for (ElevatorFunction function : functions) {
+            code |= function.code;
+        }
+
+        return code;
+    }
+
+    /**
+     * Verifica se um campo de bits de funções contém todas as funções de outro.
+     * 
+     * @param code     campo de bits das funções desempenhadas.
+     * @param function campo de bits das funções exigidas.
+     * @return {@code true} se, e somente se todas as funções exigidas forem
+     *         desempenhadas.
+     */
+    public static boolean supports(int code, int function) {
+        return (code & function) == function;
+    }
+
     /**
      * Retorna todas as instância desse tipo. Imitação de {@code values()} dos tipo
      * enumerados.
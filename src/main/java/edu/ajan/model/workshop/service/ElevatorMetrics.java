@@ -0,0 +1,185 @@
+package edu.ajan.model.workshop.service;
+
+import edu.ajan.model.workshop.date.DateSpan;
+
+/**
+ * Classe que representa as métricas de uso de um elevador numa janela de
+ * tempo, como medidas pelo {@link Scheduler}.
+ *
+ * <p> Contam as ordens de serviço não canceladas cujo período toca a janela;
+ * o tempo ocupado é apenas a parte de cada ordem dentro da janela, e o tempo
+ * de uma ordem cancelada conta como ocioso.
+ *
+ * @author Alan Lima
+ */
+public final class ElevatorMetrics {
+
+    /**
+     * Identificador do elevador.
+     */
+    private final int elevator;
+
+    /**
+     * Janela de tempo medida.
+     */
+    private final DateSpan window;
+
+    /**
+     * Tempo ocupado dentro da janela, em milissegundos.
+     */
+    private final long booked;
+
+    /**
+     * Quantidade de intervalos ociosos dentro da janela.
+     */
+    private final int gaps;
+
+    /**
+     * Duração do maior intervalo ocioso dentro da janela, em milissegundos.
+     */
+    private final long longestGap;
+
+    /**
+     * Quantidade de ordens de serviço que tocam a janela.
+     */
+    private final int orders;
+
+    /**
+     * Soma das durações inteiras das ordens de serviço que tocam a janela, em
+     * milissegundos.
+     */
+    private final long totalDuration;
+
+    /**
+     * Quantidade de ordens de serviço que tocam a janela e ainda não foram
+     * concluídas, isto é, pendentes ou iniciadas.
+     */
+    private final int queue;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param elevator      identificador do elevador.
+     * @param window        janela de tempo medida.
+     * @param booked        tempo ocupado dentro da janela.
+     * @param gaps          quantidade de intervalos ociosos.
+     * @param longestGap    duração do maior intervalo ocioso.
+     * @param orders        quantidade de ordens de serviço.
+     * @param totalDuration soma das durações das ordens de serviço.
+     * @param queue         quantidade de ordens de serviço não concluídas.
+     */
+    ElevatorMetrics(int elevator, DateSpan window, long booked, int gaps, long longestGap, int orders,
+            long totalDuration, int queue) {
+
+        this.elevator = elevator;
+        this.window = window;
+        this.booked = booked;
+        this.gaps = gaps;
+        this.longestGap = longestGap;
+        this.orders = orders;
+        this.totalDuration = totalDuration;
+        this.queue = queue;
+    }
+
+    /**
+     * Retorna o identificador do elevador.
+     *
+     * @return identificador do elevador.
+     */
+    public int elevator() {
+        return elevator;
+    }
+
+    /**
+     * Retorna a janela de tempo medida.
+     *
+     * @return janela de tempo medida.
+     */
+    public DateSpan window() {
+        return window;
+    }
+
+    /**
+     * Retorna o tempo ocupado dentro da janela.
+     *
+     * @return tempo ocupado, em milissegundos.
+     */
+    public long getBooked() {
+        return booked;
+    }
+
+    /**
+     * Retorna o tempo ocioso dentro da janela.
+     *
+     * @return tempo ocioso, em milissegundos.
+     */
+    public long getIdle() {
+        return window.duration() - booked;
+    }
+
+    /**
+     * Retorna a quantidade de intervalos ociosos dentro da janela.
+     *
+     * @return quantidade de intervalos ociosos.
+     */
+    public int getGaps() {
+        return gaps;
+    }
+
+    /**
+     * Retorna a duração do maior intervalo ocioso dentro da janela.
+     *
+     * @return duração do maior intervalo ocioso, em milissegundos.
+     */
+    public long getLongestGap() {
+        return longestGap;
+    }
+
+    /**
+     * Retorna a quantidade de ordens de serviço que tocam a janela.
+     *
+     * @return quantidade de ordens de serviço.
+     */
+    public int getOrders() {
+        return orders;
+    }
+
+    /**
+     * Retorna a duração média das ordens de serviço que tocam a janela.
+     *
+     * @return duração média, em milissegundos, ou {@code 0} se não houver
+     *         nenhuma ordem.
+     */
+    public long getMeanDuration() {
+        return orders > 0 ? totalDuration / orders : 0;
+    }
+
+    /**
+     * Retorna a quantidade de ordens de serviço que tocam a janela e ainda não
+     * foram concluídas.
+     *
+     * @return tamanho da fila.
+     */
+    public int getQueue() {
+        return queue;
+    }
+
+    /**
+     * Retorna a fração da janela em que o elevador esteve ocupado.
+     *
+     * @return fração ocupada, de 0 a 1.
+     */
+    public double utilization() {
+        return window.duration() > 0 ? (double) booked / window.duration() : 0;
+    }
+
+    /**
+     * Retorna uma representação textual das métricas.
+     *
+     * @return representação textual das métricas.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d %.1f%% %d %d %d)", elevator, 100 * utilization(), gaps, orders, queue);
+    }
+}
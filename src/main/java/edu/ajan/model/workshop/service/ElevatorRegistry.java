@@ -0,0 +1,190 @@
+package edu.ajan.model.workshop.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Classe que representa o registro de elevadores do {@link Scheduler}.
+ *
+ * <p> O registro guarda os elevadores na ordem em que foram adicionados,
+ * indexados pelo identificador e, para cada bit de {@link ElevatorFunction},
+ * pelas posições dos elevadores que desempenham a função, de modo que buscar
+ * um elevador ou os elevadores capazes de um conjunto de funções não percorre
+ * o registro inteiro.
+ *
+ * <p> O registro nunca é alterado, apenas substituído: adicionar ou remover um
+ * elevador cria outro registro. Assim ele pode ser lido sem travas e
+ * compartilhado com as capturas sem cópia. As funções de um elevador não
+ * mudam depois de construído, de modo que o índice nunca fica desatualizado.
+ *
+ * @author Alan Lima
+ */
+final class ElevatorRegistry {
+
+    /**
+     * Quantidade de bits de um campo de bits de funções.
+     */
+    private static final int FUNCTION_BITS = Integer.SIZE;
+
+    /**
+     * Registro vazio.
+     */
+    static final ElevatorRegistry EMPTY = new ElevatorRegistry(new Elevator[0]);
+
+    /**
+     * Elevadores, na ordem em que foram adicionados.
+     */
+    private final Elevator[] elevators;
+
+    /**
+     * Posição de cada elevador, indexada pelo identificador do elevador.
+     */
+    private final HashMap<Integer, Integer> positions;
+
+    /**
+     * Posições dos elevadores que desempenham cada função, indexadas pelo bit
+     * da função.
+     */
+    private final BitSet[] capabilities;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param elevators elevadores do registro.
+     */
+    private ElevatorRegistry(Elevator[] elevators) {
+        this.elevators = elevators;
+        this.positions = new HashMap<>();
+        this.capabilities = new BitSet[FUNCTION_BITS];
+
+        for (int bit = 0; bit < FUNCTION_BITS; bit++) {
+            capabilities[bit] = new BitSet(elevators.length);
+        }
+
+        for (int position = 0; position < elevators.length; position++) {
+            positions.put(elevators[position].id(), position);
+
+            for (int function = elevators[position].getFunction(); function != 0; function &= function - 1) {
+                capabilities[Integer.numberOfTrailingZeros(function)].set(position);
+            }
+        }
+    }
+
+    /**
+     * Cria um registro com um elevador a mais. Um elevador de mesmo
+     * identificador já registrado é substituído na sua posição.
+     *
+     * @param elevator elevador a ser adicionado.
+     * @return novo registro.
+     */
+    ElevatorRegistry with(Elevator elevator) {
+        Integer position = positions.get(elevator.id());
+        if (position != null) {
+            Elevator[] next = elevators.clone();
+            next[position] = elevator;
+            return new ElevatorRegistry(next);
+        }
+
+        Elevator[] next = Arrays.copyOf(elevators, elevators.length + 1);
+        next[elevators.length] = elevator;
+        return new ElevatorRegistry(next);
+    }
+
+    /**
+     * Cria um registro com um elevador a menos.
+     *
+     * @param elevatorId identificador do elevador a ser removido.
+     * @return novo registro, ou este mesmo se o elevador não existir.
+     */
+    ElevatorRegistry without(int elevatorId) {
+        Integer position = positions.get(elevatorId);
+        if (position == null) {
+            return this;
+        }
+
+        Elevator[] next = new Elevator[elevators.length - 1];
+        System.arraycopy(elevators, 0, next, 0, position);
+        System.arraycopy(elevators, position + 1, next, position, elevators.length - position - 1);
+        return new ElevatorRegistry(next);
+    }
+
+    /**
+     * Retorna um elevador a partir do seu identificador.
+     *
+     * @param elevatorId identificador do elevador.
+     * @return elevador, ou {@code null} se não existir.
+     */
+    Elevator get(int elevatorId) {
+        Integer position = positions.get(elevatorId);
+        return position != null ? elevators[position] : null;
+    }
+
+    /**
+     * Verifica se um elevador existe.
+     *
+     * @param elevatorId identificador do elevador.
+     * @return {@code true} se, e somente se o elevador existir.
+     */
+    boolean contains(int elevatorId) {
+        return positions.containsKey(elevatorId);
+    }
+
+    /**
+     * Retorna os elevadores, na ordem em que foram adicionados.
+     *
+     * @return elevadores, numa lista imutável.
+     */
+    List<Elevator> all() {
+        return Collections.unmodifiableList(Arrays.asList(elevators));
+    }
+
+    /**
+     * Retorna os elevadores que desempenham todas as funções de um campo de
+     * bits, na ordem em que foram adicionados.
+     *
+     * @param function campo de bits das funções exigidas.
+     * @return elevadores capazes.
+     */
+    List<Elevator> supporting(int function) {
+        BitSet capable = capable(function);
+
+        ArrayList<Elevator> supporting = new ArrayList<>(capable.cardinality());
+        for (int position = capable.nextSetBit(0); position >= 0; position = capable.nextSetBit(position + 1)) {
+            supporting.add(elevators[position]);
+        }
+
+        return supporting;
+    }
+
+    /**
+     * Retorna as posições dos elevadores que desempenham todas as funções de
+     * um campo de bits, pela interseção das posições de cada função.
+     *
+     * @param function campo de bits das funções exigidas.
+     * @return posições dos elevadores capazes.
+     */
+    private BitSet capable(int function) {
+        BitSet capable = new BitSet(elevators.length);
+        capable.set(0, elevators.length);
+
+        for (; function != 0 && !capable.isEmpty(); function &= function - 1) {
+            capable.and(capabilities[Integer.numberOfTrailingZeros(function)]);
+        }
+
+        return capable;
+    }
+
+    /**
+     * Retorna uma representação textual do registro.
+     *
+     * @return representação textual do registro.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d)", elevators.length);
+    }
+}
@@ -0,0 +1,216 @@
+package edu.ajan.model.workshop.service;
+
+import edu.ajan.model.workshop.date.DateSpan;
+
+/**
+ * Classe que acumula o uso de um elevador por uma sequência de ordens de
+ * serviço consecutivas, que nunca se sobrepõem, como as de uma linha do tempo
+ * do {@link Scheduler}.
+ *
+ * <p> O acúmulo de uma janela de tempo começa com o cursor no começo da janela
+ * e corta cada ordem nos seus limites, contando o intervalo ocioso antes de
+ * cada ordem. O acúmulo de um bloco de tempo, sem janela, não tem cursor
+ * inicial e não corta as ordens, de modo que conta apenas os intervalos
+ * entre as ordens do bloco. Os totais de blocos seguidos são somados a uma
+ * janela por {@link #add(ElevatorUsage)} sem percorrer as suas ordens, pois o
+ * único intervalo que depende da vizinhança é o que antecede a primeira ordem
+ * do bloco.
+ *
+ * <p> Ordens canceladas não ocupam o elevador e não são acumuladas.
+ *
+ * @author Alan Lima
+ */
+final class ElevatorUsage {
+
+    /**
+     * Valor do cursor antes da primeira ordem de um bloco.
+     */
+    private static final long NONE = Long.MIN_VALUE;
+
+    /**
+     * Começo da janela, ou {@link #NONE} num bloco.
+     */
+    private final long lower;
+
+    /**
+     * Fim da janela, ou {@link Long#MAX_VALUE} num bloco.
+     */
+    private final long upper;
+
+    /**
+     * Fim da última ordem acumulada, cortado no fim da janela, ou o começo da
+     * janela antes da primeira ordem.
+     */
+    private long cursor;
+
+    /**
+     * Começo da primeira ordem acumulada.
+     */
+    private long first;
+
+    /**
+     * Tempo ocupado, em milissegundos.
+     */
+    private long booked;
+
+    /**
+     * Quantidade de intervalos ociosos.
+     */
+    private int gaps;
+
+    /**
+     * Duração do maior intervalo ocioso, em milissegundos.
+     */
+    private long longestGap;
+
+    /**
+     * Quantidade de ordens de serviço acumuladas.
+     */
+    private int orders;
+
+    /**
+     * Soma das durações inteiras das ordens de serviço, em milissegundos.
+     */
+    private long totalDuration;
+
+    /**
+     * Quantidade de ordens de serviço pendentes ou iniciadas.
+     */
+    private int queue;
+
+    /**
+     * Construtor padrão, que acumula um bloco de tempo.
+     */
+    ElevatorUsage() {
+        this(NONE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Construtor parametrizado, que acumula uma janela de tempo.
+     *
+     * @param window janela de tempo.
+     */
+    ElevatorUsage(DateSpan window) {
+        this(window.start(), window.end());
+    }
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param lower começo da janela.
+     * @param upper fim da janela.
+     */
+    private ElevatorUsage(long lower, long upper) {
+        this.lower = lower;
+        this.upper = upper;
+        this.cursor = lower;
+        this.first = NONE;
+    }
+
+    /**
+     * Acumula a próxima ordem de serviço da sequência. Ordens que terminam
+     * antes da janela e ordens canceladas são ignoradas.
+     *
+     * @param order ordem de serviço.
+     */
+    void add(ServiceOrder order) {
+        DateSpan datetime = order.getDatetime();
+        if (datetime.end() <= lower || order.getStatus() == Status.CANCELLED) {
+            return;
+        }
+
+        long start = Math.max(datetime.start(), lower);
+        long end = Math.min(datetime.end(), upper);
+
+        gap(start);
+        booked += end - start;
+        cursor = end;
+
+        if (orders == 0) {
+            first = start;
+        }
+
+        orders++;
+        totalDuration += datetime.duration();
+
+        if (order.getStatus() == Status.PENDING || order.getStatus() == Status.INITIATED) {
+            queue++;
+        }
+    }
+
+    /**
+     * Acumula os totais de um bloco de tempo que segue as ordens já
+     * acumuladas e começa dentro da janela. Apenas a última ordem do bloco
+     * pode passar do fim da janela, e só ela é cortada.
+     *
+     * @param block totais do bloco.
+     */
+    void add(ElevatorUsage block) {
+        if (block.orders == 0) {
+            return;
+        }
+
+        gap(block.first);
+        gaps += block.gaps;
+        longestGap = Math.max(longestGap, block.longestGap);
+
+        booked += block.booked;
+        cursor = block.cursor;
+        if (cursor > upper) {
+            booked -= cursor - upper;
+            cursor = upper;
+        }
+
+        if (orders == 0) {
+            first = block.first;
+        }
+
+        orders += block.orders;
+        totalDuration += block.totalDuration;
+        queue += block.queue;
+    }
+
+    /**
+     * Conta o intervalo ocioso entre o cursor e um instante, se houver.
+     *
+     * @param start instante.
+     */
+    private void gap(long start) {
+        if (cursor != NONE && start > cursor) {
+            gaps++;
+            longestGap = Math.max(longestGap, start - cursor);
+        }
+    }
+
+    /**
+     * Verifica se nenhuma ordem de serviço foi acumulada.
+     *
+     * @return {@code true} se, e somente se nenhuma ordem foi acumulada.
+     */
+    boolean isEmpty() {
+        return orders == 0;
+    }
+
+    /**
+     * Encerra o acúmulo de uma janela, contando o intervalo ocioso até o seu
+     * fim, e retorna as métricas do elevador.
+     *
+     * @param elevatorId identificador do elevador.
+     * @param window     janela de tempo acumulada.
+     * @return métricas do elevador na janela.
+     */
+    ElevatorMetrics finish(int elevatorId, DateSpan window) {
+        gap(upper);
+        return new ElevatorMetrics(elevatorId, window, booked, gaps, longestGap, orders, totalDuration, queue);
+    }
+
+    /**
+     * Retorna uma representação textual do acúmulo.
+     *
+     * @return representação textual do acúmulo.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d %d %d %d)", orders, booked, gaps, queue);
+    }
+}
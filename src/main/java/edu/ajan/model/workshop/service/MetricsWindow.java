@@ -0,0 +1,92 @@
+package edu.ajan.model.workshop.service;
+
+import edu.ajan.model.workshop.date.DateSpan;
+import edu.ajan.model.workshop.date.Dates;
+
+/**
+ * Enumeração das janelas deslizantes das métricas dos elevadores.
+ *
+ * @author Alan Lima
+ */
+public enum MetricsWindow {
+
+    /**
+     * Denota a última hora.
+     */
+    HOUR("hora", Dates.MILLISECONDS_PER_HOUR),
+
+    /**
+     * Denota o último dia.
+     */
+    DAY("dia", Dates.MILLISECONDS_PER_DAY),
+
+    /**
+     * Denota a última semana.
+     */
+    WEEK("semana", 7 * Dates.MILLISECONDS_PER_DAY);
+
+    /**
+     * Nome da janela.
+     */
+    private final String label;
+
+    /**
+     * Duração da janela, em milissegundos.
+     */
+    private final long duration;
+
+    /**
+     * Construtor parametrizado.
+     *
+     * @param label    nome da janela.
+     * @param duration duração da janela, em milissegundos.
+     */
+    MetricsWindow(String label, long duration) {
+        this.label = label;
+        this.duration = duration;
+    }
+
+    /**
+     * Retorna o nome da janela.
+     *
+     * @return nome da janela.
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Retorna a duração da janela.
+     *
+     * @return duração da janela, em milissegundos.
+     */
+    public long duration() {
+        return duration;
+    }
+
+    /**
+     * Retorna o período da janela que termina num instante.
+     *
+     * @param now instante em que a janela termina.
+     * @return período da janela.
+     */
+    public DateSpan span(long now) {
+        return new DateSpan(now - duration, now);
+    }
+
+    /**
+     * Retorna a janela de um nome.
+     *
+     * @param label nome da janela.
+     * @return janela do nome, ou {@code null} se não houver.
+     */
+    public static MetricsWindow fromLabel(String label) {
+        for (MetricsWindow window : values()) {
+            if (window.label.equals(label)) {
+                return window;
+            }
+        }
+
+        return null;
+    }
+}
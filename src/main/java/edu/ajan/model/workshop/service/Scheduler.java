@@ -1,96 +1,1462 @@
 package edu.ajan.model.workshop.service;
 
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 import edu.ajan.model.exception.WorkshopException;
+import edu.ajan.model.persistence.EntityKind;
+import edu.ajan.model.persistence.Journal;
+import edu.ajan.model.workshop.date.DateSpan;
+import edu.ajan.model.workshop.date.Dates;
+import edu.ajan.model.workshop.staff.Employee;
 
 /**
  * Classe que representa o agendador de ordens de serviço, além de armazenar
  * informações sobre os serviços e elevadores disponíveis na oficina.
  * 
+ * <p> As ordens de serviço de cada elevador são indexadas pelo começo do seu
+ * período. Como as ordens de um mesmo elevador nunca se sobrepõem, os períodos
+ * ficam ordenados tanto pelo começo quanto pelo fim, e um conflito é detectado
+ * em tempo logarítmico olhando apenas a ordem que começa por último antes do
+ * fim do novo período. Por isso, o elevador e o período de uma ordem já
+ * agendada devem ser alterados apenas por {@link #rescheduleOrder}. Ordens
+ * sem elevador não ocupam nenhum, e não são indexadas.
+ * 
+ * <p> Da mesma forma, as ordens de serviço agendadas num elevador são
+ * indexadas pelo seu mecânico, que também não pode estar em duas ordens ao
+ * mesmo tempo, e por isso o mecânico de uma ordem já agendada deve ser
+ * alterado apenas por {@link #updateOrder}. Ordens sem elevador ainda não
+ * foram agendadas e não ocupam o mecânico, e ordens sem mecânico não ocupam
+ * ninguém. O agendador não conhece os turnos dos funcionários, que são
+ * conferidos à parte por {@link #addOrder(ServiceOrder, Employee)} e
+ * {@link #getOffShiftOrders}, também em tempo logarítmico.
+ * 
+ * <p> O mesmo índice dá os horários livres de cada elevador, os intervalos
+ * entre ordens consecutivas, que são percorridos em ordem a partir do começo
+ * do horizonte pedido por {@link #findSlots}. Além disso, os totais de uso
+ * de cada elevador são mantidos por blocos de um dia, recalculados a cada
+ * alteração da linha do tempo apenas no bloco alterado, de modo que as
+ * métricas de uso numa janela de tempo, dadas por {@link #getMetrics},
+ * somam os blocos inteiros da janela e percorrem apenas as ordens das pontas.
+ * 
+ * <p> As ordens de serviço também são postas num {@link ServiceCalendar}, por
+ * dia e por elevador, que dá o quadro de um dia ou de uma semana sem percorrer
+ * o histórico, e indexadas pelo seu status, que deve mudar apenas por
+ * {@link #changeStatus}, seguindo as transições permitidas de {@link Status}.
+ * 
+ * <p> As ordens de serviço agendadas nunca são alteradas no lugar pelo
+ * agendador: um reagendamento, uma mudança de status ou uma alteração por
+ * {@link #updateOrder} substitui a ordem por uma cópia alterada, de modo que
+ * uma captura, que compartilha as ordens com o original, continua vendo a
+ * ordem como era no momento da captura. Pelo mesmo motivo, e para que a
+ * alteração entre no diário, uma ordem já agendada não deve ser alterada
+ * pelos seus métodos de acesso. Os serviços e elevadores também são
+ * substituídos por cópias alteradas, por {@link #updateService} e
+ * {@link #updateElevator}.
+ * 
+ * <p> Ordens salvas são restauradas por {@link #restoreOrders}, sem conferir
+ * conflitos, de modo que um histórico salvo com ordens conflitantes ainda
+ * possa ser carregado. As ordens que conflitam ficam fora dos índices por
+ * elevador e por mecânico até serem reagendadas ou removidas, e são
+ * relatadas por {@link #getConflictingOrders}.
+ * 
+ * <p> O agendador pode ser usado por várias threads ao mesmo tempo. Os
+ * índices de cada elevador e de cada mecânico são protegidos por travas
+ * listradas, uma entre {@link #STRIPES} escolhida pelo identificador, de modo
+ * que agendamentos em elevadores diferentes correm em paralelo, e a
+ * verificação de conflito e a inserção são atômicas. Um agendamento trava o
+ * seu elevador, ou os dois, num reagendamento, e depois o seu mecânico,
+ * sempre nessa ordem, o que evita impasses. As alterações dos serviços e dos
+ * elevadores e as capturas, raras, travam o agendador inteiro.
+ * 
  * @author Alan Lima
  */
 public class Scheduler {
 
     /**
-     * Mapa de ordem de serviço indexadas pelo identificador da ordem de serviço.
+     * Quantidade de travas listradas dos elevadores e dos mecânicos.
+     */
+    public static final int STRIPES = 16;
+
+    /**
+     * Duração dos blocos dos totais de uso dos elevadores, em milissegundos.
+     */
+    private static final long USAGE_BLOCK = Dates.MILLISECONDS_PER_DAY;
+
+    /**
+     * Mapa de ordem de serviço indexadas pelo identificador da ordem de serviço.
+     */
+    private volatile ConcurrentHashMap<Integer, ServiceOrder> orders;
+
+    /**
+     * Ordens de serviço de período não vazio de cada elevador, indexadas pelo
+     * identificador do elevador e pelo começo do período.
+     */
+    private volatile ConcurrentHashMap<Integer, TreeMap<Long, ServiceOrder>> timelines;
+
+    /**
+     * Ordens de serviço agendadas num elevador, de período não vazio, de cada
+     * mecânico, indexadas pelo identificador do mecânico e pelo começo do
+     * período.
+     */
+    private volatile ConcurrentHashMap<Integer, TreeMap<Long, ServiceOrder>> agendas;
+
+    /**
+     * Totais de uso de cada elevador, indexados pelo identificador do elevador
+     * e pelo começo de cada bloco de {@link #USAGE_BLOCK} com alguma ordem de
+     * serviço não cancelada. Os totais nunca são alterados, apenas
+     * substituídos.
+     */
+    private volatile ConcurrentHashMap<Integer, TreeMap<Long, ElevatorUsage>> usages;
+
+    /**
+     * Calendário das ordens de serviço, por dia e por elevador.
+     */
+    private volatile ServiceCalendar calendar;
+
+    /**
+     * Identificadores das ordens de serviço de cada status.
+     */
+    private volatile EnumMap<Status, Set<Integer>> statuses;
+
+    /**
+     * Identificadores das ordens de serviço restauradas que conflitam com
+     * outra, e que por isso ficam fora dos índices por elevador e por
+     * mecânico.
+     */
+    private volatile Set<Integer> conflicts;
+
+    /**
+     * Mapa de serviços indexados pelo identificador do serviço.
+     */
+    private volatile ConcurrentHashMap<Integer, Service> services;
+
+    /**
+     * Registro dos elevadores disponíveis na oficina, indexado pelo
+     * identificador e pelas funções. Nunca é alterado, apenas substituído.
+     */
+    private volatile ElevatorRegistry elevators;
+
+    /**
+     * Diário de operações em que as alterações do agendador são registradas.
+     */
+    private volatile Journal journal;
+
+    /**
+     * Indica se as coleções são compartilhadas com uma captura, caso em que
+     * devem ser copiadas antes da próxima alteração.
+     */
+    private volatile boolean shared;
+
+    /**
+     * Trava do agendador inteiro: compartilhada pelos agendamentos e exclusiva
+     * nas alterações dos serviços e dos elevadores e nas capturas.
+     */
+    private final ReentrantReadWriteLock structure;
+
+    /**
+     * Travas listradas dos índices por elevador.
+     */
+    private final ReentrantLock[] elevatorLocks;
+
+    /**
+     * Travas listradas dos índices por mecânico.
+     */
+    private final ReentrantLock[] mechanicLocks;
+
+    /**
+     * Construtor padrão.
+     */
+    public Scheduler() {
+        this(
+                new Elevator(25000.00, ElevatorFunction.BALANCING, ElevatorFunction.ALIGNING),
+                new Elevator(25000.00, ElevatorFunction.GENERAL),
+                new Elevator(25000.00, ElevatorFunction.GENERAL));
+    }
+
+    /**
+     * Construtor parametrizado.
+     * 
+     * @param elevators elevadores disponíveis na oficina.
+     * 
+     * @throws WorkshopException se algum dos elevadores for nulo.
+     */
+    public Scheduler(Elevator... elevators) {
+        this.orders = new ConcurrentHashMap<>();
+        this.timelines = new ConcurrentHashMap<>();
+        this.agendas = new ConcurrentHashMap<>();
+        this.usages = new ConcurrentHashMap<>();
+        this.calendar = new ServiceCalendar();
+        this.statuses = copyStatuses(null);
+        this.conflicts = ConcurrentHashMap.newKeySet();
+        this.services = new ConcurrentHashMap<>();
+        this.journal = Journal.DETACHED;
+        this.structure = new ReentrantReadWriteLock();
+        this.elevatorLocks = stripes();
+        this.mechanicLocks = stripes();
+
+        // O registro é montado antes de ser publicado, sem chamar métodos do
+        // agendador ainda em construção
+        ElevatorRegistry registry = ElevatorRegistry.EMPTY;
+        for (Elevator elevator : elevators) {
+            if (elevator == null) {
+                throw new WorkshopException("elevador não pode ser nulo");
+            }
+
+            registry = registry.with(elevator);
+        }
+
+        this.elevators = registry;
+    }
+
+    /**
+     * Construtor parametrizado, usado nas capturas, que compartilha as coleções
+     * passadas.
+     * 
+     * @param orders    mapa de ordens de serviço.
+     * @param timelines índice das ordens de serviço por elevador.
+     * @param agendas   índice das ordens de serviço por mecânico.
+     * @param usages    totais de uso de cada elevador.
+     * @param calendar  calendário das ordens de serviço.
+     * @param statuses  índice das ordens de serviço por status.
+     * @param conflicts ordens de serviço restauradas conflitantes.
+     * @param services  mapa de serviços.
+     * @param elevators registro de elevadores.
+     */
+    private Scheduler(ConcurrentHashMap<Integer, ServiceOrder> orders,
+            ConcurrentHashMap<Integer, TreeMap<Long, ServiceOrder>> timelines,
+            ConcurrentHashMap<Integer, TreeMap<Long, ServiceOrder>> agendas,
+            ConcurrentHashMap<Integer, TreeMap<Long, ElevatorUsage>> usages, ServiceCalendar calendar,
+            EnumMap<Status, Set<Integer>> statuses, Set<Integer> conflicts,
+            ConcurrentHashMap<Integer, Service> services, ElevatorRegistry elevators) {
+
+        this.orders = orders;
+        this.timelines = timelines;
+        this.agendas = agendas;
+        this.usages = usages;
+        this.calendar = calendar;
+        this.statuses = statuses;
+        this.conflicts = conflicts;
+        this.services = services;
+        this.elevators = elevators;
+        this.journal = Journal.DETACHED;
+        this.shared = true;
+        this.structure = new ReentrantReadWriteLock();
+        this.elevatorLocks = stripes();
+        this.mechanicLocks = stripes();
+    }
+
+    /**
+     * Cria um conjunto de travas listradas.
+     * 
+     * @return travas listradas.
+     */
+    private static ReentrantLock[] stripes() {
+        ReentrantLock[] locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        return locks;
+    }
+
+    /**
+     * Define o diário de operações em que as alterações do agendador são
+     * registradas.
+     * 
+     * @param journal diário de operações, ou {@code null} para não registrar.
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal != null ? journal : Journal.DETACHED;
+    }
+
+    /**
+     * Captura o agendador no seu estado atual, em tempo constante. A captura
+     * compartilha as coleções com o original, e quem for alterado primeiro as
+     * copia antes, de modo que a captura permanece intacta e pode ser lida em
+     * outra thread enquanto o original continua em uso. As entidades em si não
+     * são copiadas, mas as ordens de serviço são substituídas, e não alteradas,
+     * pelo agendador.
+     * 
+     * @return captura desanexada de qualquer diário.
+     */
+    public Scheduler capture() {
+        structure.writeLock().lock();
+        try {
+            this.shared = true;
+            return new Scheduler(orders, timelines, agendas, usages, calendar, statuses, conflicts, services, elevators);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deixa de compartilhar as coleções com a última captura, quando ela não
+     * for mais lida, de modo que os próximos agendamentos não as copiem. Deve
+     * ser chamado apenas depois que a captura deixar de ser usada.
+     */
+    public void release() {
+        structure.writeLock().lock();
+        try {
+            this.shared = false;
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Copia as coleções compartilhadas com uma captura, se houver, antes de uma
+     * alteração. Deve ser chamado com a trava exclusiva do agendador.
+     */
+    private void copyOnWrite() {
+        if (!shared) {
+            return;
+        }
+
+        this.orders = new ConcurrentHashMap<>(orders);
+        this.services = new ConcurrentHashMap<>(services);
+        this.timelines = deepCopy(timelines);
+        this.agendas = deepCopy(agendas);
+        this.usages = deepCopy(usages);
+        this.calendar = new ServiceCalendar(calendar);
+        this.statuses = copyStatuses(statuses);
+        Set<Integer> conflicts = ConcurrentHashMap.newKeySet();
+        conflicts.addAll(this.conflicts);
+        this.conflicts = conflicts;
+        this.shared = false;
+    }
+
+    /**
+     * Cria um índice por status, com um conjunto concorrente para cada status,
+     * copiando um índice existente, se houver.
+     * 
+     * @param index índice a ser copiado, ou {@code null}.
+     * @return índice por status.
+     */
+    private static EnumMap<Status, Set<Integer>> copyStatuses(EnumMap<Status, Set<Integer>> index) {
+        EnumMap<Status, Set<Integer>> copy = new EnumMap<>(Status.class);
+        for (Status status : Status.values()) {
+            Set<Integer> ids = ConcurrentHashMap.newKeySet();
+            if (index != null) {
+                ids.addAll(index.get(status));
+            }
+
+            copy.put(status, ids);
+        }
+
+        return copy;
+    }
+
+    /**
+     * Adquire a trava compartilhada do agendador para um agendamento, copiando
+     * antes, com a trava exclusiva, as coleções compartilhadas com uma captura,
+     * se houver.
+     */
+    private void beginBooking() {
+        structure.readLock().lock();
+
+        while (shared) {
+            structure.readLock().unlock();
+            structure.writeLock().lock();
+            try {
+                copyOnWrite();
+            } finally {
+                structure.writeLock().unlock();
+            }
+            structure.readLock().lock();
+        }
+    }
+
+    /**
+     * Libera a trava compartilhada do agendador ao fim de um agendamento.
+     */
+    private void endBooking() {
+        structure.readLock().unlock();
+    }
+
+    /**
+     * Trava os índices de dois elevadores, que podem ser o mesmo, e depois o
+     * de um mecânico, na ordem das listras.
+     * 
+     * @param elevator identificador de um elevador.
+     * @param other    identificador do outro elevador.
+     * @param mechanic identificador do mecânico.
+     */
+    private void lock(int elevator, int other, int mechanic) {
+        int first = stripe(elevator);
+        int second = stripe(other);
+
+        elevatorLocks[Math.min(first, second)].lock();
+        elevatorLocks[Math.max(first, second)].lock();
+        mechanicLocks[stripe(mechanic)].lock();
+    }
+
+    /**
+     * Destrava o que foi travado por {@link #lock}.
+     * 
+     * @param elevator identificador de um elevador.
+     * @param other    identificador do outro elevador.
+     * @param mechanic identificador do mecânico.
+     */
+    private void unlock(int elevator, int other, int mechanic) {
+        int first = stripe(elevator);
+        int second = stripe(other);
+
+        mechanicLocks[stripe(mechanic)].unlock();
+        elevatorLocks[Math.max(first, second)].unlock();
+        elevatorLocks[Math.min(first, second)].unlock();
+    }
+
+    /**
+     * Trava os índices de todos os elevadores e de todos os mecânicos, na
+     * ordem das listras. Deve ser chamado com a trava exclusiva do agendador.
+     */
+    private void lockAll() {
+        for (ReentrantLock lock : elevatorLocks) {
+            lock.lock();
+        }
+
+        for (ReentrantLock lock : mechanicLocks) {
+            lock.lock();
+        }
+    }
+
+    /**
+     * Destrava o que foi travado por {@link #lockAll}.
+     */
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            mechanicLocks[i].unlock();
+        }
+
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            elevatorLocks[i].unlock();
+        }
+    }
+
+    /**
+     * Retorna a listra de um identificador.
+     * 
+     * @param id identificador de um elevador ou de um mecânico.
+     * @return índice da trava listrada.
+     */
+    private static int stripe(int id) {
+        return Math.floorMod(id, STRIPES);
+    }
+
+    /**
+     * Copia um índice por elevador ou por mecânico, inclusive as árvores de
+     * cada chave.
+     * 
+     * @param <V>   tipo dos valores do índice.
+     * @param index índice a ser copiado.
+     * @return cópia do índice.
+     */
+    private static <V> ConcurrentHashMap<Integer, TreeMap<Long, V>> deepCopy(
+            ConcurrentHashMap<Integer, TreeMap<Long, V>> index) {
+
+        ConcurrentHashMap<Integer, TreeMap<Long, V>> copy = new ConcurrentHashMap<>();
+        for (Map.Entry<Integer, TreeMap<Long, V>> entry : index.entrySet()) {
+            copy.put(entry.getKey(), new TreeMap<>(entry.getValue()));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Retorna uma estrutura iterável de ordens de serviço.
+     * 
+     * @return estrutura iterável de ordens de serviço.
+     */
+    public Iterable<ServiceOrder> getOrders() {
+        return orders.values();
+    }
+
+    /**
+     * Retorna uma ordem de serviço a partir do seu identificador.
+     * 
+     * @param orderId identificador de ordem de serviço.
+     * @return ordem de serviço de identificador passado, ou {@code null} se essa
+     *         ordem de serviço não existir.
+     */
+    public ServiceOrder getOrder(int orderId) {
+        return orders.get(orderId);
+    }
+
+    /**
+     * Asserta a existência de uma ordem de serviço.
+     * 
+     * @param orderId identificador de ordem de serviço.
+     * @return {@code true} se, e somente se a ordem de serviço existir.
+     */
+    public boolean hasOrder(int orderId) {
+        return orders.containsKey(orderId);
+    }
+
+    /**
+     * Adiciona um ordem de serviço ao agendador.
+     * 
+     * @param order ordem de serviço a ser adicionado.
+     * 
+     * @throws WorkshopException se a ordem de serviço for nula, se já houver uma
+     *                           ordem de serviço de mesmo identificador ou se
+     *                           conflitar com outra ordem de serviço no mesmo
+     *                           elevador ou com o mesmo mecânico.
+     */
+    public void addOrder(ServiceOrder order) {
+
+        if (order == null) {
+            throw new WorkshopException("ordem de serviço não pode ser nula");
+        }
+
+        int elevator = order.getElevator();
+        int mechanic = order.getMechanic();
+
+        beginBooking();
+        lock(elevator, elevator, mechanic);
+        try {
+            if (findConflict(timelines, elevator, order.getDatetime(), null) != null) {
+                throw conflict();
+            }
+
+            if (elevator != ServiceOrder.UNSET_ELEVATOR && mechanic != ServiceOrder.UNSET_MECHANIC
+                    && findConflict(agendas, mechanic, order.getDatetime(), null) != null) {
+                throw mechanicConflict();
+            }
+
+            // A ordem antiga de mesmo identificador continuaria nos índices
+            if (this.orders.putIfAbsent(order.id(), order) != null) {
+                throw new WorkshopException("ordem de serviço já existe");
+            }
+
+            index(order);
+            calendar.add(order);
+            indexStatus(order);
+            journal.added(EntityKind.ORDER, order);
+        } finally {
+            unlock(elevator, elevator, mechanic);
+            endBooking();
+        }
+    }
+
+    /**
+     * Adiciona um ordem de serviço ao agendador, conferindo antes se o seu
+     * mecânico está de turno durante todo o período da ordem.
+     * 
+     * @param order    ordem de serviço a ser adicionado.
+     * @param mechanic funcionário que é o mecânico da ordem de serviço.
+     * 
+     * @throws WorkshopException se a ordem de serviço ou o mecânico forem nulos,
+     *                           se o funcionário não for o mecânico da ordem, se
+     *                           ele não estiver de turno ou se a ordem conflitar
+     *                           com outra ordem de serviço.
+     */
+    public void addOrder(ServiceOrder order, Employee mechanic) {
+
+        if (order == null) {
+            throw new WorkshopException("ordem de serviço não pode ser nula");
+        }
+
+        if (mechanic == null) {
+            throw new WorkshopException("mecânico não pode ser nulo");
+        }
+
+        if (mechanic.id() != order.getMechanic()) {
+            throw new WorkshopException("funcionário não é o mecânico da ordem de serviço");
+        }
+
+        if (!mechanic.isOnShift(order.getDatetime())) {
+            throw new WorkshopException("mecânico não está de turno durante a ordem de serviço");
+        }
+
+        this.addOrder(order);
+    }
+
+    /**
+     * Restaura ordens de serviço salvas, substituindo as de mesmo
+     * identificador, sem conferir conflitos e sem registrar no diário. Todas
+     * as ordens substituídas são retiradas antes que qualquer uma seja posta,
+     * de modo que ordens que trocaram de horário entre si não conflitam.
+     * 
+     * <p> Uma ordem que conflite com outra no seu elevador ou com o seu
+     * mecânico é restaurada mesmo assim, mas fica fora dos índices por
+     * elevador e por mecânico, e é relatada por {@link #getConflictingOrders}
+     * até ser reagendada ou removida.
+     * 
+     * @param restored ordens de serviço a serem restauradas.
+     * 
+     * @throws WorkshopException se alguma das ordens de serviço for nula.
+     */
+    public void restoreOrders(Collection<ServiceOrder> restored) {
+
+        for (ServiceOrder order : restored) {
+            if (order == null) {
+                throw new WorkshopException("ordem de serviço não pode ser nula");
+            }
+        }
+
+        structure.writeLock().lock();
+        try {
+            copyOnWrite();
+            lockAll();
+            try {
+                for (ServiceOrder order : restored) {
+                    ServiceOrder replaced = orders.remove(order.id());
+                    if (replaced != null) {
+                        unindex(replaced);
+                        calendar.remove(replaced);
+                        unindexStatus(replaced);
+                        conflicts.remove(replaced.id());
+                    }
+                }
+
+                for (ServiceOrder order : restored) {
+                    orders.put(order.id(), order);
+                    if (isConflicting(order)) {
+                        conflicts.add(order.id());
+                    } else {
+                        index(order);
+                    }
+
+                    calendar.add(order);
+                    indexStatus(order);
+                }
+            } finally {
+                unlockAll();
+            }
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna as ordens de serviço restauradas que conflitam com outra no seu
+     * elevador ou com o seu mecânico, e que ainda não foram reagendadas nem
+     * removidas.
+     * 
+     * @return ordens de serviço conflitantes, sem ordem definida.
+     */
+    public List<ServiceOrder> getConflictingOrders() {
+        ArrayList<ServiceOrder> found = new ArrayList<>();
+        for (int id : conflicts) {
+            ServiceOrder order = orders.get(id);
+            if (order != null) {
+                found.add(order);
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Remove um ordem de serviço ao agendador.
+     * 
+     * @param orderId identificador da ordem de serviço a ser removido.
+     */
+    public void removeOrder(int orderId) {
+        beginBooking();
+        try {
+            ServiceOrder order = lockOrder(orderId, ServiceOrder.UNSET_ELEVATOR);
+            if (order == null) {
+                journal.removed(EntityKind.ORDER, orderId);
+                return;
+            }
+
+            try {
+                orders.remove(orderId, order);
+                unindex(order);
+                calendar.remove(order);
+                unindexStatus(order);
+                conflicts.remove(orderId);
+                journal.removed(EntityKind.ORDER, orderId);
+            } finally {
+                unlock(order.getElevator(), ServiceOrder.UNSET_ELEVATOR, order.getMechanic());
+            }
+        } finally {
+            endBooking();
+        }
+    }
+
+    /**
+     * Trava o elevador atual de uma ordem de serviço, outro elevador e o
+     * mecânico da ordem. Como a ordem pode ser substituída por outra thread
+     * enquanto se espera pela trava, ela é conferida de novo depois de
+     * travada.
+     * 
+     * @param orderId identificador da ordem de serviço.
+     * @param other   identificador do outro elevador.
+     * @return ordem de serviço atual, cujo elevador e mecânico foram travados,
+     *         ou {@code null}, sem nada travado, se a ordem não existir.
+     */
+    private ServiceOrder lockOrder(int orderId, int other) {
+        while (true) {
+            ServiceOrder order = orders.get(orderId);
+            if (order == null) {
+                return null;
+            }
+
+            lock(order.getElevator(), other, order.getMechanic());
+
+            if (orders.get(orderId) == order) {
+                return order;
+            }
+
+            unlock(order.getElevator(), other, order.getMechanic());
+        }
+    }
+
+    /**
+     * Substitui uma ordem de serviço por uma cópia alterada, em todos os
+     * índices. Uma ordem restaurada conflitante continua fora dos índices por
+     * elevador e por mecânico. Deve ser chamado com o elevador e o mecânico da
+     * ordem travados.
+     * 
+     * @param order ordem de serviço atual.
+     * @param next  cópia alterada.
+     */
+    private void replace(ServiceOrder order, ServiceOrder next) {
+        unindex(order);
+        calendar.remove(order);
+        unindexStatus(order);
+
+        orders.put(next.id(), next);
+        if (!conflicts.contains(next.id())) {
+            index(next);
+        }
+
+        calendar.add(next);
+        indexStatus(next);
+    }
+
+    /**
+     * Reagenda uma ordem de serviço, movendo-a para outro elevador, outro
+     * período, ou ambos.
+     * 
+     * @param orderId  identificador da ordem de serviço.
+     * @param elevator identificador do novo elevador.
+     * @param datetime novo período de data e hora.
+     * 
+     * @throws WorkshopException se a ordem de serviço não existir, se o período
+     *                           for nulo ou se o novo horário conflitar com outra
+     *                           ordem de serviço no mesmo elevador ou com o
+     *                           mesmo mecânico.
+     */
+    public void rescheduleOrder(int orderId, int elevator, DateSpan datetime) {
+
+        if (datetime == null) {
+            throw new WorkshopException("data e hora não pode ser nulos");
+        }
+
+        beginBooking();
+        try {
+            ServiceOrder order = lockOrder(orderId, elevator);
+            if (order == null) {
+                throw new WorkshopException("ordem de serviço não existe");
+            }
+
+            try {
+                if (findConflict(timelines, elevator, datetime, order) != null) {
+                    throw conflict();
+                }
+
+                if (elevator != ServiceOrder.UNSET_ELEVATOR && order.getMechanic() != ServiceOrder.UNSET_MECHANIC
+                        && findConflict(agendas, order.getMechanic(), datetime, order) != null) {
+                    throw mechanicConflict();
+                }
+
+                ServiceOrder moved = new ServiceOrder(order);
+                moved.setElevator(elevator);
+                moved.setDatetime(datetime);
+
+                conflicts.remove(orderId);
+                replace(order, moved);
+                journal.updated(EntityKind.ORDER, moved);
+            } finally {
+                unlock(order.getElevator(), elevator, order.getMechanic());
+            }
+        } finally {
+            endBooking();
+        }
+    }
+
+    /**
+     * Muda o status de uma ordem de serviço, registrando o momento atual como o
+     * da transição.
+     * 
+     * @param orderId identificador da ordem de serviço.
+     * @param status  novo status.
+     * 
+     * @throws WorkshopException se a ordem de serviço não existir, se o status
+     *                           for nulo ou se a transição não for permitida.
+     */
+    public void changeStatus(int orderId, Status status) {
+        this.changeStatus(orderId, status, System.currentTimeMillis());
+    }
+
+    /**
+     * Muda o status de uma ordem de serviço, seguindo as transições permitidas
+     * de {@link Status}, registrando o momento da transição e mantendo o índice
+     * por status.
+     * 
+     * @param orderId   identificador da ordem de serviço.
+     * @param status    novo status.
+     * @param timestamp momento da transição, em milissegundos.
+     * 
+     * @throws WorkshopException se a ordem de serviço não existir, se o status
+     *                           for nulo ou se a transição não for permitida.
+     */
+    public void changeStatus(int orderId, Status status, long timestamp) {
+
+        if (status == null) {
+            throw new WorkshopException("status não pode ser nulo");
+        }
+
+        beginBooking();
+        try {
+            ServiceOrder order = lockOrder(orderId, ServiceOrder.UNSET_ELEVATOR);
+            if (order == null) {
+                throw new WorkshopException("ordem de serviço não existe");
+            }
+
+            try {
+                Status previous = order.getStatus();
+                if (previous == null || !previous.canTransitionTo(status)) {
+                    throw new WorkshopException("transição de status inválida: %s para %s", previous, status);
+                }
+
+                ServiceOrder changed = new ServiceOrder(order);
+                changed.setStatus(status, timestamp);
+
+                replace(order, changed);
+                journal.updated(EntityKind.ORDER, changed);
+            } finally {
+                unlock(order.getElevator(), ServiceOrder.UNSET_ELEVATOR, order.getMechanic());
+            }
+        } finally {
+            endBooking();
+        }
+    }
+
+    /**
+     * Altera uma ordem de serviço, como o seu cliente, veículo ou mecânico,
+     * substituindo-a por uma cópia alterada e registrando a cópia no diário.
+     * O elevador, o período e o status da ordem são alterados apenas por
+     * {@link #rescheduleOrder} e {@link #changeStatus}. Como o mecânico pode
+     * mudar, a alteração trava o agendador inteiro.
+     * 
+     * @param orderId identificador da ordem de serviço.
+     * @param change  alteração a ser aplicada à cópia.
+     * 
+     * @throws WorkshopException se a ordem de serviço não existir, se a
+     *                           alteração for inválida, se mudar o elevador, o
+     *                           período ou o status, ou se o novo mecânico já
+     *                           estiver em outra ordem no mesmo período, casos
+     *                           em que nada é alterado.
+     */
+    public void updateOrder(int orderId, Consumer<ServiceOrder> change) {
+        structure.writeLock().lock();
+        try {
+            ServiceOrder order = orders.get(orderId);
+            if (order == null) {
+                throw new WorkshopException("ordem de serviço não existe");
+            }
+
+            ServiceOrder changed = new ServiceOrder(order);
+            change.accept(changed);
+
+            if (changed.getElevator() != order.getElevator()
+                    || !Objects.equals(changed.getDatetime(), order.getDatetime())
+                    || changed.getStatus() != order.getStatus()) {
+                throw new WorkshopException("elevador, data e hora e status devem ser alterados pelo agendador");
+            }
+
+            int mechanic = changed.getMechanic();
+            if (mechanic != order.getMechanic() && !conflicts.contains(orderId)
+                    && changed.getElevator() != ServiceOrder.UNSET_ELEVATOR
+                    && mechanic != ServiceOrder.UNSET_MECHANIC
+                    && findConflict(agendas, mechanic, changed.getDatetime(), order) != null) {
+                throw mechanicConflict();
+            }
+
+            copyOnWrite();
+            lockAll();
+            try {
+                replace(order, changed);
+                journal.updated(EntityKind.ORDER, changed);
+            } finally {
+                unlockAll();
+            }
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna as ordens de serviço em certos status, em tempo proporcional
+     * apenas à quantidade de ordens encontradas.
+     * 
+     * @param statuses status procurados.
+     * @return ordens de serviço nos status, sem ordem definida.
+     */
+    public List<ServiceOrder> getOrdersByStatus(Status... statuses) {
+        ArrayList<ServiceOrder> found = new ArrayList<>();
+
+        for (Status status : statuses) {
+            for (int id : this.statuses.get(status)) {
+                ServiceOrder order = orders.get(id);
+                if (order != null && order.getStatus() == status) {
+                    found.add(order);
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Retorna a quantidade de ordens de serviço num status, em tempo constante.
+     * 
+     * @param status status.
+     * @return quantidade de ordens de serviço no status.
      */
-    private HashMap<Integer, ServiceOrder> orders;
+    public int countOrders(Status status) {
+        return statuses.get(status).size();
+    }
 
     /**
-     * Mapa de serviços indexados pelo identificador do serviço.
+     * Retorna as ordens de serviço de um dia, em tempo proporcional apenas à
+     * quantidade de ordens do dia.
+     * 
+     * @param date instante qualquer do dia.
+     * @return ordens de serviço cujo período toca o dia, ordenadas por data e
+     *         hora.
      */
-    private HashMap<Integer, Service> services;
+    public List<ServiceOrder> getDayOrders(long date) {
+        return calendar.day(date);
+    }
 
     /**
-     * Array de elevadores disponíveis na oficina.
+     * Retorna as ordens de serviço de um elevador num dia, em tempo
+     * proporcional apenas à quantidade de ordens do elevador no dia.
+     * 
+     * @param date       instante qualquer do dia.
+     * @param elevatorId identificador do elevador, ou
+     *                   {@link ServiceOrder#UNSET_ELEVATOR} para as ordens sem
+     *                   elevador.
+     * @return ordens de serviço do elevador cujo período toca o dia, ordenadas
+     *         por data e hora.
      */
-    private Elevator[] elevators;
+    public List<ServiceOrder> getDayOrders(long date, int elevatorId) {
+        return calendar.day(date, elevatorId);
+    }
 
     /**
-     * Construtor padrão.
+     * Retorna as ordens de serviço de uma semana, de segunda a domingo, em
+     * tempo proporcional apenas à quantidade de ordens da semana.
+     * 
+     * @param date instante qualquer da semana.
+     * @return ordens de serviço cujo período toca a semana, ordenadas por data
+     *         e hora.
      */
-    public Scheduler() {
-        this.orders = new HashMap<>();
-        this.services = new HashMap<>();
-        this.elevators = new Elevator[] {
-                new Elevator(25000.00, ElevatorFunction.BALANCING, ElevatorFunction.ALIGNING),
-                new Elevator(25000.00, ElevatorFunction.GENERAL),
-                new Elevator(25000.00, ElevatorFunction.GENERAL),
-        };
+    public List<ServiceOrder> getWeekOrders(long date) {
+        return calendar.week(date);
     }
 
     /**
-     * Retorna uma ordem de serviço a partir do seu identificador.
+     * Verifica se um elevador está livre durante um período.
      * 
-     * @param orderId identificador de ordem de serviço.
-     * @return ordem de serviço de identificador passado, ou {@code null} se essa
-     *         ordem de serviço não existir.
+     * @param elevatorId identificador do elevador.
+     * @param datetime   período de data e hora.
+     * @return {@code true} se, e somente se nenhuma ordem de serviço do
+     *         elevador se sobrepuser ao período.
      */
-    public ServiceOrder getOrder(int orderId) {
-        return orders.get(orderId);
+    public boolean isAvailable(int elevatorId, DateSpan datetime) {
+        ReentrantLock lock = elevatorLocks[stripe(elevatorId)];
+        lock.lock();
+        try {
+            return findConflict(timelines, elevatorId, datetime, null) == null;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Asserta a existência de uma ordem de serviço.
+     * Verifica se um mecânico está livre durante um período, isto é, se não
+     * está em nenhuma ordem de serviço agendada. Os turnos não são conferidos.
      * 
-     * @param orderId identificador de ordem de serviço.
-     * @return {@code true} se, e somente se a ordem de serviço existir.
+     * @param mechanicId identificador do mecânico.
+     * @param datetime   período de data e hora.
+     * @return {@code true} se, e somente se nenhuma ordem de serviço agendada
+     *         do mecânico se sobrepuser ao período.
      */
-    public boolean hasOrder(int orderId) {
-        return orders.containsKey(orderId);
+    public boolean isMechanicAvailable(int mechanicId, DateSpan datetime) {
+        ReentrantLock lock = mechanicLocks[stripe(mechanicId)];
+        lock.lock();
+        try {
+            return findConflict(agendas, mechanicId, datetime, null) == null;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Adiciona um ordem de serviço ao agendador.
+     * Retorna as ordens de serviço agendadas de um mecânico que não estejam
+     * inteiramente cobertas pelos seus turnos. Cada ordem é conferida em tempo
+     * logarítmico na quantidade de turnos.
      * 
-     * @param order ordem de serviço a ser adicionado.
+     * @param mechanic funcionário que é o mecânico.
+     * @return ordens de serviço fora de turno, da mais cedo à mais tarde.
+     * 
+     * @throws WorkshopException se o mecânico for nulo.
      */
-    public void addOrder(ServiceOrder order) {
+    public List<ServiceOrder> getOffShiftOrders(Employee mechanic) {
 
-        if (order == null) {
-            throw new WorkshopException("ordem de serviço não pode ser nula");
+        if (mechanic == null) {
+            throw new WorkshopException("mecânico não pode ser nulo");
         }
 
-        for (ServiceOrder otherOrder : orders.values()) {
-            if (otherOrder.isConflicting(order)) {
-                throw new WorkshopException(""
-                        + "ordem de serviço conflituosa, "
-                        + "já há uma ordem de serviço nesse horário usando o mesmo elevador");
+        ArrayList<ServiceOrder> found = new ArrayList<>();
+        ReentrantLock lock = mechanicLocks[stripe(mechanic.id())];
+
+        lock.lock();
+        try {
+            TreeMap<Long, ServiceOrder> agenda = agendas.get(mechanic.id());
+            if (agenda == null) {
+                return found;
+            }
+
+            for (ServiceOrder order : agenda.values()) {
+                if (!mechanic.isOnShift(order.getDatetime())) {
+                    found.add(order);
+                }
             }
+        } finally {
+            lock.unlock();
         }
 
-        this.orders.put(order.id(), order);
+        return found;
     }
 
     /**
-     * Remove um ordem de serviço ao agendador.
+     * Procura o horário livre mais cedo, de certa duração, num elevador que
+     * desempenhe certas funções.
      * 
-     * @param orderId identificador da ordem de serviço a ser removido.
+     * @param function campo de bits das funções exigidas do elevador.
+     * @param duration duração do horário, em milissegundos.
+     * @param horizon  período em que o horário deve estar contido.
+     * @return horário livre mais cedo, ou {@code null} se não houver nenhum no
+     *         horizonte.
+     * 
+     * @throws WorkshopException se a duração não for positiva ou se o horizonte
+     *                           for nulo.
      */
-    public void removeOrder(int orderId) {
-        orders.remove(orderId);
+    public Slot findSlot(int function, long duration, DateSpan horizon) {
+        List<Slot> slots = findSlots(function, duration, horizon, 1);
+        return slots.isEmpty() ? null : slots.get(0);
+    }
+
+    /**
+     * Procura os horários livres mais cedo, de certa duração, nos elevadores
+     * que desempenhem certas funções. Cada intervalo livre de um elevador dá no
+     * máximo um horário, o que começa mais cedo nele.
+     * 
+     * <p> Em cada elevador, a busca começa pela ordem que contém o começo do
+     * horizonte, encontrada em tempo logarítmico, e percorre apenas as ordens
+     * até o último horário encontrado.
+     * 
+     * @param function campo de bits das funções exigidas do elevador.
+     * @param duration duração dos horários, em milissegundos.
+     * @param horizon  período em que os horários devem estar contidos.
+     * @param limit    quantidade máxima de horários.
+     * @return horários livres, do mais cedo ao mais tarde, e, num mesmo
+     *         momento, do menor ao maior identificador de elevador.
+     * 
+     * @throws WorkshopException se a duração não for positiva ou se o horizonte
+     *                           for nulo.
+     */
+    public List<Slot> findSlots(int function, long duration, DateSpan horizon, int limit) {
+
+        if (duration <= 0) {
+            throw new WorkshopException("duração deve ser positiva");
+        }
+
+        if (horizon == null) {
+            throw new WorkshopException("horizonte não pode ser nulo");
+        }
+
+        ArrayList<Slot> slots = new ArrayList<>();
+        if (limit <= 0) {
+            return slots;
+        }
+
+        for (Elevator elevator : elevators.supporting(function)) {
+            ReentrantLock lock = elevatorLocks[stripe(elevator.id())];
+            lock.lock();
+            try {
+                collectSlots(elevator.id(), duration, horizon, limit, slots);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        slots.sort(Comparator.comparingLong((Slot slot) -> slot.datetime().start())
+                .thenComparingInt(Slot::elevator));
+
+        return slots.size() > limit ? new ArrayList<>(slots.subList(0, limit)) : slots;
+    }
+
+    /**
+     * Mede o uso de cada elevador na janela deslizante que termina num instante.
+     * 
+     * @param window janela deslizante.
+     * @param now    instante em que a janela termina.
+     * @return métricas de cada elevador, na ordem dos elevadores.
+     * 
+     * @throws WorkshopException se a janela for nula.
+     */
+    public List<ElevatorMetrics> getMetrics(MetricsWindow window, long now) {
+        if (window == null) {
+            throw new WorkshopException("janela não pode ser nula");
+        }
+
+        return getMetrics(window.span(now));
+    }
+
+    /**
+     * Mede o uso de cada elevador numa janela de tempo.
+     * 
+     * @param window janela de tempo.
+     * @return métricas de cada elevador, na ordem dos elevadores.
+     * 
+     * @throws WorkshopException se a janela for nula ou vazia.
+     */
+    public List<ElevatorMetrics> getMetrics(DateSpan window) {
+        ArrayList<ElevatorMetrics> metrics = new ArrayList<>();
+        for (Elevator elevator : elevators.all()) {
+            metrics.add(getMetrics(elevator.id(), window));
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Mede o uso de um elevador numa janela de tempo. Os blocos de totais
+     * inteiros dentro da janela são somados sem percorrer as suas ordens, e
+     * apenas as ordens das pontas da janela, a partir da que contém o seu
+     * começo, encontrada em tempo logarítmico, são percorridas.
+     * 
+     * @param elevatorId identificador do elevador.
+     * @param window     janela de tempo.
+     * @return métricas do elevador.
+     * 
+     * @throws WorkshopException se a janela for nula ou vazia.
+     */
+    public ElevatorMetrics getMetrics(int elevatorId, DateSpan window) {
+
+        if (window == null) {
+            throw new WorkshopException("janela não pode ser nula");
+        }
+
+        if (window.isEmpty()) {
+            throw new WorkshopException("janela não pode ser vazia");
+        }
+
+        ElevatorUsage usage = new ElevatorUsage(window);
+
+        ReentrantLock lock = elevatorLocks[stripe(elevatorId)];
+        lock.lock();
+        try {
+            TreeMap<Long, ServiceOrder> timeline = timelines.get(elevatorId);
+            if (timeline != null) {
+                Long first = timeline.floorKey(window.start());
+                long from = first != null ? first : window.start();
+
+                // Blocos inteiros dentro da janela
+                long head = block(window.start() + USAGE_BLOCK - 1);
+                long tail = block(window.end());
+
+                if (head < tail) {
+                    for (ServiceOrder order : timeline.subMap(from, true, head, false).values()) {
+                        usage.add(order);
+                    }
+
+                    TreeMap<Long, ElevatorUsage> blocks = usages.get(elevatorId);
+                    if (blocks != null) {
+                        for (ElevatorUsage totals : blocks.subMap(head, true, tail, false).values()) {
+                            usage.add(totals);
+                        }
+                    }
+
+                    from = tail;
+                }
+
+                for (ServiceOrder order : timeline.subMap(from, true, window.end(), false).values()) {
+                    usage.add(order);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return usage.finish(elevatorId, window);
+    }
+
+    /**
+     * Coleta os horários livres mais cedo de um elevador.
+     * 
+     * @param elevatorId identificador do elevador.
+     * @param duration   duração dos horários, em milissegundos.
+     * @param horizon    período em que os horários devem estar contidos.
+     * @param limit      quantidade máxima de horários.
+     * @param sink       lista que recebe os horários.
+     */
+    private void collectSlots(int elevatorId, long duration, DateSpan horizon, int limit, List<Slot> sink) {
+        long cursor = horizon.start();
+        long end = horizon.end();
+        int found = 0;
+
+        TreeMap<Long, ServiceOrder> timeline = timelines.get(elevatorId);
+        Map<Long, ServiceOrder> busy = Map.of();
+
+        if (timeline != null) {
+            Long first = timeline.floorKey(cursor);
+            busy = timeline.tailMap(first != null ? first : cursor, true);
+        }
+
+        for (ServiceOrder order : busy.values()) {
+            DateSpan datetime = order.getDatetime();
+            if (found >= limit || end - cursor < duration || datetime.start() >= end) {
+                break;
+            }
+
+            if (datetime.start() - cursor >= duration) {
+                sink.add(new Slot(elevatorId, new DateSpan(cursor, cursor + duration)));
+                found++;
+            }
+
+            cursor = Math.max(cursor, datetime.end());
+        }
+
+        if (found < limit && end - cursor >= duration) {
+            sink.add(new Slot(elevatorId, new DateSpan(cursor, cursor + duration)));
+        }
+    }
+
+    /**
+     * Procura uma ordem de serviço de um elevador ou de um mecânico que se
+     * sobreponha a um período, em tempo logarítmico.
+     * 
+     * <p> Como as ordens de um elevador ou de um mecânico não se sobrepõem, a
+     * que começa por último antes do fim do período é também a que termina por
+     * último entre elas; basta ver se ela termina depois do começo do período.
+     * A ordem ignorada, se for essa, é pulada em favor da anterior.
+     * 
+     * @param index    índice por elevador ou por mecânico.
+     * @param key      identificador do elevador ou do mecânico.
+     * @param datetime período de data e hora.
+     * @param ignored  ordem de serviço a ser ignorada, ou {@code null}.
+     * @return ordem de serviço conflitante, ou {@code null} se não houver.
+     */
+    private static ServiceOrder findConflict(Map<Integer, TreeMap<Long, ServiceOrder>> index, int key,
+            DateSpan datetime, ServiceOrder ignored) {
+
+        TreeMap<Long, ServiceOrder> timeline = index.get(key);
+        if (timeline == null || datetime.isEmpty()) {
+            return null;
+        }
+
+        Map.Entry<Long, ServiceOrder> entry = timeline.lowerEntry(datetime.end());
+        if (entry != null && entry.getValue() == ignored) {
+            entry = timeline.lowerEntry(entry.getKey());
+        }
+
+        if (entry == null || entry.getValue().getDatetime().end() <= datetime.start()) {
+            return null;
+        }
+
+        return entry.getValue();
+    }
+
+    /**
+     * Verifica se uma ordem de serviço conflita com outra já indexada no seu
+     * elevador ou com o seu mecânico.
+     * 
+     * @param order ordem de serviço.
+     * @return {@code true} se a ordem de serviço conflitar.
+     */
+    private boolean isConflicting(ServiceOrder order) {
+        if (order.getElevator() == ServiceOrder.UNSET_ELEVATOR) {
+            return false;
+        }
+
+        return findConflict(timelines, order.getElevator(), order.getDatetime(), null) != null
+                || order.getMechanic() != ServiceOrder.UNSET_MECHANIC
+                        && findConflict(agendas, order.getMechanic(), order.getDatetime(), null) != null;
+    }
+
+    /**
+     * Indexa uma ordem de serviço pelo seu elevador e pelo seu mecânico. Ordens
+     * sem elevador ou de período vazio nunca conflitam, e não são indexadas, e
+     * ordens sem mecânico não entram no índice por mecânico.
+     * 
+     * @param order ordem de serviço.
+     */
+    private void index(ServiceOrder order) {
+        DateSpan datetime = order.getDatetime();
+        if (datetime.isEmpty() || order.getElevator() == ServiceOrder.UNSET_ELEVATOR) {
+            return;
+        }
+
+        timelines.computeIfAbsent(order.getElevator(), elevator -> new TreeMap<>())
+                .put(datetime.start(), order);
+        tally(order.getElevator(), datetime.start());
+
+        if (order.getMechanic() != ServiceOrder.UNSET_MECHANIC) {
+            agendas.computeIfAbsent(order.getMechanic(), mechanic -> new TreeMap<>())
+                    .put(datetime.start(), order);
+        }
+    }
+
+    /**
+     * Remove uma ordem de serviço dos índices por elevador e por mecânico.
+     * 
+     * @param order ordem de serviço.
+     */
+    private void unindex(ServiceOrder order) {
+        if (unindex(timelines, order.getElevator(), order)) {
+            tally(order.getElevator(), order.getDatetime().start());
+        }
+
+        unindex(agendas, order.getMechanic(), order);
+    }
+
+    /**
+     * Remove uma ordem de serviço de um índice.
+     * 
+     * @param index índice por elevador ou por mecânico.
+     * @param key   identificador do elevador ou do mecânico.
+     * @param order ordem de serviço.
+     * @return {@code true} se a ordem de serviço estava no índice.
+     */
+    private static boolean unindex(Map<Integer, TreeMap<Long, ServiceOrder>> index, int key, ServiceOrder order) {
+        TreeMap<Long, ServiceOrder> timeline = index.get(key);
+        if (timeline == null) {
+            return false;
+        }
+
+        boolean removed = timeline.remove(order.getDatetime().start(), order);
+        if (timeline.isEmpty()) {
+            index.remove(key);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Recalcula os totais de uso do bloco de um elevador que contém um
+     * instante, a partir das ordens do bloco na linha do tempo. Deve ser
+     * chamado com o elevador travado.
+     * 
+     * @param elevatorId identificador do elevador.
+     * @param instant    instante dentro do bloco.
+     */
+    private void tally(int elevatorId, long instant) {
+        long start = block(instant);
+
+        ElevatorUsage totals = new ElevatorUsage();
+        TreeMap<Long, ServiceOrder> timeline = timelines.get(elevatorId);
+        if (timeline != null) {
+            for (ServiceOrder order : timeline.subMap(start, start + USAGE_BLOCK).values()) {
+                totals.add(order);
+            }
+        }
+
+        if (!totals.isEmpty()) {
+            usages.computeIfAbsent(elevatorId, elevator -> new TreeMap<>()).put(start, totals);
+            return;
+        }
+
+        TreeMap<Long, ElevatorUsage> blocks = usages.get(elevatorId);
+        if (blocks != null) {
+            blocks.remove(start);
+            if (blocks.isEmpty()) {
+                usages.remove(elevatorId);
+            }
+        }
+    }
+
+    /**
+     * Retorna o começo do bloco de totais de uso que contém um instante.
+     * 
+     * @param instant instante.
+     * @return começo do bloco.
+     */
+    private static long block(long instant) {
+        return Math.floorDiv(instant, USAGE_BLOCK) * USAGE_BLOCK;
+    }
+
+    /**
+     * Indexa uma ordem de serviço pelo seu status.
+     * 
+     * @param order ordem de serviço.
+     */
+    private void indexStatus(ServiceOrder order) {
+        if (order.getStatus() != null) {
+            statuses.get(order.getStatus()).add(order.id());
+        }
+    }
+
+    /**
+     * Remove uma ordem de serviço do índice por status.
+     * 
+     * @param order ordem de serviço.
+     */
+    private void unindexStatus(ServiceOrder order) {
+        if (order.getStatus() != null) {
+            statuses.get(order.getStatus()).remove(order.id());
+        }
+    }
+
+    /**
+     * Cria a exceção de ordem de serviço conflituosa.
+     * 
+     * @return exceção de conflito.
+     */
+    private static WorkshopException conflict() {
+        return new WorkshopException(""
+                + "ordem de serviço conflituosa, "
+                + "já há uma ordem de serviço nesse horário usando o mesmo elevador");
+    }
+
+    /**
+     * Cria a exceção de ordem de serviço conflituosa pelo mecânico.
+     * 
+     * @return exceção de conflito.
+     */
+    private static WorkshopException mechanicConflict() {
+        return new WorkshopException(""
+                + "ordem de serviço conflituosa, "
+                + "o mecânico já está em outra ordem de serviço nesse horário");
+    }
+
+    /**
+     * Retorna uma estrutura iterável de serviços.
+     * 
+     * @return estrutura iterável de serviços.
+     */
+    public Iterable<Service> getServices() {
+        return services.values();
     }
 
     /**
@@ -124,7 +1490,43 @@ public class Scheduler {
             throw new WorkshopException("serviço não pode ser nulo");
         }
 
-        services.put(service.id(), service);
+        structure.writeLock().lock();
+        try {
+            copyOnWrite();
+            services.put(service.id(), service);
+            journal.added(EntityKind.SERVICE, service);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Altera um serviço do agendador, substituindo-o por uma cópia alterada e
+     * registrando a cópia no diário.
+     * 
+     * @param serviceId identificador do serviço.
+     * @param change    alteração a ser aplicada à cópia.
+     * 
+     * @throws WorkshopException se o serviço não existir ou se a alteração for
+     *                           inválida, caso em que nada é alterado.
+     */
+    public void updateService(int serviceId, Consumer<Service> change) {
+        structure.writeLock().lock();
+        try {
+            Service service = services.get(serviceId);
+            if (service == null) {
+                throw new WorkshopException("serviço não existe");
+            }
+
+            Service updated = new Service(service);
+            change.accept(updated);
+
+            copyOnWrite();
+            services.put(serviceId, updated);
+            journal.updated(EntityKind.SERVICE, updated);
+        } finally {
+            structure.writeLock().unlock();
+        }
     }
 
     /**
@@ -133,7 +1535,34 @@ public class Scheduler {
      * @param serviceId identificador do serviço a ser removido.
      */
     public void removeService(int serviceId) {
-        services.remove(serviceId);
+        structure.writeLock().lock();
+        try {
+            copyOnWrite();
+            services.remove(serviceId);
+            journal.removed(EntityKind.SERVICE, serviceId);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna uma estrutura iterável de elevadores.
+     * 
+     * @return estrutura iterável de elevadores.
+     */
+    public Iterable<Elevator> getElevators() {
+        return elevators.all();
+    }
+
+    /**
+     * Retorna os elevadores que desempenham todas as funções de um campo de
+     * bits, pelo índice de funções do registro.
+     * 
+     * @param function campo de bits das funções exigidas.
+     * @return elevadores capazes, na ordem em que foram adicionados.
+     */
+    public List<Elevator> getElevators(int function) {
+        return elevators.supporting(function);
     }
 
     /**
@@ -144,13 +1573,7 @@ public class Scheduler {
      *         não existir.
      */
     public Elevator getElevator(int elevatorId) {
-        for (Elevator elevator : elevators) {
-            if (elevator.id() == elevatorId) {
-                return elevator;
-            }
-        }
-
-        return null;
+        return elevators.get(elevatorId);
     }
 
     /**
@@ -160,13 +1583,7 @@ public class Scheduler {
      * @return {@code true} se, e somente se o elevador existir.
      */
     public boolean hasElevator(int elevatorId) {
-        for (Elevator elevator : elevators) {
-            if (elevator.id() == elevatorId) {
-                return true;
-            }
-        }
-
-        return false;
+        return elevators.contains(elevatorId);
     }
 
     /**
@@ -179,8 +1596,42 @@ public class Scheduler {
             throw new WorkshopException("elevador não pode ser nulo");
         }
 
-        this.elevators = Arrays.copyOf(elevators, elevators.length + 1);
-        this.elevators[elevators.length - 1] = elevator;
+        structure.writeLock().lock();
+        try {
+            this.elevators = elevators.with(elevator);
+            journal.added(EntityKind.ELEVATOR, elevator);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Altera um elevador do registro, como o seu limite de peso, substituindo-o
+     * por uma cópia alterada num novo registro. As funções do elevador não
+     * mudam.
+     * 
+     * @param elevatorId identificador do elevador.
+     * @param change     alteração a ser aplicada à cópia.
+     * 
+     * @throws WorkshopException se o elevador não existir ou se a alteração for
+     *                           inválida, caso em que nada é alterado.
+     */
+    public void updateElevator(int elevatorId, Consumer<Elevator> change) {
+        structure.writeLock().lock();
+        try {
+            Elevator elevator = elevators.get(elevatorId);
+            if (elevator == null) {
+                throw new WorkshopException("elevador não existe");
+            }
+
+            Elevator updated = new Elevator(elevator);
+            change.accept(updated);
+
+            this.elevators = elevators.with(updated);
+            journal.updated(EntityKind.ELEVATOR, updated);
+        } finally {
+            structure.writeLock().unlock();
+        }
     }
 
     /**
@@ -189,22 +1640,16 @@ public class Scheduler {
      * @param elevatorId identificador do elevador a ser removido.
      */
     public void removeElevator(int elevatorId) {
-
-        int index;
-        findIndex: {
-            for (index = 0; index < elevators.length; index++) {
-                if (elevators[index].id() == elevatorId) {
-                    break findIndex; // Elevador encontrado
-                }
+        structure.writeLock().lock();
+        try {
+            if (!elevators.contains(elevatorId)) {
+                return; // Elevador não encontrado, nada a fazer
             }
 
-            return; // Elevador não encontrado, nada a fazer
+            this.elevators = elevators.without(elevatorId);
+            journal.removed(EntityKind.ELEVATOR, elevatorId);
+        } finally {
+            structure.writeLock().unlock();
         }
-
-        // Cria um novo array e copia os elementos, excluindo o elevador removido
-        Elevator[] newElevators = Arrays.copyOf(elevators, elevators.length - 1);
-        System.arraycopy(elevators, index + 1, newElevators, index, elevators.length - index - 1);
-
-        this.elevators = newElevators;
     }
 }
@@ -1,7 +1,11 @@
 package edu.ajan.model.workshop.service;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import edu.ajan.model.exception.WorkshopException;
 import edu.ajan.model.persistence.InstanceCountState;
+import edu.ajan.model.persistence.MoneyAdapter;
+import edu.ajan.model.workshop.money.Money;
 
 /**
  * Classe que representa um serviço.
@@ -31,9 +35,10 @@ public class Service {
     private String description;
 
     /**
-     * Valor do serviço.
+     * Valor do serviço, em centavos.
      */
-    private double value;
+    @JsonAdapter(MoneyAdapter.class)
+    private long value;
 
     /**
      * Construtor padrão.
@@ -47,15 +52,29 @@ public class Service {
      * 
      * @param name        nome do serviço.
      * @param description descrição do serviço.
-     * @param value       valor do serviço.
+     * @param value       valor do serviço, em centavos.
      */
-    public Service(String name, String description, double value) {
+    public Service(String name, String description, long value) {
         this();
         this.setName(name);
         this.setDescription(description);
         this.setValue(value);
     }
 
+    /**
+     * Construtor de cópia. A cópia tem o mesmo identificador do serviço
+     * copiado, e é usada pelo agendador para substituir o serviço em vez de
+     * alterá-lo no lugar.
+     * 
+     * @param other serviço a ser copiado.
+     */
+    Service(Service other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.description = other.description;
+        this.value = other.value;
+    }
+
     /**
      * Retorna o identificador único do serviço.
      * 
@@ -112,19 +131,19 @@ public class Service {
     /**
      * Retorna o valor do serviço.
      * 
-     * @return valor do serviço.
+     * @return valor do serviço, em centavos.
      */
-    public double getValue() {
+    public long getValue() {
         return value;
     }
 
     /**
      * Define o valor do serviço.
      * 
-     * @param value valor do serviço.
+     * @param value valor do serviço, em centavos.
      */
-    public void setValue(double value) {
-        if (value < 0.0) {
+    public void setValue(long value) {
+        if (value < 0) {
             throw new WorkshopException("valor não pode ser negativo");
         }
 
@@ -176,6 +195,6 @@ public class Service {
      * @return a instância clonada do serviço.
      */
     public String toString() {
-        return String.format("(%d \"%s\" \"%s\" %.2f)", id, name, description, value);
+        return String.format("(%d \"%s\" \"%s\" %s)", id, name, description, Money.format(value));
     }
 }
\ No newline at end of file
@@ -0,0 +1,290 @@
+package edu.ajan.model.workshop.service;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classe que representa o calendário das ordens de serviço do
+ * {@link Scheduler}, dividido em dias e, em cada dia, em elevadores.
+ *
+ * <p> Cada ordem de serviço fica no balde de cada dia que o seu período toca,
+ * e, dentro dele, também no balde do seu elevador, já ordenada por
+ * {@link ServiceOrder#DATETIME_COMPARATOR}. O calendário é mantido a cada
+ * alteração do agendador, de modo que o quadro de um dia ou de uma semana é
+ * montado apenas com as ordens desses dias, sem percorrer o histórico. Os dias
+ * são os do fuso horário do sistema, o mesmo das datas formatadas.
+ *
+ * <p> Os baldes de dias diferentes são alterados em paralelo; os de um mesmo
+ * dia, um de cada vez.
+ *
+ * @author Alan Lima
+ */
+final class ServiceCalendar {
+
+    /**
+     * Quantidade de dias de uma semana.
+     */
+    private static final int DAYS_PER_WEEK = 7;
+
+    /**
+     * Ordem das ordens de serviço nos baldes: por data e hora e, em empate, por
+     * identificador.
+     */
+    private static final Comparator<ServiceOrder> ORDER = ServiceOrder.DATETIME_COMPARATOR
+            .thenComparingInt(ServiceOrder::id);
+
+    /**
+     * Fuso horário dos dias.
+     */
+    private final ZoneId zone;
+
+    /**
+     * Baldes indexados pelo dia, contado desde 1° de janeiro de 1970.
+     */
+    private final ConcurrentHashMap<Long, Day> days;
+
+    /**
+     * Construtor padrão.
+     */
+    ServiceCalendar() {
+        this.zone = ZoneId.systemDefault();
+        this.days = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Construtor de cópia, que copia também os baldes.
+     *
+     * @param other calendário a ser copiado.
+     */
+    ServiceCalendar(ServiceCalendar other) {
+        this.zone = other.zone;
+        this.days = new ConcurrentHashMap<>();
+
+        for (Map.Entry<Long, Day> entry : other.days.entrySet()) {
+            this.days.put(entry.getKey(), new Day(entry.getValue()));
+        }
+    }
+
+    /**
+     * Põe uma ordem de serviço nos baldes dos dias que o seu período toca.
+     *
+     * @param order ordem de serviço.
+     */
+    void add(ServiceOrder order) {
+        long last = lastDay(order);
+        for (long day = firstDay(order); day <= last; day++) {
+            days.compute(day, (key, bucket) -> {
+                Day target = bucket != null ? bucket : new Day();
+                target.add(order);
+                return target;
+            });
+        }
+    }
+
+    /**
+     * Retira uma ordem de serviço dos baldes. O período e o elevador da ordem
+     * devem ser os mesmos de quando ela foi posta.
+     *
+     * @param order ordem de serviço.
+     */
+    void remove(ServiceOrder order) {
+        long last = lastDay(order);
+        for (long day = firstDay(order); day <= last; day++) {
+            days.computeIfPresent(day, (key, bucket) -> bucket.remove(order) ? null : bucket);
+        }
+    }
+
+    /**
+     * Retorna as ordens de serviço de um dia.
+     *
+     * @param timestamp instante qualquer do dia.
+     * @return ordens de serviço do dia, ordenadas por data e hora.
+     */
+    List<ServiceOrder> day(long timestamp) {
+        Day bucket = days.get(dayOf(timestamp));
+        return bucket != null ? bucket.orders() : new ArrayList<>();
+    }
+
+    /**
+     * Retorna as ordens de serviço de um elevador num dia.
+     *
+     * @param timestamp  instante qualquer do dia.
+     * @param elevatorId identificador do elevador.
+     * @return ordens de serviço do elevador no dia, ordenadas por data e hora.
+     */
+    List<ServiceOrder> day(long timestamp, int elevatorId) {
+        Day bucket = days.get(dayOf(timestamp));
+        return bucket != null ? bucket.orders(elevatorId) : new ArrayList<>();
+    }
+
+    /**
+     * Retorna as ordens de serviço da semana, de segunda a domingo, de um dia.
+     * Uma ordem que toca mais de um dia aparece uma única vez.
+     *
+     * @param timestamp instante qualquer da semana.
+     * @return ordens de serviço da semana, ordenadas por data e hora.
+     */
+    List<ServiceOrder> week(long timestamp) {
+        long monday = date(timestamp).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toEpochDay();
+
+        TreeSet<ServiceOrder> week = new TreeSet<>(ORDER);
+        for (long day = monday; day < monday + DAYS_PER_WEEK; day++) {
+            Day bucket = days.get(day);
+            if (bucket != null) {
+                week.addAll(bucket.orders());
+            }
+        }
+
+        return new ArrayList<>(week);
+    }
+
+    /**
+     * Retorna o primeiro dia que o período de uma ordem de serviço toca.
+     *
+     * @param order ordem de serviço.
+     * @return dia, contado desde 1° de janeiro de 1970.
+     */
+    private long firstDay(ServiceOrder order) {
+        return dayOf(order.getDatetime().start());
+    }
+
+    /**
+     * Retorna o último dia que o período de uma ordem de serviço toca. O fim do
+     * período não faz parte dele; um período vazio toca apenas o seu começo.
+     *
+     * @param order ordem de serviço.
+     * @return dia, contado desde 1° de janeiro de 1970.
+     */
+    private long lastDay(ServiceOrder order) {
+        if (order.getDatetime().isEmpty()) {
+            return firstDay(order);
+        }
+
+        return dayOf(order.getDatetime().end() - 1);
+    }
+
+    /**
+     * Retorna o dia de um instante.
+     *
+     * @param timestamp instante, em milissegundos.
+     * @return dia, contado desde 1° de janeiro de 1970.
+     */
+    private long dayOf(long timestamp) {
+        return date(timestamp).toEpochDay();
+    }
+
+    /**
+     * Retorna a data de um instante, no fuso horário do calendário.
+     *
+     * @param timestamp instante, em milissegundos.
+     * @return data do instante.
+     */
+    private LocalDate date(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+    }
+
+    /**
+     * Retorna uma representação textual do calendário.
+     *
+     * @return representação textual do calendário.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d)", days.size());
+    }
+
+    /**
+     * Classe que representa o balde de um dia.
+     */
+    private static final class Day {
+
+        /**
+         * Ordens de serviço do dia.
+         */
+        private final TreeSet<ServiceOrder> orders;
+
+        /**
+         * Ordens de serviço do dia indexadas pelo identificador do elevador.
+         */
+        private final HashMap<Integer, TreeSet<ServiceOrder>> elevators;
+
+        /**
+         * Construtor padrão.
+         */
+        Day() {
+            this.orders = new TreeSet<>(ORDER);
+            this.elevators = new HashMap<>();
+        }
+
+        /**
+         * Construtor de cópia.
+         *
+         * @param other balde a ser copiado.
+         */
+        Day(Day other) {
+            this.orders = new TreeSet<>(other.orders);
+            this.elevators = new HashMap<>();
+
+            for (Map.Entry<Integer, TreeSet<ServiceOrder>> entry : other.elevators.entrySet()) {
+                this.elevators.put(entry.getKey(), new TreeSet<>(entry.getValue()));
+            }
+        }
+
+        /**
+         * Põe uma ordem de serviço no balde.
+         *
+         * @param order ordem de serviço.
+         */
+        synchronized void add(ServiceOrder order) {
+            orders.add(order);
+            elevators.computeIfAbsent(order.getElevator(), elevator -> new TreeSet<>(ORDER)).add(order);
+        }
+
+        /**
+         * Retira uma ordem de serviço do balde.
+         *
+         * @param order ordem de serviço.
+         * @return {@code true} se o balde ficou vazio.
+         */
+        synchronized boolean remove(ServiceOrder order) {
+            orders.remove(order);
+
+            TreeSet<ServiceOrder> elevator = elevators.get(order.getElevator());
+            if (elevator != null && elevator.remove(order) && elevator.isEmpty()) {
+                elevators.remove(order.getElevator());
+            }
+
+            return orders.isEmpty();
+        }
+
+        /**
+         * Retorna as ordens de serviço do balde.
+         *
+         * @return ordens de serviço, ordenadas por data e hora.
+         */
+        synchronized List<ServiceOrder> orders() {
+            return new ArrayList<>(orders);
+        }
+
+        /**
+         * Retorna as ordens de serviço de um elevador no balde.
+         *
+         * @param elevatorId identificador do elevador.
+         * @return ordens de serviço do elevador, ordenadas por data e hora.
+         */
+        synchronized List<ServiceOrder> orders(int elevatorId) {
+            TreeSet<ServiceOrder> elevator = elevators.get(elevatorId);
+            return elevator != null ? new ArrayList<>(elevator) : new ArrayList<>();
+        }
+    }
+}
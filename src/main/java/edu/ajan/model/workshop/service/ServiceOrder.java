@@ -1,9 +1,14 @@
 package edu.ajan.model.workshop.service;
 
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+
+import com.google.gson.annotations.JsonAdapter;
 
 import edu.ajan.model.exception.WorkshopException;
 import edu.ajan.model.persistence.InstanceCountState;
+import edu.ajan.model.persistence.TransitionsAdapter;
 import edu.ajan.model.workshop.date.DateSpan;
 import edu.ajan.model.workshop.financial.InvoiceDraft;
 
@@ -29,6 +34,17 @@ public class ServiceOrder {
      */
     public static final int UNSET_ELEVATOR = -1;
 
+    /**
+     * Valor que indica que a ordem de serviço não está associada a nenhum
+     * mecânico.
+     */
+    public static final int UNSET_MECHANIC = 0;
+
+    /**
+     * Valor que indica que a ordem de serviço nunca passou por um status.
+     */
+    public static final long UNSET_TIME = -1;
+
     /**
      * Contador de instâncias.
      */
@@ -51,6 +67,9 @@ public class ServiceOrder {
 
     /**
      * Identificador do mecânico (funcionário).
+     * 
+     * {@link #UNSET_MECHANIC} indica que a ordem de serviço não está associada a
+     * nenhum mecânico.
      */
     private int mechanic;
 
@@ -62,6 +81,14 @@ public class ServiceOrder {
      */
     private int elevator;
 
+    /**
+     * Campo de bits das funções que o elevador da ordem de serviço deve
+     * desempenhar.
+     * 
+     * @see ElevatorFunction
+     */
+    private int function;
+
     /**
      * Rascunho de nota fiscal associado à ordem de serviço.
      */
@@ -72,6 +99,13 @@ public class ServiceOrder {
      */
     private Status status;
 
+    /**
+     * Momentos, em milissegundos, em que a ordem de serviço passou a cada
+     * status.
+     */
+    @JsonAdapter(TransitionsAdapter.class)
+    private EnumMap<Status, Long> transitions;
+
     /**
      * Período de data e hora da ordem de serviço.
      */
@@ -82,9 +116,11 @@ public class ServiceOrder {
      */
     public ServiceOrder() {
         this.id = generateNextId();
+        this.mechanic = UNSET_MECHANIC;
         this.elevator = UNSET_ELEVATOR;
         this.invoice = new InvoiceDraft();
         this.status = Status.PENDING;
+        this.transitions = new EnumMap<>(Status.class);
         this.datetime = new DateSpan(0, 0);
     }
 
@@ -104,6 +140,7 @@ public class ServiceOrder {
         this.setVehicle(vehicle);
         this.setMechanic(mechanic);
         this.setElevator(elevator);
+        this.transitions = new EnumMap<>(Status.class);
         this.setStatus(status);
         this.setDatetime(datetime);
     }
@@ -133,6 +170,27 @@ public class ServiceOrder {
         this(customer, vehicle, mechanic, UNSET_ELEVATOR, Status.PENDING, datetime);
     }
 
+    /**
+     * Construtor de cópia. A cópia tem o mesmo identificador da ordem copiada
+     * e é usada pelo agendador para substituir uma ordem agendada, em vez de
+     * alterá-la no lugar. O rascunho de nota fiscal também é copiado, pois a
+     * ordem substituída pode estar numa captura lida por outra thread.
+     * 
+     * @param other ordem de serviço a ser copiada.
+     */
+    ServiceOrder(ServiceOrder other) {
+        this.id = other.id;
+        this.customer = other.customer;
+        this.vehicle = other.vehicle;
+        this.mechanic = other.mechanic;
+        this.elevator = other.elevator;
+        this.function = other.function;
+        this.invoice = other.invoice != null ? new InvoiceDraft(other.invoice) : new InvoiceDraft();
+        this.status = other.status;
+        this.transitions = new EnumMap<>(other.transitions);
+        this.datetime = other.datetime;
+    }
+
     /**
      * Retorna o identificador da ordem de serviço.
      * 
@@ -214,6 +272,34 @@ public class ServiceOrder {
         this.elevator = elevator;
     }
 
+    /**
+     * Campo de bits das funções que o elevador da ordem de serviço deve
+     * desempenhar.
+     * 
+     * @return funções exigidas do elevador.
+     */
+    public int getFunction() {
+        return function;
+    }
+
+    /**
+     * Define as funções que o elevador da ordem de serviço deve desempenhar.
+     * 
+     * @param function funções exigidas do elevador.
+     */
+    public void setFunction(int function) {
+        this.function = function;
+    }
+
+    /**
+     * Define as funções que o elevador da ordem de serviço deve desempenhar.
+     * 
+     * @param functions funções exigidas do elevador.
+     */
+    public void setFunction(ElevatorFunction... functions) {
+        this.function = ElevatorFunction.codeOf(functions);
+    }
+
     /**
      * Retorna o rascunho de nota fiscal associado à ordem de serviço.
      * 
@@ -233,12 +319,67 @@ public class ServiceOrder {
     }
 
     /**
-     * Define o status da ordem de serviço.
+     * Define o status da ordem de serviço, registrando o momento atual como o
+     * da transição.
      * 
      * @param status status da ordem de serviço.
+     * 
+     * @throws WorkshopException se o status for nulo ou se a transição não for
+     *                           permitida.
      */
     public void setStatus(Status status) {
+        this.setStatus(status, System.currentTimeMillis());
+    }
+
+    /**
+     * Define o status da ordem de serviço, registrando o momento da transição.
+     * Definir o status atual não muda nada. Uma ordem já agendada deve mudar de
+     * status apenas por {@link Scheduler#changeStatus}, que mantém o índice
+     * por status.
+     * 
+     * @param status    status da ordem de serviço.
+     * @param timestamp momento da transição, em milissegundos.
+     * 
+     * @throws WorkshopException se o status for nulo ou se a transição não for
+     *                           permitida.
+     */
+    public void setStatus(Status status, long timestamp) {
+        if (status == null) {
+            throw new WorkshopException("status não pode ser nulo");
+        }
+
+        if (status == this.status) {
+            return;
+        }
+
+        if (this.status != null && !this.status.canTransitionTo(status)) {
+            throw new WorkshopException("transição de status inválida: %s para %s", this.status, status);
+        }
+
         this.status = status;
+        this.transitions.put(status, timestamp);
+    }
+
+    /**
+     * Retorna o momento em que a ordem de serviço passou a um status.
+     * 
+     * @param status status.
+     * @return momento da transição, em milissegundos, ou {@link #UNSET_TIME}
+     *         se a ordem nunca passou pelo status.
+     */
+    public long getStatusTime(Status status) {
+        Long time = transitions.get(status);
+        return time != null ? time : UNSET_TIME;
+    }
+
+    /**
+     * Retorna uma estrutura iterável dos status pelos quais a ordem de serviço
+     * passou, na ordem dos status.
+     * 
+     * @return estrutura iterável de status.
+     */
+    public Iterable<Status> getTransitions() {
+        return Collections.unmodifiableSet(transitions.keySet());
     }
 
     /**
@@ -265,6 +406,7 @@ public class ServiceOrder {
 
     /**
      * Verifica se a ordem de serviço é conflitante com outra ordem de serviço.
+     * Ordens sem elevador não ocupam nenhum elevador e nunca conflitam.
      * 
      * @param other outra ordem de serviço a ser comparada.
      * @return {@code true} se a ordem de serviço for conflitante com outra ordem de
@@ -272,6 +414,7 @@ public class ServiceOrder {
      */
     public boolean isConflicting(ServiceOrder other) {
         return true
+                && this.elevator != UNSET_ELEVATOR
                 && this.elevator == other.getElevator()
                 && this.getDatetime().intersects(other.getDatetime());
     }
@@ -281,7 +424,7 @@ public class ServiceOrder {
      * 
      * @return número total de instâncias criadas.
      */
-    public static int getInstanceCount() {
+    public static synchronized int getInstanceCount() {
         return instanceCount;
     }
 
@@ -290,7 +433,7 @@ public class ServiceOrder {
      * 
      * @param state estado salvo do contador de instâncias.
      */
-    public static void restoreInstanceCount(InstanceCountState state) {
+    public static synchronized void restoreInstanceCount(InstanceCountState state) {
         if (state == null) {
             return;
         }
@@ -301,16 +444,18 @@ public class ServiceOrder {
     /**
      * Incrementa o contador de instâncias.
      */
-    private static void incrementInstanceCount() {
+    private static synchronized void incrementInstanceCount() {
         instanceCount++;
     }
 
     /**
-     * Gera o próximo identificador e incrementa o contador de instâncias.
+     * Gera o próximo identificador e incrementa o contador de instâncias. É
+     * sincronizado, já que as ordens podem ser criadas em várias threads ao
+     * mesmo tempo.
      * 
      * @return próximo identificador único.
      */
-    private static int generateNextId() {
+    private static synchronized int generateNextId() {
         incrementInstanceCount();
         return instanceCount;
     }
@@ -322,7 +467,7 @@ public class ServiceOrder {
      */
     @Override
     public String toString() {
-        return String.format("(%d %d %d %d %d %s %s %s)",
-                id, customer, vehicle, mechanic, elevator, invoice, status, datetime);
+        return String.format("(%d %d %d %d %d %d %s %s %s)",
+                id, customer, vehicle, mechanic, elevator, function, invoice, status, datetime);
     }
 }
\ No newline at end of file
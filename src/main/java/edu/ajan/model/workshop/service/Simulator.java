@@ -0,0 +1,534 @@
+package edu.ajan.model.workshop.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+
+import edu.ajan.model.exception.WorkshopException;
+import edu.ajan.model.workshop.date.DateSpan;
+
+/**
+ * Classe que representa o simulador de cenários de elevadores, que reproduz as
+ * ordens de serviço de um período do histórico sobre outra configuração de
+ * elevadores.
+ *
+ * <p> As ordens não canceladas que começam no período são copiadas uma única
+ * vez, em colunas, e cada cenário é simulado por eventos discretos: as ordens
+ * chegam no começo do seu período original, em ordem, e cada uma vai para o
+ * horário livre mais cedo, a partir da chegada, entre os elevadores do cenário
+ * que desempenham as suas funções, com as mesmas regras do agendador: um
+ * elevador e um mecânico não atendem duas ordens ao mesmo tempo. A busca do
+ * horário é a mesma do {@link AutoScheduler}. Uma ordem é recusada se nenhum
+ * elevador desempenhar as suas funções ou se a espera passar da paciência do
+ * cenário.
+ *
+ * <p> Os cenários não alteram o agendador nem criam entidades, e podem ser
+ * simulados em paralelo por {@link #simulate(List)}.
+ *
+ * @author Alan Lima
+ */
+public final class Simulator {
+
+    /**
+     * Período do histórico reproduzido.
+     */
+    private final DateSpan period;
+
+    /**
+     * Momento de chegada de cada ordem.
+     */
+    private final long[] releases;
+
+    /**
+     * Duração de cada ordem.
+     */
+    private final long[] durations;
+
+    /**
+     * Campo de bits das funções exigidas por cada ordem.
+     */
+    private final int[] functions;
+
+    /**
+     * Identificador do mecânico de cada ordem.
+     */
+    private final int[] mechanics;
+
+    /**
+     * Construtor parametrizado, que copia as ordens do período.
+     *
+     * @param scheduler agendador cujas ordens são reproduzidas.
+     * @param period    período do histórico reproduzido.
+     */
+    public Simulator(Scheduler scheduler, DateSpan period) {
+        if (scheduler == null) {
+            throw new WorkshopException("agendador não pode ser nulo");
+        }
+
+        if (period == null) {
+            throw new WorkshopException("período não pode ser nulo");
+        }
+
+        ArrayList<ServiceOrder> orders = new ArrayList<>();
+        for (ServiceOrder order : scheduler.getOrders()) {
+            DateSpan datetime = order.getDatetime();
+            if (!datetime.isEmpty() && order.getStatus() != Status.CANCELLED
+                    && datetime.start() >= period.start() && datetime.start() < period.end()) {
+                orders.add(order);
+            }
+        }
+
+        orders.sort(Comparator.comparingLong((ServiceOrder order) -> order.getDatetime().start())
+                .thenComparingInt(ServiceOrder::id));
+
+        this.period = period;
+        this.releases = new long[orders.size()];
+        this.durations = new long[orders.size()];
+        this.functions = new int[orders.size()];
+        this.mechanics = new int[orders.size()];
+
+        for (int i = 0; i < orders.size(); i++) {
+            ServiceOrder order = orders.get(i);
+            releases[i] = order.getDatetime().start();
+            durations[i] = order.getDatetime().duration();
+            functions[i] = order.getFunction();
+            mechanics[i] = order.getMechanic();
+        }
+    }
+
+    /**
+     * Retorna o período do histórico reproduzido.
+     *
+     * @return período do histórico.
+     */
+    public DateSpan period() {
+        return period;
+    }
+
+    /**
+     * Retorna a quantidade de ordens reproduzidas.
+     *
+     * @return quantidade de ordens.
+     */
+    public int size() {
+        return releases.length;
+    }
+
+    /**
+     * Simula vários cenários em paralelo.
+     *
+     * @param scenarios cenários a serem simulados.
+     * @return resultados, na ordem dos cenários.
+     */
+    public List<Result> simulate(List<Scenario> scenarios) {
+        if (scenarios == null) {
+            throw new WorkshopException("cenários não podem ser nulos");
+        }
+
+        return scenarios.parallelStream().map(this::simulate).toList();
+    }
+
+    /**
+     * Simula um cenário.
+     *
+     * @param scenario cenário a ser simulado.
+     * @return resultado da simulação.
+     */
+    public Result simulate(Scenario scenario) {
+        if (scenario == null) {
+            throw new WorkshopException("cenário não pode ser nulo");
+        }
+
+        int[] elevators = scenario.functions;
+
+        // Prefere, em empate, o elevador com menos funções, como o escalonador
+        Integer[] preference = new Integer[elevators.length];
+        for (int i = 0; i < elevators.length; i++) {
+            preference[i] = i;
+        }
+
+        Arrays.sort(preference, Comparator.comparingInt((Integer i) -> Integer.bitCount(elevators[i]))
+                .thenComparingInt(i -> i));
+
+        ArrayList<TreeMap<Long, Long>> busy = new ArrayList<>();
+        for (int i = 0; i < elevators.length; i++) {
+            busy.add(new TreeMap<>());
+        }
+
+        HashMap<Integer, TreeMap<Long, Long>> agendas = new HashMap<>();
+        long[] booked = new long[elevators.length];
+
+        int served = 0;
+        int unsupported = 0;
+        int impatient = 0;
+        long totalWait = 0;
+        long maxWait = 0;
+
+        for (int i = 0; i < releases.length; i++) {
+            long release = releases[i];
+            long duration = durations[i];
+            long limit = deadline(release, scenario.patience, duration);
+
+            TreeMap<Long, Long> agenda = mechanics[i] != ServiceOrder.UNSET_MECHANIC
+                    ? agendas.computeIfAbsent(mechanics[i], mechanic -> new TreeMap<>())
+                    : null;
+
+            boolean supported = false;
+            long bestStart = AutoScheduler.NO_FIT;
+            int bestElevator = -1;
+
+            for (int elevator : preference) {
+                if (!ElevatorFunction.supports(elevators[elevator], functions[i])) {
+                    continue;
+                }
+
+                supported = true;
+                long start = AutoScheduler.earliestFit(busy.get(elevator), agenda, release, duration, limit);
+                if (start != AutoScheduler.NO_FIT && (bestStart == AutoScheduler.NO_FIT || start < bestStart)) {
+                    bestStart = start;
+                    bestElevator = elevator;
+                }
+            }
+
+            if (!supported) {
+                unsupported++;
+                continue;
+            }
+
+            if (bestElevator < 0) {
+                impatient++;
+                continue;
+            }
+
+            busy.get(bestElevator).put(bestStart, bestStart + duration);
+            if (agenda != null) {
+                agenda.put(bestStart, bestStart + duration);
+            }
+
+            booked[bestElevator] += duration;
+            served++;
+            totalWait += bestStart - release;
+            maxWait = Math.max(maxWait, bestStart - release);
+        }
+
+        return new Result(scenario, period, served, unsupported, impatient, totalWait, maxWait, booked);
+    }
+
+    /**
+     * Calcula o momento até o qual uma ordem deve terminar para que a espera
+     * não passe da paciência, sem transbordar.
+     *
+     * @param release  momento de chegada da ordem.
+     * @param patience espera máxima.
+     * @param duration duração da ordem.
+     * @return momento limite.
+     */
+    private static long deadline(long release, long patience, long duration) {
+        long latest = Long.MAX_VALUE - release > patience ? release + patience : Long.MAX_VALUE;
+        return Long.MAX_VALUE - latest > duration ? latest + duration : Long.MAX_VALUE;
+    }
+
+    /**
+     * Retorna uma representação textual do simulador.
+     *
+     * @return representação textual do simulador.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%s %d)", period, releases.length);
+    }
+
+    /**
+     * Classe que representa um cenário, uma configuração de elevadores e a
+     * paciência dos clientes.
+     */
+    public static final class Scenario {
+
+        /**
+         * Paciência ilimitada.
+         */
+        public static final long UNLIMITED_PATIENCE = Long.MAX_VALUE;
+
+        /**
+         * Nome do cenário.
+         */
+        private final String name;
+
+        /**
+         * Espera máxima de uma ordem antes de ser recusada, em milissegundos.
+         */
+        private final long patience;
+
+        /**
+         * Campo de bits das funções de cada elevador.
+         */
+        private final int[] functions;
+
+        /**
+         * Construtor parametrizado.
+         *
+         * @param name      nome do cenário.
+         * @param patience  espera máxima de uma ordem, em milissegundos.
+         * @param functions campo de bits das funções de cada elevador.
+         */
+        public Scenario(String name, long patience, int... functions) {
+            if (name == null) {
+                throw new WorkshopException("nome do cenário não pode ser nulo");
+            }
+
+            if (patience < 0) {
+                throw new WorkshopException("paciência não pode ser negativa");
+            }
+
+            this.name = name;
+            this.patience = patience;
+            this.functions = functions != null ? functions.clone() : new int[0];
+        }
+
+        /**
+         * Cria o cenário da configuração atual de elevadores de um agendador.
+         *
+         * @param name      nome do cenário.
+         * @param patience  espera máxima de uma ordem, em milissegundos.
+         * @param scheduler agendador.
+         * @return cenário atual.
+         */
+        public static Scenario of(String name, long patience, Scheduler scheduler) {
+            ArrayList<Integer> functions = new ArrayList<>();
+            for (Elevator elevator : scheduler.getElevators()) {
+                functions.add(elevator.getFunction());
+            }
+
+            return new Scenario(name, patience, functions.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        /**
+         * Cria um cenário com um elevador a mais.
+         *
+         * @param name     nome do novo cenário.
+         * @param function campo de bits das funções do novo elevador.
+         * @return novo cenário.
+         */
+        public Scenario withElevator(String name, int function) {
+            int[] next = Arrays.copyOf(functions, functions.length + 1);
+            next[functions.length] = function;
+            return new Scenario(name, patience, next);
+        }
+
+        /**
+         * Cria um cenário com um elevador a menos.
+         *
+         * @param name     nome do novo cenário.
+         * @param position posição do elevador retirado, na ordem do cenário.
+         * @return novo cenário.
+         */
+        public Scenario withoutElevator(String name, int position) {
+            if (position < 0 || position >= functions.length) {
+                throw new WorkshopException("posição de elevador inválida: %d", position);
+            }
+
+            int[] next = new int[functions.length - 1];
+            System.arraycopy(functions, 0, next, 0, position);
+            System.arraycopy(functions, position + 1, next, position, functions.length - position - 1);
+            return new Scenario(name, patience, next);
+        }
+
+        /**
+         * Retorna o nome do cenário.
+         *
+         * @return nome do cenário.
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Retorna a espera máxima de uma ordem.
+         *
+         * @return espera máxima, em milissegundos.
+         */
+        public long patience() {
+            return patience;
+        }
+
+        /**
+         * Retorna a quantidade de elevadores do cenário.
+         *
+         * @return quantidade de elevadores.
+         */
+        public int elevators() {
+            return functions.length;
+        }
+
+        /**
+         * Retorna uma representação textual do cenário.
+         *
+         * @return representação textual do cenário.
+         */
+        @Override
+        public String toString() {
+            return String.format("(%s %d %s)", name, patience, Arrays.toString(functions));
+        }
+    }
+
+    /**
+     * Classe que representa o resultado da simulação de um cenário.
+     */
+    public static final class Result {
+
+        /**
+         * Cenário simulado.
+         */
+        private final Scenario scenario;
+
+        /**
+         * Período do histórico reproduzido.
+         */
+        private final DateSpan period;
+
+        /**
+         * Quantidade de ordens atendidas.
+         */
+        private final int served;
+
+        /**
+         * Quantidade de ordens recusadas por nenhum elevador desempenhar as
+         * suas funções.
+         */
+        private final int unsupported;
+
+        /**
+         * Quantidade de ordens recusadas por a espera passar da paciência.
+         */
+        private final int impatient;
+
+        /**
+         * Soma das esperas das ordens atendidas, em milissegundos.
+         */
+        private final long totalWait;
+
+        /**
+         * Maior espera de uma ordem atendida, em milissegundos.
+         */
+        private final long maxWait;
+
+        /**
+         * Tempo ocupado de cada elevador, em milissegundos.
+         */
+        private final long[] booked;
+
+        /**
+         * Construtor parametrizado.
+         *
+         * @param scenario    cenário simulado.
+         * @param period      período do histórico.
+         * @param served      quantidade de ordens atendidas.
+         * @param unsupported quantidade de ordens sem elevador que as atenda.
+         * @param impatient   quantidade de ordens que esperariam demais.
+         * @param totalWait   soma das esperas.
+         * @param maxWait     maior espera.
+         * @param booked      tempo ocupado de cada elevador.
+         */
+        private Result(Scenario scenario, DateSpan period, int served, int unsupported, int impatient,
+                long totalWait, long maxWait, long[] booked) {
+
+            this.scenario = scenario;
+            this.period = period;
+            this.served = served;
+            this.unsupported = unsupported;
+            this.impatient = impatient;
+            this.totalWait = totalWait;
+            this.maxWait = maxWait;
+            this.booked = booked;
+        }
+
+        /**
+         * Retorna o cenário simulado.
+         *
+         * @return cenário simulado.
+         */
+        public Scenario scenario() {
+            return scenario;
+        }
+
+        /**
+         * Retorna a quantidade de ordens atendidas.
+         *
+         * @return quantidade de ordens atendidas.
+         */
+        public int getServed() {
+            return served;
+        }
+
+        /**
+         * Retorna a quantidade de ordens recusadas.
+         *
+         * @return quantidade de ordens recusadas.
+         */
+        public int getRejected() {
+            return unsupported + impatient;
+        }
+
+        /**
+         * Retorna a quantidade de ordens recusadas por nenhum elevador
+         * desempenhar as suas funções.
+         *
+         * @return quantidade de ordens sem elevador que as atenda.
+         */
+        public int getUnsupported() {
+            return unsupported;
+        }
+
+        /**
+         * Retorna a quantidade de ordens recusadas por a espera passar da
+         * paciência.
+         *
+         * @return quantidade de ordens que esperariam demais.
+         */
+        public int getImpatient() {
+            return impatient;
+        }
+
+        /**
+         * Retorna a espera média das ordens atendidas.
+         *
+         * @return espera média, em milissegundos.
+         */
+        public long getMeanWait() {
+            return served > 0 ? totalWait / served : 0;
+        }
+
+        /**
+         * Retorna a maior espera de uma ordem atendida.
+         *
+         * @return maior espera, em milissegundos.
+         */
+        public long getMaxWait() {
+            return maxWait;
+        }
+
+        /**
+         * Retorna a fração do período em que um elevador do cenário esteve
+         * ocupado. Ordens que terminam depois do período contam por inteiro.
+         *
+         * @param position posição do elevador, na ordem do cenário.
+         * @return fração ocupada.
+         */
+        public double utilization(int position) {
+            return period.duration() > 0 ? (double) booked[position] / period.duration() : 0;
+        }
+
+        /**
+         * Retorna uma representação textual do resultado.
+         *
+         * @return representação textual do resultado.
+         */
+        @Override
+        public String toString() {
+            return String.format("(%s %d %d %d)", scenario.name, served, getRejected(), getMeanWait());
+        }
+    }
+}
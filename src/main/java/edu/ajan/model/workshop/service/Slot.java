@@ -0,0 +1,61 @@
+package edu.ajan.model.workshop.service;
+
+import edu.ajan.model.workshop.date.DateSpan;
+
+/**
+ * Classe que representa um horário livre num elevador, como encontrado pelo
+ * {@link Scheduler}.
+ * 
+ * @author Alan Lima
+ */
+public final class Slot {
+
+    /**
+     * Identificador do elevador.
+     */
+    private final int elevator;
+
+    /**
+     * Período de data e hora livre.
+     */
+    private final DateSpan datetime;
+
+    /**
+     * Construtor parametrizado.
+     * 
+     * @param elevator identificador do elevador.
+     * @param datetime período de data e hora livre.
+     */
+    public Slot(int elevator, DateSpan datetime) {
+        this.elevator = elevator;
+        this.datetime = datetime;
+    }
+
+    /**
+     * Retorna o identificador do elevador.
+     * 
+     * @return identificador do elevador.
+     */
+    public int elevator() {
+        return elevator;
+    }
+
+    /**
+     * Retorna o período de data e hora livre.
+     * 
+     * @return período de data e hora livre.
+     */
+    public DateSpan datetime() {
+        return datetime;
+    }
+
+    /**
+     * Retorna uma representação textual do horário.
+     * 
+     * @return representação textual do horário.
+     */
+    @Override
+    public String toString() {
+        return String.format("(%d %s)", elevator, datetime);
+    }
+}
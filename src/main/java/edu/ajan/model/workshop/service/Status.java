@@ -2,6 +2,10 @@ package edu.ajan.model.workshop.service;
 
 /**
  * Enumeração do estados das ordens de serviço.
+ * 
+ * <p> Uma ordem de serviço pendente pode ser iniciada ou cancelada; uma
+ * iniciada, concluída ou cancelada; e uma concluída, entregue. Entregue e
+ * cancelada são estados finais.
  */
 public enum Status {
 
@@ -30,4 +34,27 @@ public enum Status {
      */
     CANCELLED;
 
+    /**
+     * Verifica se uma ordem de serviço neste status pode passar a outro.
+     * 
+     * @param next próximo status.
+     * @return {@code true} se, e somente se a transição for permitida.
+     */
+    public boolean canTransitionTo(Status next) {
+        return switch (this) {
+            case PENDING -> next == INITIATED || next == CANCELLED;
+            case INITIATED -> next == COMPLETED || next == CANCELLED;
+            case COMPLETED -> next == DELIVERED;
+            case DELIVERED, CANCELLED -> false;
+        };
+    }
+
+    /**
+     * Verifica se o status é final, isto é, se não permite nenhuma transição.
+     * 
+     * @return {@code true} se, e somente se o status for final.
+     */
+    public boolean isFinal() {
+        return this == DELIVERED || this == CANCELLED;
+    }
 }
@@ -22,14 +22,33 @@ public class Administrator extends StaffMember {
      * @param name        nome do administrador.
      * @param phone       número de telefone do administrador.
      * @param cpf         CPF do administrador.
-     * @param salary      salário do administrador.
+     * @param salary      salário do administrador, em centavos.
      * @param password    senha do administrador.
      * @param accessLevel nível de acesso do administrador.
      */
-    public Administrator(String name, String phone, String cpf, double salary, String password, AccessLevel accessLevel) {
+    public Administrator(String name, String phone, String cpf, long salary, String password, AccessLevel accessLevel) {
         super(name, phone, cpf, salary, password, accessLevel);
     }
 
+    /**
+     * Construtor de cópia.
+     * 
+     * @param other administrador a ser copiado.
+     */
+    Administrator(Administrator other) {
+        super(other);
+    }
+
+    /**
+     * Cria uma cópia do administrador.
+     * 
+     * @return cópia do administrador.
+     */
+    @Override
+    Administrator copy() {
+        return new Administrator(this);
+    }
+
     /**
      * Retorna uma representação em string do administrador.
      * 
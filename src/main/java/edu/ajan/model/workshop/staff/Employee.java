@@ -1,5 +1,8 @@
 package edu.ajan.model.workshop.staff;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
 import java.util.TreeSet;
 
 import edu.ajan.model.auth.AccessLevel;
@@ -18,7 +21,8 @@ public class Employee extends StaffMember {
     public static final long UNSET_TIME = -1L;
 
     /**
-     * Turnos (pontos) do funcionário.
+     * Turnos (pontos) do funcionário. Os turnos nunca se sobrepõem, de modo que
+     * ficam ordenados tanto pelo começo quanto pelo fim.
      */
     private TreeSet<DateSpan> shifts;
 
@@ -44,18 +48,40 @@ public class Employee extends StaffMember {
      * @param name        nome do funcionário.
      * @param phone       número de telefone do funcionário.
      * @param cpf         CPF do funcionário.
-     * @param salary      salário do funcionário.
+     * @param salary      salário do funcionário, em centavos.
      * @param password    senha do funcionário.
      * @param accessLevel nível de acesso do funcionário.
      * 
      * @throws WorkshopException se algum dos parâmetros for inválido.
      */
-    public Employee(String name, String phone, String cpf, double salary, String password, AccessLevel accessLevel) {
+    public Employee(String name, String phone, String cpf, long salary, String password, AccessLevel accessLevel) {
         super(name, phone, cpf, salary, password, accessLevel);
         this.shifts = new TreeSet<>();
         this.openShift = UNSET_TIME;
     }
 
+    /**
+     * Construtor de cópia. Os turnos são copiados para um novo conjunto, de
+     * modo que registrar um turno na cópia não altera o funcionário copiado.
+     * 
+     * @param other funcionário a ser copiado.
+     */
+    Employee(Employee other) {
+        super(other);
+        this.shifts = new TreeSet<>(other.shifts);
+        this.openShift = other.openShift;
+    }
+
+    /**
+     * Cria uma cópia do funcionário.
+     * 
+     * @return cópia do funcionário.
+     */
+    @Override
+    Employee copy() {
+        return new Employee(this);
+    }
+
     /**
      * Retorna o turno atual não terminado.
      * 
@@ -74,7 +100,55 @@ public class Employee extends StaffMember {
      */
     public Iterable<DateSpan> getShifts(long start, long end) {
         DateSpan span = new DateSpan(start, end);
-        return shifts.stream().filter(shift -> shift.intersects(span)).toList();
+        List<DateSpan> found = new ArrayList<>();
+        if (span.isEmpty()) {
+            return found;
+        }
+
+        // Começa pelo último turno que começa até o começo do espaço de tempo
+        DateSpan first = shifts.floor(new DateSpan(span.start(), Long.MAX_VALUE));
+        NavigableSet<DateSpan> candidates = first != null ? shifts.tailSet(first, true) : shifts;
+
+        for (DateSpan shift : candidates) {
+            if (shift.start() >= span.end()) {
+                break;
+            }
+
+            if (shift.intersects(span)) {
+                found.add(shift);
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Verifica se o funcionário está de turno durante todo um espaço de tempo,
+     * coberto por um turno ou por turnos emendados, em tempo logarítmico na
+     * quantidade de turnos.
+     * 
+     * @param span espaço de tempo.
+     * @return {@code true} se, e somente se todo o espaço de tempo estiver
+     *         coberto por turnos.
+     */
+    public boolean isOnShift(DateSpan span) {
+        if (span == null || span.isEmpty()) {
+            return false;
+        }
+
+        long covered = span.start();
+        DateSpan shift = shifts.floor(new DateSpan(covered, Long.MAX_VALUE));
+
+        while (shift != null && shift.start() <= covered && shift.end() > covered) {
+            covered = shift.end();
+            if (covered >= span.end()) {
+                return true;
+            }
+
+            shift = shifts.higher(shift);
+        }
+
+        return false;
     }
 
     /**
@@ -95,10 +169,10 @@ public class Employee extends StaffMember {
             return;
         }
 
-        for (DateSpan span : shifts) {
-            if (span.intersects(shift)) {
-                throw new WorkshopException("turnos não podem se sobrepor");
-            }
+        // Apenas o último turno que começa antes do fim do novo pode intersectá-lo
+        DateSpan previous = shifts.lower(new DateSpan(shift.end(), shift.end() + 1));
+        if (previous != null && previous.intersects(shift)) {
+            throw new WorkshopException("turnos não podem se sobrepor");
         }
 
         shifts.add(shift);
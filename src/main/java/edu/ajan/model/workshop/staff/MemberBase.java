@@ -1,21 +1,100 @@
 package edu.ajan.model.workshop.staff;
 
 import java.util.HashMap;
+import java.util.function.Consumer;
+
+import edu.ajan.model.exception.WorkshopException;
+import edu.ajan.model.persistence.EntityKind;
+import edu.ajan.model.persistence.Journal;
 
 /**
  * Classe que representa a base de membros de uma oficina mecânica.
  * 
+ * <p> Um membro já na base deve ser alterado por {@link #updateMember}, que o
+ * substitui por uma cópia alterada, para que a alteração entre no diário de
+ * operações e não chegue a uma captura sendo escrita.
+ * 
  * @author Alan Lima
  */
 public class MemberBase {
     
     private HashMap<Integer, StaffMember> members;
 
+    /**
+     * Diário de operações em que as alterações da base são registradas.
+     */
+    private Journal journal;
+
+    /**
+     * Indica se as coleções são compartilhadas com uma captura, caso em que
+     * devem ser copiadas antes da próxima alteração.
+     */
+    private volatile boolean shared;
+
     /**
      * Construtor padrão.
      */
     public MemberBase() {
         this.members = new HashMap<>();
+        this.journal = Journal.DETACHED;
+    }
+
+    /**
+     * Construtor parametrizado, usado nas capturas, que compartilha as coleções
+     * passadas.
+     * 
+     * @param members mapa de membros.
+     */
+    private MemberBase(HashMap<Integer, StaffMember> members) {
+        this.members = members;
+        this.journal = Journal.DETACHED;
+        this.shared = true;
+    }
+
+    /**
+     * Define o diário de operações em que as alterações da base são
+     * registradas.
+     * 
+     * @param journal diário de operações, ou {@code null} para não registrar.
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal != null ? journal : Journal.DETACHED;
+    }
+
+    /**
+     * Captura a base de membros no seu estado atual, em tempo constante. A captura
+     * compartilha as coleções com o original, e quem for alterado primeiro as
+     * copia antes, de modo que a captura permanece intacta e pode ser lida em
+     * outra thread enquanto o original continua em uso. As entidades em si não
+     * são copiadas, pois nunca são alteradas no lugar.
+     * 
+     * @return captura desanexada de qualquer diário.
+     */
+    public MemberBase capture() {
+        this.shared = true;
+        return new MemberBase(members);
+    }
+
+    /**
+     * Deixa de compartilhar as coleções com a última captura, quando ela não
+     * for mais lida, de modo que as próximas alterações não as copiem. Deve
+     * ser chamado apenas depois que a captura deixar de ser usada.
+     */
+    public void release() {
+        this.shared = false;
+    }
+
+    /**
+     * Copia as coleções compartilhadas com uma captura, se houver, antes de uma
+     * alteração.
+     */
+    private void copyOnWrite() {
+        if (!shared) {
+            return;
+        }
+
+        this.members = new HashMap<>(members);
+        this.shared = false;
     }
 
     /**
@@ -54,7 +133,34 @@ public class MemberBase {
      * @param member membro a ser adicionado.
      */
     public void addMember(StaffMember member) {
+        copyOnWrite();
         members.put(member.id(), member);
+        journal.added(EntityKind.MEMBER, member);
+    }
+
+    /**
+     * Altera um membro da base, como ao mudar os seus turnos. A alteração é
+     * feita numa cópia do mesmo tipo, que substitui o membro na base, de modo
+     * que uma captura continua vendo o membro como era.
+     * 
+     * @param memberId identificador do membro.
+     * @param change   alteração a ser aplicada à cópia.
+     * 
+     * @throws WorkshopException se o membro não existir ou se a alteração
+     *                           for inválida, caso em que nada é alterado.
+     */
+    public void updateMember(int memberId, Consumer<StaffMember> change) {
+        StaffMember member = members.get(memberId);
+        if (member == null) {
+            throw new WorkshopException("membro não existe");
+        }
+
+        StaffMember updated = member.copy();
+        change.accept(updated);
+
+        copyOnWrite();
+        members.put(memberId, updated);
+        journal.updated(EntityKind.MEMBER, updated);
     }
 
     /**
@@ -63,6 +169,8 @@ public class MemberBase {
      * @param memberId identificador do membro a ser removido.
      */
     public void removeMember(int memberId) {
+        copyOnWrite();
         members.remove(memberId);
+        journal.removed(EntityKind.MEMBER, memberId);
     }
 }
@@ -1,9 +1,13 @@
 package edu.ajan.model.workshop.staff;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import edu.ajan.model.auth.AccessLevel;
 import edu.ajan.model.exception.WorkshopException;
 import edu.ajan.model.persistence.InstanceCountState;
+import edu.ajan.model.persistence.MoneyAdapter;
 import edu.ajan.model.workshop.common.Person;
+import edu.ajan.model.workshop.money.Money;
 
 /**
  * Classe abstrata que representa um membro da oficina.
@@ -23,9 +27,10 @@ public abstract class StaffMember extends Person {
     private final int id;
 
     /**
-     * Salário do membro.
+     * Salário do membro, em centavos.
      */
-    private double salary;
+    @JsonAdapter(MoneyAdapter.class)
+    private long salary;
 
     /**
      * Hash da senha do membro.
@@ -51,19 +56,39 @@ public abstract class StaffMember extends Person {
      * @param name     nome do membro.
      * @param phone    número de telefone do membro.
      * @param cpf      CPF do membro.
-     * @param salary   salário do membro.
+     * @param salary   salário do membro, em centavos.
      * @param password senha do membro.
      * @param level    nível de acesso do membro.
      * 
      * @throws WorkshopException se algum dos parametros for inválido.
      */
-    public StaffMember(String name, String phone, String cpf, double salary, String password, AccessLevel level) {
+    public StaffMember(String name, String phone, String cpf, long salary, String password, AccessLevel level) {
         super(name, phone, cpf);
         this.id = generateNextId();
         this.setSalary(salary);
         this.setPassword(password);
         this.setAccessLevel(level);
     }
+
+    /**
+     * Construtor de cópia, que mantém o identificador do membro copiado.
+     * 
+     * @param other membro a ser copiado.
+     */
+    protected StaffMember(StaffMember other) {
+        super(other);
+        this.id = other.id;
+        this.salary = other.salary;
+        this.password = other.password;
+        this.accessLevel = other.accessLevel;
+    }
+
+    /**
+     * Cria uma cópia do membro, do mesmo tipo e com o mesmo identificador.
+     * 
+     * @return cópia do membro.
+     */
+    abstract StaffMember copy();
     
     /**
      * Retorna o identificador do membro.
@@ -77,20 +102,20 @@ public abstract class StaffMember extends Person {
     /**
      * Retorna o salário do membro.
      * 
-     * @return salário do membro.
+     * @return salário do membro, em centavos.
      */
-    public double getSalary() {
+    public long getSalary() {
         return salary;
     }
 
     /**
      * Define o salário do membro.
      * 
-     * @param salary salário do membro.
+     * @param salary salário do membro, em centavos.
      * 
      * @throws WorkshopException se o salário for negativo.
      */
-    public void setSalary(double salary) {
+    public void setSalary(long salary) {
         if (salary < 0) {
             throw new WorkshopException("salário não pode ser negativo");
         }
@@ -217,7 +242,7 @@ public abstract class StaffMember extends Person {
     @Override
     public String toString() {
         String person = super.toString();
-        return String.format("(%s %.2f %016x %s)", person.substring(1, person.length() - 1), salary, password,
+        return String.format("(%s %s %016x %s)", person.substring(1, person.length() - 1), Money.format(salary), password,
                 accessLevel);
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package edu.ajan.model.workshop.stock;
 
+import edu.ajan.model.workshop.money.Money;
+
 /**
  * Interface funcional que define uma modelo de contabilidade de valores no
  * estoque.
@@ -10,13 +12,12 @@ package edu.ajan.model.workshop.stock;
 public interface AccountingPolicy {
 
     /**
-     * Devolve a média ponderada dos valores.
+     * Devolve a média ponderada dos valores, exata até o arredondamento final
+     * ao centavo. Quantidades que somam zero resultam em valor zero.
      */
     public static final AccountingPolicy WEIGHTED_AVERAGE = (PricedQuantity batch0, PricedQuantity batch1) -> {
-        double weighted_sum = batch0.totalValue() + batch1.totalValue();
-        int total = batch0.quantity() + batch1.quantity();
-
-        return new PricedQuantity(total, weighted_sum / (double) total);
+        return new PricedQuantity(batch0.quantity() + batch1.quantity(),
+                Money.weightedAverage(batch0.value(), batch0.quantity(), batch1.value(), batch1.quantity()));
     };
 
     /**
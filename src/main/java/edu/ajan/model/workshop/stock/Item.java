@@ -1,6 +1,7 @@
 package edu.ajan.model.workshop.stock;
 
 import edu.ajan.model.exception.WorkshopException;
+import edu.ajan.model.workshop.money.Money;
 
 /**
  * Classe que representa um item (produto ou serviço) quantificado e
@@ -27,7 +28,7 @@ public class Item {
      */
     public Item() {
         this.info = 0;
-        this.batch = new PricedQuantity(0, 0.0);
+        this.batch = new PricedQuantity(0, Money.ZERO);
     }
 
     /**
@@ -43,6 +44,16 @@ public class Item {
         this.setBatch(batch);
     }
 
+    /**
+     * Construtor de cópia.
+     * 
+     * @param other item a ser copiado.
+     */
+    public Item(Item other) {
+        this.info = other.info;
+        this.batch = other.batch;
+    }
+
     /**
      * Retorna a informação de idenficação do item.
      * 
@@ -82,7 +93,7 @@ public class Item {
             throw new WorkshopException("quantidade não pode ser negativa");
         }
 
-        if (batch.value() < 0.0) {
+        if (batch.value() < 0) {
             throw new WorkshopException("valor não pode ser negativo");
         }
 
@@ -1,5 +1,10 @@
 package edu.ajan.model.workshop.stock;
 
+import com.google.gson.annotations.JsonAdapter;
+
+import edu.ajan.model.persistence.MoneyAdapter;
+import edu.ajan.model.workshop.money.Money;
+
 /**
  * Classe que representa um par quantidade-valor.
  * 
@@ -13,20 +18,21 @@ public final class PricedQuantity {
     private final int quantity;
 
     /**
-     * Valor.
+     * Valor unitário, em centavos.
      */
-    private final double value;
+    @JsonAdapter(MoneyAdapter.class)
+    private final long value;
 
     /**
      * Construtor padrão parametrizado.
      * 
      * @param quantity quantidade a ser definida.
-     * @param value    valor a ser definido.
+     * @param value    valor unitário a ser definido, em centavos.
      * 
      * @throws IllegalArgumentException se a quantidade for negativa ou o valor
      *                                  for negativo.
      */
-    public PricedQuantity(int quantity, double value) {
+    public PricedQuantity(int quantity, long value) {
         this.quantity = quantity;
         this.value = value;
     }
@@ -41,21 +47,21 @@ public final class PricedQuantity {
     }
 
     /**
-     * Retorna o valor.
+     * Retorna o valor unitário.
      * 
-     * @return valor.
+     * @return valor unitário, em centavos.
      */
-    public double value() {
+    public long value() {
         return value;
     }
 
     /**
      * Retorna o valor total, ou seja, a quantidade vezes o valor.
      * 
-     * @return valor total.
+     * @return valor total, em centavos.
      */
-    public double totalValue() {
-        return value * (double) quantity;
+    public long totalValue() {
+        return Money.times(value, quantity);
     }
 
     /**
@@ -114,10 +120,10 @@ public final class PricedQuantity {
     /**
      * Define um novo valor para a quantidade precificada.
      * 
-     * @param value novo valor a ser definido.
+     * @param value novo valor unitário a ser definido, em centavos.
      * @return nova instância de quantidade precificada com o valor atualizado.
      */
-    public PricedQuantity setValue(double value) {
+    public PricedQuantity setValue(long value) {
         return new PricedQuantity(this.quantity, value);
     }
 
@@ -138,6 +144,6 @@ public final class PricedQuantity {
      */
     @Override
     public String toString() {
-        return String.format("(%d %.2f)", quantity, value);
+        return String.format("(%d %s)", quantity, Money.format(value));
     }
 }
@@ -2,6 +2,7 @@ package edu.ajan.model.workshop.stock;
 
 import edu.ajan.model.exception.WorkshopException;
 import edu.ajan.model.persistence.InstanceCountState;
+import edu.ajan.model.workshop.money.Money;
 
 /**
  * Classe que representa um produto no estoque.
@@ -41,7 +42,7 @@ public class Product {
     public Product() {
         this.id = generateNextId();
         this.name = "";
-        this.batch = new PricedQuantity(0, 0);
+        this.batch = new PricedQuantity(0, Money.ZERO);
         this.unit = "";
     }
 
@@ -59,6 +60,20 @@ public class Product {
         this.setUnit(unit);
     }
 
+    /**
+     * Construtor de cópia. A cópia tem o mesmo identificador do produto
+     * copiado, e é usada pelo estoque para substituir o produto em vez de
+     * alterá-lo no lugar.
+     * 
+     * @param other produto a ser copiado.
+     */
+    Product(Product other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.batch = other.batch;
+        this.unit = other.unit;
+    }
+
     /**
      * Retorna o identificador único do produto.
      * 
@@ -112,7 +127,7 @@ public class Product {
             throw new WorkshopException("quantidade não pode ser negativa");
         }
 
-        if (batch.value() < 0.0) {
+        if (batch.value() < 0) {
             throw new WorkshopException("valor não pode ser negativo");
         }
 
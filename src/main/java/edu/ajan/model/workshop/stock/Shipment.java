@@ -2,8 +2,12 @@ package edu.ajan.model.workshop.stock;
 
 import java.util.ArrayList;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import edu.ajan.model.persistence.InstanceCountState;
+import edu.ajan.model.persistence.MoneyAdapter;
 import edu.ajan.model.workshop.date.Dates;
+import edu.ajan.model.workshop.money.Money;
 
 /**
  * Classe que representa uma remessa de produtos.
@@ -39,9 +43,10 @@ public class Shipment {
     private ArrayList<Item> items;
 
     /**
-     * Valor adicional da remessa, como frete ou taxas.
+     * Valor adicional da remessa, como frete ou taxas, em centavos.
      */
-    private double additional;
+    @JsonAdapter(MoneyAdapter.class)
+    private long additional;
 
     /**
      * Data de pagamento da remessa.
@@ -68,11 +73,12 @@ public class Shipment {
      * Construtor parametrizado.
      * 
      * @param supplier    identificador do fornecedor da remessa.
-     * @param additional  valor adicional da remessa, como frete ou taxas.
+     * @param additional  valor adicional da remessa, como frete ou taxas, em
+     *                    centavos.
      * @param paymentDate data de pagamento da remessa.
      * @param accounted   indica se a remessa foi contabilizada no estoque.
      */
-    public Shipment(int supplier, double additional, long paymentDate, boolean accounted) {
+    public Shipment(int supplier, long additional, long paymentDate, boolean accounted) {
         this();
         this.supplier = supplier;
         this.additional = additional;
@@ -80,6 +86,24 @@ public class Shipment {
         this.accounted = accounted;
     }
 
+    /**
+     * Construtor de cópia, que mantém o identificador da remessa copiada. Os
+     * itens também são copiados, pois são alteráveis.
+     * 
+     * @param other remessa a ser copiada.
+     */
+    Shipment(Shipment other) {
+        this.id = other.id;
+        this.supplier = other.supplier;
+        this.items = new ArrayList<>(other.items.size());
+        for (Item item : other.items) {
+            this.items.add(new Item(item));
+        }
+        this.additional = other.additional;
+        this.paymentDate = other.paymentDate;
+        this.accounted = other.accounted;
+    }
+
     /**
      * Retorna o identificador único da remessa.
      * 
@@ -161,18 +185,18 @@ public class Shipment {
     /**
      * Retorna o valor adicional da remessa, como frete ou taxas.
      * 
-     * @return valor adicional da remessa.
+     * @return valor adicional da remessa, em centavos.
      */
-    public double getAdditional() {
+    public long getAdditional() {
         return additional;
     }
 
     /**
      * Define o valor adicional da remessa, como frete ou taxas.
      * 
-     * @param additional valor adicional da remessa.
+     * @param additional valor adicional da remessa, em centavos.
      */
-    public void setAdditional(double additional) {
+    public void setAdditional(long additional) {
         this.additional = additional;
     }
 
@@ -269,7 +293,7 @@ public class Shipment {
      */
     @Override
     public String toString() {
-        return String.format("(%d %d %s %.2f %s %b)",
-                id, supplier, items, additional, Dates.formatAsDate(paymentDate), accounted);
+        return String.format("(%d %d %s %s %s %b)",
+                id, supplier, items, Money.format(additional), Dates.formatAsDate(paymentDate), accounted);
     }
 }
\ No newline at end of file
@@ -1,12 +1,23 @@
 package edu.ajan.model.workshop.stock;
 
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import edu.ajan.model.exception.WorkshopException;
+import edu.ajan.model.persistence.EntityKind;
+import edu.ajan.model.persistence.Journal;
 
 /**
  * Classe que representa o estoque.
  * 
+ * <p> Produtos, remessas e fornecedores já guardados no estoque são alterados
+ * pelos métodos {@code update}, ou pela contabilização de uma remessa, que
+ * substituem a entidade por uma cópia alterada e registram a cópia no diário;
+ * alterações feitas direto nas entidades não são registradas e podem chegar
+ * pela metade a uma captura sendo escrita.
+ * 
  * @author Alan Lima
  */
 public class Stock {
@@ -17,22 +28,101 @@ public class Stock {
     private HashMap<Integer, Product> products;
 
     /**
-     * Lista de remessas.
+     * Mapa de remessas indexadas pelo identificador da remessa, na ordem em
+     * que foram adicionadas.
      */
-    private ArrayList<Shipment> shipments;
+    private LinkedHashMap<Integer, Shipment> shipments;
 
     /**
      * Lista de fornecedores.
      */
     private TreeMap<Integer, Supplier> suppliers;
 
+    /**
+     * Diário de operações em que as alterações do estoque são registradas.
+     */
+    private Journal journal;
+
+    /**
+     * Indica se as coleções são compartilhadas com uma captura, caso em que
+     * devem ser copiadas antes da próxima alteração.
+     */
+    private volatile boolean shared;
+
     /**
      * Construtor padrão.
      */
     public Stock() {
         this.products = new HashMap<>();
-        this.shipments = new ArrayList<>();
+        this.shipments = new LinkedHashMap<>();
         this.suppliers = new TreeMap<>();
+        this.journal = Journal.DETACHED;
+    }
+
+    /**
+     * Construtor parametrizado, usado nas capturas, que compartilha as coleções
+     * passadas.
+     * 
+     * @param products  mapa de produtos.
+     * @param shipments mapa de remessas.
+     * @param suppliers mapa de fornecedores.
+     */
+    private Stock(HashMap<Integer, Product> products, LinkedHashMap<Integer, Shipment> shipments,
+            TreeMap<Integer, Supplier> suppliers) {
+
+        this.products = products;
+        this.shipments = shipments;
+        this.suppliers = suppliers;
+        this.journal = Journal.DETACHED;
+        this.shared = true;
+    }
+
+    /**
+     * Define o diário de operações em que as alterações do estoque são
+     * registradas.
+     * 
+     * @param journal diário de operações, ou {@code null} para não registrar.
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal != null ? journal : Journal.DETACHED;
+    }
+
+    /**
+     * Captura o estoque no seu estado atual, em tempo constante. A captura
+     * compartilha as coleções com o original, e quem for alterado primeiro as
+     * copia antes, de modo que a captura permanece intacta e pode ser lida em
+     * outra thread enquanto o original continua em uso. As entidades em si não
+     * são copiadas, pois nunca são alteradas no lugar.
+     * 
+     * @return captura desanexada de qualquer diário.
+     */
+    public Stock capture() {
+        this.shared = true;
+        return new Stock(products, shipments, suppliers);
+    }
+
+    /**
+     * Deixa de compartilhar as coleções com a última captura, quando ela não
+     * for mais lida, de modo que as próximas alterações não as copiem. Deve
+     * ser chamado apenas depois que a captura deixar de ser usada.
+     */
+    public void release() {
+        this.shared = false;
+    }
+
+    /**
+     * Copia as coleções compartilhadas com uma captura, se houver, antes de uma
+     * alteração.
+     */
+    private void copyOnWrite() {
+        if (!shared) {
+            return;
+        }
+
+        this.products = new HashMap<>(products);
+        this.shipments = new LinkedHashMap<>(shipments);
+        this.suppliers = new TreeMap<>(suppliers);
+        this.shared = false;
     }
 
     /**
@@ -71,7 +161,34 @@ public class Stock {
      * @param product produto a ser adicionado.
      */
     public void addProduct(Product product) {
+        copyOnWrite();
         products.put(product.id(), product);
+        journal.added(EntityKind.PRODUCT, product);
+    }
+
+    /**
+     * Altera um produto do estoque. A alteração é feita numa cópia, que
+     * substitui o produto no estoque, de modo que uma captura, que compartilha
+     * os produtos com o original, continua vendo o produto como era.
+     * 
+     * @param productId identificador do produto.
+     * @param change    alteração a ser aplicada à cópia.
+     * 
+     * @throws WorkshopException se o produto não existir ou se a alteração
+     *                           for inválida, caso em que nada é alterado.
+     */
+    public void updateProduct(int productId, Consumer<Product> change) {
+        Product product = products.get(productId);
+        if (product == null) {
+            throw new WorkshopException("produto não existe");
+        }
+
+        Product updated = new Product(product);
+        change.accept(updated);
+
+        copyOnWrite();
+        products.put(productId, updated);
+        journal.updated(EntityKind.PRODUCT, updated);
     }
 
     /**
@@ -80,7 +197,9 @@ public class Stock {
      * @param productId identificador do produto a ser removido.
      */
     public void removeProduct(int productId) {
+        copyOnWrite();
         products.remove(productId);
+        journal.removed(EntityKind.PRODUCT, productId);
     }
 
     /**
@@ -89,7 +208,7 @@ public class Stock {
      * @return estrutura iterável de remessas.
      */
     public Iterable<Shipment> getShipments() {
-        return shipments;
+        return shipments.values();
     }
 
     /**
@@ -100,13 +219,7 @@ public class Stock {
      *         existir.
      */
     public Shipment getShipment(int shipmentId) {
-        for (Shipment shipment : shipments) {
-            if (shipment.id() == shipmentId) {
-                return shipment;
-            }
-        }
-
-        return null;
+        return shipments.get(shipmentId);
     }
 
     /**
@@ -116,13 +229,7 @@ public class Stock {
      * @return {@code true} se, e somente se a remessa existir.
      */
     public boolean hasShipment(int shipmentId) {
-        for (Shipment shipment : shipments) {
-            if (shipment.id() == shipmentId) {
-                return true;
-            }
-        }
-
-        return false;
+        return shipments.containsKey(shipmentId);
     }
 
     /**
@@ -131,7 +238,33 @@ public class Stock {
      * @param shipment remessa a ser adicionado.
      */
     public void addShipment(Shipment shipment) {
-        shipments.add(shipment);
+        copyOnWrite();
+        shipments.put(shipment.id(), shipment);
+        journal.added(EntityKind.SHIPMENT, shipment);
+    }
+
+    /**
+     * Altera uma remessa do estoque, substituindo-a por uma cópia alterada, com
+     * os itens também copiados, como em {@link #updateProduct}.
+     * 
+     * @param shipmentId identificador da remessa.
+     * @param change     alteração a ser aplicada à cópia.
+     * 
+     * @throws WorkshopException se a remessa não existir ou se a alteração
+     *                           for inválida, caso em que nada é alterado.
+     */
+    public void updateShipment(int shipmentId, Consumer<Shipment> change) {
+        Shipment shipment = shipments.get(shipmentId);
+        if (shipment == null) {
+            throw new WorkshopException("remessa não existe");
+        }
+
+        Shipment updated = new Shipment(shipment);
+        change.accept(updated);
+
+        copyOnWrite();
+        shipments.put(shipmentId, updated);
+        journal.updated(EntityKind.SHIPMENT, updated);
     }
 
     /**
@@ -140,11 +273,15 @@ public class Stock {
      * @param shipmentId identificador da remessa a ser removido.
      */
     public void removeShipment(int shipmentId) {
-        shipments.removeIf(shipment -> shipment.id() == shipmentId);
+        copyOnWrite();
+        shipments.remove(shipmentId);
+        journal.removed(EntityKind.SHIPMENT, shipmentId);
     }
 
     /**
-     * Contabiliza um agendamento no estoque.
+     * Contabiliza uma remessa no estoque. Os produtos da remessa e a própria
+     * remessa são substituídos por cópias alteradas, como nos métodos
+     * {@code update}.
      * 
      * @param shipmentId identificador da remessa a ser contabilizado.
      */
@@ -155,6 +292,7 @@ public class Stock {
             return;
         }
 
+        copyOnWrite();
         for (Item item : shipment.getItems()) {
 
             Product product = getProduct(item.getInfo());
@@ -162,11 +300,16 @@ public class Stock {
                 continue;
             }
 
-            PricedQuantity newBatch = item.getBatch().add(product.getBatch());
-            product.setBatch(newBatch);
+            Product updated = new Product(product);
+            updated.setBatch(item.getBatch().add(product.getBatch()));
+            products.put(updated.id(), updated);
+            journal.updated(EntityKind.PRODUCT, updated);
         }
 
-        shipment.setAccounted(true);
+        Shipment accounted = new Shipment(shipment);
+        accounted.setAccounted(true);
+        shipments.put(shipmentId, accounted);
+        journal.updated(EntityKind.SHIPMENT, accounted);
     }
 
     /**
@@ -205,7 +348,33 @@ public class Stock {
      * @param supplier fornecedor a ser adicionado.
      */
     public void addSupplier(Supplier supplier) {
+        copyOnWrite();
         suppliers.put(supplier.id(), supplier);
+        journal.added(EntityKind.SUPPLIER, supplier);
+    }
+
+    /**
+     * Altera um fornecedor do estoque, substituindo-o por uma cópia alterada,
+     * como em {@link #updateProduct}.
+     * 
+     * @param supplierId identificador do fornecedor.
+     * @param change     alteração a ser aplicada à cópia.
+     * 
+     * @throws WorkshopException se o fornecedor não existir ou se a alteração
+     *                           for inválida, caso em que nada é alterado.
+     */
+    public void updateSupplier(int supplierId, Consumer<Supplier> change) {
+        Supplier supplier = suppliers.get(supplierId);
+        if (supplier == null) {
+            throw new WorkshopException("fornecedor não existe");
+        }
+
+        Supplier updated = new Supplier(supplier);
+        change.accept(updated);
+
+        copyOnWrite();
+        suppliers.put(supplierId, updated);
+        journal.updated(EntityKind.SUPPLIER, updated);
     }
 
     /**
@@ -214,7 +383,9 @@ public class Stock {
      * @param supplierId identificador do fornecedor a ser removido.
      */
     public void removeSupplier(int supplierId) {
+        copyOnWrite();
         suppliers.remove(supplierId);
+        journal.removed(EntityKind.SUPPLIER, supplierId);
     }
 
     /**
@@ -224,6 +395,6 @@ public class Stock {
      */
     @Override
     public String toString() {
-        return String.format("(%s %s %s)", products, shipments, suppliers);
+        return String.format("(%s %s %s)", products, shipments.values(), suppliers);
     }
 }
\ No newline at end of file
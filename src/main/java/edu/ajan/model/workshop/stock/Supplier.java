@@ -76,6 +76,17 @@ public class Supplier {
         this.setCnpj(cnpj);
     }
 
+    /**
+     * Construtor de cópia, que mantém o identificador do fornecedor copiado.
+     * 
+     * @param other fornecedor a ser copiado.
+     */
+    Supplier(Supplier other) {
+        this.id = other.id;
+        this.tradeName = other.tradeName;
+        this.cnpj = other.cnpj;
+    }
+
     /**
      * Retorna o identificador único do fornecedor.
      * 
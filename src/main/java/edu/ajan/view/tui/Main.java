@@ -1,5 +1,7 @@
 package edu.ajan.view.tui;
 
+import edu.ajan.model.persistence.Caretaker;
+import edu.ajan.model.workshop.Workshop;
 import edu.ajan.view.tui.shell.Shell;
 
 /**
@@ -10,7 +12,8 @@ public class Main {
     private static final int MAX_RETRY_ATTEMPTS = 10;
 
     /**
-     * Método principal que inicia a aplicação.
+     * Método principal que inicia a aplicação, carregando o estado da oficina
+     * antes do shell e salvando-o ao sair.
      * 
      * @param args argumentos de linha de comando (não utilizados).
      */
@@ -18,13 +21,15 @@ public class Main {
 
         try {
 
+            Caretaker.load();
+            Workshop.load();
+
             Shell shell = new Shell();
             shell.launch();
 
         } catch (Exception err) {
 
             System.err.printf("Exceção não capturada: %s\n", err.getMessage());
-            // TODO: Salvar o estado
 
         } catch (Error err) {
 
@@ -48,6 +53,21 @@ public class Main {
             }
 
             System.err.println("Falha na recuperação de erro. Estado comprometido. Terminando...");
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Salva o estado da oficina e espera a escrita do último snapshot, se
+     * houver, antes de a aplicação terminar.
+     */
+    private static void shutdown() {
+        try {
+            Workshop.save();
+            Workshop.close();
+        } catch (Exception err) {
+            System.err.printf("Falha ao salvar o estado: %s\n", err.getMessage());
         }
     }
 }
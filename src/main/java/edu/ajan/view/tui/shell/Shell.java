@@ -39,7 +39,8 @@ public class Shell {
      * subcontextos.
      */
     private static final Context ROOT = new Context(new Entry[] {
-            new Now()
+            new Now(),
+            new Utilization()
     });
 
     /**
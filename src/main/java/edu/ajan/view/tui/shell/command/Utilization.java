@@ -0,0 +1,70 @@
+package edu.ajan.view.tui.shell.command;
+
+import edu.ajan.model.exception.WorkshopException;
+import edu.ajan.model.workshop.Workshop;
+import edu.ajan.model.workshop.date.Dates;
+import edu.ajan.model.workshop.service.ElevatorMetrics;
+import edu.ajan.model.workshop.service.MetricsWindow;
+import edu.ajan.view.Console;
+import edu.ajan.view.tui.shell.entry.Command;
+import edu.ajan.view.tui.shell.exit.ExitCode;
+import edu.ajan.view.tui.shell.exit.ExitMessage;
+
+/**
+ * Comando que exibe as métricas de uso dos elevadores na última hora, no
+ * último dia ou na última semana: {@code ocupacao [hora|dia|semana]}.
+ *
+ * @author Alan Lima
+ */
+public class Utilization extends Command {
+
+    /**
+     * Janela usada quando nenhuma é informada.
+     */
+    private static final MetricsWindow DEFAULT_WINDOW = MetricsWindow.DAY;
+
+    public Utilization() {
+        super("ocupacao");
+    }
+
+    @Override
+    public ExitMessage execute(String[] args) {
+        MetricsWindow window = DEFAULT_WINDOW;
+
+        if (args.length > 1) {
+            window = MetricsWindow.fromLabel(args[1]);
+            if (window == null) {
+                return new ExitMessage(ExitCode.INVALID_ARGUMENT, "janela deve ser hora, dia ou semana: %s", args[1]);
+            }
+        }
+
+        Workshop workshop = Workshop.workshop();
+        if (workshop == null) {
+            return new ExitMessage(ExitCode.FAILURE, "oficina não foi carregada");
+        }
+
+        try {
+            Console.out.printf("%-8s %14s %14s %10s %14s %7s %14s %5s %7s%n",
+                    "elevador", "ocupado", "ocioso", "intervalos", "maior", "ordens", "média", "fila", "uso");
+
+            for (ElevatorMetrics metrics : workshop.scheduler().getMetrics(window, Dates.now())) {
+                Console.out.printf("%-8d %14s %14s %10d %14s %7d %14s %5d %6.1f%%%n",
+                        metrics.elevator(),
+                        Dates.formatAsInterval(metrics.getBooked()),
+                        Dates.formatAsInterval(metrics.getIdle()),
+                        metrics.getGaps(),
+                        Dates.formatAsInterval(metrics.getLongestGap()),
+                        metrics.getOrders(),
+                        Dates.formatAsInterval(metrics.getMeanDuration()),
+                        metrics.getQueue(),
+                        100 * metrics.utilization());
+            }
+
+            Console.out.flush();
+        } catch (WorkshopException err) {
+            return new ExitMessage(ExitCode.FAILURE, err.getMessage());
+        }
+
+        return new ExitMessage(ExitCode.SUCCESS);
+    }
+}
@@ -0,0 +1,220 @@
+package edu.ajan.model.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ajan.model.workshop.Workshop;
+import edu.ajan.model.workshop.common.Customer;
+import edu.ajan.model.workshop.common.Registry;
+
+/**
+ * Testes do curador de snapshots: cadeias de deltas, recuperação de snapshots
+ * corrompidos e poda pela política de retenção.
+ *
+ * @author Alan Lima
+ */
+class CaretakerTest {
+
+    /**
+     * Começa cada teste com uma oficina vazia, sem nenhum arquivo salvo.
+     *
+     * @throws IOException se os arquivos de um teste anterior não puderem ser
+     *                     apagados.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        Workshop.close();
+        WorkshopFiles.clear();
+        Caretaker.load();
+        Workshop.load();
+    }
+
+    /**
+     * Fecha a oficina e apaga os arquivos do teste.
+     *
+     * @throws IOException se os arquivos não puderem ser apagados.
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+        Workshop.close();
+        WorkshopFiles.clear();
+    }
+
+    /**
+     * Os snapshots seguidos com poucas alterações são salvos como deltas, cada
+     * um sobre o anterior, e a cadeia é lida de volta no estado de cada
+     * captura.
+     */
+    @Test
+    void readsDeltaChains() {
+        Registry registry = Workshop.workshop().registry();
+        for (int i = 0; i < 200; i++) {
+            registry.addCustomer(WorkshopFiles.customer("Cliente " + i, "Rua " + i));
+        }
+
+        assertTrue(checkpoint());
+
+        Caretaker caretaker = Caretaker.caretaker();
+        long previous = caretaker.head();
+        assertFalse(BinaryHandler.readSections(snapshotFilepath(previous)).isDelta());
+
+        for (int round = 0; round < 4; round++) {
+            int changed = 0;
+            for (Customer customer : registry.getCustomers()) {
+                if (changed++ % 40 == round) {
+                    String address = "Rua Nova " + round;
+                    registry.updateCustomer(customer.id(), c -> c.setAddress(address));
+                }
+            }
+
+            registry.removeCustomer(registry.getCustomers().iterator().next().id());
+            registry.addCustomer(WorkshopFiles.customer("Novo " + round, "Rua " + round));
+
+            assertTrue(checkpoint());
+
+            BinaryHandler.Sections sections = BinaryHandler.readSections(snapshotFilepath(caretaker.head()));
+            assertTrue(sections.isDelta());
+            assertEquals(previous, sections.baseId);
+            previous = caretaker.head();
+        }
+
+        TreeMap<Integer, String> expected = WorkshopFiles.customers(registry);
+
+        Snapshot snapshot = caretaker.loadSnapshot();
+        assertNotNull(snapshot);
+        assertEquals(expected, WorkshopFiles.customers(snapshot.workshop().registry()));
+
+        WorkshopFiles.restart();
+
+        assertEquals(previous, Caretaker.caretaker().head());
+        assertEquals(expected, WorkshopFiles.customers(Workshop.workshop().registry()));
+    }
+
+    /**
+     * Um snapshot com uma seção corrompida é descartado, e a oficina é
+     * recuperada pelo snapshot anterior e o seu diário, sem perder nenhuma
+     * alteração confirmada.
+     *
+     * @throws IOException se o snapshot não puder ser corrompido.
+     */
+    @Test
+    void fallsBackOnCorruptSection() throws IOException {
+        Registry registry = Workshop.workshop().registry();
+        for (int i = 0; i < 100; i++) {
+            registry.addCustomer(WorkshopFiles.customer("Cliente " + i, "Rua " + i));
+        }
+
+        assertTrue(checkpoint());
+        long first = Caretaker.caretaker().head();
+
+        for (int i = 0; i < 100; i++) {
+            registry.addCustomer(WorkshopFiles.customer("Outro " + i, "Rua " + i));
+        }
+
+        Workshop.save();
+        assertTrue(checkpoint());
+
+        TreeMap<Integer, String> expected = WorkshopFiles.customers(registry);
+        Workshop.close();
+
+        Path filepath = snapshotFilepath(Caretaker.caretaker().head());
+        assertTrue(SnapshotFormat.BINARY.validate(filepath));
+
+        try (RandomAccessFile file = new RandomAccessFile(filepath.toFile(), "rw")) {
+            long position = file.length() / 2;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0x40);
+        }
+
+        assertFalse(SnapshotFormat.BINARY.validate(filepath));
+
+        WorkshopFiles.restart();
+
+        assertEquals(first, Caretaker.caretaker().head());
+        assertEquals(expected, WorkshopFiles.customers(Workshop.workshop().registry()));
+    }
+
+    /**
+     * A poda apaga apenas os arquivos de snapshot e de diário dos snapshots
+     * descartados pela política, e os arquivos temporários, mantendo os
+     * demais arquivos do diretório.
+     *
+     * @throws IOException se os arquivos de teste não puderem ser criados.
+     */
+    @Test
+    void prunesDroppedSnapshots() throws IOException {
+        Caretaker.caretaker().setRetention(new RetentionPolicy(2, 0, 0, 0, 0));
+
+        Path directory = JsonHandler.getSnapshotDirectory();
+        Files.createDirectories(directory);
+
+        Path foreign = directory.resolve("foreign.wksb");
+        Path temporary = directory.resolve("interrupted.wksb.tmp");
+        Files.writeString(foreign, "foreign");
+        Files.writeString(temporary, "interrupted");
+
+        // Cada execução começa com um snapshot completo, que não depende dos anteriores
+        List<Long> heads = new ArrayList<>();
+        for (int run = 0; run < 4; run++) {
+            Workshop.workshop().registry().addCustomer(WorkshopFiles.customer("Cliente " + run, "Rua " + run));
+            assertTrue(checkpoint());
+            heads.add(Caretaker.caretaker().head());
+            WorkshopFiles.restart();
+        }
+
+        List<Long> history = new ArrayList<>();
+        Caretaker.caretaker().getHistory().forEach(history::add);
+        assertEquals(heads.subList(2, 4), history);
+
+        for (long id : heads.subList(0, 2)) {
+            assertFalse(Files.exists(snapshotFilepath(id)));
+            assertFalse(Files.exists(JsonHandler.getJournalFilepath(id)));
+        }
+
+        for (long id : heads.subList(2, 4)) {
+            assertTrue(Files.exists(snapshotFilepath(id)));
+        }
+
+        assertTrue(Files.exists(foreign));
+        assertFalse(Files.exists(temporary));
+        assertEquals(4, WorkshopFiles.customers(Workshop.workshop().registry()).size());
+    }
+
+    /**
+     * Confirma o diário e captura um snapshot, esperando a sua escrita.
+     *
+     * @return {@code true} se o snapshot foi salvo e registrado.
+     */
+    private static boolean checkpoint() {
+        Workshop.save();
+        boolean saved = Workshop.checkpoint().join();
+        Workshop.save();
+        return saved;
+    }
+
+    /**
+     * Retorna o caminho do arquivo binário de um snapshot.
+     *
+     * @param id identificador do snapshot.
+     * @return caminho do arquivo.
+     */
+    private static Path snapshotFilepath(long id) {
+        return JsonHandler.getSnapshotFilepath(id, SnapshotFormat.BINARY);
+    }
+}
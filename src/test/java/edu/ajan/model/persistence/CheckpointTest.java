@@ -0,0 +1,161 @@
+package edu.ajan.model.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ajan.model.auth.AccessLevel;
+import edu.ajan.model.workshop.Workshop;
+import edu.ajan.model.workshop.common.Registry;
+import edu.ajan.model.workshop.date.DateSpan;
+import edu.ajan.model.workshop.staff.Employee;
+import edu.ajan.model.workshop.staff.MemberBase;
+import edu.ajan.model.workshop.staff.StaffMember;
+
+/**
+ * Testes da captura de snapshots com a oficina sendo alterada durante a
+ * escrita em segundo plano.
+ *
+ * @author Alan Lima
+ */
+class CheckpointTest {
+
+    /**
+     * Começa cada teste com uma oficina vazia, sem nenhum arquivo salvo.
+     *
+     * @throws IOException se os arquivos de um teste anterior não puderem ser
+     *                     apagados.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        Workshop.close();
+        WorkshopFiles.clear();
+        Caretaker.load();
+        Workshop.load();
+    }
+
+    /**
+     * Fecha a oficina e apaga os arquivos do teste.
+     *
+     * @throws IOException se os arquivos não puderem ser apagados.
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+        Workshop.close();
+        WorkshopFiles.clear();
+    }
+
+    /**
+     * O snapshot traz o estado do momento da captura, e as alterações feitas
+     * durante a escrita vão para o diário do novo snapshot.
+     */
+    @Test
+    void snapshotKeepsCapturedState() {
+        Registry registry = Workshop.workshop().registry();
+        for (int i = 0; i < 500; i++) {
+            registry.addCustomer(WorkshopFiles.customer("Cliente " + i, "Rua " + i));
+        }
+
+        Workshop.save();
+        TreeMap<Integer, String> captured = WorkshopFiles.customers(registry);
+
+        CompletableFuture<Boolean> pending = Workshop.checkpoint();
+
+        List<Integer> ids = new ArrayList<>(captured.keySet());
+        for (int id : ids) {
+            registry.updateCustomer(id, customer -> customer.setAddress("Avenida"));
+        }
+
+        registry.removeCustomer(ids.get(0));
+        registry.addCustomer(WorkshopFiles.customer("Novo", "Rua Nova"));
+
+        assertTrue(pending.join());
+        Workshop.save();
+
+        TreeMap<Integer, String> expected = WorkshopFiles.customers(registry);
+
+        Snapshot snapshot = Caretaker.caretaker().loadSnapshot();
+        assertNotNull(snapshot);
+        assertEquals(captured, WorkshopFiles.customers(snapshot.workshop().registry()));
+
+        WorkshopFiles.restart();
+
+        assertEquals(expected, WorkshopFiles.customers(Workshop.workshop().registry()));
+    }
+
+    /**
+     * Alterações seguidas enquanto o snapshot é escrito não fazem a escrita
+     * falhar, e nenhuma delas se perde ao recarregar a oficina.
+     */
+    @Test
+    void editsDuringWriteAreKept() {
+        MemberBase memberbase = Workshop.workshop().memberbase();
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Employee employee = new Employee("Funcionário " + i, "(11) 91234-5678", "529.982.247-25", 100,
+                    "senha123", AccessLevel.USER);
+            for (int k = 0; k < 100; k++) {
+                employee.addShift(new DateSpan(k * 10_000L, k * 10_000L + 5_000L));
+            }
+
+            memberbase.addMember(employee);
+            ids.add(employee.id());
+        }
+
+        Workshop.save();
+
+        long time = 10_000_000L;
+        for (int round = 0; round < 10; round++) {
+            CompletableFuture<Boolean> pending = Workshop.checkpoint();
+
+            int edits = 0;
+            while (!pending.isDone() || edits < ids.size()) {
+                long start = time;
+                memberbase.updateMember(ids.get(edits++ % ids.size()),
+                        member -> ((Employee) member).addShift(new DateSpan(start, start + 5L)));
+                time += 10L;
+            }
+
+            assertTrue(pending.join());
+            Workshop.save();
+        }
+
+        TreeMap<Integer, Integer> expected = shifts(memberbase);
+
+        WorkshopFiles.restart();
+
+        assertEquals(expected, shifts(Workshop.workshop().memberbase()));
+    }
+
+    /**
+     * Retorna a quantidade de turnos de cada funcionário de uma base.
+     *
+     * @param memberbase base de membros.
+     * @return quantidade de turnos indexada pelo identificador do funcionário.
+     */
+    private static TreeMap<Integer, Integer> shifts(MemberBase memberbase) {
+        TreeMap<Integer, Integer> shifts = new TreeMap<>();
+
+        for (StaffMember member : memberbase.getMembers()) {
+            int count = 0;
+            for (DateSpan ignored : ((Employee) member).getShifts()) {
+                count++;
+            }
+
+            shifts.put(member.id(), count);
+        }
+
+        return shifts;
+    }
+}
@@ -0,0 +1,116 @@
+package edu.ajan.model.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ajan.model.workshop.Workshop;
+import edu.ajan.model.workshop.common.Customer;
+import edu.ajan.model.workshop.common.Registry;
+
+/**
+ * Testes da reprodução do diário de operações ao recarregar a oficina.
+ *
+ * @author Alan Lima
+ */
+class JournalTest {
+
+    /**
+     * Começa cada teste com uma oficina vazia, sem nenhum arquivo salvo.
+     *
+     * @throws IOException se os arquivos de um teste anterior não puderem ser
+     *                     apagados.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        Workshop.close();
+        WorkshopFiles.clear();
+        Caretaker.load();
+        Workshop.load();
+    }
+
+    /**
+     * Fecha a oficina e apaga os arquivos do teste.
+     *
+     * @throws IOException se os arquivos não puderem ser apagados.
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+        Workshop.close();
+        WorkshopFiles.clear();
+    }
+
+    /**
+     * As transações confirmadas são reproduzidas sobre a oficina recarregada,
+     * e as operações não confirmadas são descartadas.
+     */
+    @Test
+    void replaysCommittedTransactions() {
+        Registry registry = Workshop.workshop().registry();
+
+        Customer kept = WorkshopFiles.customer("Ana", "Rua A");
+        Customer updated = WorkshopFiles.customer("Bruno", "Rua B");
+        Customer removed = WorkshopFiles.customer("Carla", "Rua C");
+        registry.addCustomer(kept);
+        registry.addCustomer(updated);
+        registry.addCustomer(removed);
+        registry.updateCustomer(updated.id(), customer -> customer.setAddress("Rua Nova"));
+        registry.removeCustomer(removed.id());
+        Workshop.save();
+
+        TreeMap<Integer, String> committed = WorkshopFiles.customers(registry);
+
+        registry.addCustomer(WorkshopFiles.customer("Davi", "Rua D"));
+
+        WorkshopFiles.restart();
+
+        assertFalse(Caretaker.caretaker().hasSnapshots());
+        assertEquals(committed, WorkshopFiles.customers(Workshop.workshop().registry()));
+
+        // A contagem de instâncias volta à da última confirmação
+        Customer next = WorkshopFiles.customer("Eva", "Rua E");
+        assertTrue(next.id() > committed.lastKey());
+    }
+
+    /**
+     * Uma linha incompleta ao final do diário, deixada por uma queda, é
+     * cortada, e as transações seguintes continuam sendo lidas.
+     *
+     * @throws IOException se o diário não puder ser alterado.
+     */
+    @Test
+    void dropsTornTail() throws IOException {
+        Registry registry = Workshop.workshop().registry();
+        registry.addCustomer(WorkshopFiles.customer("Ana", "Rua A"));
+        Workshop.save();
+        Workshop.close();
+
+        Path filepath = JsonHandler.getJournalFilepath(Journal.NO_SNAPSHOT);
+        Files.writeString(filepath, "{\"op\":\"ADD\",\"kind\":", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        WorkshopFiles.restart();
+
+        registry = Workshop.workshop().registry();
+        assertEquals(1, WorkshopFiles.customers(registry).size());
+
+        registry.addCustomer(WorkshopFiles.customer("Bruno", "Rua B"));
+        Workshop.save();
+
+        TreeMap<Integer, String> committed = WorkshopFiles.customers(registry);
+
+        WorkshopFiles.restart();
+
+        assertEquals(committed, WorkshopFiles.customers(Workshop.workshop().registry()));
+    }
+}
@@ -0,0 +1,212 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import edu.ajan.model.workshop.Workshop;
+import edu.ajan.model.workshop.common.Customer;
+import edu.ajan.model.workshop.common.Registry;
+import edu.ajan.model.workshop.common.Vehicle;
+import edu.ajan.model.workshop.financial.Expense;
+import edu.ajan.model.workshop.financial.Financial;
+import edu.ajan.model.workshop.financial.Invoice;
+import edu.ajan.model.workshop.money.Money;
+import edu.ajan.model.workshop.service.Scheduler;
+import edu.ajan.model.workshop.staff.MemberBase;
+import edu.ajan.model.workshop.stock.Item;
+import edu.ajan.model.workshop.stock.PricedQuantity;
+import edu.ajan.model.workshop.stock.Product;
+import edu.ajan.model.workshop.stock.Shipment;
+import edu.ajan.model.workshop.stock.Stock;
+import edu.ajan.model.workshop.stock.Supplier;
+
+/**
+ * Classe que compara a vazão de escrita e de leitura dos snapshots em cada
+ * formato e codec de compressão, sobre oficinas sintéticas.
+ *
+ * <p> Os tamanhos das oficinas, em quantidade de entidades, são passados como
+ * argumentos; sem argumentos, são usadas oficinas de 10 mil, 100 mil e 1 milhão
+ * de entidades. Os arquivos são escritos num diretório temporário, apagado ao
+ * final, e lidos sem preguiça, com todos os sistemas materializados.
+ *
+ * <p> A classe fica entre os testes, fora da aplicação, e é executada à parte
+ * pelo seu método principal, com as classes de teste no classpath.
+ *
+ * @author Alan Lima
+ */
+public final class SnapshotBenchmark {
+
+    /**
+     * Tamanhos padrão das oficinas sintéticas, em quantidade de entidades.
+     */
+    private static final int[] DEFAULT_SIZES = { 10_000, 100_000, 1_000_000 };
+
+    /**
+     * Quantidade de entidades criadas a cada rodada da oficina sintética.
+     */
+    private static final int ENTITIES_PER_ROUND = 7;
+
+    /**
+     * Data base das entidades sintéticas, em milissegundos.
+     */
+    private static final long BASE_DATE = 1_700_000_000_000L;
+
+    /**
+     * Construtor privado.
+     */
+    private SnapshotBenchmark() {
+
+    }
+
+    /**
+     * Executa a comparação.
+     *
+     * @param args tamanhos das oficinas sintéticas, em quantidade de entidades.
+     * @throws IOException se o diretório temporário não puder ser criado.
+     */
+    public static void main(String[] args) throws IOException {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        Path directory = Files.createTempDirectory("workshop-benchmark");
+
+        try {
+            System.out.printf("%-10s %-7s %-8s %12s %10s %10s %10s %10s%n",
+                    "entidades", "formato", "codec", "bytes", "escrita", "MB/s", "leitura", "MB/s");
+
+            for (int size : sizes) {
+                InstanceCountState state = InstanceCountState.capture();
+                Snapshot snapshot = new Snapshot(synthetic(size), InstanceCountState.capture());
+                InstanceCountState.restore(state);
+
+                for (SnapshotFormat format : SnapshotFormat.values()) {
+                    for (SnapshotCodec codec : SnapshotCodec.values()) {
+                        run(directory, size, snapshot, format, codec);
+                    }
+                }
+            }
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Escreve e lê um snapshot num formato e codec, imprimindo o tamanho do
+     * arquivo e a vazão de cada operação.
+     *
+     * @param directory diretório temporário.
+     * @param size      quantidade de entidades da oficina.
+     * @param snapshot  snapshot a ser escrito.
+     * @param format    formato do snapshot.
+     * @param codec     codec de compressão.
+     * @throws IOException se o tamanho do arquivo não puder ser lido.
+     */
+    private static void run(Path directory, int size, Snapshot snapshot, SnapshotFormat format,
+            SnapshotCodec codec) throws IOException {
+
+        String extension = format.extension();
+        if (format == SnapshotFormat.JSON && codec != SnapshotCodec.NONE) {
+            extension += "." + codec.extension();
+        }
+
+        Path filename = directory.resolve(String.format("workshop-%d-%s.%s", size, codec.name(), extension));
+        InstanceCountState state = InstanceCountState.capture();
+
+        long start = System.nanoTime();
+        boolean saved = format.save(snapshot, filename, codec);
+        long written = System.nanoTime() - start;
+
+        if (!saved) {
+            System.out.printf("%-10d %-7s %-8s falha na escrita%n", size, format.extension(), codec);
+            return;
+        }
+
+        start = System.nanoTime();
+        Snapshot loaded = format.load(filename, codec, false);
+        if (loaded != null) {
+            loaded.workshop().materialize();
+        }
+        long read = System.nanoTime() - start;
+
+        InstanceCountState.restore(state);
+
+        long bytes = Files.size(filename);
+        Files.delete(filename);
+
+        if (loaded == null) {
+            System.out.printf("%-10d %-7s %-8s falha na leitura%n", size, format.extension(), codec);
+            return;
+        }
+
+        System.out.printf("%-10d %-7s %-8s %12d %8.0fms %10.1f %8.0fms %10.1f%n",
+                size, format.extension(), codec, bytes,
+                written / 1e6, throughput(bytes, written),
+                read / 1e6, throughput(bytes, read));
+    }
+
+    /**
+     * Calcula a vazão de uma operação sobre um arquivo.
+     *
+     * @param bytes tamanho do arquivo, em bytes.
+     * @param nanos duração da operação, em nanossegundos.
+     * @return vazão, em megabytes por segundo.
+     */
+    private static double throughput(long bytes, long nanos) {
+        return nanos > 0 ? bytes / 1e6 / (nanos / 1e9) : 0;
+    }
+
+    /**
+     * Cria uma oficina sintética com aproximadamente uma quantidade de
+     * entidades, repartidas entre clientes, veículos, despesas, notas fiscais,
+     * produtos, remessas e fornecedores.
+     *
+     * @param size quantidade aproximada de entidades.
+     * @return oficina sintética.
+     */
+    private static Workshop synthetic(int size) {
+        Registry registry = new Registry();
+        Financial financial = new Financial();
+        Stock stock = new Stock();
+
+        for (int i = 0; i < Math.max(size / ENTITIES_PER_ROUND, 1); i++) {
+            long date = BASE_DATE + i * 3_600_000L;
+
+            registry.addCustomer(new Customer("Cliente " + i, "(11) 91234-5678", "529.982.247-25",
+                    "Rua " + i, "cliente" + i + "@email.com"));
+            registry.addVehicle(new Vehicle("Modelo " + i % 50, "ABC1234", 1990 + i % 35));
+
+            financial.addExpense(new Expense("Despesa " + i % 20, "Conta mensal", Money.of(10.25 + i % 1000), date));
+            Item[] products = { new Item(1 + i % 100, new PricedQuantity(1 + i % 4, Money.of(3.5 + i % 10))) };
+            financial.addInvoice(new Invoice(1 + i % 1000, products, new Item[0], Money.of(i % 7), date));
+
+            stock.addProduct(new Product("Produto " + i % 500, new PricedQuantity(5 + i % 10, Money.of(20.0)), "L"));
+            Shipment shipment = new Shipment(1 + i % 100, Money.of(3.0), date, i % 2 == 0);
+            shipment.addItem(new Item(1 + i % 100, new PricedQuantity(4, Money.of(5.0))));
+            stock.addShipment(shipment);
+            stock.addSupplier(new Supplier("Fornecedor " + i, "11.222.333/0001-81"));
+        }
+
+        return new Workshop(registry, new MemberBase(), financial, new Scheduler(), stock);
+    }
+
+    /**
+     * Retorna uma representação textual da comparação.
+     *
+     * @return representação textual da comparação.
+     */
+    @Override
+    public String toString() {
+        return "()";
+    }
+}
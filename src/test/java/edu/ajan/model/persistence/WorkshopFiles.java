@@ -0,0 +1,87 @@
+package edu.ajan.model.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import edu.ajan.model.workshop.Workshop;
+import edu.ajan.model.workshop.common.Customer;
+import edu.ajan.model.workshop.common.Registry;
+
+/**
+ * Classe de apoio aos testes de persistência, que limpa os arquivos da oficina
+ * e simula o reinício da aplicação.
+ *
+ * <p> Os arquivos ficam no diretório da oficina relativo ao diretório de
+ * trabalho, que o Maven aponta para dentro de {@code target} ao executar os
+ * testes.
+ *
+ * @author Alan Lima
+ */
+final class WorkshopFiles {
+
+    /**
+     * Construtor privado, a classe não deve ser instanciada.
+     */
+    private WorkshopFiles() {
+    }
+
+    /**
+     * Apaga o diretório da oficina, com todos os seus arquivos.
+     *
+     * @throws IOException se algum arquivo não puder ser apagado.
+     */
+    static void clear() throws IOException {
+        Path root = JsonHandler.getCaretakerFilepath().getParent();
+        if (!Files.exists(root)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Simula o reinício da aplicação, fechando a oficina em uso e carregando o
+     * curador e a oficina dos arquivos.
+     */
+    static void restart() {
+        Workshop.close();
+        Caretaker.load();
+        Workshop.load();
+    }
+
+    /**
+     * Retorna os clientes de um registro, como nome e endereço indexados pelo
+     * identificador, para comparação.
+     *
+     * @param registry registro.
+     * @return clientes do registro.
+     */
+    static TreeMap<Integer, String> customers(Registry registry) {
+        TreeMap<Integer, String> customers = new TreeMap<>();
+
+        for (Customer customer : registry.getCustomers()) {
+            customers.put(customer.id(), customer.getName() + " / " + customer.getAddress());
+        }
+
+        return customers;
+    }
+
+    /**
+     * Cria um cliente válido.
+     *
+     * @param name    nome do cliente.
+     * @param address endereço do cliente.
+     * @return cliente criado.
+     */
+    static Customer customer(String name, String address) {
+        return new Customer(name, "(11) 91234-5678", "529.982.247-25", address, "cliente@oficina.com");
+    }
+}